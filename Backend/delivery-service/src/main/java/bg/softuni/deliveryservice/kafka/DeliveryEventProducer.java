@@ -5,8 +5,15 @@ import bg.softuni.events.delivery.DeliveryRegisteredEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes events to Order Service.
+ * Sends are asynchronous; callers decide when to wait for the broker ack.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -17,13 +24,13 @@ public class DeliveryEventProducer {
     private static final String DELIVERY_REGISTERED_TOPIC = "delivery.registered";
     private static final String DELIVERY_COMPLETED_TOPIC = "delivery.completed";
 
-    public void publishDeliveryRegistered(DeliveryRegisteredEvent event) {
+    public CompletableFuture<SendResult<String, Object>> publishDeliveryRegistered(DeliveryRegisteredEvent event) {
         log.info("📤 Publishing DeliveryRegisteredEvent for order {}", event.getOrderId());
-        kafkaTemplate.send(DELIVERY_REGISTERED_TOPIC, event.getOrderId().toString(), event);
+        return kafkaTemplate.send(DELIVERY_REGISTERED_TOPIC, event.getOrderId().toString(), event);
     }
 
-    public void publishDeliveryCompleted(DeliveryCompletedEvent event) {
+    public CompletableFuture<SendResult<String, Object>> publishDeliveryCompleted(DeliveryCompletedEvent event) {
         log.info("📤 Publishing DeliveryCompletedEvent for order {}", event.getOrderId());
-        kafkaTemplate.send(DELIVERY_COMPLETED_TOPIC, event.getOrderId().toString(), event);
+        return kafkaTemplate.send(DELIVERY_COMPLETED_TOPIC, event.getOrderId().toString(), event);
     }
 }
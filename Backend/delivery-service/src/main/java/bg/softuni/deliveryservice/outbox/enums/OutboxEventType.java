@@ -0,0 +1,6 @@
+package bg.softuni.deliveryservice.outbox.enums;
+
+public enum OutboxEventType {
+    DELIVERY_REGISTERED,
+    DELIVERY_COMPLETED,
+}
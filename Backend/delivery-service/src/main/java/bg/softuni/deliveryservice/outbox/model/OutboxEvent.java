@@ -0,0 +1,55 @@
+package bg.softuni.deliveryservice.outbox.model;
+
+import bg.softuni.deliveryservice.outbox.enums.OutboxEventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Event written in the same transaction as the delivery state change
+ * and relayed to Kafka by {@code DeliveryOutboxScheduler}.
+ */
+@Entity
+@Table(name = "delivery_outbox_events",
+        indexes = {
+                @Index(name = "idx_delivery_outbox_pending", columnList = "processed, created_at"),
+                @Index(name = "idx_delivery_outbox_order", columnList = "order_id, created_at")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payloadJson;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType eventType;
+
+    private boolean processed;
+
+    /**
+     * Failed relay attempts. Once it reaches {@code delivery.outbox.max-attempts}
+     * the event is dead-lettered: it stays unprocessed but is no longer relayed.
+     */
+    private int attempts;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime processedAt;
+}
@@ -0,0 +1,50 @@
+package bg.softuni.deliveryservice.outbox.repository;
+
+import bg.softuni.deliveryservice.outbox.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Locks the next batch of pending events, skipping rows another relay instance
+     * already holds. Only the oldest pending event of each order is eligible, so
+     * two instances never relay events of the same order out of order.
+     * Dead-lettered events (attempts exhausted) no longer block their order.
+     */
+    @Query(value = """
+            SELECT e.* FROM delivery_outbox_events e
+            WHERE e.processed = false
+              AND e.attempts < :maxAttempts
+              AND NOT EXISTS (
+                  SELECT 1 FROM delivery_outbox_events earlier
+                  WHERE earlier.order_id = e.order_id
+                    AND earlier.processed = false
+                    AND earlier.attempts < :maxAttempts
+                    AND earlier.created_at < e.created_at)
+            ORDER BY e.created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.processed = true, e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<UUID> ids, @Param("processedAt") OffsetDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int incrementAttempts(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,142 @@
+package bg.softuni.deliveryservice.outbox.schedule;
+
+import bg.softuni.deliveryservice.kafka.DeliveryEventProducer;
+import bg.softuni.deliveryservice.outbox.model.OutboxEvent;
+import bg.softuni.deliveryservice.outbox.repository.OutboxEventRepository;
+import bg.softuni.events.delivery.DeliveryCompletedEvent;
+import bg.softuni.events.delivery.DeliveryRegisteredEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Relays pending outbox events to Kafka in batches.
+ *
+ * Each batch is locked with {@code FOR UPDATE SKIP LOCKED} for the duration of
+ * its transaction, so several instances can relay concurrently without sending
+ * the same event twice. A batch holds at most the oldest pending event of each
+ * order, so a failed send never lets a later event for that order overtake it.
+ * All events of a batch are sent asynchronously and acknowledged together;
+ * only acked events are marked processed. An event that fails
+ * {@code delivery.outbox.max-attempts} times is dead-lettered and logged.
+ * Delivery is at-least-once; together with the idempotent producer and the
+ * idempotent status updates in Order Service this is exactly-once-effective.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryOutboxScheduler {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final DeliveryEventProducer deliveryEventProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${delivery.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${delivery.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${delivery.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Scheduled(fixedDelayString = "${delivery.outbox.poll-interval-ms:1000}")
+    public void processOutbox() {
+        int relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Sends one batch and returns how many events were acknowledged.
+     * Must run inside a transaction, which holds the batch's row locks.
+     */
+    public int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(maxAttempts, batchSize);
+
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, CompletableFuture<?>> sends = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            sends.put(event.getId(), send(event));
+        }
+
+        awaitAcks(sends.values());
+
+        List<UUID> acked = new ArrayList<>();
+        List<UUID> failed = new ArrayList<>();
+        sends.forEach((id, send) -> {
+            if (send.isDone() && !send.isCompletedExceptionally()) {
+                acked.add(id);
+            } else {
+                failed.add(id);
+            }
+        });
+
+        if (!acked.isEmpty()) {
+            outboxEventRepository.markProcessed(acked, OffsetDateTime.now());
+        }
+
+        if (!failed.isEmpty()) {
+            outboxEventRepository.incrementAttempts(failed);
+            log.warn("⚠️ {} of {} outbox events were not acknowledged and will be retried",
+                    failed.size(), events.size());
+            logDeadLettered(events, failed);
+        }
+
+        log.debug("📤 Relayed {} outbox events", acked.size());
+
+        // A partially failed batch stops the drain loop until the next tick
+        return failed.isEmpty() ? acked.size() : 0;
+    }
+
+    private void logDeadLettered(List<OutboxEvent> events, Collection<UUID> failed) {
+        for (OutboxEvent event : events) {
+            if (failed.contains(event.getId()) && event.getAttempts() + 1 >= maxAttempts) {
+                log.error("☠️ Outbox event {} ({}) for order {} dead-lettered after {} attempts",
+                        event.getId(), event.getEventType(), event.getOrderId(), maxAttempts);
+            }
+        }
+    }
+
+    private CompletableFuture<?> send(OutboxEvent event) {
+        try {
+            return switch (event.getEventType()) {
+                case DELIVERY_REGISTERED -> deliveryEventProducer.publishDeliveryRegistered(
+                        objectMapper.readValue(event.getPayloadJson(), DeliveryRegisteredEvent.class));
+                case DELIVERY_COMPLETED -> deliveryEventProducer.publishDeliveryCompleted(
+                        objectMapper.readValue(event.getPayloadJson(), DeliveryCompletedEvent.class));
+            };
+        } catch (Exception ex) {
+            log.error("❌ Failed to send outbox event {}", event.getId(), ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void awaitAcks(Collection<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Individual futures are inspected by the caller
+            log.error("❌ Outbox batch was not fully acknowledged", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bg.softuni.deliveryservice.outbox.service;
+
+import bg.softuni.deliveryservice.outbox.enums.OutboxEventType;
+import bg.softuni.deliveryservice.outbox.model.OutboxEvent;
+import bg.softuni.deliveryservice.outbox.repository.OutboxEventRepository;
+import bg.softuni.events.delivery.DeliveryCompletedEvent;
+import bg.softuni.events.delivery.DeliveryRegisteredEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Stores outgoing delivery events in the outbox table.
+ * Must be called inside the transaction that changes the delivery,
+ * so the event is committed (or rolled back) together with it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryOutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDeliveryRegistered(DeliveryRegisteredEvent event) {
+        enqueue(event.getOrderId(), OutboxEventType.DELIVERY_REGISTERED, event);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDeliveryCompleted(DeliveryCompletedEvent event) {
+        enqueue(event.getOrderId(), OutboxEventType.DELIVERY_COMPLETED, event);
+    }
+
+    private void enqueue(UUID orderId, OutboxEventType eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + eventType + " event", e);
+        }
+
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .orderId(orderId)
+                .eventType(eventType)
+                .payloadJson(json)
+                .processed(false)
+                .createdAt(OffsetDateTime.now())
+                .build();
+
+        outboxEventRepository.save(outboxEvent);
+
+        log.debug("📥 Outbox event {} stored for order {}", eventType, orderId);
+    }
+}
@@ -2,9 +2,9 @@ package bg.softuni.deliveryservice.service;
 
 
 import bg.softuni.deliveryservice.external.dto.CourierRegistrationResponse;
-import bg.softuni.deliveryservice.kafka.DeliveryEventProducer;
 import bg.softuni.deliveryservice.model.Delivery;
 import bg.softuni.deliveryservice.model.DeliveryStatus;
+import bg.softuni.deliveryservice.outbox.service.DeliveryOutboxService;
 import bg.softuni.deliveryservice.repository.DeliveryRepository;
 import bg.softuni.events.delivery.DeliveryCompletedEvent;
 import bg.softuni.events.delivery.DeliveryRegisteredEvent;
@@ -27,14 +27,14 @@ public class DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
     private final CourierApiService courierApiService;
-    private final DeliveryEventProducer eventProducer;
+    private final DeliveryOutboxService outboxService;
 
     @Value("${delivery.testing-mode:true}")
     private boolean testingMode;
 
     /**
      * Handles incoming delivery request from Order Service.
-     * Registers delivery with courier and publishes confirmation event.
+     * Registers delivery with courier and stores the confirmation event in the outbox.
      */
     @Transactional
     public void startDelivery(StartDeliveryEvent event) {
@@ -105,7 +105,7 @@ public class DeliveryService {
 
         deliveryRepository.save(delivery);
 
-        // Publish event to Order Service
+        // Queue event for Order Service (relayed by DeliveryOutboxScheduler)
         DeliveryRegisteredEvent event = new DeliveryRegisteredEvent(
                 delivery.getOrderId(),
                 delivery.getId(),
@@ -113,7 +113,7 @@ public class DeliveryService {
                 "Test Courier"
         );
 
-        eventProducer.publishDeliveryRegistered(event);
+        outboxService.enqueueDeliveryRegistered(event);
 
         log.info("✅ Courier registered for order {} with tracking: {}",
                 delivery.getOrderId(), trackingNumber);
@@ -144,7 +144,7 @@ public class DeliveryService {
             log.warn("⚠️ Delivery {} has EMPTY itemIds list!", delivery.getId());
         }
 
-        // Publish event to Order Service
+        // Queue event for Order Service (relayed by DeliveryOutboxScheduler)
         DeliveryCompletedEvent event = new DeliveryCompletedEvent(
                 delivery.getOrderId(),
                 itemIdsToSend,  // ⭐ Вече не е null
@@ -152,9 +152,9 @@ public class DeliveryService {
                 LocalDateTime.now().toString()
         );
 
-        log.info("📤 Sending DeliveryCompletedEvent with {} item IDs", itemIdsToSend.size());
+        log.info("📥 Queueing DeliveryCompletedEvent with {} item IDs", itemIdsToSend.size());
 
-        eventProducer.publishDeliveryCompleted(event);
+        outboxService.enqueueDeliveryCompleted(event);
 
         log.info("✅ Delivery completed for order {} with {} items",
                 delivery.getOrderId(), itemIdsToSend.size());
@@ -179,14 +179,14 @@ public class DeliveryService {
             delivery.setRegisteredAt(LocalDateTime.now());
             deliveryRepository.save(delivery);
 
-            // Publish event to Order Service
+            // Queue event for Order Service (relayed by DeliveryOutboxScheduler)
             DeliveryRegisteredEvent event = new DeliveryRegisteredEvent(
                     delivery.getOrderId(),
                     delivery.getId(),
                     response.getTrackingNumber(),
                     response.getCourierName()
             );
-            eventProducer.publishDeliveryRegistered(event);
+            outboxService.enqueueDeliveryRegistered(event);
 
             log.info("✅ Delivery registered with courier: {}", response.getTrackingNumber());
 
@@ -220,7 +220,7 @@ public class DeliveryService {
             itemIdsToSend = Collections.emptyList();
         }
 
-        // Publish event to Order Service
+        // Queue event for Order Service (relayed by DeliveryOutboxScheduler)
         DeliveryCompletedEvent event = new DeliveryCompletedEvent(
                 delivery.getOrderId(),
                 itemIdsToSend,  // ⭐ Вече не е null
@@ -228,9 +228,9 @@ public class DeliveryService {
                 LocalDateTime.now().toString()
         );
 
-        eventProducer.publishDeliveryCompleted(event);
+        outboxService.enqueueDeliveryCompleted(event);
 
-        log.info("✅ Delivery completion event published for order {} with {} items",
+        log.info("✅ Delivery completion event queued for order {} with {} items",
                 delivery.getOrderId(), itemIdsToSend.size());
     }
 }
@@ -0,0 +1,153 @@
+package bg.softuni.deliveryservice.outbox.schedule;
+
+import bg.softuni.deliveryservice.kafka.DeliveryEventProducer;
+import bg.softuni.deliveryservice.outbox.enums.OutboxEventType;
+import bg.softuni.deliveryservice.outbox.model.OutboxEvent;
+import bg.softuni.deliveryservice.outbox.repository.OutboxEventRepository;
+import bg.softuni.events.delivery.DeliveryCompletedEvent;
+import bg.softuni.events.delivery.DeliveryRegisteredEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryOutboxSchedulerTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private DeliveryEventProducer deliveryEventProducer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DeliveryOutboxScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new DeliveryOutboxScheduler(outboxEventRepository, deliveryEventProducer, objectMapper,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(scheduler, "batchSize", 100);
+        ReflectionTestUtils.setField(scheduler, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(scheduler, "maxAttempts", 3);
+    }
+
+    @Test
+    void relayBatch_ShouldMarkAckedEventsProcessed() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        OutboxEvent registered = outboxEvent(orderId, OutboxEventType.DELIVERY_REGISTERED,
+                new DeliveryRegisteredEvent(orderId, UUID.randomUUID(), "TEST-1", "Test Courier"));
+        OutboxEvent completed = outboxEvent(orderId, OutboxEventType.DELIVERY_COMPLETED,
+                new DeliveryCompletedEvent(orderId, List.of(UUID.randomUUID()), UUID.randomUUID(), "now"));
+
+        when(outboxEventRepository.lockNextBatch(3, 100))
+                .thenReturn(List.of(registered, completed));
+        when(deliveryEventProducer.publishDeliveryRegistered(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(deliveryEventProducer.publishDeliveryCompleted(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = scheduler.relayBatch();
+
+        assertThat(relayed).isEqualTo(2);
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markProcessed(ids.capture(), any(OffsetDateTime.class));
+        assertThat(ids.getValue()).containsExactly(registered.getId(), completed.getId());
+        verify(outboxEventRepository, never()).incrementAttempts(anyCollection());
+    }
+
+    @Test
+    void relayBatch_ShouldRetryOnlyTheFailedEvents() throws Exception {
+        UUID failingOrderId = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+        OutboxEvent failing = outboxEvent(failingOrderId, OutboxEventType.DELIVERY_REGISTERED,
+                new DeliveryRegisteredEvent(failingOrderId, UUID.randomUUID(), "TEST-1", "Test Courier"));
+        OutboxEvent completed = outboxEvent(orderId, OutboxEventType.DELIVERY_COMPLETED,
+                new DeliveryCompletedEvent(orderId, List.of(UUID.randomUUID()), UUID.randomUUID(), "now"));
+
+        when(outboxEventRepository.lockNextBatch(3, 100)).thenReturn(List.of(failing, completed));
+        when(deliveryEventProducer.publishDeliveryRegistered(any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        when(deliveryEventProducer.publishDeliveryCompleted(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        int relayed = scheduler.relayBatch();
+
+        // A partially failed batch stops the drain loop
+        assertThat(relayed).isZero();
+        verify(outboxEventRepository).markProcessed(eq(List.of(completed.getId())), any(OffsetDateTime.class));
+        verify(outboxEventRepository).incrementAttempts(List.of(failing.getId()));
+    }
+
+    @Test
+    void relayBatch_ShouldDeadLetterEvent_WhenItFailsItsLastAttempt() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        OutboxEvent poison = outboxEvent(orderId, OutboxEventType.DELIVERY_REGISTERED,
+                new DeliveryRegisteredEvent(orderId, UUID.randomUUID(), "TEST-1", "Test Courier"));
+        poison.setPayloadJson("not json");
+        poison.setAttempts(2);
+
+        when(outboxEventRepository.lockNextBatch(3, 100)).thenReturn(List.of(poison));
+
+        assertThat(scheduler.relayBatch()).isZero();
+
+        // The third failure reaches max-attempts, so the next lockNextBatch(3, ...) skips it
+        verify(outboxEventRepository).incrementAttempts(List.of(poison.getId()));
+        verifyNoInteractions(deliveryEventProducer);
+    }
+
+    @Test
+    void processOutbox_ShouldRelayEachBatchInItsOwnTransaction_UntilABatchIsNotFull() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "batchSize", 1);
+        UUID orderId = UUID.randomUUID();
+        OutboxEvent registered = outboxEvent(orderId, OutboxEventType.DELIVERY_REGISTERED,
+                new DeliveryRegisteredEvent(orderId, UUID.randomUUID(), "TEST-1", "Test Courier"));
+
+        when(outboxEventRepository.lockNextBatch(3, 1)).thenReturn(List.of(registered), List.of());
+        when(deliveryEventProducer.publishDeliveryRegistered(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        scheduler.processOutbox();
+
+        verify(outboxEventRepository, times(2)).lockNextBatch(3, 1);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void relayBatch_ShouldDoNothing_WhenOutboxIsEmpty() {
+        when(outboxEventRepository.lockNextBatch(3, 100))
+                .thenReturn(List.of());
+
+        assertThat(scheduler.relayBatch()).isZero();
+        verifyNoInteractions(deliveryEventProducer);
+    }
+
+    private OutboxEvent outboxEvent(UUID orderId, OutboxEventType type, Object payload) throws Exception {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .orderId(orderId)
+                .eventType(type)
+                .payloadJson(objectMapper.writeValueAsString(payload))
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package bg.softuni.stylemint.orderservice.order.helpers;
 
 
+import bg.softuni.dtos.money.Money;
 import bg.softuni.dtos.order.OrderDTO;
 import bg.softuni.dtos.order.OrderItemDTO;
 import bg.softuni.dtos.order.OrderPreviewDTO;
@@ -48,14 +49,14 @@ public class DtoMappers {
                 .map(DtoMappers::toItemDTO)  // Използваме вече съществуващия метод
                 .toList();
 
-        Double totalAmount = orderItems.stream()
-                .mapToDouble(item -> item.getPricePerUnit() * item.getQuantity())
+        long totalCents = orderItems.stream()
+                .mapToLong(item -> Money.toCents(item.getPricePerUnit()) * item.getQuantity())
                 .sum();
 
         return OrderPreviewDTO.builder()
                 .orderId(order.getId())
                 .status(order.getStatus())
-                .totalAmount(totalAmount)
+                .totalAmount(Money.ofCents(totalCents))
                 .createdAt(order.getCreatedAt())
                 .items(itemDTOs)
                 .build();
@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
@@ -39,8 +40,8 @@ public class OrderItem {
     @Column(nullable = false)
     private Integer quantity;
 
-    @Column(name = "price_per_unit", nullable = false)
-    private Double pricePerUnit;
+    @Column(name = "price_per_unit", nullable = false, precision = 12, scale = 2)
+    private BigDecimal pricePerUnit;
 
     @Column(name = "customization_json", columnDefinition = "JSON")
     private String customizationJson;
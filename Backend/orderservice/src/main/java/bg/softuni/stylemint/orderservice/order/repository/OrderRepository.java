@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -21,7 +22,7 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     @Query("SELECT SUM(oi.pricePerUnit * oi.quantity) FROM OrderItem oi " +
             "WHERE oi.order.userId = :userId")
-    Double calculateTotalSpentByUser(@Param("userId") UUID userId);
+    BigDecimal calculateTotalSpentByUser(@Param("userId") UUID userId);
 
     List<Order> findByStatusAndCreatedAtBefore(OrderStatus orderStatus, OffsetDateTime threshold);
 }
\ No newline at end of file
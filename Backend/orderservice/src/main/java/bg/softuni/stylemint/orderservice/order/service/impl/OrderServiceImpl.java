@@ -3,6 +3,7 @@ package bg.softuni.stylemint.orderservice.order.service.impl;
 import bg.softuni.dtos.enums.order.OrderItemStatus;
 import bg.softuni.dtos.enums.order.OrderStatus;
 import bg.softuni.dtos.enums.payment.ProductType;
+import bg.softuni.dtos.money.Money;
 import bg.softuni.dtos.order.*;
 import bg.softuni.events.delivery.StartDeliveryEvent;
 import bg.softuni.stylemint.orderservice.order.helpers.DtoMappers;
@@ -31,6 +32,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
@@ -61,9 +63,9 @@ public class OrderServiceImpl implements OrderService {
         // 1) Validate payment and rules
         paymentService.validatePaymentMethod(request);
 
-        // 2) Calculate total amount
-        double totalAmount = request.getItems().stream()
-                .mapToDouble(i -> i.getPricePerUnit() * i.getQuantity())
+        // 2) Calculate total amount, in cents so the sum is exact
+        long totalCents = request.getItems().stream()
+                .mapToLong(i -> Money.toCents(Money.of(i.getPricePerUnit())) * i.getQuantity())
                 .sum();
 
         // 3) Create the Order entity
@@ -73,7 +75,7 @@ public class OrderServiceImpl implements OrderService {
                 .status(OrderStatus.PENDING)
                 .createdAt(OffsetDateTime.now())
                 .deliveryAddress(request.getDeliveryAddress())
-                .totalAmount(totalAmount)
+                .totalAmount(Money.ofCents(totalCents))
                 .build();
 
         Order savedOrder = orderRepository.save(order);
@@ -85,7 +87,7 @@ public class OrderServiceImpl implements OrderService {
                         .productType(i.getProductType())
                         .productId(i.getProductId())
                         .quantity(i.getQuantity())
-                        .pricePerUnit(i.getPricePerUnit())
+                        .pricePerUnit(Money.of(i.getPricePerUnit()))
                         .customizationJson(i.getCustomizationJson())
                         .itemStatus(OrderItemStatus.PENDING)
                         .build())
@@ -121,7 +123,7 @@ public class OrderServiceImpl implements OrderService {
 
         return CreateOrderResponseDTO.builder()
                 .orderId(savedOrder.getId())
-                .totalAmount(totalAmount)
+                .totalAmount(savedOrder.getTotalAmount())
                 .paymentUrl(result.paymentUrl()) // Stripe checkout URL
                 .status(savedOrder.getStatus().name())
                 .build();
@@ -388,12 +390,12 @@ public class OrderServiceImpl implements OrderService {
                 .toList();
 
         // 6. Calculate total spent amount
-        Double totalSpent = orderRepository.calculateTotalSpentByUser(userId);
+        BigDecimal totalSpent = orderRepository.calculateTotalSpentByUser(userId);
 
         return UserOrderSummaryDTO.builder()
                 .totalOrders(totalOrders)
                 .recentOrders(recentOrderDTOs)
-                .totalSpent(totalSpent != null ? totalSpent : 0.0)
+                .totalSpent(totalSpent != null ? Money.of(totalSpent) : Money.ZERO)
                 .build();
     }
 
@@ -2,6 +2,7 @@ package bg.softuni.stylemint.orderservice.payment.service;
 
 import bg.softuni.stylemint.orderservice.payment.exceptions.StripeServiceException;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 public interface StripeService {
@@ -15,5 +16,5 @@ public interface StripeService {
      * @return the URL of the created checkout session
      * @throws StripeServiceException if the checkout session creation fails
      */
-    String createCheckoutSession(Double totalAmount, UUID orderId, String successUrl, String cancelUrl) throws StripeServiceException;
+    String createCheckoutSession(BigDecimal totalAmount, UUID orderId, String successUrl, String cancelUrl) throws StripeServiceException;
 }
\ No newline at end of file
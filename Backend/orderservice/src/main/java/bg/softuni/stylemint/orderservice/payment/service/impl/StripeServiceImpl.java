@@ -1,5 +1,6 @@
 package bg.softuni.stylemint.orderservice.payment.service.impl;
 
+import bg.softuni.dtos.money.Money;
 import bg.softuni.stylemint.orderservice.payment.exceptions.StripeServiceException;
 import bg.softuni.stylemint.orderservice.payment.service.StripeService;
 import com.stripe.Stripe;
@@ -8,6 +9,7 @@ import com.stripe.param.checkout.SessionCreateParams;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 @Service
@@ -18,7 +20,7 @@ public class StripeServiceImpl implements StripeService {
     }
 
     @Override
-    public String createCheckoutSession(Double totalAmount, UUID orderId, String successUrl, String cancelUrl) {
+    public String createCheckoutSession(BigDecimal totalAmount, UUID orderId, String successUrl, String cancelUrl) {
 
         try {
             SessionCreateParams params =
@@ -40,7 +42,7 @@ public class StripeServiceImpl implements StripeService {
                                             .setPriceData(
                                                     SessionCreateParams.LineItem.PriceData.builder()
                                                             .setCurrency("usd")
-                                                            .setUnitAmount((long) (totalAmount * 100))
+                                                            .setUnitAmount(Money.toCents(totalAmount))
                                                             .setProductData(
                                                                     SessionCreateParams.LineItem.PriceData.ProductData.builder()
                                                                             .setName("StyleMint Order Payment")
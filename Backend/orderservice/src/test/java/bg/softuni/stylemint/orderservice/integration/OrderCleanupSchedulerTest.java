@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
@@ -31,7 +32,7 @@ class OrderCleanupSchedulerTest {
     void cleanupOldPendingOrders_ShouldMarkThemCanceled() {
         Order old = Order.builder()
                 .status(OrderStatus.PENDING)
-                .totalAmount(10.0)
+                .totalAmount(new BigDecimal("10.00"))
                 .paymentMethod(PaymentMethod.STRIPE)
                 .userId(UUID.randomUUID())
                 .build();
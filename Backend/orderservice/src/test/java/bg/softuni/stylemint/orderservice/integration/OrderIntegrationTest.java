@@ -21,6 +21,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -57,14 +58,14 @@ class OrderIntegrationTest {
         OrderItemRequestDTO clothesItem = OrderItemRequestDTO.builder()
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
-                .pricePerUnit(49.99)
+                .pricePerUnit(new BigDecimal("49.99"))
                 .quantity(1)
                 .build();
 
         OrderItemRequestDTO digitalItem = OrderItemRequestDTO.builder()
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
-                .pricePerUnit(19.99)
+                .pricePerUnit(new BigDecimal("19.99"))
                 .quantity(2)
                 .build();
 
@@ -95,7 +96,7 @@ class OrderIntegrationTest {
 
         assertThat(savedOrder).isNotNull();
         assertThat(savedOrder.getUserId()).isEqualTo(userId);
-        assertThat(savedOrder.getTotalAmount()).isEqualTo(49.99 + 2 * 19.99);
+        assertThat(savedOrder.getTotalAmount()).isEqualByComparingTo("89.97");
         assertThat(savedOrder.getStatus().name()).isEqualTo("PENDING");
 
         // ASSERT #2: Items записани в DB
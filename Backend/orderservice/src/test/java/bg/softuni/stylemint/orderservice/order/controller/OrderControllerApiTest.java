@@ -17,6 +17,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -71,14 +72,14 @@ class OrderControllerApiTest {
         itemRequest.setProductId(UUID.randomUUID());
         itemRequest.setProductType(ProductType.SAMPLE);
         itemRequest.setQuantity(1);
-        itemRequest.setPricePerUnit(29.99);
+        itemRequest.setPricePerUnit(new BigDecimal("29.99"));
 
         request.setItems(List.of(itemRequest));
 
         CreateOrderResponseDTO response = CreateOrderResponseDTO.builder()
                 .orderId(orderId)
                 .status("PENDING")
-                .totalAmount(29.99)
+                .totalAmount(new BigDecimal("29.99"))
                 .totalItems(1)
                 .build();
 
@@ -151,7 +152,7 @@ class OrderControllerApiTest {
                 .orderId(orderId)
                 .userId(userId)
                 .status(OrderStatus.FULFILLED)
-                .totalAmount(59.98)
+                .totalAmount(new BigDecimal("59.98"))
                 .createdAt(OffsetDateTime.now())
                 .items(List.of())
                 .build();
@@ -181,7 +182,7 @@ class OrderControllerApiTest {
                 .productId(UUID.randomUUID())
                 .productType(ProductType.SAMPLE)
                 .quantity(1)
-                .pricePerUnit(29.99)
+                .pricePerUnit(new BigDecimal("29.99"))
                 .itemStatus(OrderItemStatus.DIGITAL_UNLOCKED)
                 .build();
 
@@ -190,7 +191,7 @@ class OrderControllerApiTest {
                 .productId(UUID.randomUUID())
                 .productType(ProductType.PACK)
                 .quantity(1)
-                .pricePerUnit(49.99)
+                .pricePerUnit(new BigDecimal("49.99"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
@@ -234,14 +235,14 @@ class OrderControllerApiTest {
         OrderPreviewDTO recentOrder = OrderPreviewDTO.builder()
                 .orderId(orderId)
                 .status(OrderStatus.FULFILLED)
-                .totalAmount(59.98)
+                .totalAmount(new BigDecimal("59.98"))
                 .createdAt(OffsetDateTime.now())
                 .items(List.of())
                 .build();
 
         UserOrderSummaryDTO summary = UserOrderSummaryDTO.builder()
                 .totalOrders(5L)
-                .totalSpent(299.95)
+                .totalSpent(new BigDecimal("299.95"))
                 .recentOrders(List.of(recentOrder))
                 .serviceAvailable(true)
                 .build();
@@ -303,7 +304,7 @@ class OrderControllerApiTest {
         // Arrange
         UserOrderSummaryDTO emptySummary = UserOrderSummaryDTO.builder()
                 .totalOrders(0L)
-                .totalSpent(0.0)
+                .totalSpent(new BigDecimal("0.00"))
                 .recentOrders(List.of())
                 .serviceAvailable(true)
                 .build();
@@ -329,20 +330,20 @@ class OrderControllerApiTest {
         item1.setProductId(UUID.randomUUID());
         item1.setProductType(ProductType.SAMPLE);
         item1.setQuantity(2);
-        item1.setPricePerUnit(19.99);
+        item1.setPricePerUnit(new BigDecimal("19.99"));
 
         OrderItemRequestDTO item2 = new OrderItemRequestDTO();
         item2.setProductId(UUID.randomUUID());
         item2.setProductType(ProductType.PACK);
         item2.setQuantity(1);
-        item2.setPricePerUnit(49.99);
+        item2.setPricePerUnit(new BigDecimal("49.99"));
 
         request.setItems(List.of(item1, item2));
 
         CreateOrderResponseDTO response = CreateOrderResponseDTO.builder()
                 .orderId(orderId)
                 .status("PENDING")
-                .totalAmount(89.97)
+                .totalAmount(new BigDecimal("89.97"))
                 .totalItems(3)
                 .build();
 
@@ -23,6 +23,7 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.*;
 
@@ -71,7 +72,7 @@ class OrderServiceImplTest {
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
                 .quantity(2)
-                .pricePerUnit(10.0)
+                .pricePerUnit(new BigDecimal("10.00"))
                 .customizationJson(null)
                 .build();
 
@@ -116,11 +117,41 @@ class OrderServiceImplTest {
 
         assertNotNull(response);
         assertEquals(orderId, response.getOrderId());
-        assertEquals(20.0, response.getTotalAmount()); // 2 * 10.0
+        assertEquals(new BigDecimal("20.00"), response.getTotalAmount()); // 2 * 10.00
         assertEquals("https://stripe.test/checkout-session", response.getPaymentUrl());
         assertEquals(OrderStatus.PENDING.name(), response.getStatus());
     }
 
+    @Test
+    void createOrder_totalsTheLinesExactly_whereDoubleSumsDrift() {
+        // 3 * 0.10 + 0.20 + 19.99 is 20.490000000000002 in doubles; prices with more decimals are rounded once
+        CreateOrderRequestDTO request = new CreateOrderRequestDTO(
+                userId,
+                List.of(itemRequest(new BigDecimal("0.10"), 3),
+                        itemRequest(new BigDecimal("0.2"), 1),
+                        itemRequest(new BigDecimal("19.99"), 1),
+                        itemRequest(new BigDecimal("31.4895"), 2)),
+                PaymentMethod.STRIPE,
+                "Some Address",
+                "User Name",
+                "+35988123456"
+        );
+
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderItemRepository.saveAll(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>((Collection<OrderItem>) invocation.getArgument(0)));
+        when(paymentService.initiatePayment(any(Order.class), anyList(), anyString()))
+                .thenReturn(new PaymentResult(false, false, "https://stripe.test/checkout-session"));
+
+        CreateOrderResponseDTO response = orderService.createOrder(request);
+
+        ArgumentCaptor<List<OrderItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(orderItemRepository).saveAll(items.capture());
+        assertEquals(List.of(new BigDecimal("0.10"), new BigDecimal("0.20"), new BigDecimal("19.99"), new BigDecimal("31.49")),
+                items.getValue().stream().map(OrderItem::getPricePerUnit).toList());
+        assertEquals(new BigDecimal("83.47"), response.getTotalAmount());
+    }
+
     // ---------------------------------------------------------
     // saveDeliveryOutboxEvent
     // ---------------------------------------------------------
@@ -135,7 +166,7 @@ class OrderServiceImplTest {
                 .userId(userId)
                 .status(OrderStatus.PENDING)
                 .paymentMethod(PaymentMethod.STRIPE)
-                .totalAmount(100.0)
+                .totalAmount(new BigDecimal("100.00"))
                 .createdAt(OffsetDateTime.now())
                 .build();
 
@@ -145,7 +176,7 @@ class OrderServiceImplTest {
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(100.0)
+                .pricePerUnit(new BigDecimal("100.00"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
@@ -190,7 +221,7 @@ class OrderServiceImplTest {
                 .userId(userId)
                 .status(OrderStatus.PENDING)
                 .paymentMethod(PaymentMethod.STRIPE)
-                .totalAmount(100.0)
+                .totalAmount(new BigDecimal("100.00"))
                 .createdAt(OffsetDateTime.now())
                 .build();
 
@@ -200,7 +231,7 @@ class OrderServiceImplTest {
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(50.0)
+                .pricePerUnit(new BigDecimal("50.00"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
@@ -210,7 +241,7 @@ class OrderServiceImplTest {
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(50.0)
+                .pricePerUnit(new BigDecimal("50.00"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
@@ -220,7 +251,7 @@ class OrderServiceImplTest {
                 .productType(ProductType.PACK)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(0.0)
+                .pricePerUnit(new BigDecimal("0.00"))
                 .itemStatus(OrderItemStatus.DIGITAL_UNLOCKED)
                 .build();
 
@@ -411,4 +442,17 @@ class OrderServiceImplTest {
         OffsetDateTime threshold = captor.getValue();
         assertTrue(threshold.isBefore(OffsetDateTime.now().plusSeconds(1)));
     }
+
+    // ---------------------------------------------------------
+    // helpers
+    // ---------------------------------------------------------
+
+    private OrderItemRequestDTO itemRequest(BigDecimal pricePerUnit, int quantity) {
+        return OrderItemRequestDTO.builder()
+                .productType(ProductType.SAMPLE)
+                .productId(UUID.randomUUID())
+                .quantity(quantity)
+                .pricePerUnit(pricePerUnit)
+                .build();
+    }
 }
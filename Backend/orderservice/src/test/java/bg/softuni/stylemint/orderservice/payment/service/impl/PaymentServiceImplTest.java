@@ -18,6 +18,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -45,7 +46,7 @@ class PaymentServiceImplTest {
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(10.0)
+                .pricePerUnit(new BigDecimal("10.00"))
                 .build();
 
         CreateOrderRequestDTO request = new CreateOrderRequestDTO(
@@ -67,7 +68,7 @@ class PaymentServiceImplTest {
                 .productType(ProductType.PACK)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(10.0)
+                .pricePerUnit(new BigDecimal("10.00"))
                 .build();
 
         CreateOrderRequestDTO request = new CreateOrderRequestDTO(
@@ -89,7 +90,7 @@ class PaymentServiceImplTest {
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(50.0)
+                .pricePerUnit(new BigDecimal("50.00"))
                 .build();
 
         CreateOrderRequestDTO request = new CreateOrderRequestDTO(
@@ -111,14 +112,14 @@ class PaymentServiceImplTest {
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(10.0)
+                .pricePerUnit(new BigDecimal("10.00"))
                 .build();
 
         OrderItemRequestDTO clothes = OrderItemRequestDTO.builder()
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(50.0)
+                .pricePerUnit(new BigDecimal("50.00"))
                 .build();
 
         CreateOrderRequestDTO request = new CreateOrderRequestDTO(
@@ -146,7 +147,7 @@ class PaymentServiceImplTest {
                 .userId(UUID.randomUUID())
                 .status(OrderStatus.PENDING)
                 .paymentMethod(PaymentMethod.CASH)
-                .totalAmount(100.0)
+                .totalAmount(new BigDecimal("100.00"))
                 .createdAt(OffsetDateTime.now())
                 .build();
 
@@ -156,7 +157,7 @@ class PaymentServiceImplTest {
                 .productType(ProductType.CLOTHES)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(100.0)
+                .pricePerUnit(new BigDecimal("100.00"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
@@ -180,7 +181,7 @@ class PaymentServiceImplTest {
                 .userId(UUID.randomUUID())
                 .status(OrderStatus.PENDING)
                 .paymentMethod(PaymentMethod.STRIPE)
-                .totalAmount(150.0)
+                .totalAmount(new BigDecimal("150.00"))
                 .createdAt(OffsetDateTime.now())
                 .build();
 
@@ -190,13 +191,13 @@ class PaymentServiceImplTest {
                 .productType(ProductType.SAMPLE)
                 .productId(UUID.randomUUID())
                 .quantity(1)
-                .pricePerUnit(150.0)
+                .pricePerUnit(new BigDecimal("150.00"))
                 .itemStatus(OrderItemStatus.PENDING)
                 .build();
 
         List<OrderItem> items = List.of(digitalItem);
 
-        when(stripeService.createCheckoutSession(anyDouble(), eq(orderId), anyString(), anyString()))
+        when(stripeService.createCheckoutSession(any(BigDecimal.class), eq(orderId), anyString(), anyString()))
                 .thenReturn("https://stripe.test/checkout");
 
         PaymentResult result = paymentService.initiatePayment(order, items, "http://frontend");
@@ -206,7 +207,7 @@ class PaymentServiceImplTest {
         assertEquals("https://stripe.test/checkout", result.paymentUrl());
 
         verify(stripeService, times(1))
-                .createCheckoutSession(eq(150.0), eq(orderId),
+                .createCheckoutSession(eq(new BigDecimal("150.00")), eq(orderId),
                         eq("http://frontend/checkout/success?orderId=" + orderId),
                         eq("http://frontend/checkout/cancel?orderId=" + orderId));
     }
@@ -5,9 +5,12 @@ import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,7 +35,7 @@ class StripeServiceImplTest {
             UUID orderId = UUID.randomUUID();
 
             // act
-            String url = stripeService.createCheckoutSession(100.0, orderId,
+            String url = stripeService.createCheckoutSession(new BigDecimal("100.00"), orderId,
                     "https://success", "https://cancel");
 
             // assert
@@ -41,4 +44,27 @@ class StripeServiceImplTest {
         }
     }
 
+    @Test
+    void createCheckoutSession_chargesTheExactCents_ofAmountsThatDoNotFitADouble() throws Exception {
+        StripeService stripeService = new StripeServiceImpl("test-secret-key");
+        Session mockSession = mock(Session.class);
+
+        try (MockedStatic<Session> sessionMock = mockStatic(Session.class)) {
+            sessionMock.when(() -> Session.create(any(SessionCreateParams.class)))
+                    .thenReturn(mockSession);
+
+            // (long) (amount * 100) charged one cent less for each of these
+            for (String amount : List.of("0.29", "19.99", "1.13", "4.35", "0.57")) {
+                stripeService.createCheckoutSession(new BigDecimal(amount), UUID.randomUUID(),
+                        "https://success", "https://cancel");
+            }
+
+            ArgumentCaptor<SessionCreateParams> params = ArgumentCaptor.forClass(SessionCreateParams.class);
+            sessionMock.verify(() -> Session.create(params.capture()), times(5));
+            assertEquals(List.of(29L, 1999L, 113L, 435L, 57L), params.getAllValues().stream()
+                    .map(p -> p.getLineItems().get(0).getPriceData().getUnitAmount())
+                    .toList());
+        }
+    }
+
 }
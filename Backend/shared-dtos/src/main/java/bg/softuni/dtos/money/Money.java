@@ -0,0 +1,53 @@
+package bg.softuni.dtos.money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts shared by the backend and the order service.
+ *
+ * Amounts travel and are stored as {@link BigDecimal} in major units (euros) with two decimals;
+ * sums are taken in {@code long} minor units (cents), so adding up an order allocates nothing
+ * per line. A computed price is rounded half-up to the cent exactly once, where it becomes money.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+    public static final BigDecimal ZERO = BigDecimal.ZERO.setScale(SCALE);
+
+    // Enough digits for any price, few enough to drop the noise of the double discount arithmetic
+    private static final MathContext COMPUTED_PRECISION = new MathContext(12, ROUNDING);
+
+    private Money() {
+    }
+
+    /**
+     * A computed price (discounts applied) as money, rounded half-up to the cent.
+     * 52.50 * 0.95 * 0.95 * 0.80 is 37.904999999999994 as a double; it is taken as 37.905 and becomes 37.91.
+     */
+    public static BigDecimal of(double amount) {
+        return new BigDecimal(Double.toString(amount)).round(COMPUTED_PRECISION).setScale(SCALE, ROUNDING);
+    }
+
+    /**
+     * An amount received from elsewhere, normalised to two decimals
+     */
+    public static BigDecimal of(BigDecimal amount) {
+        return amount == null ? null : amount.setScale(SCALE, ROUNDING);
+    }
+
+    public static BigDecimal ofCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Exact number of cents; {@code null} counts as zero
+     *
+     * @throws ArithmeticException if the amount has fractions of a cent
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+}
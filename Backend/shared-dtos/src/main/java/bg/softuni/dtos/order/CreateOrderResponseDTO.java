@@ -1,6 +1,7 @@
 package bg.softuni.dtos.order;
 
 import lombok.*;
+import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
@@ -9,7 +10,7 @@ import java.util.UUID;
 @AllArgsConstructor
 public class CreateOrderResponseDTO {
     private UUID orderId;
-    private Double totalAmount;
+    private BigDecimal totalAmount;
     private String paymentUrl;
     private String status;
     private Integer totalItems;
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -19,7 +20,7 @@ public class OrderDTO {
     private UUID userId;
     private String deliveryAddress;
     private OrderStatus status;
-    private Double totalAmount;
+    private BigDecimal totalAmount;
     private OffsetDateTime createdAt;
     private List<OrderItemDTO> items;
 
@@ -8,6 +8,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 /**
@@ -22,7 +23,7 @@ public class OrderItemDTO {
     private ProductType productType;
     private UUID productId;
     private Integer quantity;
-    private Double pricePerUnit;
+    private BigDecimal pricePerUnit;
     private String customizationJson;
     private OrderItemStatus itemStatus;
 }
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 /**
@@ -19,6 +20,6 @@ public class OrderItemRequestDTO {
     private ProductType productType;
     private UUID productId;
     private Integer quantity;
-    private Double pricePerUnit;
+    private BigDecimal pricePerUnit;
     private String customizationJson; // only for CLOTHES
 }
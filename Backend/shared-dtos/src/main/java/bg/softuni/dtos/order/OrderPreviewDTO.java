@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -21,7 +22,7 @@ import java.util.UUID;
 public class OrderPreviewDTO {
     private UUID orderId;
     private OrderStatus status;
-    private Double totalAmount;
+    private BigDecimal totalAmount;
     private OffsetDateTime createdAt;
     private List<OrderItemDTO> items;
 }
\ No newline at end of file
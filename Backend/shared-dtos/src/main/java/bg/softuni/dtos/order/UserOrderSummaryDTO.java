@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -26,7 +27,7 @@ public class UserOrderSummaryDTO {
     private List<OrderPreviewDTO> recentOrders;
 
 
-    private Double totalSpent;
+    private BigDecimal totalSpent;
 
     @Builder.Default
     private boolean serviceAvailable = true;
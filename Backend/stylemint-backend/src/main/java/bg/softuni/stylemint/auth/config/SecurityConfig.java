@@ -101,6 +101,7 @@ public class SecurityConfig {
                                 BASE + "/audio/packs/most-downloaded",
 
                                 BASE + "/designs/top-liked",
+                                BASE + "/designs/trending",
                                 BASE + "/designs/latest",
                                 BASE + "/designs/likes-count"
                         ).permitAll()
@@ -50,6 +50,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // ⭐ Public DESIGN endpoints
         if (path.startsWith(BASE + "/designs/top-liked")
+            || path.startsWith(BASE + "/designs/trending")
             || path.startsWith(BASE + "/designs/likes-count")) {
             return true;
         }
@@ -9,27 +9,50 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CloudinaryService {
 
+    private static final String UPLOAD_TEMP_PREFIX = "stylemint-upload-";
+    // Admin API limit of public ids per delete_resources call
+    static final int DELETE_BATCH_SIZE = 100;
+
     private final Cloudinary cloudinary;
 
     /**
      * Upload audio file and return URL + metadata in one response
      */
     public Map<String, Object> uploadAudio(MultipartFile file, UUID userId) {
+        Path spooled = spoolToTempFile(file);
+        try {
+            return uploadAudio(spooled.toFile(), userId);
+        } finally {
+            deleteTempFile(spooled);
+        }
+    }
+
+    /**
+     * Upload audio file already on local disk (streamed, never loaded into memory)
+     */
+    public Map<String, Object> uploadAudio(File file, UUID userId) {
         try {
             String publicId = "audio/" + userId + "/" + UUID.randomUUID();
 
             // Upload в Cloudinary връща metadata веднага!
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
+            Map uploadResult = cloudinary.uploader().upload(file,
                     ObjectUtils.asMap(
                             "resource_type", "video", // Audio files as "video" type
                             "public_id", publicId,
@@ -73,10 +96,22 @@ public class CloudinaryService {
      * Upload image to Cloudinary
      */
     public Map<String, Object> uploadImage(MultipartFile file, UUID userId) {
+        Path spooled = spoolToTempFile(file);
+        try {
+            return uploadImage(spooled.toFile(), userId);
+        } finally {
+            deleteTempFile(spooled);
+        }
+    }
+
+    /**
+     * Upload image already on local disk
+     */
+    public Map<String, Object> uploadImage(File file, UUID userId) {
         try {
             String publicId = "images/" + userId + "/" + UUID.randomUUID();
 
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
+            Map uploadResult = cloudinary.uploader().upload(file,
                     ObjectUtils.asMap(
                             "resource_type", "image",
                             "public_id", publicId,
@@ -112,12 +147,24 @@ public class CloudinaryService {
      * Upload sample pack cover image
      * FIXED: Flattened transformation parameters to avoid nested map issues
      */
-    public String uploadPackCover(MultipartFile file, UUID packId) {
+    public String uploadPackCover(MultipartFile file, UUID coverId) {
+        Path spooled = spoolToTempFile(file);
+        try {
+            return uploadPackCover(spooled.toFile(), coverId);
+        } finally {
+            deleteTempFile(spooled);
+        }
+    }
+
+    /**
+     * Upload sample pack cover image already on local disk, under a key unique to this cover version
+     */
+    public String uploadPackCover(File file, UUID coverId) {
         try {
             // ✅ Full path in public_id, no folder parameter
-            String publicId = "stylemint/pack-covers/" + packId;
+            String publicId = "stylemint/pack-covers/" + coverId;
 
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
+            Map uploadResult = cloudinary.uploader().upload(file,
                     ObjectUtils.asMap(
                             "resource_type", "image",
                             "public_id", publicId,
@@ -185,6 +232,31 @@ public class CloudinaryService {
         }
     }
 
+    /**
+     * Delete many files with one Admin API call per {@value #DELETE_BATCH_SIZE} public ids
+     * (per resource type) instead of one destroy call per file. Failures are logged, not thrown.
+     */
+    public void deleteFiles(Collection<String> fileUrls) {
+        Map<String, List<String>> publicIdsByType = fileUrls.stream()
+                .filter(url -> url != null && !url.isBlank())
+                .collect(Collectors.groupingBy(url -> url.contains("/video/") ? "video" : "image",
+                        Collectors.mapping(this::publicIdOrNull, Collectors.toCollection(ArrayList::new))));
+
+        publicIdsByType.forEach((resourceType, publicIds) -> {
+            publicIds.removeIf(publicId -> publicId == null);
+            for (int from = 0; from < publicIds.size(); from += DELETE_BATCH_SIZE) {
+                List<String> batch = new ArrayList<>(
+                        publicIds.subList(from, Math.min(from + DELETE_BATCH_SIZE, publicIds.size())));
+                try {
+                    cloudinary.api().deleteResources(batch, ObjectUtils.asMap("resource_type", resourceType));
+                    log.info("Deleted {} {} files from Cloudinary", batch.size(), resourceType);
+                } catch (Exception e) {
+                    log.error("Failed to delete {} {} files from Cloudinary: {}", batch.size(), resourceType, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
     /**
      * Get existing resource metadata (за update случаи)
      */
@@ -213,6 +285,53 @@ public class CloudinaryService {
 
     // Helper methods
 
+    /**
+     * Moves the multipart file to a temp file the caller owns.
+     * For the container's disk-backed parts this is a rename, not a copy.
+     * Uploading from that file lets the HTTP client stream it in small chunks,
+     * so heap usage per upload stays flat. Delete with {@link #deleteTempFile}.
+     */
+    public Path spoolToTempFile(MultipartFile file) {
+        try {
+            Path tempFile = Files.createTempFile(UPLOAD_TEMP_PREFIX, extensionOf(file));
+            try {
+                file.transferTo(tempFile.toFile());
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            return tempFile;
+        } catch (IOException e) {
+            log.error("Failed to spool upload to disk: {}", e.getMessage(), e);
+            throw new FileProcessingException("Failed to read uploaded file: " + e.getMessage());
+        }
+    }
+
+    public void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp upload file {}: {}", tempFile, e.getMessage());
+        }
+    }
+
+    private String extensionOf(MultipartFile file) {
+        String originalName = file.getOriginalFilename();
+        if (originalName == null) {
+            return null;
+        }
+        int lastDotIndex = originalName.lastIndexOf('.');
+        return lastDotIndex >= 0 ? originalName.substring(lastDotIndex).replaceAll("[^a-zA-Z0-9.]", "") : null;
+    }
+
+    private String publicIdOrNull(String url) {
+        try {
+            return extractPublicIdFromUrl(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private String extractPublicIdFromUrl(String url) {
         try {
             // https://res.cloudinary.com/demo/video/upload/v1234567890/stylemint/audio/user-id/file.mp3
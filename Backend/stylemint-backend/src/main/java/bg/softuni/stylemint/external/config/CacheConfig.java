@@ -2,12 +2,14 @@
 package bg.softuni.stylemint.external.config;
 
 import bg.softuni.dtos.nft.UserNftsResponse;
+import bg.softuni.stylemint.game.enums.RewardType;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -23,6 +25,18 @@ public class CacheConfig {
                 .build();
     }
 
+    /**
+     * One-time discounts per user, best first; evicted whenever one is saved or used
+     */
+    @Bean
+    public Cache<UUID, List<RewardType>> userOneTimeDiscountsCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(30, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
     @Bean
     public Cache<UUID, byte[]> certificateCache() {
         return Caffeine.newBuilder()
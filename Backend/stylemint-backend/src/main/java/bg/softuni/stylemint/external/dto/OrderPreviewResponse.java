@@ -3,9 +3,11 @@ package bg.softuni.stylemint.external.dto;
 import lombok.Builder;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 @Builder
 public class OrderPreviewResponse {
-    private Double totalAmount;
+    private BigDecimal totalAmount;
     private Integer itemCount;
 }
@@ -1,7 +1,9 @@
 package bg.softuni.stylemint.external.service.order;
 
 import bg.softuni.dtos.order.OrderItemRequestDTO;
+import bg.softuni.stylemint.game.enums.RewardType;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,7 +15,7 @@ import java.util.UUID;
  * - Calculate prices using appropriate PriceCalculatorService
  * - Apply discounts (NFT + one-time)
  * - Update OrderItemRequestDTO with calculated prices
- * - Consume one-time discount after order creation
+ * - Claim the one-time discount an order is priced with, before pricing it
  *
  * Architecture:
  * Frontend → OrderProxyController → OrderPriceService → PriceCalculatorServices
@@ -32,25 +34,35 @@ public interface OrderPriceService {
      *
      * @param userId User ID (for discount calculation)
      * @param items List of order items (prices will be SET in these DTOs)
+     * @param oneTimeDiscount The one-time discount claimed for this order, or null for none
      * @throws ProductNotFoundException if any product not found
      */
-    void calculateAndSetPrices(UUID userId, List<OrderItemRequestDTO> items);
+    void calculateAndSetPrices(UUID userId, List<OrderItemRequestDTO> items, RewardType oneTimeDiscount);
 
     /**
      * Calculate total order amount
      *
      * @param items Order items with prices already set
-     * @return Total amount
+     * @return Total amount, summed exactly in cents
      */
-    double calculateTotalAmount(List<OrderItemRequestDTO> items);
+    BigDecimal calculateTotalAmount(List<OrderItemRequestDTO> items);
 
     /**
-     * Consume one-time discount for user after successful order
-     * Called AFTER order is created in Order microservice
+     * Claim (consume) the user's best one-time discount for an order
+     * Called BEFORE the order is priced, which then uses exactly the claimed discount
      *
      * @param userId User ID
+     * @return The claimed discount, or null if the user has none left
      */
-    void consumeOneTimeDiscount(UUID userId);
+    RewardType claimOneTimeDiscount(UUID userId);
+
+    /**
+     * Give a claimed one-time discount back when its order could not be created
+     *
+     * @param userId User ID
+     * @param rewardType The discount returned by claimOneTimeDiscount, or null
+     */
+    void releaseOneTimeDiscount(UUID userId, RewardType rewardType);
 
     /**
      * Preview order total with discounts applied
@@ -60,7 +72,7 @@ public interface OrderPriceService {
      * @param items Order items (without prices)
      * @return Preview total with discounts
      */
-    double previewOrderTotal(UUID userId, List<OrderItemRequestDTO> items);
+    BigDecimal previewOrderTotal(UUID userId, List<OrderItemRequestDTO> items);
 
-    double calculateItemPricePublic(UUID userId, OrderItemRequestDTO item);
+    BigDecimal calculateItemPricePublic(UUID userId, OrderItemRequestDTO item);
 }
@@ -3,6 +3,7 @@ package bg.softuni.stylemint.external.service.order;
 import bg.softuni.dtos.order.*;
 import bg.softuni.stylemint.external.dto.OrderPreviewResponse;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,5 +25,5 @@ public interface OrderProxyService {
 
     void processPaymentSuccess(OrderPaidRequest dto);
 
-    double calculateItemPrice(UUID userId, OrderItemRequestDTO item);
+    BigDecimal calculateItemPrice(UUID userId, OrderItemRequestDTO item);
 }
@@ -1,34 +1,36 @@
 package bg.softuni.stylemint.external.service.order.impl;
 
+import bg.softuni.dtos.money.Money;
 import bg.softuni.dtos.order.OrderItemRequestDTO;
 import bg.softuni.stylemint.common.exception.NotFoundException;
 import bg.softuni.stylemint.external.exceptions.order.UnsupportedProductTypeException;
 import bg.softuni.stylemint.external.service.order.OrderPriceService;
-import bg.softuni.stylemint.product.audio.model.AudioSample;
-import bg.softuni.stylemint.product.audio.model.SamplePack;
-import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
-import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.common.dto.DiscountContext;
 import bg.softuni.stylemint.product.common.model.BaseProduct;
+import bg.softuni.stylemint.product.common.model.UserDiscount;
 import bg.softuni.stylemint.product.common.service.EnhancedDiscountService;
-import bg.softuni.stylemint.product.fashion.model.ClothDesign;
-import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import bg.softuni.stylemint.product.common.service.impl.ProductFetchService;
+import bg.softuni.stylemint.product.common.service.impl.ProductFetchService.ProductKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Service implementation for calculating order prices
  *
  * Flow:
- * 1. Fetch products from stylemint-backend database
- * 2. Calculate prices using EnhancedDiscountService (with discounts)
- * 3. Set prices in OrderItemRequestDTO
- * 4. Send to Order microservice
- * 5. Consume one-time discount after successful order
+ * 1. Claim the one-time discount (conditional delete); the order is priced with exactly that one
+ * 2. Fetch products from stylemint-backend database (one query per product type)
+ * 3. Calculate prices using EnhancedDiscountService (with discounts)
+ * 4. Set prices in OrderItemRequestDTO
+ * 5. Send to Order microservice; the discount is given back if that fails
  */
 @Slf4j
 @Service
@@ -36,17 +38,15 @@ import java.util.UUID;
 @Transactional(readOnly = true)
 public class OrderPriceServiceImpl implements OrderPriceService {
 
-    // Repositories for fetching products
-    private final ClothDesignRepository clothDesignRepository;
-    private final AudioSampleRepository audioSampleRepository;
-    private final SamplePackRepository samplePackRepository;
+    // Loads the products of a whole order with one query per product type
+    private final ProductFetchService productFetchService;
 
     // Universal discount service (handles ALL discount types)
     private final EnhancedDiscountService discountService;
 
     @Override
     @Transactional
-    public void calculateAndSetPrices(UUID userId, List<OrderItemRequestDTO> items) {
+    public void calculateAndSetPrices(UUID userId, List<OrderItemRequestDTO> items, RewardType oneTimeDiscount) {
         if (userId == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
@@ -58,8 +58,12 @@ public class OrderPriceServiceImpl implements OrderPriceService {
 
         log.debug("Calculating prices for {} items for user {}", items.size(), userId);
 
+        DiscountContext discountContext = discountService.resolveContext(userId,
+                UserDiscount.discountPercentageOf(oneTimeDiscount));
+        Map<ProductKey, BaseProduct> products = productFetchService.fetchProducts(items);
+
         for (OrderItemRequestDTO item : items) {
-            double calculatedPrice = calculateItemPrice(userId, item);
+            BigDecimal calculatedPrice = Money.of(calculateItemPrice(discountContext, item, products));
 
             // ✅ SET PRICE in DTO
             item.setPricePerUnit(calculatedPrice);
@@ -75,49 +79,66 @@ public class OrderPriceServiceImpl implements OrderPriceService {
     }
 
     @Override
-    public double calculateTotalAmount(List<OrderItemRequestDTO> items) {
+    public BigDecimal calculateTotalAmount(List<OrderItemRequestDTO> items) {
         if (items == null || items.isEmpty()) {
-            return 0.0;
+            return Money.ZERO;
         }
 
-        return items.stream()
-                .mapToDouble(item -> item.getPricePerUnit() * item.getQuantity())
+        long totalCents = items.stream()
+                .mapToLong(item -> Money.toCents(item.getPricePerUnit()) * item.getQuantity())
                 .sum();
+        return Money.ofCents(totalCents);
     }
 
     @Override
     @Transactional
-    public void consumeOneTimeDiscount(UUID userId) {
+    public RewardType claimOneTimeDiscount(UUID userId) {
         if (userId == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
 
-        log.debug("Consuming one-time discount for user {}", userId);
+        log.debug("Claiming one-time discount for user {}", userId);
 
-        var usedDiscount = discountService.useBestDiscount(userId);
+        RewardType claimed = discountService.useBestDiscount(userId);
 
-        if (usedDiscount != null) {
-            log.info("✅ Consumed {} discount for user {}", usedDiscount, userId);
+        if (claimed != null) {
+            log.info("✅ Claimed {} discount for user {}", claimed, userId);
         } else {
-            log.debug("No one-time discount to consume for user {}", userId);
+            log.debug("No one-time discount to claim for user {}", userId);
         }
+        return claimed;
     }
 
     @Override
-    public double previewOrderTotal(UUID userId, List<OrderItemRequestDTO> items) {
+    @Transactional
+    public void releaseOneTimeDiscount(UUID userId, RewardType rewardType) {
+        if (rewardType == null) {
+            return;
+        }
+
+        discountService.saveDiscount(userId, rewardType);
+        log.info("↩️ Released {} discount of user {}, the order was not created", rewardType, userId);
+    }
+
+    @Override
+    public BigDecimal previewOrderTotal(UUID userId, List<OrderItemRequestDTO> items) {
         if (items == null || items.isEmpty()) {
-            return 0.0;
+            return Money.ZERO;
         }
 
         log.debug("Previewing order total for user {} with {} items", userId, items.size());
 
-        double total = 0.0;
+        DiscountContext discountContext = discountService.resolveContext(userId);
+        Map<ProductKey, BaseProduct> products = productFetchService.fetchProducts(items);
+        long totalCents = 0;
 
+        // Each line is rounded to the cent once, exactly as calculateAndSetPrices prices it for the order
         for (OrderItemRequestDTO item : items) {
-            double itemPrice = calculateItemPrice(userId, item);
-            total += itemPrice * item.getQuantity();
+            long itemCents = Money.toCents(Money.of(calculateItemPrice(discountContext, item, products)));
+            totalCents += itemCents * item.getQuantity();
         }
 
+        BigDecimal total = Money.ofCents(totalCents);
         log.debug("Preview total for user {}: €{}", userId, total);
 
         return total;
@@ -126,7 +147,7 @@ public class OrderPriceServiceImpl implements OrderPriceService {
     /**
      * Public method for external use (e.g., OrderProxyController)
      */
-    public double calculateItemPricePublic(UUID userId, OrderItemRequestDTO item) {
+    public BigDecimal calculateItemPricePublic(UUID userId, OrderItemRequestDTO item) {
         if (userId == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
@@ -134,7 +155,8 @@ public class OrderPriceServiceImpl implements OrderPriceService {
             throw new IllegalArgumentException("Order item cannot be null");
         }
 
-        return calculateItemPrice(userId, item);
+        return Money.of(calculateItemPrice(discountService.resolveContext(userId), item,
+                productFetchService.fetchProducts(List.of(item))));
     }
 
     // ========================================
@@ -148,67 +170,45 @@ public class OrderPriceServiceImpl implements OrderPriceService {
      * - NFT discounts (5% or 7%)
      * - One-time discounts (20% or 40%)
      *
-     * @param userId User ID (for discount calculation)
+     * @param discountContext The user's discounts, resolved once per request
      * @param item Order item
+     * @param products The order's products, loaded together
      * @return Calculated price with discounts applied
      */
-    private double calculateItemPrice(UUID userId, OrderItemRequestDTO item) {
-        BaseProduct product = fetchProduct(item);
+    private double calculateItemPrice(DiscountContext discountContext, OrderItemRequestDTO item,
+                                      Map<ProductKey, BaseProduct> products) {
+        BaseProduct product = productOf(item, products);
 
         // ✅ Calculate with ALL discounts applied
-        double finalPrice = discountService.calculateFinalPrice(product, userId);
+        double finalPrice = discountService.calculateFinalPrice(product, discountContext);
 
         log.debug("Calculated price for {} {}: €{} (user: {})",
                 item.getProductType(),
                 item.getProductId(),
                 finalPrice,
-                userId);
+                discountContext.userId());
 
         return finalPrice;
     }
 
     /**
-     * Fetch product from database based on type
+     * The item's product from the batch-loaded products
      */
-    private BaseProduct fetchProduct(OrderItemRequestDTO item) {
-        return switch (item.getProductType()) {
-            case CLOTHES -> fetchClothDesign(item.getProductId());
-            case SAMPLE -> fetchAudioSample(item.getProductId());
-            case PACK -> fetchSamplePack(item.getProductId());
+    private BaseProduct productOf(OrderItemRequestDTO item, Map<ProductKey, BaseProduct> products) {
+        BaseProduct product = products.get(ProductKey.of(item));
+        if (product != null) {
+            return product;
+        }
+
+        String message = switch (item.getProductType()) {
+            case CLOTHES -> "Cloth design not found: ";
+            case SAMPLE -> "Audio sample not found: ";
+            case PACK -> "Sample pack not found: ";
             default -> throw new UnsupportedProductTypeException(
                     item.getProductType(),
                     item.getProductId()
             );
         };
+        throw new NotFoundException(message + item.getProductId());
     }
-
-    /**
-     * Fetch ClothDesign from database
-     */
-    private ClothDesign fetchClothDesign(UUID productId) {
-        return clothDesignRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException(
-                        "Cloth design not found: " + productId
-                ));
-    }
-
-    /**
-     * Fetch AudioSample from database
-     */
-    private AudioSample fetchAudioSample(UUID productId) {
-        return audioSampleRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException(
-                        "Audio sample not found: " + productId
-                ));
-    }
-
-    /**
-     * Fetch SamplePack from database
-     */
-    private SamplePack fetchSamplePack(UUID productId) {
-        return samplePackRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException(
-                        "Sample pack not found: " + productId
-                ));
-    }
-}
\ No newline at end of file
+}
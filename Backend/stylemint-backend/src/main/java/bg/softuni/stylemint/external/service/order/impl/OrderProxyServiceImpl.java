@@ -6,13 +6,17 @@ import bg.softuni.stylemint.external.dto.OrderPreviewResponse;
 import bg.softuni.stylemint.external.facade.order.OrderServiceFacade;
 import bg.softuni.stylemint.external.service.order.OrderPriceService;
 import bg.softuni.stylemint.external.service.order.OrderProxyService;
+import bg.softuni.stylemint.game.enums.RewardType;
 import bg.softuni.stylemint.product.audio.service.DigitalLicenseService;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.NotFoundException;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.net.ConnectException;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,16 +35,35 @@ public class OrderProxyServiceImpl implements OrderProxyService {
     @Override
     public CreateOrderResponseDTO createOrder(CreateOrderRequestDTO request, UUID userId) {
 
-        // 1) Calculate & set prices
-        orderPriceService.calculateAndSetPrices(userId, request.getItems());
+        // 1) Claim the one-time discount first, so no other order can be priced with it
+        RewardType oneTimeDiscount = orderPriceService.claimOneTimeDiscount(userId);
 
-        // 2) Create order in microservice
-        CreateOrderResponseDTO response = orderServiceFacade.createOrder(request);
+        Long ordersBefore;
+        try {
+            // 2) Calculate & set prices with exactly the claimed discount
+            orderPriceService.calculateAndSetPrices(userId, request.getItems(), oneTimeDiscount);
 
-        // 3) Consume one-time discount
-        orderPriceService.consumeOneTimeDiscount(userId);
+            // Baseline for telling afterwards whether a failed call still created the order
+            ordersBefore = oneTimeDiscount != null ? orderServiceFacade.countOrdersByUser(userId) : null;
+        } catch (RuntimeException e) {
+            orderPriceService.releaseOneTimeDiscount(userId, oneTimeDiscount);
+            throw e;
+        }
 
-        return response;
+        try {
+            // 3) Create order in microservice
+            return orderServiceFacade.createOrder(request);
+        } catch (RuntimeException e) {
+            if (oneTimeDiscount != null) {
+                if (orderNotCreated(e, userId, ordersBefore)) {
+                    orderPriceService.releaseOneTimeDiscount(userId, oneTimeDiscount);
+                } else {
+                    log.warn("⚠️ Keeping {} discount of user {}, the order may have been created: {}",
+                            oneTimeDiscount, userId, e.getMessage());
+                }
+            }
+            throw e;
+        }
     }
 
     // ====================================================
@@ -49,7 +72,7 @@ public class OrderProxyServiceImpl implements OrderProxyService {
     @Override
     public OrderPreviewResponse previewOrder(CreateOrderRequestDTO request, UUID userId) {
 
-        double total = orderPriceService.previewOrderTotal(userId, request.getItems());
+        BigDecimal total = orderPriceService.previewOrderTotal(userId, request.getItems());
 
         return OrderPreviewResponse.builder()
                 .totalAmount(total)
@@ -163,7 +186,29 @@ public class OrderProxyServiceImpl implements OrderProxyService {
     // PRICE FOR SINGLE ITEM
     // ====================================================
     @Override
-    public double calculateItemPrice(UUID userId, OrderItemRequestDTO item) {
+    public BigDecimal calculateItemPrice(UUID userId, OrderItemRequestDTO item) {
         return orderPriceService.calculateItemPricePublic(userId, item);
     }
+
+    // ================ Helpers ================
+
+    /**
+     * Whether a failed create call left no order behind. A rejected request (4xx) or a refused
+     * connection rolled back or never started the order's transaction; after anything else, e.g.
+     * a timeout or a 5xx, the order may have committed, so the user's order count decides.
+     * A concurrent checkout of the same user also raises the count and keeps the discount claimed.
+     */
+    private boolean orderNotCreated(RuntimeException e, UUID userId, Long ordersBefore) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FeignException.FeignClientException || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+
+        try {
+            return ordersBefore != null && ordersBefore.equals(orderServiceFacade.countOrdersByUser(userId));
+        } catch (RuntimeException checkFailed) {
+            return false;
+        }
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -147,7 +148,7 @@ public class OrderProxyController {
     // ====================================================
     @PostMapping("/price-item")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Double> getItemPrice(
+    public ResponseEntity<BigDecimal> getItemPrice(
             @RequestBody OrderItemRequestDTO item,
             @AuthenticationPrincipal JwtUserDetails userDetails) {
 
@@ -0,0 +1,32 @@
+package bg.softuni.stylemint.product.audio.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool shared by all pack uploads for pushing cover and sample files to storage.
+ * Caps the total number of concurrent storage uploads across requests.
+ */
+@Configuration
+public class PackUploadConfig {
+
+    @Value("${audio.upload.threads:8}")
+    private int uploadThreads;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService packUploadExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "pack-upload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(uploadThreads, threadFactory);
+    }
+}
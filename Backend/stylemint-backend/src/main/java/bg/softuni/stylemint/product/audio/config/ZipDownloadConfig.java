@@ -0,0 +1,32 @@
+package bg.softuni.stylemint.product.audio.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool shared by all pack ZIP downloads for fetching samples from storage.
+ * Caps the total number of concurrent sample fetches across requests.
+ */
+@Configuration
+public class ZipDownloadConfig {
+
+    @Value("${audio.zip.fetch-threads:16}")
+    private int fetchThreads;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService packSampleFetchExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "pack-sample-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(fetchThreads, threadFactory);
+    }
+}
@@ -33,5 +33,6 @@ public class AudioSampleDTO {
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
     private List<String> tags;
+    private Long playCount;
     private Boolean isArchived;
 }
\ No newline at end of file
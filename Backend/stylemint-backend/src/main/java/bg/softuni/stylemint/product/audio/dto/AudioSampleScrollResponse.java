@@ -0,0 +1,23 @@
+package bg.softuni.stylemint.product.audio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One slice of an infinite-scroll sample search.
+ * Pass {@code nextCursor} back to fetch the following slice.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudioSampleScrollResponse {
+
+    private List<AudioSampleDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
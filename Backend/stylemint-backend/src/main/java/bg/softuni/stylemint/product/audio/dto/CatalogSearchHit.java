@@ -0,0 +1,22 @@
+package bg.softuni.stylemint.product.audio.dto;
+
+import bg.softuni.stylemint.product.audio.enums.CatalogItemType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSearchHit {
+    private UUID id;
+    private CatalogItemType type;
+    private String name;
+    private String artist;
+    private Integer bpm;
+    private float score;
+}
@@ -0,0 +1,21 @@
+package bg.softuni.stylemint.product.audio.dto;
+
+import bg.softuni.stylemint.product.audio.enums.CatalogItemType;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.enums.MusicalKey;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSearchRequest {
+    private String query;
+    private CatalogItemType type;
+    private Genre genre;
+    private MusicalKey key;
+    private Integer minBpm;
+    private Integer maxBpm;
+    private int limit = 20;
+}
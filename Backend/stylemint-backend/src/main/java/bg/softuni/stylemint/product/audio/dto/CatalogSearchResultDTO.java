@@ -0,0 +1,24 @@
+package bg.softuni.stylemint.product.audio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSearchResultDTO {
+
+    private List<CatalogSearchHit> hits;
+    private long totalHits;
+
+    /**
+     * Facet dimension (genre, key, type) -> value -> number of matching items
+     */
+    private Map<String, Map<String, Long>> facets;
+}
@@ -1,12 +1,14 @@
 package bg.softuni.stylemint.product.audio.dto;
 
 import bg.softuni.stylemint.product.audio.enums.Genre;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -19,4 +21,15 @@ public class PackFilterMetadata {
     private Double minPrice;
     private Double maxPrice;
     private Long totalPacks;
+
+    private Map<Genre, Long> genreCounts;
+    private Map<String, Long> tagCounts;
+    private Map<String, Long> artistCounts;
+    private Map<String, Long> priceBucketCounts;
+
+    /**
+     * Changes whenever any count changes; used as the ETag
+     */
+    @JsonIgnore
+    private String version;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package bg.softuni.stylemint.product.audio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PackRatingSummaryDTO {
+    private Double averageRating;
+    private Long ratingCount;
+    // Stars (1-5, rounded half up) -> number of ratings
+    private Map<Integer, Long> distribution;
+}
@@ -27,6 +27,7 @@ public class SamplePackDTO {
     private List<Genre> genres;
     private List<String> tags;
     private Double rating;
+    private Integer ratingCount;
     private Integer downloads;
     private OffsetDateTime releaseDate;
     private OffsetDateTime createdAt;
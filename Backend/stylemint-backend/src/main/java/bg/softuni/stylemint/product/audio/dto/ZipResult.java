@@ -1,11 +1,23 @@
 package bg.softuni.stylemint.product.audio.dto;
 
+import bg.softuni.stylemint.product.audio.service.impl.PackZipCache;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+/**
+ * Either a leased cached archive on disk or a body that assembles the archive while streaming.
+ * The lease must be closed once the response is complete.
+ */
 @Data
 @AllArgsConstructor
 public class ZipResult {
     private String fileName;
-    private byte[] bytes;
-}
\ No newline at end of file
+    private String version;
+    private StreamingResponseBody body;
+    private PackZipCache.Lease cachedArchive;
+
+    public boolean isCached() {
+        return cachedArchive != null;
+    }
+}
@@ -0,0 +1,6 @@
+package bg.softuni.stylemint.product.audio.enums;
+
+public enum CatalogItemType {
+    SAMPLE,
+    PACK
+}
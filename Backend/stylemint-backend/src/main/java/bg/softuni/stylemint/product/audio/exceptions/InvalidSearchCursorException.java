@@ -0,0 +1,9 @@
+package bg.softuni.stylemint.product.audio.exceptions;
+
+import bg.softuni.stylemint.common.exception.DomainException;
+
+public class InvalidSearchCursorException extends DomainException {
+    public InvalidSearchCursorException(String cursor) {
+        super("Invalid search cursor: " + cursor);
+    }
+}
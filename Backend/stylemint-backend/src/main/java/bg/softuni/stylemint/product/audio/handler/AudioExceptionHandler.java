@@ -6,6 +6,7 @@ import bg.softuni.stylemint.product.audio.exceptions.AudioFileValidationExceptio
 import bg.softuni.stylemint.product.audio.exceptions.AudioProcessingException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioSampleNotFoundException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioUploadException;
+import bg.softuni.stylemint.product.audio.exceptions.InvalidSearchCursorException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -29,6 +30,18 @@ public class AudioExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(InvalidSearchCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidSearchCursorException ex, HttpServletRequest request) {
+        log.warn("Invalid search cursor: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                "INVALID_SEARCH_CURSOR",
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.value(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(AudioSampleNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleAudioNotFound(AudioSampleNotFoundException ex, HttpServletRequest request) {
         log.warn("Audio sample not found: {}", ex.getMessage());
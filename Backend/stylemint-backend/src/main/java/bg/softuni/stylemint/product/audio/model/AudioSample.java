@@ -15,7 +15,14 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "audio_samples")
+@Table(name = "audio_samples", indexes = {
+        // Every search filters on archived first; each index then serves one common filter + the newest-first sort
+        @Index(name = "idx_audio_samples_archived_created", columnList = "archived, created_at, id"),
+        @Index(name = "idx_audio_samples_archived_genre_created", columnList = "archived, genre, created_at"),
+        @Index(name = "idx_audio_samples_archived_genre_bpm", columnList = "archived, genre, bpm"),
+        @Index(name = "idx_audio_samples_archived_key_bpm", columnList = "archived, key_signature, bpm"),
+        @Index(name = "idx_audio_samples_archived_name", columnList = "archived, name")
+})
 @DynamicUpdate
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
@@ -80,6 +87,11 @@ public class AudioSample extends BaseProduct {
     @Builder.Default
     private Boolean isFree = false;
 
+    // Written only by the buffered SET play_count = play_count + ? flushes
+    @Column(name = "play_count", nullable = false, updatable = false)
+    @Builder.Default
+    private Long playCount = 0L;
+
 
     @CreationTimestamp
     @Column(updatable = false)
@@ -7,7 +7,10 @@ import lombok.*;
 import java.util.UUID;
 
 @Entity
-@Table(name = "pack_ratings")
+@Table(name = "pack_ratings", uniqueConstraints = {
+        // One rating per user and pack; the pack's rating aggregates rely on it
+        @UniqueConstraint(name = "uk_pack_ratings_pack_user", columnNames = {"pack_id", "user_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
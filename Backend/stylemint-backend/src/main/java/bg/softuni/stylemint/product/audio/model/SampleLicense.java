@@ -11,7 +11,10 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "sample_licenses")
+@Table(name = "sample_licenses", uniqueConstraints = {
+        // Guards the set-based pack grant against duplicate grants from concurrent payment callbacks
+        @UniqueConstraint(name = "uk_sample_licenses_user_sample", columnNames = {"user_id", "audio_sample_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
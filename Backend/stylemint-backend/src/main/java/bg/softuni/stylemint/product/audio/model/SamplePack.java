@@ -5,6 +5,7 @@ import bg.softuni.stylemint.product.common.model.BaseProduct;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.UpdateTimestamp;
 
 
@@ -13,7 +14,12 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "sample_packs")
+@Table(name = "sample_packs", indexes = {
+        // Leaderboards read these in order and stop after the first N rows
+        @Index(name = "idx_sample_packs_archived_rating", columnList = "archived, rating"),
+        @Index(name = "idx_sample_packs_archived_downloads", columnList = "archived, downloads"),
+        @Index(name = "idx_sample_packs_archived_release", columnList = "archived, release_date")
+})
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @SuperBuilder
@@ -43,14 +49,17 @@ public class SamplePack extends BaseProduct {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String description;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Lazy, and loaded for a whole page of packs at once when touched
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "sample_pack_genres", joinColumns = @JoinColumn(name = "pack_id"))
     @Column(name = "genre", length = 32, nullable = false)
     @Builder.Default
     private List<Genre> genres = new java.util.ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(name = "sample_pack_tags", joinColumns = @JoinColumn(name = "pack_id"))
     @Column(name = "tag", length = 32, nullable = false)
     @Builder.Default
@@ -60,10 +69,44 @@ public class SamplePack extends BaseProduct {
     @Builder.Default
     private List<AudioSample> samples = new java.util.ArrayList<>();
 
-    @Column
+    // The rating columns are written only by SamplePackRepository's JPQL updates (delta and
+    // reconciliation); an entity save must not write back aggregates it loaded earlier
+    @Column(updatable = false)
     private Double rating;
 
-    @Column
+    // Running rating aggregates, kept current by delta updates on every rating change
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    @Builder.Default
+    private Double ratingSum = 0.0;
+
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingCount = 0;
+
+    // Distribution histogram: ratings per whole star, rounded half up
+    @Column(name = "rating_stars_1", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingStars1 = 0;
+
+    @Column(name = "rating_stars_2", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingStars2 = 0;
+
+    @Column(name = "rating_stars_3", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingStars3 = 0;
+
+    @Column(name = "rating_stars_4", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingStars4 = 0;
+
+    @Column(name = "rating_stars_5", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingStars5 = 0;
+
+    // Written only by the buffered SET downloads = downloads + ? flushes; an entity save
+    // must not write back the value it loaded
+    @Column(updatable = false)
     private Integer downloads;
 
     @Column(name = "release_date")
@@ -0,0 +1,46 @@
+package bg.softuni.stylemint.product.audio.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One precomputed neighbour of a sample. Each sample keeps at most top-K rows,
+ * so "similar samples" is a single indexed lookup on {@code sample_id}.
+ */
+@Entity
+@Table(
+        name = "sample_similarities",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"sample_id", "similar_sample_id"})
+        },
+        indexes = {
+                @Index(name = "idx_sample_similarities_sample_score", columnList = "sample_id, score"),
+                @Index(name = "idx_sample_similarities_similar", columnList = "similar_sample_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SampleSimilarity {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "sample_id", nullable = false)
+    private UUID sampleId;
+
+    @Column(name = "similar_sample_id", nullable = false)
+    private UUID similarSampleId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(name = "computed_at", nullable = false)
+    private OffsetDateTime computedAt;
+}
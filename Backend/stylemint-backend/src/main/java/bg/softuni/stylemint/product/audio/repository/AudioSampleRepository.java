@@ -6,6 +6,8 @@ import bg.softuni.stylemint.product.audio.enums.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,8 +16,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Filtered sample search goes through {@link JpaSpecificationExecutor} with
+ * {@link AudioSampleSpecifications}, so there is a single query path for it.
+ */
 @Repository
-public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID> {
+public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID>, JpaSpecificationExecutor<AudioSample> {
 
     Page<AudioSample> findByArchivedFalse(Pageable pageable);
 
@@ -55,6 +61,9 @@ public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID>
      */
     List<AudioSample> findByPackIdAndArchivedFalse(UUID packId);
 
+    @Query("SELECT s.id FROM AudioSample s WHERE s.pack.id = :packId")
+    List<UUID> findIdsByPackId(@Param("packId") UUID packId);
+
     /**
      * Find standalone samples (not in any pack)
      */
@@ -65,11 +74,6 @@ public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID>
      */
     List<AudioSample> findByPriceBetween(Double minPrice, Double maxPrice);
 
-    /**
-     * Find samples by name (case insensitive, partial match)
-     */
-    List<AudioSample> findByNameContainingIgnoreCase(String name);
-
     /**
      * Count samples by genre
      */
@@ -92,42 +96,10 @@ public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID>
      */
     Page<AudioSample> findByGenreAndArchivedFalse(Genre genre, Pageable pageable);
 
-    /**
-     * Custom query: Search samples with filters
-     */
-    @Query("SELECT s FROM AudioSample s WHERE " +
-            "(:genre IS NULL OR s.genre = :genre) AND " +
-            "(:sampleType IS NULL OR s.sampleType = :sampleType) AND " +
-            "(:minBpm IS NULL OR s.bpm >= :minBpm) AND " +
-            "(:maxBpm IS NULL OR s.bpm <= :maxBpm) AND " +
-            "(:key IS NULL OR s.key = :key) AND " +
-            "(:instrumentGroup IS NULL OR s.instrumentGroup = :instrumentGroup)")
-    Page<AudioSample> searchSamples(
-            @Param("genre") Genre genre,
-            @Param("sampleType") SampleType sampleType,
-            @Param("minBpm") Integer minBpm,
-            @Param("maxBpm") Integer maxBpm,
-            @Param("key") MusicalKey key,
-            @Param("instrumentGroup") InstrumentGroup instrumentGroup,
-            Pageable pageable
-    );
-
-    /**
-     * Custom query: Find similar samples by genre and BPM
-     */
-    @Query("SELECT s FROM AudioSample s WHERE s.genre = :genre " +
-            "AND s.bpm BETWEEN :bpm - 10 AND :bpm + 10 " +
-            "AND s.id != :excludeId")
-    List<AudioSample> findSimilarSamples(
-            @Param("genre") Genre genre,
-            @Param("bpm") Integer bpm,
-            @Param("excludeId") UUID excludeId
-    );
-
     /**
      * Custom query: Get popular samples by genre
      */
-    @Query("SELECT s FROM AudioSample s WHERE s.genre = :genre ORDER BY s.createdAt DESC")
+    @Query("SELECT s FROM AudioSample s WHERE s.archived = false AND s.genre = :genre ORDER BY s.createdAt DESC")
     Page<AudioSample> findPopularByGenre(@Param("genre") Genre genre, Pageable pageable);
 
 
@@ -136,7 +108,12 @@ public interface AudioSampleRepository extends JpaRepository<AudioSample, UUID>
 
     Optional<AudioSample> findByIdAndArchivedFalse(UUID id);
 
-    Page<AudioSample> findByNameContainingIgnoreCaseAndArchivedFalse(String name, Pageable pageable);
+    /**
+     * Atomic in-place increment; no read, no full-row write
+     */
+    @Modifying
+    @Query("UPDATE AudioSample s SET s.playCount = s.playCount + :delta WHERE s.id = :sampleId")
+    int addPlays(@Param("sampleId") UUID sampleId, @Param("delta") long delta);
 
 
     List<AudioSample> findByArchivedTrue();
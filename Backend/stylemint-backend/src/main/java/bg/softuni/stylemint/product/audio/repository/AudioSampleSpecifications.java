@@ -0,0 +1,112 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.product.audio.dto.AudioSampleSearchRequest;
+import bg.softuni.stylemint.product.audio.enums.MusicalKey;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Query building blocks for sample search.
+ *
+ * Every search starts from {@link #notArchived()} so the archived filter runs in SQL
+ * and paging/counts are exact. Predicates only use equality, ranges and prefix LIKE,
+ * which the composite indexes on {@code audio_samples} can serve.
+ */
+public final class AudioSampleSpecifications {
+
+    /**
+     * Newest first, with the ID as tie-breaker so keyset paging is stable.
+     */
+    public static final Sort NEWEST_FIRST = Sort.by(
+            Sort.Order.desc("createdAt"),
+            Sort.Order.desc("id")
+    );
+
+    private AudioSampleSpecifications() {
+    }
+
+    public static Specification<AudioSample> notArchived() {
+        return (root, query, cb) -> cb.isFalse(root.get("archived"));
+    }
+
+    /**
+     * All filters of a search request that are set, combined with AND.
+     */
+    public static Specification<AudioSample> matching(AudioSampleSearchRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isFalse(root.get("archived")));
+
+            if (request.getGenre() != null) {
+                predicates.add(cb.equal(root.get("genre"), request.getGenre()));
+            }
+            if (request.getKey() != null) {
+                predicates.add(cb.equal(root.get("key"), request.getKey()));
+            }
+            if (request.getSampleType() != null) {
+                predicates.add(cb.equal(root.get("sampleType"), request.getSampleType()));
+            }
+            if (request.getInstrumentGroup() != null) {
+                predicates.add(cb.equal(root.get("instrumentGroup"), request.getInstrumentGroup()));
+            }
+            if (request.getMinBpm() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("bpm"), request.getMinBpm()));
+            }
+            if (request.getMaxBpm() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("bpm"), request.getMaxBpm()));
+            }
+            if (request.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), request.getMinPrice()));
+            }
+            if (request.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), request.getMaxPrice()));
+            }
+            if (request.getSearchTerm() != null && !request.getSearchTerm().isBlank()) {
+                predicates.add(nameStartsWith(request.getSearchTerm()).toPredicate(root, query, cb));
+            }
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Prefix match on the sample name. A leading wildcard would force a full scan;
+     * a prefix can use the name index (case-insensitive under the default MySQL collation).
+     */
+    public static Specification<AudioSample> nameStartsWith(String term) {
+        String pattern = escapeLike(term.trim()) + "%";
+        return (root, query, cb) -> cb.like(root.get("name"), pattern, '\\');
+    }
+
+    public static Specification<AudioSample> keyIn(Collection<MusicalKey> keys) {
+        return (root, query, cb) -> root.get("key").in(keys);
+    }
+
+    /**
+     * Rows strictly after the given cursor in {@link #NEWEST_FIRST} order.
+     */
+    public static Specification<AudioSample> after(OffsetDateTime createdAt, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(
+                        cb.equal(root.get("createdAt"), createdAt),
+                        cb.lessThan(root.get("id"), id)
+                )
+        );
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,14 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import java.util.UUID;
+
+public interface PackRatingAggregateProjection {
+    UUID getPackId();
+    Double getRatingSum();
+    long getRatingCount();
+    long getStars1();
+    long getStars2();
+    long getStars3();
+    long getStars4();
+    long getStars5();
+}
@@ -4,6 +4,8 @@ import aj.org.objectweb.asm.commons.Remapper;
 import bg.softuni.stylemint.product.audio.model.PackRating;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,8 +14,25 @@ import java.util.UUID;
 
 @Repository
 public interface PackRatingRepository extends JpaRepository<PackRating, UUID> {
-    List<PackRating> findBySamplePack(SamplePack samplePack);
+
+    String AGGREGATE_SELECT = "SELECT r.samplePack.id AS packId, SUM(r.rating) AS ratingSum, COUNT(r) AS ratingCount, " +
+            "SUM(CASE WHEN r.rating < 1.5 THEN 1 ELSE 0 END) AS stars1, " +
+            "SUM(CASE WHEN r.rating >= 1.5 AND r.rating < 2.5 THEN 1 ELSE 0 END) AS stars2, " +
+            "SUM(CASE WHEN r.rating >= 2.5 AND r.rating < 3.5 THEN 1 ELSE 0 END) AS stars3, " +
+            "SUM(CASE WHEN r.rating >= 3.5 AND r.rating < 4.5 THEN 1 ELSE 0 END) AS stars4, " +
+            "SUM(CASE WHEN r.rating >= 4.5 THEN 1 ELSE 0 END) AS stars5 " +
+            "FROM PackRating r ";
 
     Optional<PackRating> findBySamplePackAndUserId(SamplePack pack, UUID currentUserId);
+
+    /**
+     * Aggregates recomputed from the rating rows; the star buckets must match
+     * SamplePackRatingServiceImpl.starsOf (rounded half up)
+     */
+    @Query(AGGREGATE_SELECT + "GROUP BY r.samplePack.id")
+    List<PackRatingAggregateProjection> aggregateAll();
+
+    @Query(AGGREGATE_SELECT + "WHERE r.samplePack.id = :packId GROUP BY r.samplePack.id")
+    Optional<PackRatingAggregateProjection> aggregateByPackId(@Param("packId") UUID packId);
 }
 
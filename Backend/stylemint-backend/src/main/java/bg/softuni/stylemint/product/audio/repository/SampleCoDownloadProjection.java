@@ -0,0 +1,8 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import java.util.UUID;
+
+public interface SampleCoDownloadProjection {
+    UUID getSampleId();
+    long getCount();
+}
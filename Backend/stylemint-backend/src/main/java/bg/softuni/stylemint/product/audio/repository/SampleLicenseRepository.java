@@ -2,12 +2,15 @@ package bg.softuni.stylemint.product.audio.repository;
 
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.model.SampleLicense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface SampleLicenseRepository extends JpaRepository<SampleLicense, UUID> {
@@ -21,4 +24,29 @@ public interface SampleLicenseRepository extends JpaRepository<SampleLicense, UU
     Optional<SampleLicense> findByUserIdAndAudioSampleId(UUID userId, UUID sampleId);
 
     boolean existsByUserIdAndAudioSampleIdAndArchivedFalse(UUID userId, UUID sampleId);
+
+    /**
+     * Samples of a pack the user already holds a license for (archived included)
+     */
+    @Query("SELECT sl.audioSample.id FROM SampleLicense sl " +
+            "WHERE sl.user.id = :userId AND sl.audioSample.pack.id = :packId")
+    Set<UUID> findLicensedSampleIdsInPack(@Param("userId") UUID userId, @Param("packId") UUID packId);
+
+    /**
+     * Other samples licensed by users who also licensed the given sample, most shared first
+     */
+    @Query("SELECT other.audioSample.id AS sampleId, COUNT(other) AS count " +
+            "FROM SampleLicense mine JOIN SampleLicense other ON other.user = mine.user " +
+            "WHERE mine.audioSample.id = :sampleId AND other.audioSample.id <> :sampleId " +
+            "GROUP BY other.audioSample.id " +
+            "ORDER BY COUNT(other) DESC")
+    List<SampleCoDownloadProjection> findCoDownloadCounts(@Param("sampleId") UUID sampleId, Pageable pageable);
+
+    /**
+     * How many users licensed each of the given samples; samples nobody licensed are left out
+     */
+    @Query("SELECT sl.audioSample.id AS sampleId, COUNT(sl) AS count FROM SampleLicense sl " +
+            "WHERE sl.audioSample.id IN :sampleIds " +
+            "GROUP BY sl.audioSample.id")
+    List<SampleCoDownloadProjection> countLicensesBySampleIds(@Param("sampleIds") Collection<UUID> sampleIds);
 }
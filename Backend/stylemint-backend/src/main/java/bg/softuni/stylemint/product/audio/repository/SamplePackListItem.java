@@ -0,0 +1,28 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Scalar columns of a pack for listing pages; genres and tags are fetched separately for the whole page.
+ * A record rather than an interface, so rows are built by a JPQL constructor expression instead of a proxy per row.
+ */
+public record SamplePackListItem(
+        UUID id,
+        String title,
+        UUID authorId,
+        String artist,
+        String coverImage,
+        Double price,
+        Integer sampleCount,
+        String totalSize,
+        String description,
+        Double rating,
+        Integer ratingCount,
+        Integer downloads,
+        OffsetDateTime releaseDate,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        boolean archived
+) {
+}
@@ -5,12 +5,17 @@ import bg.softuni.stylemint.product.audio.model.SamplePack;
 import bg.softuni.stylemint.product.audio.enums.Genre;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -18,7 +23,12 @@ public interface SamplePackRepository extends JpaRepository<SamplePack, UUID> {
 
     List<SamplePack> findByAuthorIdAndArchivedFalse(UUID authorId);
 
-    List<SamplePack> findByTitleContainingIgnoreCaseAndArchivedFalse(String title);
+    /**
+     * Listing variants take a projection type (e.g. {@link SamplePackListItem}) and select only its columns
+     */
+    <T> List<T> findByAuthorIdAndArchivedFalse(UUID authorId, Class<T> type);
+
+    <T> List<T> findByTitleContainingIgnoreCaseAndArchivedFalse(String title, Class<T> type);
 
     /**
      * Find packs containing a specific genre and not archived
@@ -26,32 +36,36 @@ public interface SamplePackRepository extends JpaRepository<SamplePack, UUID> {
     @Query("SELECT p FROM SamplePack p JOIN p.genres g WHERE g = :genre AND p.archived = false")
     List<SamplePack> findByGenresContainingAndArchivedFalse(@Param("genre") Genre genre);
 
-    @Query("select p from SamplePack p join fetch p.samples where p.id = :packId")
-    SamplePack fetchPackWithSamples(UUID packId);
-
     /**
      * Count packs by author
      */
     long countByAuthorId(UUID authorId);
 
-    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.rating DESC")
-    List<SamplePack> findTop10ByOrderByRatingDescAndArchivedFalse();
+    /**
+     * Leaderboards: callers pass the row limit, and each ORDER BY walks a matching
+     * (archived, column) index so the database stops after that many rows instead of sorting the catalog.
+     * Ties break on id in the same direction: InnoDB secondary indexes end in the primary key,
+     * so one backward scan yields (column DESC, id DESC) with no filesort
+     */
+    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.rating DESC, p.id DESC")
+    List<SamplePack> findTopRatedPacks(Pageable pageable);
 
-    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.downloads DESC")
-    List<SamplePack> findTop10ByOrderByDownloadsDescAndArchivedFalse();
+    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.downloads DESC, p.id DESC")
+    List<SamplePack> findMostDownloadedPacks(Pageable pageable);
 
-    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.releaseDate DESC")
-    List<SamplePack> findTop10ByOrderByReleaseDateDescAndArchivedFalse();
+    @Query("SELECT p FROM SamplePack p WHERE p.archived = false ORDER BY p.releaseDate DESC, p.id DESC")
+    List<SamplePack> findLatestPacks(Pageable pageable);
 
     /**
      * Paginated search by artist
      */
-    Page<SamplePack> findByArtistAndArchivedFalse(String artist, Pageable pageable);
+    <T> Page<T> findByArtistAndArchivedFalse(String artist, Pageable pageable, Class<T> type);
 
     /**
      * Custom query: Search packs with multiple filters
      */
     @Query("SELECT DISTINCT p FROM SamplePack p LEFT JOIN p.genres g WHERE " +
+            "p.archived = false AND " +
             "(:artist IS NULL OR p.artist LIKE %:artist%) AND " +
             "(:genre IS NULL OR g = :genre) AND " +
             "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
@@ -69,7 +83,8 @@ public interface SamplePackRepository extends JpaRepository<SamplePack, UUID> {
     /**
      * Custom query: Find featured packs (high rating and downloads)
      */
-    @Query("SELECT p FROM SamplePack p WHERE p.rating >= 4.5 AND p.downloads >= 100 ORDER BY p.rating DESC, p.downloads DESC")
+    @Query("SELECT p FROM SamplePack p WHERE p.archived = false AND p.rating >= 4.5 AND p.downloads >= 100 " +
+            "ORDER BY p.rating DESC, p.downloads DESC")
     List<SamplePack> findFeaturedPacks(Pageable pageable);
 
     /**
@@ -81,13 +96,92 @@ public interface SamplePackRepository extends JpaRepository<SamplePack, UUID> {
     /**
      * Custom query: Find similar packs by genre
      */
-    @Query("SELECT DISTINCT p FROM SamplePack p JOIN p.genres g WHERE g IN :genres AND p.id != :excludeId")
-    List<SamplePack> findSimilarPacks(@Param("genres") List<Genre> genres, @Param("excludeId") UUID excludeId);
+    @Query("SELECT DISTINCT p FROM SamplePack p JOIN p.genres g " +
+            "WHERE g IN :genres AND p.id != :excludeId AND p.archived = false")
+    List<SamplePack> findSimilarPacks(@Param("genres") List<Genre> genres, @Param("excludeId") UUID excludeId, Pageable pageable);
 
     boolean existsByIdAndAuthorId(UUID packId, UUID authorId);
 
+    /**
+     * Atomic in-place increment; no read, no full-row write
+     */
+    @Modifying
+    @Query("UPDATE SamplePack p SET p.downloads = COALESCE(p.downloads, 0) + :delta WHERE p.id = :packId")
+    int addDownloads(@Param("packId") UUID packId, @Param("delta") int delta);
+
+    /**
+     * Applies one rating change to the pack's aggregates in a single atomic statement.
+     * The average is assigned first because MySQL evaluates SET left to right with updated values.
+     */
+    @Modifying
+    @Query("UPDATE SamplePack p SET " +
+            "p.rating = CASE WHEN p.ratingCount + :countDelta > 0 " +
+            "THEN ROUND((p.ratingSum + :sumDelta) / (p.ratingCount + :countDelta), 1) ELSE 0.0 END, " +
+            "p.ratingSum = p.ratingSum + :sumDelta, " +
+            "p.ratingCount = p.ratingCount + :countDelta, " +
+            "p.ratingStars1 = p.ratingStars1 + :stars1, " +
+            "p.ratingStars2 = p.ratingStars2 + :stars2, " +
+            "p.ratingStars3 = p.ratingStars3 + :stars3, " +
+            "p.ratingStars4 = p.ratingStars4 + :stars4, " +
+            "p.ratingStars5 = p.ratingStars5 + :stars5 " +
+            "WHERE p.id = :packId")
+    int applyRatingDelta(@Param("packId") UUID packId,
+                         @Param("sumDelta") double sumDelta,
+                         @Param("countDelta") int countDelta,
+                         @Param("stars1") int stars1,
+                         @Param("stars2") int stars2,
+                         @Param("stars3") int stars3,
+                         @Param("stars4") int stars4,
+                         @Param("stars5") int stars5);
+
+    /**
+     * Replaces the pack's aggregates with ones recomputed from its ratings (reconciliation)
+     */
+    @Modifying
+    @Query("UPDATE SamplePack p SET " +
+            "p.rating = :rating, " +
+            "p.ratingSum = :ratingSum, " +
+            "p.ratingCount = :ratingCount, " +
+            "p.ratingStars1 = :stars1, " +
+            "p.ratingStars2 = :stars2, " +
+            "p.ratingStars3 = :stars3, " +
+            "p.ratingStars4 = :stars4, " +
+            "p.ratingStars5 = :stars5 " +
+            "WHERE p.id = :packId")
+    int overwriteRatingAggregate(@Param("packId") UUID packId,
+                                 @Param("rating") double rating,
+                                 @Param("ratingSum") double ratingSum,
+                                 @Param("ratingCount") int ratingCount,
+                                 @Param("stars1") int stars1,
+                                 @Param("stars2") int stars2,
+                                 @Param("stars3") int stars3,
+                                 @Param("stars4") int stars4,
+                                 @Param("stars5") int stars5);
+
+    @Query("SELECT p.id AS packId, p.ratingSum AS ratingSum, p.ratingCount AS ratingCount, " +
+            "p.ratingStars1 AS stars1, p.ratingStars2 AS stars2, p.ratingStars3 AS stars3, " +
+            "p.ratingStars4 AS stars4, p.ratingStars5 AS stars5 " +
+            "FROM SamplePack p WHERE p.id = :packId")
+    Optional<PackRatingAggregateProjection> findRatingAggregate(@Param("packId") UUID packId);
+
+    /**
+     * Stored aggregates of every pack that has ratings or claims to have any (reconciliation input)
+     */
+    @Query("SELECT p.id AS packId, p.ratingSum AS ratingSum, p.ratingCount AS ratingCount, " +
+            "p.ratingStars1 AS stars1, p.ratingStars2 AS stars2, p.ratingStars3 AS stars3, " +
+            "p.ratingStars4 AS stars4, p.ratingStars5 AS stars5 " +
+            "FROM SamplePack p " +
+            "WHERE p.ratingCount <> 0 OR p.id IN (SELECT r.samplePack.id FROM PackRating r)")
+    List<PackRatingAggregateProjection> findStoredRatingAggregates();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM SamplePack p WHERE p.id = :packId")
+    Optional<SamplePack> findByIdForUpdate(@Param("packId") UUID packId);
+
     Page<SamplePack>  findByArchivedFalse(Pageable pageable);
 
+    <T> Page<T> findByArchivedFalse(Pageable pageable, Class<T> type);
+
     List<SamplePack> findByArchivedTrue();
 
     /**
@@ -113,21 +207,33 @@ public interface SamplePackRepository extends JpaRepository<SamplePack, UUID> {
     );
 
     /**
-     * Get all distinct artists who have non-archived packs
+     * Facet source rows for all non-archived packs: [id, artist, price]
+     */
+    @Query("SELECT p.id, p.artist, p.price FROM SamplePack p WHERE p.archived = false")
+    List<Object[]> findFacetRows();
+
+    /**
+     * Facet source rows for all non-archived packs: [pack id, genre]
+     */
+    @Query("SELECT p.id, g FROM SamplePack p JOIN p.genres g WHERE p.archived = false")
+    List<Object[]> findFacetGenres();
+
+    /**
+     * Facet source rows for all non-archived packs: [pack id, tag]
      */
-    @Query("SELECT DISTINCT p.artist FROM SamplePack p WHERE p.archived = false ORDER BY p.artist")
-    List<String> findDistinctArtists();
+    @Query("SELECT p.id, t FROM SamplePack p JOIN p.tags t WHERE p.archived = false")
+    List<Object[]> findFacetTags();
 
     /**
-     * Get all distinct genres from non-archived packs
+     * Genres of a page of packs in one query: [pack id, genre]
      */
-    @Query("SELECT DISTINCT g FROM SamplePack p JOIN p.genres g WHERE p.archived = false")
-    List<Genre> findDistinctGenres();
+    @Query("SELECT p.id, g FROM SamplePack p JOIN p.genres g WHERE p.id IN :packIds")
+    List<Object[]> findGenresByPackIds(@Param("packIds") Collection<UUID> packIds);
 
     /**
-     * Get price range (min, max) from all non-archived packs
+     * Tags of a page of packs in one query: [pack id, tag]
      */
-    @Query("SELECT MIN(p.price), MAX(p.price) FROM SamplePack p WHERE p.archived = false")
-    List<Double[]> getPriceRange();
+    @Query("SELECT p.id, t FROM SamplePack p JOIN p.tags t WHERE p.id IN :packIds")
+    List<Object[]> findTagsByPackIds(@Param("packIds") Collection<UUID> packIds);
 
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.product.audio.model.SampleSimilarity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SampleSimilarityRepository extends JpaRepository<SampleSimilarity, UUID> {
+
+    /**
+     * Precomputed neighbour IDs of a sample, best first. Served from the (sample_id, score) index alone.
+     */
+    @Query("SELECT sim.similarSampleId FROM SampleSimilarity sim WHERE sim.sampleId = :sampleId ORDER BY sim.score DESC")
+    List<UUID> findSimilarSampleIds(@Param("sampleId") UUID sampleId, Pageable pageable);
+
+    List<SampleSimilarity> findBySampleIdOrderByScoreDesc(UUID sampleId);
+
+    @Query("SELECT DISTINCT sim.sampleId FROM SampleSimilarity sim WHERE sim.similarSampleId = :sampleId")
+    List<UUID> findSampleIdsBySimilarSampleId(@Param("sampleId") UUID sampleId);
+
+    @Modifying
+    @Query("DELETE FROM SampleSimilarity sim WHERE sim.sampleId = :sampleId")
+    int deleteBySampleId(@Param("sampleId") UUID sampleId);
+
+    @Modifying
+    @Query("DELETE FROM SampleSimilarity sim WHERE sim.sampleId = :sampleId OR sim.similarSampleId = :sampleId")
+    int deleteAllReferencing(@Param("sampleId") UUID sampleId);
+
+    /**
+     * Drops rows that point from or to samples that are archived or gone
+     */
+    @Modifying
+    @Query("DELETE FROM SampleSimilarity sim " +
+            "WHERE sim.sampleId NOT IN (SELECT s.id FROM AudioSample s WHERE s.archived = false) " +
+            "OR sim.similarSampleId NOT IN (SELECT s.id FROM AudioSample s WHERE s.archived = false)")
+    int deleteInactive();
+}
@@ -7,8 +7,10 @@ import bg.softuni.stylemint.product.audio.model.SamplePack;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface AudioSampleService {
@@ -23,6 +25,21 @@ public interface AudioSampleService {
      */
     AudioSampleDTO uploadSample(UUID authorId, UploadSampleRequest request);
 
+    /**
+     * Persist a sample whose audio file has already been uploaded to storage
+     * @param authorId ID of the user uploading the sample
+     * @param request Upload request metadata (the file itself is not read)
+     * @param uploadResult Result of CloudinaryService.uploadAudio (url, duration)
+     * @return Created AudioSampleDTO
+     */
+    AudioSampleDTO saveUploadedSample(UUID authorId, UploadSampleRequest request, Map<String, Object> uploadResult);
+
+    /**
+     * Validate audio file type and size before upload
+     * @param file Audio file
+     */
+    void validateAudioFile(MultipartFile file);
+
     /**
      * Get sample by ID
      * @param sampleId Sample ID
@@ -127,10 +144,19 @@ public interface AudioSampleService {
      */
     Page<AudioSampleDTO> searchSamples(AudioSampleSearchRequest request, Pageable pageable);
 
+    /**
+     * Keyset-paginated search for infinite scroll, newest first
+     * @param request Search request with filters
+     * @param cursor nextCursor of the previous slice, or null for the first one
+     * @param size Maximum number of samples in the slice
+     * @return Slice of AudioSampleDTO with the cursor of the next one
+     */
+    AudioSampleScrollResponse scrollSamples(AudioSampleSearchRequest request, String cursor, int size);
+
     /**
      * Search samples by name
-     * @param name Name to search (partial match)
-     * @return List of AudioSampleDTO
+     * @param name Name prefix to search
+     * @return Newest matching AudioSampleDTOs (capped)
      */
     List<AudioSampleDTO> searchSamplesByName(String name);
 
@@ -186,6 +212,11 @@ public interface AudioSampleService {
      */
     List<AudioSampleDTO> getStandaloneSamplesByAuthor(UUID authorId);
 
+    /**
+     * Record a sample preview play (buffered, flushed to the play counter in the background)
+     */
+    void recordPlay(UUID sampleId);
+
 
     void archiveAllByAuthor(UUID targetUserId);
 
@@ -0,0 +1,44 @@
+package bg.softuni.stylemint.product.audio.service;
+
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchRequest;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchResultDTO;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+
+import java.util.UUID;
+
+/**
+ * Full-text search over samples and packs, backed by a local index.
+ * Index updates made inside a transaction are applied only after it commits.
+ */
+public interface CatalogSearchService {
+
+    /**
+     * Add or replace a sample in the index (archived samples are removed)
+     * @param sample Sample entity
+     */
+    void indexSample(AudioSample sample);
+
+    /**
+     * Add or replace a pack in the index (archived packs are removed)
+     * @param pack Pack entity
+     */
+    void indexPack(SamplePack pack);
+
+    void removeSample(UUID sampleId);
+
+    void removePack(UUID packId);
+
+    /**
+     * Ranked prefix/fuzzy search with facet counts
+     * @param request Query text and filters
+     * @return Hits ordered by relevance plus facet counts
+     */
+    CatalogSearchResultDTO search(CatalogSearchRequest request);
+
+    /**
+     * Drop the index and rebuild it from the database
+     * @return Number of indexed items
+     */
+    int rebuildIndex();
+}
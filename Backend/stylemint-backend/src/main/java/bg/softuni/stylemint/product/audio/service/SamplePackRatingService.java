@@ -1,12 +1,30 @@
 package bg.softuni.stylemint.product.audio.service;
 
+import bg.softuni.stylemint.product.audio.dto.PackRatingSummaryDTO;
+
 import java.util.UUID;
 
 public interface SamplePackRatingService {
 
     void updateUserPackRate(UUID packId,UUID userId, Double rating);
 
+    /**
+     * Remove the user's rating of a pack, if any
+     */
+    void removeUserPackRate(UUID packId, UUID userId);
+
     Double getUserPackRate(UUID packId);
 
+    /**
+     * Average, count and star distribution, read from the pack's stored aggregates
+     */
+    PackRatingSummaryDTO getPackRatingSummary(UUID packId);
+
+    /**
+     * Recompute every pack's rating aggregates from the rating rows and fix any that drifted
+     * @return number of packs corrected
+     */
+    int reconcileRatingAggregates();
+
     void validateRate(Double rating);
-}
\ No newline at end of file
+}
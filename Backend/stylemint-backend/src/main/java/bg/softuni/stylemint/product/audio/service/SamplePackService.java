@@ -91,6 +91,11 @@ public interface SamplePackService {
      */
     List<SamplePackDTO> getLatestPacks();
 
+    /**
+     * Get featured packs (highly rated and downloaded)
+     */
+    List<SamplePackDTO> getFeaturedPacks();
+
 
 
     // ================ Statistics ================
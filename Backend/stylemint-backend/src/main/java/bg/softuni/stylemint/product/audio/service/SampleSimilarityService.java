@@ -0,0 +1,34 @@
+package bg.softuni.stylemint.product.audio.service;
+
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SampleSimilarityService {
+
+    /**
+     * Top-K neighbours of a sample, best first
+     */
+    List<AudioSample> findSimilar(AudioSample sample);
+
+    /**
+     * Queue a new or edited sample for neighbour recomputation once the current transaction commits
+     */
+    void sampleChanged(UUID sampleId);
+
+    /**
+     * Queue an archived or deleted sample for removal from all neighbour lists once the current transaction commits
+     */
+    void sampleRemoved(UUID sampleId);
+
+    /**
+     * Apply all queued changes
+     */
+    void refreshPending();
+
+    /**
+     * Recompute neighbours for every active sample
+     */
+    int rebuildAll();
+}
@@ -0,0 +1,270 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.enums.AudioCounter;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-coalescing buffer for pack download and sample play counters.
+ *
+ * Increments land in a {@link LongAdder} per counter and ID (no DB access on the request path)
+ * and are appended to a local journal. Every {@code audio.counters.flush-interval-ms} the
+ * buffer swaps in a fresh generation and applies the old one as one
+ * {@code SET x = x + delta} update per touched row, in a single transaction.
+ *
+ * Journals of a generation are deleted only after its transaction commits; any left over
+ * from a crash are replayed on startup. Delivery is at-least-once: a crash between commit
+ * and journal deletion replays that last batch.
+ *
+ * Journal appends are not synced per increment. They survive a process crash (the OS
+ * page cache still holds them), but a power loss or kernel crash can drop increments
+ * written since the last {@code audio.counters.journal-sync-ms} sync.
+ */
+@Slf4j
+@Component
+public class AudioCounterBuffer {
+
+    private static final String JOURNAL_PREFIX = "counters-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final SamplePackRepository samplePackRepository;
+    private final AudioSampleRepository audioSampleRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path journalDir;
+
+    // Increments hold the read lock; only the generation swap takes the write lock
+    private final ReentrantReadWriteLock generationLock = new ReentrantReadWriteLock();
+    private Generation current;
+    private long journalSequence;
+
+    // Deltas whose flush failed (or were recovered on startup), retried with the next flush
+    private final Map<CounterKey, Long> carriedOver = new HashMap<>();
+    private final List<Path> carriedOverJournals = new ArrayList<>();
+
+    public AudioCounterBuffer(SamplePackRepository samplePackRepository,
+                              AudioSampleRepository audioSampleRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${audio.counters.journal-dir:${java.io.tmpdir}/stylemint-counters}") Path journalDir) {
+        this.samplePackRepository = samplePackRepository;
+        this.audioSampleRepository = audioSampleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.journalDir = journalDir;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(journalDir);
+
+        List<Path> leftovers;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            leftovers = files
+                    .filter(file -> file.getFileName().toString().startsWith(JOURNAL_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(JOURNAL_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path journal : leftovers) {
+            replay(journal);
+            carriedOverJournals.add(journal);
+            journalSequence = Math.max(journalSequence, sequenceOf(journal));
+        }
+        if (!leftovers.isEmpty()) {
+            log.info("♻️ Recovered {} unflushed counter increments from {} journal(s)",
+                    carriedOver.values().stream().mapToLong(Long::longValue).sum(), leftovers.size());
+        }
+
+        current = newGeneration();
+    }
+
+    public void increment(AudioCounter counter, UUID id) {
+        CounterKey key = new CounterKey(counter, id);
+        ReentrantReadWriteLock.ReadLock lock = generationLock.readLock();
+        lock.lock();
+        try {
+            current.journal(key);
+            current.counts.computeIfAbsent(key, k -> new LongAdder()).increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audio.counters.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Generation flushed;
+        ReentrantReadWriteLock.WriteLock lock = generationLock.writeLock();
+        lock.lock();
+        try {
+            if (current.counts.isEmpty() && carriedOver.isEmpty()) {
+                return;
+            }
+            flushed = current;
+            current = newGeneration();
+        } finally {
+            lock.unlock();
+        }
+        flushed.close();
+
+        Map<CounterKey, Long> deltas = new HashMap<>(carriedOver);
+        flushed.counts.forEach((key, adder) -> deltas.merge(key, adder.sum(), Long::sum));
+        List<Path> journals = new ArrayList<>(carriedOverJournals);
+        journals.add(flushed.journalFile);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::apply));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Failed to flush {} counter rows, will retry", deltas.size(), e);
+            carriedOver.clear();
+            carriedOver.putAll(deltas);
+            carriedOverJournals.clear();
+            carriedOverJournals.addAll(journals);
+            return;
+        }
+
+        carriedOver.clear();
+        carriedOverJournals.clear();
+        journals.forEach(this::deleteQuietly);
+        log.debug("💾 Flushed {} counter rows", deltas.size());
+    }
+
+    @Scheduled(fixedDelayString = "${audio.counters.journal-sync-ms:200}")
+    public void syncJournal() {
+        // The read lock keeps the generation swap from closing the channel mid-sync
+        ReentrantReadWriteLock.ReadLock lock = generationLock.readLock();
+        lock.lock();
+        try {
+            current.sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        current.close();
+    }
+
+    // ================ Helpers ================
+
+    private void apply(CounterKey key, long delta) {
+        apply(key.counter(), key.id(), delta);
+    }
+
+    void apply(AudioCounter counter, UUID id, long delta) {
+        switch (counter) {
+            case PACK_DOWNLOADS -> {
+                // downloads is an INT column; a delta past int range goes in int-sized steps
+                // rather than failing the whole batch on every retry
+                for (long remaining = delta; remaining > 0; remaining -= Integer.MAX_VALUE) {
+                    samplePackRepository.addDownloads(id, (int) Math.min(remaining, Integer.MAX_VALUE));
+                }
+            }
+            case SAMPLE_PLAYS -> audioSampleRepository.addPlays(id, delta);
+        }
+    }
+
+    private Generation newGeneration() {
+        Path journalFile = journalDir.resolve(JOURNAL_PREFIX + String.format("%019d", ++journalSequence) + JOURNAL_SUFFIX);
+        try {
+            return new Generation(journalFile, FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open counter journal " + journalFile, e);
+        }
+    }
+
+    private void replay(Path journal) throws IOException {
+        for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+            // A torn last line from a crash mid-write is skipped
+            String[] parts = line.split(" ");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                CounterKey key = new CounterKey(AudioCounter.valueOf(parts[0]), UUID.fromString(parts[1]));
+                carriedOver.merge(key, 1L, Long::sum);
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping malformed counter journal line in {}: {}", journal.getFileName(), line);
+            }
+        }
+    }
+
+    private long sequenceOf(Path journal) {
+        String name = journal.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void deleteQuietly(Path journal) {
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            log.warn("Failed to delete counter journal {}", journal, e);
+        }
+    }
+
+    private record CounterKey(AudioCounter counter, UUID id) {
+    }
+
+    private static final class Generation {
+
+        private final Map<CounterKey, LongAdder> counts = new ConcurrentHashMap<>();
+        private final Path journalFile;
+        private final FileChannel channel;
+
+        private Generation(Path journalFile, FileChannel channel) {
+            this.journalFile = journalFile;
+            this.channel = channel;
+        }
+
+        void journal(CounterKey key) {
+            byte[] line = (key.counter().name() + " " + key.id() + "\n").getBytes(StandardCharsets.UTF_8);
+            try {
+                channel.write(ByteBuffer.wrap(line));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal counter increment", e);
+            }
+        }
+
+        void sync() {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                log.warn("Failed to sync counter journal {}", journalFile, e);
+            }
+        }
+
+        void close() {
+            sync();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close counter journal {}", journalFile, e);
+            }
+        }
+    }
+}
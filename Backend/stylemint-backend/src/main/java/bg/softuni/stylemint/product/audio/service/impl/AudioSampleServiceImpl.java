@@ -6,9 +6,13 @@ import bg.softuni.stylemint.product.audio.exceptions.AudioFileValidationExceptio
 import bg.softuni.stylemint.product.audio.exceptions.AudioProcessingException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioSampleNotFoundException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioUploadException;
+import bg.softuni.stylemint.product.audio.exceptions.InvalidSearchCursorException;
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleSpecifications;
 import bg.softuni.stylemint.product.audio.service.AudioSampleService;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
+import bg.softuni.stylemint.product.audio.service.SampleSimilarityService;
 import bg.softuni.stylemint.common.exception.NotFoundException;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.FileProcessingException;
@@ -19,8 +23,9 @@ import bg.softuni.stylemint.user.service.util.UserRolesService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -28,7 +33,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -44,6 +53,13 @@ public class AudioSampleServiceImpl implements AudioSampleService {
     private final CloudinaryService cloudinaryService;
     private final AudioSampleMapper audioSampleMapper;
     private final UserRolesService userRolesService;
+    private final CatalogSearchService catalogSearchService;
+    private final SampleSimilarityService sampleSimilarityService;
+    private final AudioCounterBuffer audioCounterBuffer;
+
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final int NAME_SEARCH_LIMIT = 50;
+    private static final int MAX_POPULAR_PAGE_SIZE = 100;
 
     @Override
     @Transactional
@@ -58,39 +74,46 @@ public class AudioSampleServiceImpl implements AudioSampleService {
 
         try {
             Map<String, Object> uploadResult = cloudinaryService.uploadAudio(file, authorId);
-
-            String audioUrl = (String) uploadResult.get("url");
-            Double durationInSeconds = (Double) uploadResult.get("duration");
-            Integer duration = durationInSeconds != null ? durationInSeconds.intValue() : null;
-
-            log.info("Uploaded audio: URL={}, Duration={} seconds", audioUrl, duration);
-
-            AudioSample sample = AudioSample.builder()
-                    .name(request.getName())
-                    .authorId(authorId)
-                    .artist(request.getArtist())
-                    .audioUrl(audioUrl)
-                    .duration(duration)
-                    .bpm(request.getBpm())
-                    .key(request.getMusicalKey())
-                    .scale(request.getMusicalScale())
-                    .genre(request.getGenre())
-                    .instrumentGroup(request.getInstrumentGroup())
-                    .sampleType(request.getSampleType())
-                    .price(request.getPrice().doubleValue())
-                    .tags(request.getTags())
-                    .salesCount(0L)
-                    .build();
-
-            AudioSample saved = audioSampleRepository.save(sample);
-            userRolesService.addRoleToUser(authorId, UserRole.AUTHOR);
-            return audioSampleMapper.toDTO(saved);
+            return saveUploadedSample(authorId, request, uploadResult);
         } catch (Exception e) {
             log.error("Failed to upload audio sample", e);
             throw new AudioUploadException("Failed to upload audio sample: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    @Transactional
+    public AudioSampleDTO saveUploadedSample(UUID authorId, UploadSampleRequest request, Map<String, Object> uploadResult) {
+        String audioUrl = (String) uploadResult.get("url");
+        Double durationInSeconds = (Double) uploadResult.get("duration");
+        Integer duration = durationInSeconds != null ? durationInSeconds.intValue() : null;
+
+        log.info("Uploaded audio: URL={}, Duration={} seconds", audioUrl, duration);
+
+        AudioSample sample = AudioSample.builder()
+                .name(request.getName())
+                .authorId(authorId)
+                .artist(request.getArtist())
+                .audioUrl(audioUrl)
+                .duration(duration)
+                .bpm(request.getBpm())
+                .key(request.getMusicalKey())
+                .scale(request.getMusicalScale())
+                .genre(request.getGenre())
+                .instrumentGroup(request.getInstrumentGroup())
+                .sampleType(request.getSampleType())
+                .price(request.getPrice().doubleValue())
+                .tags(request.getTags())
+                .salesCount(0L)
+                .build();
+
+        AudioSample saved = audioSampleRepository.save(sample);
+        userRolesService.addRoleToUser(authorId, UserRole.AUTHOR);
+        catalogSearchService.indexSample(saved);
+        sampleSimilarityService.sampleChanged(saved.getId());
+        return audioSampleMapper.toDTO(saved);
+    }
+
     @Override
     @Transactional
     public AudioSampleDTO updateSample(UUID sampleId, UUID authorId, UploadSampleRequest request) {
@@ -125,6 +148,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
             }
 
             AudioSample updated = audioSampleRepository.save(sample);
+            catalogSearchService.indexSample(updated);
+            sampleSimilarityService.sampleChanged(updated.getId());
             return audioSampleMapper.toDTO(updated);
         } catch (Exception e) {
             log.error("Failed to update audio sample", e);
@@ -163,6 +188,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
                     request.getInstrumentGroup(), request.getSampleType(), request.getPrice(), request.getTags());
 
             AudioSample updated = audioSampleRepository.save(sample);
+            catalogSearchService.indexSample(updated);
+            sampleSimilarityService.sampleChanged(updated.getId());
             return audioSampleMapper.toDTO(updated);
         } catch (Exception e) {
             log.error("Failed to update audio sample metadata", e);
@@ -251,36 +278,52 @@ public class AudioSampleServiceImpl implements AudioSampleService {
 
     @Override
     public Page<AudioSampleDTO> searchSamples(AudioSampleSearchRequest request, Pageable pageable) {
+        Pageable sorted = pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), AudioSampleSpecifications.NEWEST_FIRST);
 
-        Page<AudioSampleDTO> page = audioSampleRepository.searchSamples(
-                request.getGenre(),
-                request.getSampleType(),
-                request.getMinBpm(),
-                request.getMaxBpm(),
-                request.getKey(),
-                request.getInstrumentGroup(),
-                pageable
-        ).map(audioSampleMapper::toDTO);
+        return audioSampleRepository.findAll(AudioSampleSpecifications.matching(request), sorted)
+                .map(audioSampleMapper::toDTO);
+    }
 
-        // филтриране
-        List<AudioSampleDTO> filtered = page.getContent()
-                .stream()
-                .filter(sample -> !sample.getIsArchived())
-                .toList();
+    @Override
+    public AudioSampleScrollResponse scrollSamples(AudioSampleSearchRequest request, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_SCROLL_SIZE);
 
-        return new PageImpl<>(
-                filtered,
-                pageable,
-                page.getTotalElements()
-        );
-    }
+        Specification<AudioSample> spec = AudioSampleSpecifications.matching(request);
+        if (cursor != null && !cursor.isBlank()) {
+            SearchCursor after = decodeCursor(cursor);
+            spec = spec.and(AudioSampleSpecifications.after(after.createdAt(), after.id()));
+        }
 
+        // One extra row tells whether another slice exists, without a COUNT query
+        List<AudioSample> rows = audioSampleRepository.findBy(spec, query -> query
+                .sortBy(AudioSampleSpecifications.NEWEST_FIRST)
+                .limit(limit + 1)
+                .all());
+
+        boolean hasNext = rows.size() > limit;
+        List<AudioSample> slice = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? encodeCursor(slice.get(slice.size() - 1)) : null;
+
+        return AudioSampleScrollResponse.builder()
+                .content(slice.stream().map(audioSampleMapper::toDTO).toList())
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
 
     @Override
     public List<AudioSampleDTO> searchSamplesByName(String name) {
-        return audioSampleRepository.findByNameContainingIgnoreCase(name).stream()
+        if (name == null || name.isBlank()) {
+            return List.of();
+        }
+        Specification<AudioSample> spec = AudioSampleSpecifications.notArchived()
+                .and(AudioSampleSpecifications.nameStartsWith(name));
+
+        return audioSampleRepository.findAll(spec, PageRequest.of(0, NAME_SEARCH_LIMIT, AudioSampleSpecifications.NEWEST_FIRST))
                 .map(audioSampleMapper::toDTO)
-                .collect(Collectors.toList());
+                .getContent();
     }
 
     @Override
@@ -288,11 +331,7 @@ public class AudioSampleServiceImpl implements AudioSampleService {
         AudioSample sample = audioSampleRepository.findById(sampleId)
                 .orElseThrow(() -> new NotFoundException("Sample not found"));
 
-        return audioSampleRepository.findSimilarSamples(
-                        sample.getGenre(),
-                        sample.getBpm(),
-                        sampleId
-                ).stream()
+        return sampleSimilarityService.findSimilar(sample).stream()
                 .map(audioSampleMapper::toDTO)
                 .collect(Collectors.toList());
     }
@@ -309,12 +348,34 @@ public class AudioSampleServiceImpl implements AudioSampleService {
 
     @Override
     public Page<AudioSampleDTO> getPopularSamplesByGenre(Genre genre, Pageable pageable) {
-        return audioSampleRepository.findPopularByGenre(genre, pageable)
+        Pageable bounded = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_POPULAR_PAGE_SIZE));
+        return audioSampleRepository.findPopularByGenre(genre, bounded)
                 .map(audioSampleMapper::toDTO);
     }
 
 
 
+    private record SearchCursor(OffsetDateTime createdAt, UUID id) {
+    }
+
+    private static String encodeCursor(AudioSample last) {
+        String raw = last.getCreatedAt().toInstant() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SearchCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new SearchCursor(
+                    Instant.parse(raw.substring(0, separator)).atOffset(ZoneOffset.UTC),
+                    UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new InvalidSearchCursorException(cursor);
+        }
+    }
+
     private AudioSample getAudioSampleEntityById(UUID sampleId) {
         return audioSampleRepository.findById(sampleId)
                 .orElseThrow(() -> new AudioSampleNotFoundException(sampleId));
@@ -353,9 +414,15 @@ public class AudioSampleServiceImpl implements AudioSampleService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void recordPlay(UUID sampleId) {
+        audioCounterBuffer.increment(AudioCounter.SAMPLE_PLAYS, sampleId);
+    }
+
 
     // ================ Helper Methods ================
-    private void validateAudioFile(MultipartFile file) {
+    @Override
+    public void validateAudioFile(MultipartFile file) {
         String contentType = file.getContentType();
         if (contentType == null ||
                 (!contentType.equals("audio/mpeg") &&
@@ -382,7 +449,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
         sample.setArchivedAt(OffsetDateTime.now());
 
         audioSampleRepository.save(sample);
-
+        catalogSearchService.removeSample(sampleId);
+        sampleSimilarityService.sampleRemoved(sampleId);
 
         log.info("📁 ADMIN archived sample {}", sampleId);
     }
@@ -396,6 +464,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
             sample.setArchived(true);
             sample.setArchivedAt(OffsetDateTime.now());
             audioSampleRepository.save(sample);
+            catalogSearchService.removeSample(sample.getId());
+            sampleSimilarityService.sampleRemoved(sample.getId());
         }
 
         log.info("📁 ADMIN archived all samples for user {}", targetUserId);
@@ -416,6 +486,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
             sample.setArchivedAt(OffsetDateTime.now());
 
             audioSampleRepository.save(sample);
+            catalogSearchService.removeSample(sampleId);
+            sampleSimilarityService.sampleRemoved(sampleId);
 
             log.info("✅ Sample with ID {} has been archived by its author {}", sampleId, authorId);
 
@@ -435,6 +507,8 @@ public class AudioSampleServiceImpl implements AudioSampleService {
     @Override
     public void deleteSample(UUID id, UUID authorId) {
         audioSampleRepository.deleteById(id);
+        catalogSearchService.removeSample(id);
+        sampleSimilarityService.sampleRemoved(id);
     }
 
 }
\ No newline at end of file
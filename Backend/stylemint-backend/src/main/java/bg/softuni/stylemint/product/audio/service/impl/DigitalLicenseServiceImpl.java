@@ -10,13 +10,13 @@ import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.model.PackLicense;
 import bg.softuni.stylemint.product.audio.model.SampleLicense;
-import bg.softuni.stylemint.product.audio.model.SamplePack;
 import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
 import bg.softuni.stylemint.product.audio.repository.PackLicenseRepository;
 import bg.softuni.stylemint.product.audio.repository.SampleLicenseRepository;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
 import bg.softuni.stylemint.product.audio.service.DigitalLicenseService;
 import bg.softuni.stylemint.product.audio.service.utils.AudioSampleMapper;
+import bg.softuni.stylemint.user.model.User;
 import bg.softuni.stylemint.user.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -27,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -46,6 +47,7 @@ public class DigitalLicenseServiceImpl implements DigitalLicenseService {
 
 
     @Override
+    @Transactional
     public void createLicenseForPaidItem(UUID userId, OrderItemDTO item) {
 
         if (item.getProductType() == ProductType.SAMPLE) {
@@ -80,16 +82,29 @@ public class DigitalLicenseServiceImpl implements DigitalLicenseService {
         }
     }
 
+    /**
+     * Set-based: one lookup for the pack's sample IDs, one for those already licensed,
+     * one user lookup, then a single JDBC-batched insert of the missing licenses
+     */
     private void grantPackSampleLicenses(UUID userId, UUID packId, UUID orderItemId) {
 
+        List<UUID> sampleIds = audioSampleRepository.findIdsByPackId(packId);
+
+        if (sampleIds.isEmpty() && !samplePackRepository.existsById(packId)) {
+            throw new NotFoundException("Sample pack not found: " + packId);
+        }
+
+        User user = userService.getUserById(userId);
+        OffsetDateTime purchasedAt = OffsetDateTime.now();
+
         // grant PACK license
         if (!packLicenseRepository.existsByUserIdAndPackId(userId, packId)) {
 
             PackLicense packLicense = PackLicense.builder()
-                    .user(userService.getUserById(userId))
+                    .user(user)
                     .packId(packId)
                     .orderItemId(orderItemId)
-                    .purchasedAt(OffsetDateTime.now())
+                    .purchasedAt(purchasedAt)
                     .archived(false)
                     .build();
 
@@ -98,32 +113,25 @@ public class DigitalLicenseServiceImpl implements DigitalLicenseService {
         }
 
         // grant individual sample licenses
-        SamplePack pack = samplePackRepository.fetchPackWithSamples(packId);
-
-        if (pack == null) {
-            throw new NotFoundException("Sample pack not found: " + packId);
-        }
-
-        List<AudioSample> samples = pack.getSamples();
-
-        for (AudioSample sample : samples) {
-
-            if (!sampleLicenseRepository.existsByUserIdAndAudioSampleId(userId, sample.getId())) {
+        Set<UUID> alreadyLicensed = sampleLicenseRepository.findLicensedSampleIdsInPack(userId, packId);
 
-                SampleLicense license = SampleLicense.builder()
-                        .user(userService.getUserById(userId))
-                        .audioSample(sample)
+        List<SampleLicense> licenses = sampleIds.stream()
+                .filter(sampleId -> !alreadyLicensed.contains(sampleId))
+                .map(sampleId -> SampleLicense.builder()
+                        .user(user)
+                        .audioSample(audioSampleRepository.getReferenceById(sampleId))
                         .orderItemId(orderItemId)
-                        .purchasedAt(OffsetDateTime.now())
+                        .purchasedAt(purchasedAt)
                         .archived(false)
-                        .build();
+                        .build())
+                .toList();
 
-                sampleLicenseRepository.save(license);
-            }
+        if (!licenses.isEmpty()) {
+            sampleLicenseRepository.saveAll(licenses);
         }
 
         log.info("✔ Granted {} SAMPLE licenses → user={}, pack={}",
-                samples.size(), userId, packId);
+                licenses.size(), userId, packId);
     }
 
 
@@ -0,0 +1,571 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.common.util.TransactionCallbacks;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchHit;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchRequest;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchResultDTO;
+import bg.softuni.stylemint.product.audio.enums.CatalogItemType;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleSpecifications;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lucene index of samples and packs kept in a local directory.
+ *
+ * Writes go through one {@link IndexWriter}; readers come from a near-real-time
+ * {@link SearcherManager} that a background thread reopens at most
+ * {@code audio.search.max-stale-ms} after a change, so bursts of changes share one
+ * reopen. Commits to disk are batched on a timer. Facet counts use doc values,
+ * so no extra taxonomy index is needed; their per-reader state is built once per
+ * reopen rather than on the search path.
+ *
+ * The index is derived data: if it is lost or empty on startup it is rebuilt
+ * from the database in the background. A rebuild replaces documents in place and
+ * removes the stale ones last, so searches during it never see a half-empty index;
+ * items changed while it runs keep their live version.
+ */
+@Slf4j
+@Service
+public class LuceneCatalogSearchService implements CatalogSearchService {
+
+    static final String UID = "uid";
+    static final String ID = "id";
+    static final String TYPE = "type";
+    static final String NAME = "name";
+    static final String ARTIST = "artist";
+    static final String TAGS = "tags";
+    static final String GENRE = "genre";
+    static final String KEY = "key";
+    static final String BPM = "bpm";
+
+    private static final int MAX_LIMIT = 100;
+    private static final int FACET_TOP_N = 50;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final List<String> FACET_DIMENSIONS = List.of(GENRE, KEY, TYPE);
+    private static final double MIN_STALE_SEC = 0.05;
+
+    private final AudioSampleRepository audioSampleRepository;
+    private final SamplePackRepository samplePackRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path indexDir;
+    private final double maxStaleSec;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lastChange = new AtomicLong();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+    private volatile FacetState facetState;
+
+    public LuceneCatalogSearchService(AudioSampleRepository audioSampleRepository,
+                                      SamplePackRepository samplePackRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${audio.search.index-dir:${java.io.tmpdir}/stylemint-search-index}") Path indexDir,
+                                      @Value("${audio.search.max-stale-ms:1000}") long maxStaleMs) {
+        this.audioSampleRepository = audioSampleRepository;
+        this.samplePackRepository = samplePackRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.indexDir = indexDir;
+        this.maxStaleSec = maxStaleMs / 1000.0;
+        this.facetsConfig.setMultiValued(GENRE, true);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(indexDir);
+        directory = FSDirectory.open(indexDir);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) throws IOException {
+                if (didRefresh) {
+                    refreshFacetState();
+                }
+            }
+        });
+        refreshFacetState();
+
+        reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, maxStaleSec, MIN_STALE_SEC);
+        reopenThread.setName("catalog-search-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+        log.info("🔎 Opened catalog search index at {} ({} documents)", indexDir, writer.getDocStats().numDocs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (writer.getDocStats().numDocs == 0) {
+            CompletableFuture.runAsync(this::rebuildIndex);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        reopenThread.close();
+        searcherManager.close();
+        writer.commit();
+        writer.close();
+        directory.close();
+    }
+
+    // ================ Indexing ================
+
+    @Override
+    public void indexSample(AudioSample sample) {
+        if (sample.isArchived()) {
+            removeSample(sample.getId());
+            return;
+        }
+        Document document = toDocument(sample);
+        TransactionCallbacks.afterCommit(() -> update(uid(CatalogItemType.SAMPLE, sample.getId()), document));
+    }
+
+    @Override
+    public void indexPack(SamplePack pack) {
+        if (pack.isArchived()) {
+            removePack(pack.getId());
+            return;
+        }
+        Document document = toDocument(pack);
+        TransactionCallbacks.afterCommit(() -> update(uid(CatalogItemType.PACK, pack.getId()), document));
+    }
+
+    @Override
+    public void removeSample(UUID sampleId) {
+        TransactionCallbacks.afterCommit(() -> delete(uid(CatalogItemType.SAMPLE, sampleId)));
+    }
+
+    @Override
+    public void removePack(UUID packId) {
+        TransactionCallbacks.afterCommit(() -> delete(uid(CatalogItemType.PACK, packId)));
+    }
+
+    @Override
+    public int rebuildIndex() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.warn("⚠️ Catalog index rebuild already running");
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Set<String> rebuilt = new HashSet<>();
+            int indexed = reindexSamples(rebuilt) + reindexPacks(rebuilt);
+            removeStale(rebuilt);
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            log.info("🔎 Rebuilt catalog search index: {} items in {} ms", indexed, System.currentTimeMillis() - start);
+            return indexed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rebuild catalog search index", e);
+        } finally {
+            changedDuringRebuild.clear();
+            rebuilding.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audio.search.commit-interval-ms:30000}")
+    public void commitPendingChanges() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.error("Failed to commit catalog search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Blocks until every change made so far is visible to searches
+     */
+    void awaitSearchable() throws InterruptedException {
+        reopenThread.waitForGeneration(lastChange.get());
+    }
+
+    // ================ Search ================
+
+    @Override
+    public CatalogSearchResultDTO search(CatalogSearchRequest request) {
+        int limit = Math.min(Math.max(request.getLimit(), 1), MAX_LIMIT);
+        Query query = buildQuery(request);
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            FacetsCollectorManager.FacetsResult result =
+                    FacetsCollectorManager.search(searcher, query, limit, new FacetsCollectorManager());
+            TopDocs topDocs = result.topDocs();
+
+            List<CatalogSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                hits.add(toHit(storedFields.document(scoreDoc.doc), scoreDoc.score));
+            }
+
+            return CatalogSearchResultDTO.builder()
+                    .hits(hits)
+                    .totalHits(topDocs.totalHits.value)
+                    .facets(countFacets(searcher.getIndexReader(), result.facetsCollector()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Catalog search failed", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    Query buildQuery(CatalogSearchRequest request) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+
+        List<String> terms = analyze(request.getQuery());
+        if (terms.isEmpty()) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        // Every word has to match somewhere; exact name hits rank above prefix and fuzzy ones
+        for (String term : terms) {
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(NAME, term)), 4f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(ARTIST, term)), 2f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(TAGS, term)), 2f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(NAME, term)), 2f), BooleanClause.Occur.SHOULD)
+                    .add(new PrefixQuery(new Term(ARTIST, term)), BooleanClause.Occur.SHOULD)
+                    .add(new PrefixQuery(new Term(TAGS, term)), BooleanClause.Occur.SHOULD);
+            if (term.length() >= 4) {
+                termQuery.add(new FuzzyQuery(new Term(NAME, term), 1), BooleanClause.Occur.SHOULD);
+                termQuery.add(new FuzzyQuery(new Term(TAGS, term), 1), BooleanClause.Occur.SHOULD);
+            }
+            builder.add(termQuery.build(), BooleanClause.Occur.MUST);
+        }
+
+        if (request.getType() != null) {
+            builder.add(new TermQuery(new Term(TYPE, request.getType().name())), BooleanClause.Occur.FILTER);
+        }
+        if (request.getGenre() != null) {
+            builder.add(new TermQuery(new Term(GENRE, request.getGenre().name())), BooleanClause.Occur.FILTER);
+        }
+        if (request.getKey() != null) {
+            builder.add(new TermQuery(new Term(KEY, request.getKey().name())), BooleanClause.Occur.FILTER);
+        }
+        if (request.getMinBpm() != null || request.getMaxBpm() != null) {
+            int min = request.getMinBpm() != null ? request.getMinBpm() : Integer.MIN_VALUE;
+            int max = request.getMaxBpm() != null ? request.getMaxBpm() : Integer.MAX_VALUE;
+            builder.add(IntPoint.newRangeQuery(BPM, min, max), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    // ================ Helpers ================
+
+    private Document toDocument(AudioSample sample) {
+        Document document = baseDocument(CatalogItemType.SAMPLE, sample.getId(), sample.getName(), sample.getArtist(),
+                sample.getTags());
+        if (sample.getGenre() != null) {
+            addKeyword(document, GENRE, sample.getGenre().name());
+        }
+        if (sample.getKey() != null) {
+            addKeyword(document, KEY, sample.getKey().name());
+        }
+        if (sample.getBpm() != null) {
+            document.add(new IntPoint(BPM, sample.getBpm()));
+            document.add(new StoredField(BPM, sample.getBpm()));
+        }
+        return document;
+    }
+
+    private Document toDocument(SamplePack pack) {
+        Document document = baseDocument(CatalogItemType.PACK, pack.getId(), pack.getTitle(), pack.getArtist(),
+                pack.getTags());
+        for (Genre genre : pack.getGenres()) {
+            addKeyword(document, GENRE, genre.name());
+        }
+        return document;
+    }
+
+    private Document baseDocument(CatalogItemType type, UUID id, String name, String artist, List<String> tags) {
+        Document document = new Document();
+        document.add(new StringField(UID, uid(type, id).text(), Field.Store.NO));
+        document.add(new StoredField(ID, id.toString()));
+        document.add(new StringField(TYPE, type.name(), Field.Store.YES));
+        document.add(new SortedSetDocValuesFacetField(TYPE, type.name()));
+        document.add(new TextField(NAME, name, Field.Store.YES));
+        if (artist != null) {
+            document.add(new TextField(ARTIST, artist, Field.Store.YES));
+        }
+        if (tags != null) {
+            tags.forEach(tag -> document.add(new TextField(TAGS, tag, Field.Store.NO)));
+        }
+        return document;
+    }
+
+    private void addKeyword(Document document, String field, String value) {
+        document.add(new StringField(field, value, Field.Store.NO));
+        document.add(new SortedSetDocValuesFacetField(field, value));
+    }
+
+    private CatalogSearchHit toHit(Document document, float score) {
+        IndexableField bpm = document.getField(BPM);
+        return CatalogSearchHit.builder()
+                .id(UUID.fromString(document.get(ID)))
+                .type(CatalogItemType.valueOf(document.get(TYPE)))
+                .name(document.get(NAME))
+                .artist(document.get(ARTIST))
+                .bpm(bpm != null ? bpm.numericValue().intValue() : null)
+                .score(score)
+                .build();
+    }
+
+    private Map<String, Map<String, Long>> countFacets(IndexReader reader, FacetsCollector collector) throws IOException {
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        SortedSetDocValuesReaderState state = facetState(reader);
+        if (state == null) {
+            return counts;
+        }
+        Facets facets = new SortedSetDocValuesFacetCounts(state, collector);
+        for (String dimension : FACET_DIMENSIONS) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            FacetResult result = facets.getTopChildren(FACET_TOP_N, dimension);
+            if (result != null) {
+                for (LabelAndValue labelAndValue : result.labelValues) {
+                    values.put(labelAndValue.label, labelAndValue.value.longValue());
+                }
+            }
+            counts.put(dimension, values);
+        }
+        return counts;
+    }
+
+    /**
+     * Facet ordinals are per reader. The state of the current reader is built by the refresh
+     * that opened it; a search that acquired the reader before that finished builds its own.
+     */
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if (current != null && current.reader() == reader) {
+            return current.state();
+        }
+        return buildFacetState(reader);
+    }
+
+    private void refreshFacetState() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            facetState = new FacetState(reader, buildFacetState(reader));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private SortedSetDocValuesReaderState buildFacetState(IndexReader reader) throws IOException {
+        return reader.numDocs() == 0 ? null : new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute attribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(attribute.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private record SampleBatch(List<Document> documents, AudioSample last) {
+    }
+
+    private int reindexSamples(Set<String> rebuilt) throws IOException {
+        int indexed = 0;
+        AudioSample last = null;
+        while (true) {
+            AudioSample cursor = last;
+            SampleBatch batch = transactionTemplate.execute(status -> {
+                Specification<AudioSample> spec = AudioSampleSpecifications.notArchived();
+                if (cursor != null) {
+                    spec = spec.and(AudioSampleSpecifications.after(cursor.getCreatedAt(), cursor.getId()));
+                }
+                List<AudioSample> samples = audioSampleRepository.findBy(spec, query -> query
+                        .sortBy(AudioSampleSpecifications.NEWEST_FIRST)
+                        .limit(REBUILD_BATCH_SIZE)
+                        .all());
+                return new SampleBatch(
+                        samples.stream().map(this::toDocument).toList(),
+                        samples.isEmpty() ? null : samples.get(samples.size() - 1)
+                );
+            });
+            if (batch == null || batch.documents().isEmpty()) {
+                return indexed;
+            }
+            for (Document document : batch.documents()) {
+                reindex(document, rebuilt);
+            }
+            indexed += batch.documents().size();
+            last = batch.last();
+        }
+    }
+
+    private int reindexPacks(Set<String> rebuilt) throws IOException {
+        int indexed = 0;
+        for (int page = 0; ; page++) {
+            int pageNumber = page;
+            List<Document> batch = transactionTemplate.execute(status -> {
+                Page<SamplePack> packs = samplePackRepository.findByArchivedFalse(PageRequest.of(pageNumber, REBUILD_BATCH_SIZE));
+                return packs.getContent().stream().map(this::toDocument).toList();
+            });
+            if (batch == null || batch.isEmpty()) {
+                return indexed;
+            }
+            for (Document document : batch) {
+                reindex(document, rebuilt);
+            }
+            indexed += batch.size();
+        }
+    }
+
+    /**
+     * A live change made after this batch was read is newer than the batch, so it wins.
+     */
+    private void reindex(Document document, Set<String> rebuilt) throws IOException {
+        String uid = document.get(UID);
+        rebuilt.add(uid);
+        if (!changedDuringRebuild.contains(uid)) {
+            writer.updateDocument(new Term(UID, uid), facetsConfig.build(document));
+        }
+    }
+
+    /**
+     * Deletes the documents of items the rebuild no longer found in the database.
+     */
+    private void removeStale(Set<String> rebuilt) throws IOException {
+        List<Term> stale = new ArrayList<>();
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            Terms terms = MultiTerms.getTerms(reader, UID);
+            if (terms != null) {
+                TermsEnum uids = terms.iterator();
+                for (BytesRef uid = uids.next(); uid != null; uid = uids.next()) {
+                    String text = uid.utf8ToString();
+                    if (!rebuilt.contains(text) && !changedDuringRebuild.contains(text)) {
+                        stale.add(new Term(UID, text));
+                    }
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            writer.deleteDocuments(stale.toArray(Term[]::new));
+        }
+    }
+
+    private void update(Term uid, Document document) {
+        markChangedDuringRebuild(uid);
+        try {
+            lastChange.accumulateAndGet(writer.updateDocument(uid, facetsConfig.build(document)), Math::max);
+        } catch (IOException e) {
+            log.error("Failed to index {}: {}", uid.text(), e.getMessage(), e);
+        }
+    }
+
+    private void delete(Term uid) {
+        markChangedDuringRebuild(uid);
+        try {
+            lastChange.accumulateAndGet(writer.deleteDocuments(uid), Math::max);
+        } catch (IOException e) {
+            log.error("Failed to remove {} from index: {}", uid.text(), e.getMessage(), e);
+        }
+    }
+
+    private void markChangedDuringRebuild(Term uid) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(uid.text());
+        }
+    }
+
+    private Term uid(CatalogItemType type, UUID id) {
+        return new Term(UID, type.name() + ":" + id);
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("Failed to release index searcher: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.common.util.TransactionCallbacks;
+import bg.softuni.stylemint.product.audio.dto.PackFilterMetadata;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * In-memory facet counts for the pack browse sidebar (genre, tag, producer, price bucket).
+ *
+ * Each pack's contribution is remembered so create/update/archive can subtract the old
+ * values from the counters and add the new ones after commit; every change publishes a new
+ * immutable {@link PackFilterMetadata} with a bumped version that the controller uses as ETag.
+ * A periodic background rebuild from the database corrects any drift; changes that
+ * land while it runs are replayed on top of the rebuilt state.
+ */
+@Slf4j
+@Component
+public class PackFacetAggregate {
+
+    private static final double[] PRICE_BUCKET_BOUNDS = {5, 10, 20, 50};
+    private static final String[] PRICE_BUCKET_LABELS = {"0-5", "5-10", "10-20", "20-50", "50+"};
+    private static final double DEFAULT_MIN_PRICE = 0.0;
+    private static final double DEFAULT_MAX_PRICE = 100.0;
+
+    private final SamplePackRepository samplePackRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+    // Keeps ETags from one process run from matching another's
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private Map<UUID, PackFacets> contributions = new HashMap<>();
+    private FacetCounts counts = new FacetCounts();
+    // Non-null while a rebuild runs: changes to replay once the rebuilt state is swapped in (null value = removed)
+    private Map<UUID, PackFacets> rebuildJournal;
+    private long version;
+    private volatile PackFilterMetadata snapshot;
+
+    public PackFacetAggregate(SamplePackRepository samplePackRepository, TransactionTemplate transactionTemplate) {
+        this.samplePackRepository = samplePackRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Current facets; only the very first call before startup has finished touches the database
+     */
+    public PackFilterMetadata getMetadata() {
+        if (snapshot == null) {
+            synchronized (rebuildLock) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public void packSaved(SamplePack pack) {
+        PackFacets facets = pack.isArchived() ? null : PackFacets.of(pack);
+        UUID packId = pack.getId();
+        TransactionCallbacks.afterCommit(() -> apply(packId, facets));
+    }
+
+    public void packRemoved(UUID packId) {
+        TransactionCallbacks.afterCommit(() -> apply(packId, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${audio.pack-facets.rebuild-interval-ms:900000}",
+            fixedDelayString = "${audio.pack-facets.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (lock) {
+                rebuildJournal = new HashMap<>();
+            }
+
+            Map<UUID, PackFacets> rebuilt;
+            try {
+                rebuilt = transactionTemplate.execute(status -> loadContributions());
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    rebuildJournal = null;
+                }
+                log.error("❌ Failed to rebuild pack facets", e);
+                throw e;
+            }
+
+            synchronized (lock) {
+                rebuildJournal.forEach((packId, facets) -> {
+                    if (facets == null) {
+                        rebuilt.remove(packId);
+                    } else {
+                        rebuilt.put(packId, facets);
+                    }
+                });
+                rebuildJournal = null;
+
+                boolean drifted = !rebuilt.equals(contributions);
+                contributions = rebuilt;
+                counts = FacetCounts.of(rebuilt.values());
+                if (snapshot == null) {
+                    publish();
+                } else if (drifted) {
+                    log.info("🔁 Pack facets drifted from the database, rebuilt {} packs", rebuilt.size());
+                    publish();
+                }
+            }
+        }
+    }
+
+    // ================ Helpers ================
+
+    private void apply(UUID packId, PackFacets facets) {
+        synchronized (lock) {
+            if (rebuildJournal != null) {
+                rebuildJournal.put(packId, facets);
+            }
+            PackFacets previous = facets == null ? contributions.remove(packId) : contributions.put(packId, facets);
+            if (Objects.equals(previous, facets)) {
+                return;
+            }
+            if (previous != null) {
+                counts.add(previous, -1);
+            }
+            if (facets != null) {
+                counts.add(facets, 1);
+            }
+            if (snapshot != null) {
+                publish();
+            }
+        }
+    }
+
+    private Map<UUID, PackFacets> loadContributions() {
+        Map<UUID, List<Genre>> genres = new HashMap<>();
+        for (Object[] row : samplePackRepository.findFacetGenres()) {
+            genres.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((Genre) row[1]);
+        }
+        Map<UUID, List<String>> tags = new HashMap<>();
+        for (Object[] row : samplePackRepository.findFacetTags()) {
+            tags.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Map<UUID, PackFacets> loaded = new HashMap<>();
+        for (Object[] row : samplePackRepository.findFacetRows()) {
+            UUID packId = (UUID) row[0];
+            loaded.put(packId, new PackFacets(
+                    (String) row[1],
+                    (Double) row[2],
+                    Set.copyOf(genres.getOrDefault(packId, List.of())),
+                    Set.copyOf(tags.getOrDefault(packId, List.of()))));
+        }
+        return loaded;
+    }
+
+    /**
+     * Must hold the lock
+     */
+    private void publish() {
+        version++;
+        snapshot = counts.toMetadata(contributions.size(), runId + "-" + version);
+    }
+
+    private record PackFacets(String artist, Double price, Set<Genre> genres, Set<String> tags) {
+
+        static PackFacets of(SamplePack pack) {
+            return new PackFacets(pack.getArtist(), pack.getPrice(), Set.copyOf(pack.getGenres()), Set.copyOf(pack.getTags()));
+        }
+    }
+
+    /**
+     * Running counters; copying them out is proportional to the number of distinct values, not packs
+     */
+    private static final class FacetCounts {
+
+        private final Map<Genre, Long> genres = new EnumMap<>(Genre.class);
+        private final Map<String, Long> tags = new TreeMap<>();
+        private final Map<String, Long> artists = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final Map<String, Long> priceBuckets = new HashMap<>();
+        private final TreeMap<Double, Long> prices = new TreeMap<>();
+
+        static FacetCounts of(Collection<PackFacets> packs) {
+            FacetCounts counts = new FacetCounts();
+            packs.forEach(facets -> counts.add(facets, 1));
+            return counts;
+        }
+
+        void add(PackFacets facets, long delta) {
+            facets.genres().forEach(genre -> adjust(genres, genre, delta));
+            facets.tags().forEach(tag -> adjust(tags, tag, delta));
+            if (facets.artist() != null) {
+                adjust(artists, facets.artist(), delta);
+            }
+            if (facets.price() != null) {
+                adjust(priceBuckets, priceBucket(facets.price()), delta);
+                adjust(prices, facets.price(), delta);
+            }
+        }
+
+        PackFilterMetadata toMetadata(long totalPacks, String version) {
+            Map<String, Long> bucketCounts = new LinkedHashMap<>();
+            for (String label : PRICE_BUCKET_LABELS) {
+                bucketCounts.put(label, priceBuckets.getOrDefault(label, 0L));
+            }
+
+            return PackFilterMetadata.builder()
+                    .availableArtists(List.copyOf(artists.keySet()))
+                    .availableGenres(List.copyOf(genres.keySet()))
+                    .minPrice(prices.isEmpty() ? DEFAULT_MIN_PRICE : prices.firstKey())
+                    .maxPrice(prices.isEmpty() ? DEFAULT_MAX_PRICE : prices.lastKey())
+                    .totalPacks(totalPacks)
+                    .genreCounts(Collections.unmodifiableMap(new EnumMap<>(genres)))
+                    .tagCounts(Collections.unmodifiableMap(new TreeMap<>(tags)))
+                    .artistCounts(Collections.unmodifiableMap(copyOf(artists)))
+                    .priceBucketCounts(Collections.unmodifiableMap(bucketCounts))
+                    .version(version)
+                    .build();
+        }
+
+        private static String priceBucket(double price) {
+            for (int i = 0; i < PRICE_BUCKET_BOUNDS.length; i++) {
+                if (price < PRICE_BUCKET_BOUNDS[i]) {
+                    return PRICE_BUCKET_LABELS[i];
+                }
+            }
+            return PRICE_BUCKET_LABELS[PRICE_BUCKET_LABELS.length - 1];
+        }
+
+        private static <K> void adjust(Map<K, Long> counts, K key, long delta) {
+            counts.merge(key, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+
+        private static Map<String, Long> copyOf(Map<String, Long> artists) {
+            Map<String, Long> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            copy.putAll(artists);
+            return copy;
+        }
+    }
+}
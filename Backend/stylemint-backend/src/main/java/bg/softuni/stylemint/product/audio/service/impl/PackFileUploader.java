@@ -0,0 +1,198 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.common.exception.FileProcessingException;
+import bg.softuni.stylemint.external.claudinary.CloudinaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Uploads the cover and sample files of a new pack to storage in parallel.
+ *
+ * Multipart parts are spooled to temp files on the calling thread (the container
+ * deletes them once the request ends), then uploaded on the shared pack upload
+ * pool with per-file retry. Nothing here touches the database, so callers can run
+ * it before opening a transaction.
+ *
+ * Either every file ends up in storage or none does: on the first permanent
+ * failure queued uploads are skipped and the ones that already finished are
+ * deleted again.
+ */
+@Slf4j
+@Component
+public class PackFileUploader {
+
+    private final CloudinaryService cloudinaryService;
+    private final ExecutorService uploadExecutor;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    public PackFileUploader(CloudinaryService cloudinaryService,
+                            @Qualifier("packUploadExecutor") ExecutorService uploadExecutor,
+                            @Value("${audio.upload.max-attempts:3}") int maxAttempts,
+                            @Value("${audio.upload.retry-backoff-ms:500}") long retryBackoffMs) {
+        this.cloudinaryService = cloudinaryService;
+        this.uploadExecutor = uploadExecutor;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+    }
+
+    /**
+     * Storage URLs of a fully uploaded pack. Sample results are in request order
+     * and have the same shape as {@link CloudinaryService#uploadAudio}.
+     */
+    public record UploadedPackFiles(String coverUrl,
+                                    List<Map<String, Object>> sampleResults,
+                                    long totalSampleBytes) {
+    }
+
+    public UploadedPackFiles upload(UUID authorId, MultipartFile coverImage, List<MultipartFile> sampleFiles) {
+        int total = sampleFiles.size() + 1;
+        AtomicInteger completed = new AtomicInteger();
+        AtomicBoolean aborted = new AtomicBoolean();
+
+        List<Path> spooled = new ArrayList<>(total);
+        List<CompletableFuture<?>> uploads = new ArrayList<>(total);
+        try {
+            long totalSampleBytes = 0;
+
+            Path coverFile = spool(coverImage, spooled);
+            // No pack ID exists yet; every cover version gets its own key, on update too
+            UUID coverKey = UUID.randomUUID();
+            CompletableFuture<String> coverUpload = submit("cover image", aborted, completed, total,
+                    () -> cloudinaryService.uploadPackCover(coverFile.toFile(), coverKey));
+            uploads.add(coverUpload);
+
+            List<CompletableFuture<Map<String, Object>>> sampleUploads = new ArrayList<>(sampleFiles.size());
+            for (MultipartFile sampleFile : sampleFiles) {
+                totalSampleBytes += sampleFile.getSize();
+                Path sampleTemp = spool(sampleFile, spooled);
+                CompletableFuture<Map<String, Object>> sampleUpload =
+                        submit(sampleFile.getOriginalFilename(), aborted, completed, total,
+                                () -> cloudinaryService.uploadAudio(sampleTemp.toFile(), authorId));
+                sampleUploads.add(sampleUpload);
+                uploads.add(sampleUpload);
+            }
+
+            awaitAll(uploads);
+
+            List<Map<String, Object>> sampleResults = sampleUploads.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+            return new UploadedPackFiles(coverUpload.join(), sampleResults, totalSampleBytes);
+
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            awaitQuietly(uploads);
+            deleteUploaded(uploads);
+            throw unwrap(e);
+        } finally {
+            spooled.forEach(cloudinaryService::deleteTempFile);
+        }
+    }
+
+    /**
+     * Removes every file of a previously successful upload, e.g. when persisting the pack fails.
+     */
+    public void discard(UploadedPackFiles files) {
+        cloudinaryService.deleteFile(files.coverUrl());
+        files.sampleResults().forEach(result -> cloudinaryService.deleteFile((String) result.get("url")));
+        log.info("🗑️ Discarded {} uploaded pack files", files.sampleResults().size() + 1);
+    }
+
+    private Path spool(MultipartFile file, List<Path> spooled) {
+        Path tempFile = cloudinaryService.spoolToTempFile(file);
+        spooled.add(tempFile);
+        return tempFile;
+    }
+
+    private <T> CompletableFuture<T> submit(String label, AtomicBoolean aborted, AtomicInteger completed,
+                                            int total, Supplier<T> upload) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (aborted.get()) {
+                throw new FileProcessingException("Pack upload aborted before '" + label + "' was sent");
+            }
+            T result = withRetry(label, aborted, upload);
+            log.info("⬆️ Uploaded {}/{} pack files ({})", completed.incrementAndGet(), total, label);
+            return result;
+        }, uploadExecutor);
+    }
+
+    private <T> T withRetry(String label, AtomicBoolean aborted, Supplier<T> upload) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return upload.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || aborted.get()) {
+                    log.error("❌ Upload of '{}' failed after {} attempt(s): {}", label, attempt, e.getMessage());
+                    aborted.set(true);
+                    throw e;
+                }
+                log.warn("⚠️ Upload of '{}' failed (attempt {}/{}), retrying: {}",
+                        label, attempt, maxAttempts, e.getMessage());
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Pack upload interrupted");
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> uploads) {
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Waits for in-flight uploads to settle so their files can be cleaned up.
+     */
+    private void awaitQuietly(List<CompletableFuture<?>> uploads) {
+        try {
+            awaitAll(uploads);
+        } catch (RuntimeException ignored) {
+            // failures are already being reported by the caller
+        }
+    }
+
+    private void deleteUploaded(List<CompletableFuture<?>> uploads) {
+        int deleted = 0;
+        for (CompletableFuture<?> upload : uploads) {
+            if (!upload.isDone() || upload.isCompletedExceptionally()) {
+                continue;
+            }
+            Object result = upload.join();
+            String url = result instanceof Map<?, ?> map ? (String) map.get("url") : (String) result;
+            cloudinaryService.deleteFile(url);
+            deleted++;
+        }
+        if (deleted > 0) {
+            log.info("🗑️ Rolled back {} already uploaded pack files", deleted);
+        }
+    }
+
+    private RuntimeException unwrap(RuntimeException e) {
+        if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return e;
+    }
+}
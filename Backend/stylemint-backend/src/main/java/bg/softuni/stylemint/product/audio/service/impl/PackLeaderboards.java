@@ -0,0 +1,106 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.audio.service.utils.SamplePackMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Short-lived snapshot of the pack leaderboards (top rated, most downloaded, latest, featured).
+ *
+ * Every list comes from a LIMITed query, so no more than {@code audio.leaderboards.size} packs per
+ * board are ever loaded regardless of catalog size. A timer refreshes the snapshot every
+ * {@code audio.leaderboards.ttl-ms}; readers only hit the database if it is missing or the
+ * timer has fallen behind.
+ */
+@Slf4j
+@Component
+public class PackLeaderboards {
+
+    private final SamplePackRepository samplePackRepository;
+    private final SamplePackMapper samplePackMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int size;
+    private final long ttlMs;
+
+    private volatile Snapshot snapshot;
+
+    public PackLeaderboards(SamplePackRepository samplePackRepository,
+                            SamplePackMapper samplePackMapper,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${audio.leaderboards.size:10}") int size,
+                            @Value("${audio.leaderboards.ttl-ms:60000}") long ttlMs) {
+        this.samplePackRepository = samplePackRepository;
+        this.samplePackMapper = samplePackMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.size = size;
+        this.ttlMs = ttlMs;
+    }
+
+    public List<SamplePackDTO> topRated() {
+        return current().topRated();
+    }
+
+    public List<SamplePackDTO> mostDownloaded() {
+        return current().mostDownloaded();
+    }
+
+    public List<SamplePackDTO> latest() {
+        return current().latest();
+    }
+
+    public List<SamplePackDTO> featured() {
+        return current().featured();
+    }
+
+    @Scheduled(fixedDelayString = "${audio.leaderboards.ttl-ms:60000}")
+    public void refresh() {
+        Pageable limit = PageRequest.of(0, size);
+        snapshot = transactionTemplate.execute(status -> new Snapshot(
+                load(samplePackRepository::findTopRatedPacks, limit),
+                load(samplePackRepository::findMostDownloadedPacks, limit),
+                load(samplePackRepository::findLatestPacks, limit),
+                load(samplePackRepository::findFeaturedPacks, limit),
+                System.currentTimeMillis()));
+        log.debug("🔁 Refreshed pack leaderboards");
+    }
+
+    // ================ Helpers ================
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt() > 2 * ttlMs) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || System.currentTimeMillis() - current.loadedAt() > 2 * ttlMs) {
+                    refresh();
+                    current = snapshot;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<SamplePackDTO> load(Function<Pageable, List<SamplePack>> query, Pageable limit) {
+        return query.apply(limit).stream()
+                .map(samplePackMapper::toDTO)
+                .toList();
+    }
+
+    private record Snapshot(List<SamplePackDTO> topRated,
+                            List<SamplePackDTO> mostDownloaded,
+                            List<SamplePackDTO> latest,
+                            List<SamplePackDTO> featured,
+                            long loadedAt) {
+    }
+}
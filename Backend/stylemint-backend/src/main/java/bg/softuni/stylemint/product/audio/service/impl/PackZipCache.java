@@ -0,0 +1,322 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDetailDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Local disk cache of assembled pack ZIP archives.
+ *
+ * Archives are keyed by pack ID and a content version hashed from the pack's
+ * samples (ID, name, audio URL, updatedAt), so a changed pack never hits a stale
+ * archive. Entries are evicted least-recently-used once the total size exceeds
+ * {@code audio.zip.cache.max-bytes}. The index is rebuilt from the cache
+ * directory on startup.
+ *
+ * An archive being served is pinned by a {@link Lease}; evicting or invalidating
+ * it drops it from the index at once but defers deleting the file until the
+ * last lease is closed.
+ */
+@Slf4j
+@Component
+public class PackZipCache {
+
+    private static final String ARCHIVE_SUFFIX = ".zip";
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path cacheDir;
+    private final long maxBytes;
+
+    // Access-ordered: iteration starts at the least recently used archive
+    private final LinkedHashMap<String, Long> archiveSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // Leases per archive, and evicted archives whose file waits for its leases to close
+    private final Map<String, Integer> leases = new HashMap<>();
+    private final Set<String> deleteWhenReleased = new HashSet<>();
+
+    public PackZipCache(@Value("${audio.zip.cache.dir:${java.io.tmpdir}/stylemint-pack-zips}") String cacheDir,
+                        @Value("${audio.zip.cache.max-bytes:10737418240}") long maxBytes) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    void loadExistingArchives() throws IOException {
+        Files.createDirectories(cacheDir);
+
+        List<Path> archives = new ArrayList<>();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PART_SUFFIX)) {
+                    deleteQuietly(file);
+                } else if (name.endsWith(ARCHIVE_SUFFIX)) {
+                    archives.add(file);
+                }
+            }
+        }
+
+        archives.sort(Comparator.comparing(this::lastModified));
+
+        synchronized (this) {
+            for (Path archive : archives) {
+                String key = archive.getFileName().toString();
+                long size = Files.size(archive);
+                archiveSizes.put(key, size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+
+        log.info("📦 Pack ZIP cache at {} holds {} archives ({} bytes)", cacheDir, archiveSizes.size(), totalBytes);
+    }
+
+    /**
+     * Hash of everything that ends up inside the archive.
+     */
+    public String contentVersion(SamplePackDetailDTO packDetail) {
+        List<AudioSampleDTO> samples = new ArrayList<>(packDetail.getSamples());
+        samples.sort(Comparator.comparing(sample -> sample.getId().toString()));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (AudioSampleDTO sample : samples) {
+                String line = sample.getId() + "|" + sample.getName() + "|" + sample.getAudioUrl() + "|" + sample.getUpdatedAt() + "\n";
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Leases the archive if it is cached. The file stays on disk until the lease is
+     * closed, so it can be re-opened (e.g. once per requested range) while served.
+     */
+    public Optional<Lease> find(UUID packId, String version) {
+        String key = key(packId, version);
+        Path archive = cacheDir.resolve(key);
+
+        synchronized (this) {
+            if (!archiveSizes.containsKey(key)) {
+                return Optional.empty();
+            }
+            if (!Files.exists(archive)) {
+                totalBytes -= archiveSizes.remove(key);
+                return Optional.empty();
+            }
+            archiveSizes.get(key); // mark as recently used
+            leases.merge(key, 1, Integer::sum);
+        }
+
+        touch(archive);
+        return Optional.of(new Lease(key, new FileSystemResource(archive)));
+    }
+
+    /**
+     * Opens a writer for a new archive. Nothing becomes visible to {@link #find}
+     * until {@link CacheWriter#commit()} is called.
+     */
+    public CacheWriter openWriter(UUID packId, String version) throws IOException {
+        String key = key(packId, version);
+        Path partFile = Files.createTempFile(cacheDir, packId.toString(), PART_SUFFIX);
+        return new CacheWriter(key, partFile);
+    }
+
+    public void invalidate(UUID packId) {
+        String prefix = packId + "-";
+        int removed = 0;
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> it = archiveSizes.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    totalBytes -= entry.getValue();
+                    it.remove();
+                    deleteArchive(entry.getKey());
+                    removed++;
+                }
+            }
+        }
+
+        if (removed > 0) {
+            log.info("🗑️ Invalidated {} cached ZIP archives for pack {}", removed, packId);
+        }
+    }
+
+    private synchronized void publish(Path partFile, String key, long size) throws IOException {
+        Files.move(partFile, cacheDir.resolve(key),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The file now under this key is the new one; a deferred delete must not remove it
+        deleteWhenReleased.remove(key);
+        Long previous = archiveSizes.put(key, size);
+        if (previous != null) {
+            totalBytes -= previous;
+        }
+        totalBytes += size;
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> it = archiveSizes.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            deleteArchive(eldest.getKey());
+            log.debug("Evicted cached ZIP {}", eldest.getKey());
+        }
+    }
+
+    // Caller holds the monitor
+    private void deleteArchive(String key) {
+        if (leases.containsKey(key)) {
+            deleteWhenReleased.add(key);
+        } else {
+            deleteQuietly(cacheDir.resolve(key));
+        }
+    }
+
+    private synchronized void release(String key) {
+        int remaining = leases.merge(key, -1, Integer::sum);
+        if (remaining > 0) {
+            return;
+        }
+        leases.remove(key);
+        if (deleteWhenReleased.remove(key)) {
+            deleteQuietly(cacheDir.resolve(key));
+        }
+    }
+
+    private String key(UUID packId, String version) {
+        return packId + "-" + version + ARCHIVE_SUFFIX;
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            // Keeps LRU order meaningful across restarts
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Best effort only
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ Could not delete cached ZIP {}", file);
+        }
+    }
+
+    /**
+     * A served archive. Re-openable for as long as it is held; close it once the
+     * response is complete.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String key;
+        private final Resource archive;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(String key, Resource archive) {
+            this.key = key;
+            this.archive = archive;
+        }
+
+        public Resource archive() {
+            return archive;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(key);
+            }
+        }
+    }
+
+    /**
+     * Writes an archive to a temp file and publishes it atomically on commit.
+     */
+    public class CacheWriter extends FilterOutputStream {
+
+        private final String key;
+        private final Path partFile;
+        private long written;
+        private boolean closed;
+
+        private CacheWriter(String key, Path partFile) throws IOException {
+            super(Files.newOutputStream(partFile));
+            this.key = key;
+            this.partFile = partFile;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
+
+        public void commit() throws IOException {
+            close();
+            if (written > maxBytes) {
+                abort();
+                return;
+            }
+            publish(partFile, key, written);
+            log.info("💾 Cached ZIP {} ({} bytes)", key, written);
+        }
+
+        public void abort() {
+            try {
+                close();
+            } catch (IOException ignored) {
+                // The part file is deleted below either way
+            }
+            deleteQuietly(partFile);
+        }
+    }
+}
@@ -14,7 +14,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +27,7 @@ public class SamplePackBindingServiceImpl implements SamplePackBindingService {
     private final AudioSampleRepository audioSampleRepository;
     private final SamplePackRepository samplePackRepository;
     private final SamplePackStatisticsService samplePackStatisticsService;
+    private final PackZipCache packZipCache;
 
     @Override
     @Transactional
@@ -47,16 +50,47 @@ public class SamplePackBindingServiceImpl implements SamplePackBindingService {
         pack.addSample(sample);
 
         samplePackRepository.save(pack);
+        packZipCache.invalidate(packId);
 
         log.info("Bound sample '{}' (ID: {}) to pack '{}' (ID: {})",
                 sample.getName(), sampleId, pack.getTitle(), packId);
     }
 
+    /**
+     * One pass over all samples: the pack is loaded, saved and its cached archive invalidated once
+     */
     @Override
     @Transactional
     public void bindSamplesToPack(UUID packId, UUID authorId, List<UUID> sampleIds) {
+        if (sampleIds.isEmpty()) {
+            return;
+        }
         log.info("Binding {} samples to pack ID: {}", sampleIds.size(), packId);
-        sampleIds.forEach(sampleId -> bindSampleToPack(sampleId, packId, authorId));
+
+        SamplePack pack = samplePackRepository.findById(packId)
+                .orElseThrow(() -> new NotFoundException("Pack not found"));
+
+        if (!pack.getAuthorId().equals(authorId)) {
+            throw new ForbiddenOperationException("Unauthorized to modify this pack");
+        }
+
+        Map<UUID, AudioSample> samples = audioSampleRepository.findAllById(sampleIds).stream()
+                .collect(Collectors.toMap(AudioSample::getId, Function.identity()));
+
+        for (UUID sampleId : sampleIds) {
+            AudioSample sample = samples.get(sampleId);
+            if (sample == null) {
+                throw new NotFoundException("Sample not found");
+            }
+            if (!sample.getAuthorId().equals(authorId)) {
+                throw new ForbiddenOperationException("Unauthorized to bind this sample");
+            }
+            pack.addSample(sample);
+        }
+
+        samplePackRepository.save(pack);
+        packZipCache.invalidate(packId);
+
         log.info("Successfully bound all {} samples to pack", sampleIds.size());
     }
 
@@ -81,6 +115,7 @@ public class SamplePackBindingServiceImpl implements SamplePackBindingService {
         pack.removeSample(sample);
 
         samplePackRepository.save(pack);
+        packZipCache.invalidate(packId);
 
         // Recalculate statistics
         samplePackStatisticsService.recalculatePackStatistics(pack);
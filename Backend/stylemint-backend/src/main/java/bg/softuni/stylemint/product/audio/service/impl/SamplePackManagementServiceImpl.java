@@ -10,6 +10,7 @@ import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.FileProcessingException;
 import bg.softuni.stylemint.external.claudinary.CloudinaryService;
 import bg.softuni.stylemint.product.audio.service.AudioSampleService;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
 import bg.softuni.stylemint.product.audio.service.SamplePackBindingService;
 import bg.softuni.stylemint.product.audio.service.SamplePackManagementService;
 import bg.softuni.stylemint.product.audio.service.SamplePackStatisticsService;
@@ -18,11 +19,14 @@ import bg.softuni.stylemint.product.audio.service.utils.SamplePackMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,70 +42,51 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
     private final SamplePackMapper samplePackMapper;
     private final SamplePackBindingService samplePackBindingService;
     private final SamplePackStatisticsService samplePackStatisticsService;
+    private final PackZipCache packZipCache;
+    private final PackFileUploader packFileUploader;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogSearchService catalogSearchService;
+    private final PackFacetAggregate packFacetAggregate;
 
     // ================ PUBLIC METHODS ================
 
-    @Transactional
+    /**
+     * Files are uploaded to storage in parallel before any transaction is opened;
+     * the pack and its samples are then written in one short transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public SamplePackDTO uploadPack(UUID authorId, UploadPackRequest request) {
+        log.info("Starting pack upload for author: {}", authorId);
+
+        List<NewSampleUploadForPack> newSamples = request.getSamples() != null ? request.getSamples() : List.of();
+        validateNewSampleFiles(newSamples);
+
+        // 1. Upload cover and all sample files, no DB connection held meanwhile
+        PackFileUploader.UploadedPackFiles uploaded;
         try {
-            log.info("Starting pack upload for author: {}", authorId);
-
-            // 1. Create the pack entity first (without samples)
-            SamplePack pack = SamplePack.builder()
-                    .title(request.getTitle())
-                    .authorId(authorId)
-                    .artist(request.getArtist())
-                    .coverImage("temp")
-                    .price(request.getPrice().doubleValue())
-                    .sampleCount(request.getSamples().size())
-                    .totalSize("Calculating...")
-                    .description(request.getDescription())
-                    .genres(request.getGenres())
-                    .tags(request.getTags())
-                    .rating(0.0)
-                    .downloads(0)
-                    .releaseDate(OffsetDateTime.now())
-                    .salesCount(0L)
-                    .build();
-
-            SamplePack savedPack = samplePackRepository.saveAndFlush(pack);
-            log.info("Created pack entity with ID: {}", savedPack.getId());
-
-            // 2. Upload cover image to Cloudinary and update the image url
-            String coverImageUrl = cloudinaryService.uploadPackCover(
+            uploaded = packFileUploader.upload(
+                    authorId,
                     request.getCoverImage(),
-                    savedPack.getId()
+                    newSamples.stream().map(NewSampleUploadForPack::getFile).toList()
             );
-            savedPack.setCoverImage(coverImageUrl);
-            log.info("Uploaded cover image for pack '{}'", savedPack.getTitle());
-
-            // 3. Upload each NEW sample using AudioSampleService and bind to pack
-            long totalSizeBytes = 0;
-            if (request.getSamples() != null && !request.getSamples().isEmpty()) {
-                totalSizeBytes = uploadAndBindSamples(savedPack, authorId, request.getSamples());
-                log.info("Uploaded {} new samples for pack '{}'", request.getSamples().size(), savedPack.getTitle());
-            }
-
-            // 4. Bind existing samples if provided - USE SamplePackBindingService
-            if (request.getExistingSamplesToAdd() != null && !request.getExistingSamplesToAdd().isEmpty()) {
-                samplePackBindingService.bindSamplesToPack(savedPack.getId(), authorId, request.getExistingSamplesToAdd());
-                log.info("Bound {} existing samples to pack '{}'",
-                        request.getExistingSamplesToAdd().size(), savedPack.getTitle());
-            }
+            log.info("Uploaded cover and {} sample files for pack '{}'", newSamples.size(), request.getTitle());
+        } catch (Exception e) {
+            log.error("Failed to upload sample pack: {}", e.getMessage(), e);
+            throw new FileProcessingException("Failed to upload sample pack: " + e.getMessage());
+        }
 
-            // 5. Update pack with calculated total size and recalculate statistics
-            savedPack.setTotalSize(FileSizeUtils.formatFileSize(totalSizeBytes));
-            savedPack.setSampleCount( audioSampleService.countSamplesByPack(savedPack.getId()));
-            samplePackStatisticsService.recalculatePackStatistics(savedPack);
-            samplePackRepository.save(savedPack);
+        // 2. Persist everything once all URLs are known
+        try {
+            SamplePackDTO result = transactionTemplate.execute(status ->
+                    persistUploadedPack(authorId, request, newSamples, uploaded));
 
             log.info("Successfully uploaded pack '{}' with {} samples",
-                    savedPack.getTitle(), savedPack.getSampleCount());
-
-            return samplePackMapper.toDTO(savedPack);
+                    result.getTitle(), result.getSampleCount());
+            return result;
 
         } catch (Exception e) {
-            log.error("Failed to upload sample pack: {}", e.getMessage(), e);
+            log.error("Failed to save sample pack: {}", e.getMessage(), e);
+            packFileUploader.discard(uploaded);
             throw new FileProcessingException("Failed to upload sample pack: " + e.getMessage());
         }
     }
@@ -144,7 +129,8 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
                 String oldCoverUrl = pack.getCoverImage();
 
                 log.info("Uploading new cover image for pack '{}'", pack.getTitle());
-                String newCoverUrl = cloudinaryService.uploadPackCover(request.getCoverImage(), packId);
+                // Every cover version gets its own key, as on upload, so deleting the old one never hits the new one
+                String newCoverUrl = cloudinaryService.uploadPackCover(request.getCoverImage(), UUID.randomUUID());
                 pack.setCoverImage(newCoverUrl);
 
                 // Delete old cover image (with validation)
@@ -196,8 +182,11 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
                 samplePackStatisticsService.updateTotalSize(pack, additionalSizeBytes);
             }
 
-            // 6. Save and return
+            // 6. Save, drop cached ZIPs of the old contents and return
             SamplePack updatedPack = samplePackRepository.save(pack);
+            packZipCache.invalidate(packId);
+            catalogSearchService.indexPack(updatedPack);
+            packFacetAggregate.packSaved(updatedPack);
             log.info("Successfully updated pack '{}' with {} samples",
                     updatedPack.getTitle(), updatedPack.getSampleCount());
 
@@ -247,6 +236,9 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
 
             // Delete pack entity
             samplePackRepository.delete(pack);
+            packZipCache.invalidate(packId);
+            catalogSearchService.removePack(packId);
+            packFacetAggregate.packRemoved(packId);
 
             log.info("Successfully deleted pack '{}' and its {} samples", pack.getTitle(), packSamples.size());
 
@@ -260,6 +252,63 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
 
     // ================ PRIVATE HELPER METHODS ================
 
+    private SamplePackDTO persistUploadedPack(
+            UUID authorId,
+            UploadPackRequest request,
+            List<NewSampleUploadForPack> newSamples,
+            PackFileUploader.UploadedPackFiles uploaded
+    ) {
+        SamplePack pack = SamplePack.builder()
+                .title(request.getTitle())
+                .authorId(authorId)
+                .artist(request.getArtist())
+                .coverImage(uploaded.coverUrl())
+                .price(request.getPrice().doubleValue())
+                .sampleCount(newSamples.size())
+                .totalSize(FileSizeUtils.formatFileSize(uploaded.totalSampleBytes()))
+                .description(request.getDescription())
+                .genres(request.getGenres())
+                .tags(request.getTags())
+                .rating(0.0)
+                .downloads(0)
+                .releaseDate(OffsetDateTime.now())
+                .salesCount(0L)
+                .build();
+
+        SamplePack savedPack = samplePackRepository.save(pack);
+
+        List<UUID> sampleIds = new ArrayList<>();
+        for (int i = 0; i < newSamples.size(); i++) {
+            UploadSampleRequest uploadReq = getUploadSampleRequest(savedPack, newSamples.get(i));
+            AudioSampleDTO saved = audioSampleService.saveUploadedSample(
+                    authorId, uploadReq, uploaded.sampleResults().get(i));
+            sampleIds.add(saved.getId());
+        }
+        if (request.getExistingSamplesToAdd() != null) {
+            sampleIds.addAll(request.getExistingSamplesToAdd());
+        }
+
+        // New and existing samples in one pass: one pack save and one archive invalidation
+        samplePackBindingService.bindSamplesToPack(savedPack.getId(), authorId, sampleIds);
+        log.info("Bound {} samples to pack '{}'", sampleIds.size(), savedPack.getTitle());
+
+        samplePackStatisticsService.recalculatePackStatistics(savedPack);
+        SamplePack persisted = samplePackRepository.save(savedPack);
+        catalogSearchService.indexPack(persisted);
+        packFacetAggregate.packSaved(persisted);
+        return samplePackMapper.toDTO(persisted);
+    }
+
+    private void validateNewSampleFiles(List<NewSampleUploadForPack> newSamples) {
+        for (NewSampleUploadForPack sample : newSamples) {
+            if (sample.getFile() == null || sample.getFile().isEmpty()) {
+                throw new FileProcessingException("Audio file is required for sample '" + sample.getName() + "'");
+            }
+            audioSampleService.validateAudioFile(sample.getFile());
+        }
+    }
+
+
     /**
      * Upload new samples and bind them to pack
      */
@@ -269,6 +318,7 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
             List<NewSampleUploadForPack> newSamples
     ) {
         long totalBytes = 0;
+        List<UUID> sampleIds = new ArrayList<>();
 
         for (NewSampleUploadForPack sample : newSamples) {
             try {
@@ -276,9 +326,7 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
 
                 // === 2. Качваме семпъла - вече е в базата със salesCount = 0L ===
                 AudioSampleDTO saved = audioSampleService.uploadSample(authorId, uploadReq);
-
-                // ✅ FIX: Use bindSampleToPack instead of manual entity manipulation
-                samplePackBindingService.bindSampleToPack(saved.getId(), pack.getId(), authorId);
+                sampleIds.add(saved.getId());
 
                 // === 3. Добавяме размера към totalBytes ===
                 totalBytes += sample.getFile().getSize();
@@ -291,6 +339,7 @@ public class SamplePackManagementServiceImpl implements SamplePackManagementServ
             }
         }
 
+        samplePackBindingService.bindSamplesToPack(pack.getId(), authorId, sampleIds);
         return totalBytes;
     }
 
@@ -3,24 +3,35 @@ package bg.softuni.stylemint.product.audio.service.impl;
 import bg.softuni.stylemint.auth.security.SecurityUtil;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.NotFoundException;
+import bg.softuni.stylemint.product.audio.dto.PackRatingSummaryDTO;
 import bg.softuni.stylemint.product.audio.model.PackRating;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.PackRatingAggregateProjection;
 import bg.softuni.stylemint.product.audio.repository.PackRatingRepository;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
 import bg.softuni.stylemint.product.audio.service.SamplePackRatingService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SamplePackRatingServiceImpl implements SamplePackRatingService {
 
+    private static final double SUM_TOLERANCE = 1e-6;
+
     private final PackRatingRepository packRatingRepository;
     private final SamplePackRepository samplePackRepository;
+    private final TransactionTemplate transactionTemplate;
 
 
     @Override
@@ -28,7 +39,9 @@ public class SamplePackRatingServiceImpl implements SamplePackRatingService {
     public void updateUserPackRate(UUID packId, UUID userId, Double rating) {
         validateRate(rating);
 
-        SamplePack pack = samplePackRepository.findById(packId)
+        // Lock the pack row before reading the user's rating, so concurrent changes to it
+        // (and reconciliation) serialize and each applies its delta against what it read
+        SamplePack pack = samplePackRepository.findByIdForUpdate(packId)
                 .orElseThrow(() -> new NotFoundException("Pack not found"));
 
         // Проверка дали потребителят е собственик на пакета
@@ -40,9 +53,14 @@ public class SamplePackRatingServiceImpl implements SamplePackRatingService {
         Optional<PackRating> existingRating = packRatingRepository.findBySamplePackAndUserId(pack, userId);
 
         PackRating packRating;
+        Double previousRating = null;
         if (existingRating.isPresent()) {
             // Ако има вече оценка - я ъпдейтваме
             packRating = existingRating.get();
+            previousRating = packRating.getRating();
+            if (previousRating.equals(rating)) {
+                return;
+            }
             packRating.setRating(rating);
         } else {
             // Ако няма - създаваме нова
@@ -52,8 +70,20 @@ public class SamplePackRatingServiceImpl implements SamplePackRatingService {
             packRating.setUserId(userId);
         }
 
+        applyRatingDelta(packId, previousRating, rating);
         packRatingRepository.save(packRating);
-        updatePackAverageRating(pack);
+    }
+
+    @Override
+    @Transactional
+    public void removeUserPackRate(UUID packId, UUID userId) {
+        SamplePack pack = samplePackRepository.findByIdForUpdate(packId)
+                .orElseThrow(() -> new NotFoundException("Pack not found"));
+
+        packRatingRepository.findBySamplePackAndUserId(pack, userId).ifPresent(packRating -> {
+            applyRatingDelta(packId, packRating.getRating(), null);
+            packRatingRepository.delete(packRating);
+        });
     }
 
     @Override
@@ -72,16 +102,40 @@ public class SamplePackRatingServiceImpl implements SamplePackRatingService {
         return null;
     }
 
-    private void updatePackAverageRating(SamplePack pack) {
-        double averageRating = packRatingRepository.findBySamplePack(pack).stream()
-                .mapToDouble(PackRating::getRating)
-                .average()
-                .orElse(0.0);
+    @Override
+    public PackRatingSummaryDTO getPackRatingSummary(UUID packId) {
+        return samplePackRepository.findRatingAggregate(packId)
+                .map(RatingAggregate::of)
+                .map(RatingAggregate::toSummary)
+                .orElseThrow(() -> new NotFoundException("Pack not found"));
+    }
 
-        double roundedRating = Math.round(averageRating * 10.0) / 10.0;
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${audio.ratings.reconcile-cron:0 45 3 * * *}")
+    public void scheduledReconciliation() {
+        reconcileRatingAggregates();
+    }
 
-        pack.setRating(roundedRating);
-        samplePackRepository.save(pack);
+    @Override
+    public int reconcileRatingAggregates() {
+        List<UUID> drifted = transactionTemplate.execute(status -> {
+            Map<UUID, RatingAggregate> actual = packRatingRepository.aggregateAll().stream()
+                    .collect(Collectors.toMap(PackRatingAggregateProjection::getPackId, RatingAggregate::of));
+
+            return samplePackRepository.findStoredRatingAggregates().stream()
+                    .filter(stored -> !RatingAggregate.of(stored)
+                            .matches(actual.getOrDefault(stored.getPackId(), RatingAggregate.EMPTY)))
+                    .map(PackRatingAggregateProjection::getPackId)
+                    .toList();
+        });
+
+        // Drift is rechecked under the pack's row lock, so concurrent ratings are never overwritten
+        drifted.forEach(packId -> transactionTemplate.executeWithoutResult(status -> recompute(packId)));
+
+        if (!drifted.isEmpty()) {
+            log.warn("⚠️ Corrected rating aggregates of {} pack(s)", drifted.size());
+        }
+        return drifted.size();
     }
 
     @Override
@@ -90,4 +144,80 @@ public class SamplePackRatingServiceImpl implements SamplePackRatingService {
             throw new ForbiddenOperationException("Rating must be between 1.0 and 5.0");
         }
     }
-}
\ No newline at end of file
+
+    // ================ Helpers ================
+
+    /**
+     * Star bucket of a rating, rounded half up; must match PackRatingRepository.AGGREGATE_SELECT
+     */
+    static int starsOf(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.floor(rating + 0.5)));
+    }
+
+    private void applyRatingDelta(UUID packId, Double removedRating, Double addedRating) {
+        int[] stars = new int[6];
+        double sumDelta = 0;
+        int countDelta = 0;
+        if (removedRating != null) {
+            sumDelta -= removedRating;
+            countDelta--;
+            stars[starsOf(removedRating)]--;
+        }
+        if (addedRating != null) {
+            sumDelta += addedRating;
+            countDelta++;
+            stars[starsOf(addedRating)]++;
+        }
+        samplePackRepository.applyRatingDelta(packId, sumDelta, countDelta,
+                stars[1], stars[2], stars[3], stars[4], stars[5]);
+    }
+
+    private void recompute(UUID packId) {
+        samplePackRepository.findByIdForUpdate(packId).ifPresent(pack -> {
+            RatingAggregate aggregate = packRatingRepository.aggregateByPackId(packId)
+                    .map(RatingAggregate::of)
+                    .orElse(RatingAggregate.EMPTY);
+            // The aggregate columns are not updatable through the entity
+            samplePackRepository.overwriteRatingAggregate(packId, aggregate.average(), aggregate.sum(),
+                    Math.toIntExact(aggregate.count()),
+                    Math.toIntExact(aggregate.stars().get(0)), Math.toIntExact(aggregate.stars().get(1)),
+                    Math.toIntExact(aggregate.stars().get(2)), Math.toIntExact(aggregate.stars().get(3)),
+                    Math.toIntExact(aggregate.stars().get(4)));
+        });
+    }
+
+    private record RatingAggregate(double sum, long count, List<Long> stars) {
+
+        static final RatingAggregate EMPTY = new RatingAggregate(0.0, 0, List.of(0L, 0L, 0L, 0L, 0L));
+
+        static RatingAggregate of(PackRatingAggregateProjection projection) {
+            return new RatingAggregate(
+                    projection.getRatingSum() == null ? 0.0 : projection.getRatingSum(),
+                    projection.getRatingCount(),
+                    List.of(projection.getStars1(), projection.getStars2(), projection.getStars3(),
+                            projection.getStars4(), projection.getStars5()));
+        }
+
+        boolean matches(RatingAggregate other) {
+            return count == other.count
+                    && stars.equals(other.stars)
+                    && Math.abs(sum - other.sum) < SUM_TOLERANCE;
+        }
+
+        double average() {
+            return count == 0 ? 0.0 : Math.round(sum / count * 10.0) / 10.0;
+        }
+
+        PackRatingSummaryDTO toSummary() {
+            Map<Integer, Long> distribution = new LinkedHashMap<>();
+            for (int star = 1; star <= 5; star++) {
+                distribution.put(star, stars.get(star - 1));
+            }
+            return PackRatingSummaryDTO.builder()
+                    .averageRating(average())
+                    .ratingCount(count)
+                    .distribution(distribution)
+                    .build();
+        }
+    }
+}
@@ -3,10 +3,13 @@ package bg.softuni.stylemint.product.audio.service.impl;
 import bg.softuni.stylemint.common.exception.FileProcessingException;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.product.audio.dto.*;
+import bg.softuni.stylemint.product.audio.enums.AudioCounter;
 import bg.softuni.stylemint.product.audio.enums.Genre;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackListItem;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
 import bg.softuni.stylemint.product.audio.service.AudioSampleService;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
 import bg.softuni.stylemint.product.audio.service.SamplePackManagementService;
 import bg.softuni.stylemint.product.audio.service.SamplePackService;
 import bg.softuni.stylemint.common.exception.NotFoundException;
@@ -17,11 +20,11 @@ import org.springframework.data.domain.*;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -34,9 +37,15 @@ public class SamplePackServiceImpl implements SamplePackService {
     private final SamplePackManagementService samplePackManagementService;
     private final AudioSampleService audioSampleService;
     private final SamplePackMapper samplePackMapper;
+    private final CatalogSearchService catalogSearchService;
+    private final PackFacetAggregate packFacetAggregate;
+    private final PackLeaderboards packLeaderboards;
+    private final AudioCounterBuffer audioCounterBuffer;
+
+    private static final int SIMILAR_PACKS_LIMIT = 10;
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public SamplePackDTO uploadPack(UUID authorId, UploadPackRequest request) {
         return samplePackManagementService.uploadPack(authorId, request);
     }
@@ -109,16 +118,13 @@ public class SamplePackServiceImpl implements SamplePackService {
 
     @Override
     public List<SamplePackDTO> getPacksByAuthor(UUID authorId) {
-        return samplePackRepository.findByAuthorIdAndArchivedFalse(authorId).stream()
-                .map(samplePackMapper::toDTO)
-                .collect(Collectors.toList());
+        return toListingDTOs(samplePackRepository.findByAuthorIdAndArchivedFalse(authorId, SamplePackListItem.class));
     }
 
     @Override
     public Page<SamplePackDTO> getPacksByArtist(String artist, Pageable pageable) {
 
-        return samplePackRepository.findByArtistAndArchivedFalse(artist, pageable)
-                .map(samplePackMapper::toDTO);
+        return toListingPage(samplePackRepository.findByArtistAndArchivedFalse(artist, pageable, SamplePackListItem.class));
     }
 
     @Override
@@ -131,14 +137,12 @@ public class SamplePackServiceImpl implements SamplePackService {
 
     @Override
     public Page<SamplePackDTO> getAllPacks(Pageable pageable) {
-        return samplePackRepository.findByArchivedFalse(pageable)
-                .map(samplePackMapper::toDTO);
+        return toListingPage(samplePackRepository.findByArchivedFalse(pageable, SamplePackListItem.class));
     }
 
     @Override
     public Page<SamplePackDTO> searchPacks(SamplePackSearchRequest request, Pageable pageable) {
-
-        Page<SamplePackDTO> page = samplePackRepository.searchPacks(
+        return samplePackRepository.searchPacks(
                 request.getArtist(),
                 request.getGenre(),
                 request.getMinPrice(),
@@ -146,25 +150,11 @@ public class SamplePackServiceImpl implements SamplePackService {
                 request.getMinRating(),
                 pageable
         ).map(samplePackMapper::toDTO);
-
-        List<SamplePackDTO> filtered = page
-                .getContent()
-                .stream()
-                .filter(pack -> !pack.isArchived())
-                .toList();
-
-        return new PageImpl<>(
-                filtered,
-                pageable,
-                filtered.size()
-        );
     }
 
     @Override
     public List<SamplePackDTO> searchPacksByTitle(String title) {
-        return samplePackRepository.findByTitleContainingIgnoreCaseAndArchivedFalse(title).stream()
-                .map(samplePackMapper::toDTO)
-                .collect(Collectors.toList());
+        return toListingDTOs(samplePackRepository.findByTitleContainingIgnoreCaseAndArchivedFalse(title, SamplePackListItem.class));
     }
 
     @Override
@@ -172,31 +162,29 @@ public class SamplePackServiceImpl implements SamplePackService {
         SamplePack pack = samplePackRepository.findById(packId)
                 .orElseThrow(() -> new NotFoundException("Pack not found"));
 
-        return samplePackRepository.findSimilarPacks(pack.getGenres(), packId).stream()
-                .filter(sample -> !sample.isArchived())
+        return samplePackRepository.findSimilarPacks(pack.getGenres(), packId, PageRequest.of(0, SIMILAR_PACKS_LIMIT)).stream()
                 .map(samplePackMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<SamplePackDTO> getTopRatedPacks() {
-        return samplePackRepository.findTop10ByOrderByRatingDescAndArchivedFalse().stream()
-                .map(samplePackMapper::toDTO)
-                .collect(Collectors.toList());
+        return packLeaderboards.topRated();
     }
 
     @Override
     public List<SamplePackDTO> getMostDownloadedPacks() {
-        return samplePackRepository.findTop10ByOrderByDownloadsDescAndArchivedFalse().stream()
-                .map(samplePackMapper::toDTO)
-                .collect(Collectors.toList());
+        return packLeaderboards.mostDownloaded();
     }
 
     @Override
     public List<SamplePackDTO> getLatestPacks() {
-        return samplePackRepository.findTop10ByOrderByReleaseDateDescAndArchivedFalse().stream()
-                .map(samplePackMapper::toDTO)
-                .collect(Collectors.toList());
+        return packLeaderboards.latest();
+    }
+
+    @Override
+    public List<SamplePackDTO> getFeaturedPacks() {
+        return packLeaderboards.featured();
     }
 
     @Override
@@ -205,13 +193,9 @@ public class SamplePackServiceImpl implements SamplePackService {
     }
 
     @Override
-    @Transactional
     public void incrementDownloadCount(UUID packId) {
-        SamplePack pack = samplePackRepository.findById(packId)
-                .orElseThrow(() -> new NotFoundException("Pack not found"));
-
-        pack.setDownloads(pack.getDownloads() + 1);
-        samplePackRepository.save(pack);
+        // Coalesced and flushed in the background; an unknown ID ends up as a no-op update
+        audioCounterBuffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
     }
 
     @Override
@@ -260,6 +244,8 @@ public class SamplePackServiceImpl implements SamplePackService {
             pack.setArchived(true);
             pack.setArchivedAt(OffsetDateTime.now()); // Записваме времето на архивирането
             samplePackRepository.save(pack); // Записваме в базата данни
+            catalogSearchService.removePack(pack.getId());
+            packFacetAggregate.packRemoved(pack.getId());
         }
 
         log.info("📁 Archived all sample packs for user {}", targetUserId);
@@ -277,6 +263,8 @@ public class SamplePackServiceImpl implements SamplePackService {
         pack.setArchivedAt(OffsetDateTime.now());
 
         samplePackRepository.save(pack);
+        catalogSearchService.removePack(packId);
+        packFacetAggregate.packRemoved(packId);
 
         log.info("📦 ADMIN archived sample pack {}", packId);
     }
@@ -298,6 +286,8 @@ public class SamplePackServiceImpl implements SamplePackService {
             samplePack.setArchivedAt(OffsetDateTime.now());
 
             samplePackRepository.save(samplePack);
+            catalogSearchService.removePack(samplePackId);
+            packFacetAggregate.packRemoved(samplePackId);
 
             log.info("📁 Sample pack with ID {} has been archived by its author {}", samplePackId, authorId);
         } catch (Exception e) {
@@ -329,28 +319,7 @@ public class SamplePackServiceImpl implements SamplePackService {
 
     @Override
     public PackFilterMetadata getFilterMetadata() {
-        List<String> artists = samplePackRepository.findDistinctArtists();
-
-        List<Genre> genres = samplePackRepository.findDistinctGenres();
-
-        List<Double[]> priceRange = samplePackRepository.getPriceRange();
-        Double minPrice = 0.0;
-        Double maxPrice = 100.0;
-
-        if (!priceRange.isEmpty() && priceRange.get(0) != null) {
-            Double[] range = priceRange.get(0);
-            if (range[0] != null) minPrice = range[0];
-            if (range[1] != null) maxPrice = range[1];
-        }
-        Long totalPacks = samplePackRepository.count(); // Or implement custom count
-
-        return PackFilterMetadata.builder()
-                .availableArtists(artists)
-                .availableGenres(genres)
-                .minPrice(minPrice)
-                .maxPrice(maxPrice)
-                .totalPacks(totalPacks)
-                .build();
+        return packFacetAggregate.getMetadata();
     }
 
     private Pageable buildPageableWithSort(String sortBy, Pageable pageable) {
@@ -380,4 +349,32 @@ public class SamplePackServiceImpl implements SamplePackService {
         );
     }
 
+    private Page<SamplePackDTO> toListingPage(Page<SamplePackListItem> page) {
+        return new PageImpl<>(toListingDTOs(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    /**
+     * Projection rows plus one query each for the genres and tags of the whole page
+     */
+    private List<SamplePackDTO> toListingDTOs(List<SamplePackListItem> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> packIds = items.stream().map(SamplePackListItem::id).toList();
+
+        Map<UUID, List<Genre>> genres = new HashMap<>();
+        for (Object[] row : samplePackRepository.findGenresByPackIds(packIds)) {
+            genres.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((Genre) row[1]);
+        }
+        Map<UUID, List<String>> tags = new HashMap<>();
+        for (Object[] row : samplePackRepository.findTagsByPackIds(packIds)) {
+            tags.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        return items.stream()
+                .map(item -> samplePackMapper.toDTO(item,
+                        genres.getOrDefault(item.id(), List.of()),
+                        tags.getOrDefault(item.id(), List.of())))
+                .toList();
+    }
 }
\ No newline at end of file
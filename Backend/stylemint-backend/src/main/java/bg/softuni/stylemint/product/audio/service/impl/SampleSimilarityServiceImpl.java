@@ -0,0 +1,334 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.common.util.TransactionCallbacks;
+import bg.softuni.stylemint.product.audio.dto.AudioSampleSearchRequest;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SampleSimilarity;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleSpecifications;
+import bg.softuni.stylemint.product.audio.repository.SampleCoDownloadProjection;
+import bg.softuni.stylemint.product.audio.repository.SampleLicenseRepository;
+import bg.softuni.stylemint.product.audio.repository.SampleSimilarityRepository;
+import bg.softuni.stylemint.product.audio.service.SampleSimilarityService;
+import bg.softuni.stylemint.product.audio.service.utils.SampleSimilarityScorer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the top-K most similar samples of every sample in {@code sample_similarities}.
+ *
+ * New, edited and archived samples are queued after commit and applied by a short-interval job:
+ * a changed sample gets its list recomputed from a bounded candidate pool (same genre or
+ * compatible key within the BPM window, plus co-downloads) and is offered to its neighbours'
+ * lists; a removed sample is dropped everywhere and the lists that referenced it are refilled.
+ * Scores are symmetric, co-downloads included, so a neighbour's list can take the changed sample
+ * with the score it would compute itself. A nightly rebuild recomputes everything to absorb
+ * drift (e.g. changing co-download counts).
+ */
+@Slf4j
+@Service
+public class SampleSimilarityServiceImpl implements SampleSimilarityService {
+
+    private static final int CANDIDATES_PER_QUERY = 200;
+    private static final int CO_DOWNLOAD_CANDIDATES = 50;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final AudioSampleRepository audioSampleRepository;
+    private final SampleSimilarityRepository sampleSimilarityRepository;
+    private final SampleLicenseRepository sampleLicenseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int topK;
+
+    private final Set<UUID> pendingSamples = ConcurrentHashMap.newKeySet();
+    // Computed and found to have no similar samples, so an empty list is the answer, not a missing one
+    private final Set<UUID> withoutNeighbours = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public SampleSimilarityServiceImpl(AudioSampleRepository audioSampleRepository,
+                                       SampleSimilarityRepository sampleSimilarityRepository,
+                                       SampleLicenseRepository sampleLicenseRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${audio.similarity.top-k:20}") int topK) {
+        this.audioSampleRepository = audioSampleRepository;
+        this.sampleSimilarityRepository = sampleSimilarityRepository;
+        this.sampleLicenseRepository = sampleLicenseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.topK = topK;
+    }
+
+    @Override
+    public List<AudioSample> findSimilar(AudioSample sample) {
+        List<UUID> similarIds = sampleSimilarityRepository.findSimilarSampleIds(sample.getId(), PageRequest.of(0, topK));
+        if (!similarIds.isEmpty()) {
+            // Primary-key fetch, then back into score order; neighbours archived since the last refresh are skipped
+            Map<UUID, AudioSample> byId = audioSampleRepository.findAllById(similarIds).stream()
+                    .filter(similar -> !similar.isArchived())
+                    .collect(Collectors.toMap(AudioSample::getId, similar -> similar));
+            return similarIds.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        if (withoutNeighbours.contains(sample.getId())) {
+            return List.of();
+        }
+
+        // Not computed yet (e.g. uploaded moments ago): answer from the bounded candidate pool and queue it
+        pendingSamples.add(sample.getId());
+        return rankCandidates(sample).stream()
+                .map(ScoredSample::sample)
+                .toList();
+    }
+
+    @Override
+    public void sampleChanged(UUID sampleId) {
+        TransactionCallbacks.afterCommit(() -> pendingSamples.add(sampleId));
+    }
+
+    @Override
+    public void sampleRemoved(UUID sampleId) {
+        TransactionCallbacks.afterCommit(() -> pendingSamples.add(sampleId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${audio.similarity.refresh-interval-ms:60000}")
+    public void refreshPending() {
+        if (pendingSamples.isEmpty()) {
+            return;
+        }
+        List<UUID> batch = new ArrayList<>(pendingSamples);
+        pendingSamples.removeAll(batch);
+
+        for (UUID sampleId : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> refresh(sampleId));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Failed to refresh similar samples for {}, will retry", sampleId, e);
+                pendingSamples.add(sampleId);
+            }
+        }
+        log.debug("🔁 Refreshed similar samples for {} samples", batch.size());
+    }
+
+    @Override
+    @Scheduled(cron = "${audio.similarity.rebuild-cron:0 30 3 * * *}")
+    public int rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Similarity rebuild already running, skipping");
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> sampleSimilarityRepository.deleteInactive());
+
+            int processed = 0;
+            AudioSample last = null;
+            while (true) {
+                AudioSample after = last;
+                List<AudioSample> batch = transactionTemplate.execute(status -> {
+                    Specification<AudioSample> spec = AudioSampleSpecifications.notArchived();
+                    if (after != null) {
+                        spec = spec.and(AudioSampleSpecifications.after(after.getCreatedAt(), after.getId()));
+                    }
+                    List<AudioSample> samples = audioSampleRepository.findBy(spec, query -> query
+                            .sortBy(AudioSampleSpecifications.NEWEST_FIRST)
+                            .limit(REBUILD_BATCH_SIZE)
+                            .all());
+                    samples.forEach(this::replaceNeighbours);
+                    return samples;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                processed += batch.size();
+                last = batch.get(batch.size() - 1);
+                if (batch.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+            }
+
+            log.info("✅ Rebuilt similar samples for {} samples in {} ms", processed, System.currentTimeMillis() - start);
+            return processed;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // ================ Helpers ================
+
+    private void refresh(UUID sampleId) {
+        Optional<AudioSample> sample = audioSampleRepository.findByIdAndArchivedFalse(sampleId);
+        if (sample.isEmpty()) {
+            withoutNeighbours.remove(sampleId);
+            List<UUID> affected = sampleSimilarityRepository.findSampleIdsBySimilarSampleId(sampleId);
+            sampleSimilarityRepository.deleteAllReferencing(sampleId);
+            audioSampleRepository.findAllById(affected).stream()
+                    .filter(neighbour -> !neighbour.isArchived())
+                    .forEach(this::replaceNeighbours);
+            return;
+        }
+
+        List<ScoredSample> neighbours = replaceNeighbours(sample.get());
+        for (ScoredSample neighbour : neighbours) {
+            offer(neighbour.sample().getId(), sampleId, neighbour.score());
+        }
+    }
+
+    private List<ScoredSample> replaceNeighbours(AudioSample sample) {
+        List<ScoredSample> neighbours = rankCandidates(sample);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        if (neighbours.isEmpty()) {
+            withoutNeighbours.add(sample.getId());
+        } else {
+            withoutNeighbours.remove(sample.getId());
+        }
+
+        sampleSimilarityRepository.deleteBySampleId(sample.getId());
+        sampleSimilarityRepository.saveAll(neighbours.stream()
+                .map(neighbour -> SampleSimilarity.builder()
+                        .sampleId(sample.getId())
+                        .similarSampleId(neighbour.sample().getId())
+                        .score(neighbour.score())
+                        .computedAt(now)
+                        .build())
+                .toList());
+        return neighbours;
+    }
+
+    /**
+     * Scores are symmetric, so a changed sample can enter its neighbours' lists without recomputing them.
+     * Taking a neighbour means the owner has one, so it is no longer marked as having none
+     */
+    private void offer(UUID ownerId, UUID candidateId, double score) {
+        List<SampleSimilarity> current = sampleSimilarityRepository.findBySampleIdOrderByScoreDesc(ownerId);
+
+        for (SampleSimilarity existing : current) {
+            if (existing.getSimilarSampleId().equals(candidateId)) {
+                existing.setScore(score);
+                existing.setComputedAt(OffsetDateTime.now());
+                return;
+            }
+        }
+
+        if (current.size() >= topK) {
+            SampleSimilarity weakest = current.get(current.size() - 1);
+            if (weakest.getScore() >= score) {
+                return;
+            }
+            sampleSimilarityRepository.delete(weakest);
+        }
+
+        withoutNeighbours.remove(ownerId);
+        sampleSimilarityRepository.save(SampleSimilarity.builder()
+                .sampleId(ownerId)
+                .similarSampleId(candidateId)
+                .score(score)
+                .computedAt(OffsetDateTime.now())
+                .build());
+    }
+
+    private List<ScoredSample> rankCandidates(AudioSample sample) {
+        Map<UUID, AudioSample> candidates = new HashMap<>();
+        loadCandidates(sample).forEach(candidate -> candidates.putIfAbsent(candidate.getId(), candidate));
+
+        Map<UUID, Long> coDownloads = sampleLicenseRepository
+                .findCoDownloadCounts(sample.getId(), PageRequest.of(0, CO_DOWNLOAD_CANDIDATES)).stream()
+                .collect(Collectors.toMap(SampleCoDownloadProjection::getSampleId, SampleCoDownloadProjection::getCount));
+        List<UUID> missing = coDownloads.keySet().stream()
+                .filter(id -> !candidates.containsKey(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            audioSampleRepository.findAllById(missing).stream()
+                    .filter(candidate -> !candidate.isArchived())
+                    .forEach(candidate -> candidates.put(candidate.getId(), candidate));
+        }
+        candidates.remove(sample.getId());
+
+        Map<UUID, Long> licenses = licenseCounts(sample.getId(), coDownloads.keySet());
+        long sampleLicenses = licenses.getOrDefault(sample.getId(), 0L);
+
+        return candidates.values().stream()
+                .map(candidate -> {
+                    double coDownloadSignal = coDownloadSignal(coDownloads.getOrDefault(candidate.getId(), 0L),
+                            sampleLicenses, licenses.getOrDefault(candidate.getId(), 0L));
+                    return new ScoredSample(candidate, SampleSimilarityScorer.score(sample, candidate, coDownloadSignal));
+                })
+                .sorted(Comparator.comparingDouble(ScoredSample::score).reversed()
+                        .thenComparing(scored -> scored.sample().getId()))
+                .limit(topK)
+                .toList();
+    }
+
+    /**
+     * One grouped count for the sample and its co-downloaded samples, none when nothing was co-downloaded
+     */
+    private Map<UUID, Long> licenseCounts(UUID sampleId, Set<UUID> coDownloadedIds) {
+        if (coDownloadedIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<UUID> ids = new HashSet<>(coDownloadedIds);
+        ids.add(sampleId);
+        return sampleLicenseRepository.countLicensesBySampleIds(ids).stream()
+                .collect(Collectors.toMap(SampleCoDownloadProjection::getSampleId, SampleCoDownloadProjection::getCount));
+    }
+
+    /**
+     * Co-downloads over the geometric mean of both samples' downloads (cosine of their downloader sets),
+     * which is the same from either side of the pair
+     */
+    private static double coDownloadSignal(long coDownloads, long downloadsA, long downloadsB) {
+        if (coDownloads == 0 || downloadsA == 0 || downloadsB == 0) {
+            return 0;
+        }
+        return coDownloads / Math.sqrt((double) downloadsA * downloadsB);
+    }
+
+    /**
+     * Two index-backed queries (genre + BPM and key + BPM), each capped, instead of one unbounded scan
+     */
+    private List<AudioSample> loadCandidates(AudioSample sample) {
+        List<AudioSample> candidates = new ArrayList<>();
+        if (sample.getGenre() != null) {
+            AudioSampleSearchRequest byGenre = bpmWindow(sample);
+            byGenre.setGenre(sample.getGenre());
+            candidates.addAll(fetch(AudioSampleSpecifications.matching(byGenre)));
+        }
+        if (sample.getKey() != null) {
+            candidates.addAll(fetch(AudioSampleSpecifications.matching(bpmWindow(sample))
+                    .and(AudioSampleSpecifications.keyIn(SampleSimilarityScorer.compatibleKeys(sample.getKey())))));
+        }
+        return candidates;
+    }
+
+    private AudioSampleSearchRequest bpmWindow(AudioSample sample) {
+        AudioSampleSearchRequest request = new AudioSampleSearchRequest();
+        if (sample.getBpm() != null) {
+            request.setMinBpm(sample.getBpm() - SampleSimilarityScorer.BPM_WINDOW);
+            request.setMaxBpm(sample.getBpm() + SampleSimilarityScorer.BPM_WINDOW);
+        }
+        return request;
+    }
+
+    private List<AudioSample> fetch(Specification<AudioSample> spec) {
+        return audioSampleRepository.findBy(spec, query -> query
+                .sortBy(AudioSampleSpecifications.NEWEST_FIRST)
+                .limit(CANDIDATES_PER_QUERY)
+                .all());
+    }
+
+    private record ScoredSample(AudioSample sample, double score) {
+    }
+}
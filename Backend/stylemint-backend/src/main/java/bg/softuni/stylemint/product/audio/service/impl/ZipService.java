@@ -5,20 +5,62 @@ import bg.softuni.stylemint.product.audio.dto.SamplePackDetailDTO;
 
 import bg.softuni.stylemint.product.audio.dto.ZipResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URL;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+/**
+ * Streams sample packs as ZIP archives.
+ *
+ * Audio is already compressed, so entries are STORED. A STORED entry needs its
+ * size and CRC up front, so every sample is first spilled to a temp file while
+ * the CRC is computed, then copied into the archive. Heap usage per download is
+ * one copy buffer regardless of pack size.
+ *
+ * Up to {@code prefetchWindow} samples are fetched in parallel ahead of the entry
+ * being written, so download time approaches the slowest fetch rather than
+ * the sum of all of them. Entries are still written in pack order.
+ *
+ * Complete archives are written through to {@link PackZipCache} while streaming,
+ * so repeat downloads of an unchanged pack are served straight from disk.
+ */
 @Slf4j
 @Service
 public class ZipService {
 
-    public ZipResult createPackZip(SamplePackDetailDTO packDetail) throws Exception {
+    private static final String TEMP_FILE_PREFIX = "stylemint-sample-";
+
+    private final ExecutorService fetchExecutor;
+    private final int prefetchWindow;
+    private final PackZipCache packZipCache;
+
+    public ZipService(@Qualifier("packSampleFetchExecutor") ExecutorService fetchExecutor,
+                      @Value("${audio.zip.prefetch-window:4}") int prefetchWindow,
+                      PackZipCache packZipCache) {
+        this.fetchExecutor = fetchExecutor;
+        this.prefetchWindow = Math.max(1, prefetchWindow);
+        this.packZipCache = packZipCache;
+    }
+
+    public ZipResult createPackZip(SamplePackDetailDTO packDetail) {
 
         String packName = sanitizeFileName(packDetail.getPack().getTitle());
         List<AudioSampleDTO> samples = packDetail.getSamples();
@@ -27,52 +69,187 @@ public class ZipService {
             throw new IllegalStateException("Pack contains no samples.");
         }
 
-        log.info("📦 Creating ZIP for pack: {} with {} samples", packName, samples.size());
+        String zipFileName = packName + ".zip";
+        UUID packId = packDetail.getPack().getId();
+        String version = packZipCache.contentVersion(packDetail);
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Optional<PackZipCache.Lease> cached = packZipCache.find(packId, version);
+        if (cached.isPresent()) {
+            log.info("📦 Serving cached ZIP for pack {}", packId);
+            return new ZipResult(zipFileName, version, null, cached.get());
+        }
 
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+        return new ZipResult(zipFileName, version,
+                out -> writeThroughCache(packId, version, zipFileName, samples, out), null);
+    }
 
-            for (int i = 0; i < samples.size(); i++) {
-                AudioSampleDTO sample = samples.get(i);
+    private void writeThroughCache(UUID packId, String version, String zipFileName,
+                                   List<AudioSampleDTO> samples, OutputStream out) throws IOException {
 
+        PackZipCache.CacheWriter cacheWriter = null;
+        try {
+            cacheWriter = packZipCache.openWriter(packId, version);
+        } catch (IOException e) {
+            log.warn("⚠️ ZIP cache unavailable, streaming pack {} without caching: {}", packId, e.getMessage());
+        }
+
+        if (cacheWriter == null) {
+            writePackZip(zipFileName, samples, out);
+            return;
+        }
+
+        CacheTeeOutputStream tee = new CacheTeeOutputStream(out, cacheWriter);
+        boolean complete = false;
+        try {
+            complete = writePackZip(zipFileName, samples, tee);
+        } finally {
+            if (complete && !tee.cacheFailed) {
                 try {
-                    log.info("⬇️ Adding to ZIP ({}/{}): {}", i + 1, samples.size(), sample.getName());
+                    cacheWriter.commit();
+                } catch (IOException e) {
+                    log.warn("⚠️ Failed to cache ZIP for pack {}: {}", packId, e.getMessage());
+                    cacheWriter.abort();
+                }
+            } else {
+                // Partial archives (skipped samples, aborted client) are never cached
+                cacheWriter.abort();
+            }
+        }
+    }
 
-                    URL url = new URL(sample.getAudioUrl());
+    /**
+     * Writes the archive and returns {@code true} if every sample made it in.
+     */
+    boolean writePackZip(String zipFileName, List<AudioSampleDTO> samples, OutputStream out) throws IOException {
 
-                    try (InputStream inputStream = url.openStream()) {
+        log.info("📦 Streaming ZIP {} with {} samples", zipFileName, samples.size());
 
-                        String fileName = sanitizeFileName(sample.getName()) + ".mp3";
+        Set<String> entryNames = new HashSet<>();
+        long totalBytes = 0;
+        int failedSamples = 0;
 
-                        zos.putNextEntry(new ZipEntry(fileName));
+        ZipOutputStream zos = new ZipOutputStream(out);
+        Deque<Future<FetchedSample>> prefetched = new ArrayDeque<>();
+        int nextToFetch = 0;
 
-                        byte[] buffer = new byte[8192];
-                        int bytesRead;
+        try {
+            while (nextToFetch < samples.size() && prefetched.size() < prefetchWindow) {
+                prefetched.add(submitFetch(samples.get(nextToFetch++)));
+            }
 
-                        while ((bytesRead = inputStream.read(buffer)) != -1) {
-                            zos.write(buffer, 0, bytesRead);
-                        }
+            for (int i = 0; i < samples.size(); i++) {
+                AudioSampleDTO sample = samples.get(i);
+                Future<FetchedSample> pending = prefetched.poll();
 
-                        zos.closeEntry();
-                        log.info("✅ Added to ZIP: {}", fileName);
+                if (nextToFetch < samples.size()) {
+                    prefetched.add(submitFetch(samples.get(nextToFetch++)));
+                }
 
-                    }
+                FetchedSample fetched = null;
+                try {
+                    fetched = awaitFetch(pending);
+
+                    String fileName = uniqueEntryName(sanitizeFileName(sample.getName()), entryNames);
+
+                    ZipEntry entry = new ZipEntry(fileName);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(fetched.size());
+                    entry.setCompressedSize(fetched.size());
+                    entry.setCrc(fetched.crc());
+
+                    zos.putNextEntry(entry);
+                    Files.copy(fetched.file(), zos);
+                    zos.closeEntry();
+                    zos.flush();
 
-                } catch (Exception ex) {
-                    log.error("❌ Failed adding {}: {}", sample.getName(), ex.getMessage());
+                    totalBytes += fetched.size();
+                    log.info("✅ Added to ZIP ({}/{}): {}", i + 1, samples.size(), fileName);
+
+                } catch (ExecutionException ex) {
+                    // Fetch failures happen before the entry is opened, so the archive stays valid
+                    failedSamples++;
+                    log.error("❌ Failed adding {}: {}", sample.getName(), ex.getCause().getMessage());
+                } finally {
+                    if (fetched != null) {
+                        deleteQuietly(fetched.file());
+                    }
                 }
             }
 
             zos.finish();
+            zos.flush();
+
+        } finally {
+            // Only non-empty when the client aborted mid-download
+            prefetched.forEach(this::discard);
         }
 
-        byte[] zipBytes = baos.toByteArray();
-        String zipFileName = packName + ".zip";
+        log.info("✅ ZIP streamed: {} ({} bytes of audio)", zipFileName, totalBytes);
+        return failedSamples == 0;
+    }
+
+    private Future<FetchedSample> submitFetch(AudioSampleDTO sample) {
+        return fetchExecutor.submit(() -> fetch(sample));
+    }
+
+    private FetchedSample awaitFetch(Future<FetchedSample> pending) throws IOException, ExecutionException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching pack samples");
+        }
+    }
+
+    private FetchedSample fetch(AudioSampleDTO sample) throws IOException {
+        log.debug("⬇️ Fetching sample: {}", sample.getName());
+
+        Path tempFile = Files.createTempFile(TEMP_FILE_PREFIX, ".part");
+        try {
+            CRC32 crc = new CRC32();
+            try (InputStream inputStream = new CheckedInputStream(new URL(sample.getAudioUrl()).openStream(), crc)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
 
-        log.info("✅ ZIP created: {} ({} bytes)", zipFileName, zipBytes.length);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Fetch cancelled");
+            }
+
+            return new FetchedSample(tempFile, Files.size(tempFile), crc.getValue());
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+    }
 
-        return new ZipResult(zipFileName, zipBytes);
+    private void discard(Future<FetchedSample> pending) {
+        if (pending.cancel(true)) {
+            return;
+        }
+        try {
+            deleteQuietly(pending.get().file());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // Failed fetches clean up after themselves
+        }
+    }
+
+    private String uniqueEntryName(String baseName, Set<String> usedNames) {
+        String fileName = baseName + ".mp3";
+        int suffix = 2;
+        while (!usedNames.add(fileName)) {
+            fileName = baseName + "_" + suffix++ + ".mp3";
+        }
+        return fileName;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ Could not delete temp file {}", file);
+        }
     }
 
     private String sanitizeFileName(String name) {
@@ -81,4 +258,46 @@ public class ZipService {
                 .replaceAll("\\s+", "_")
                 .trim();
     }
-}
\ No newline at end of file
+
+    private record FetchedSample(Path file, long size, long crc) {
+    }
+
+    /**
+     * Copies the response into the cache writer. Cache write errors never
+     * reach the client; they only stop the archive from being cached.
+     */
+    private static class CacheTeeOutputStream extends FilterOutputStream {
+
+        private final OutputStream cache;
+        private boolean cacheFailed;
+
+        CacheTeeOutputStream(OutputStream response, OutputStream cache) {
+            super(response);
+            this.cache = cache;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!cacheFailed) {
+                try {
+                    cache.write(b);
+                } catch (IOException e) {
+                    cacheFailed = true;
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (!cacheFailed) {
+                try {
+                    cache.write(b, off, len);
+                } catch (IOException e) {
+                    cacheFailed = true;
+                }
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class AudioSampleMapper {
                 .createdAt(sample.getCreatedAt())
                 .updatedAt(sample.getUpdatedAt())
                 .isArchived(sample.isArchived())
+                .playCount(sample.getPlayCount())
                 // Map tags here
                 .tags(sample.getTags() != null ? sample.getTags() : List.of())
                 .build();
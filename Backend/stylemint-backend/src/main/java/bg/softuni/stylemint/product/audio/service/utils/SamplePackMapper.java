@@ -2,10 +2,14 @@ package bg.softuni.stylemint.product.audio.service.utils;
 
 import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
 import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.enums.Genre;
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackListItem;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class SamplePackMapper {
 
@@ -20,9 +24,11 @@ public class SamplePackMapper {
                 .sampleCount(pack.getSampleCount())
                 .totalSize(pack.getTotalSize())
                 .description(pack.getDescription())
-                .genres(pack.getGenres())
-                .tags(pack.getTags())
+                // Copied: DTOs outlive the session (leaderboard snapshots) and must not hold lazy collections
+                .genres(List.copyOf(pack.getGenres()))
+                .tags(List.copyOf(pack.getTags()))
                 .rating(pack.getRating())
+                .ratingCount(pack.getRatingCount())
                 .downloads(pack.getDownloads())
                 .releaseDate(pack.getReleaseDate())
                 .createdAt(pack.getCreatedAt())
@@ -31,6 +37,29 @@ public class SamplePackMapper {
                 .build();
     }
 
+    public SamplePackDTO toDTO(SamplePackListItem item, List<Genre> genres, List<String> tags) {
+        return SamplePackDTO.builder()
+                .id(item.id())
+                .title(item.title())
+                .authorId(item.authorId())
+                .artist(item.artist())
+                .coverImage(item.coverImage())
+                .price(item.price())
+                .sampleCount(item.sampleCount())
+                .totalSize(item.totalSize())
+                .description(item.description())
+                .genres(genres)
+                .tags(tags)
+                .rating(item.rating())
+                .ratingCount(item.ratingCount())
+                .downloads(item.downloads())
+                .releaseDate(item.releaseDate())
+                .createdAt(item.createdAt())
+                .updatedAt(item.updatedAt())
+                .archived(item.archived())
+                .build();
+    }
+
     public AudioSample mapAudioSampleDtoToEntity(AudioSampleDTO dto) {
         if (dto == null) {
             return null;
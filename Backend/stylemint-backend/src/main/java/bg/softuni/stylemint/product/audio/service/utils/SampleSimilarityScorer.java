@@ -0,0 +1,86 @@
+package bg.softuni.stylemint.product.audio.service.utils;
+
+import bg.softuni.stylemint.product.audio.enums.MusicalKey;
+import bg.softuni.stylemint.product.audio.enums.MusicalScale;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Scores how well two samples fit together, from 0 (unrelated) to 1.
+ *
+ * The score is symmetric: BPM distance (half/double time counts as close), key distance
+ * on the circle of fifths (minor keys are compared through their relative major),
+ * same genre, same instrument group, and how often the two were licensed by the same users.
+ */
+public final class SampleSimilarityScorer {
+
+    public static final int BPM_WINDOW = 20;
+
+    private static final double BPM_WEIGHT = 0.30;
+    private static final double KEY_WEIGHT = 0.25;
+    private static final double GENRE_WEIGHT = 0.20;
+    private static final double INSTRUMENT_WEIGHT = 0.10;
+    private static final double CO_DOWNLOAD_WEIGHT = 0.15;
+
+    private SampleSimilarityScorer() {
+    }
+
+    /**
+     * @param coDownloadSignal co-downloads normalised to 0..1 the same way for both samples of the pair
+     */
+    public static double score(AudioSample a, AudioSample b, double coDownloadSignal) {
+        double score = BPM_WEIGHT * bpmSimilarity(a.getBpm(), b.getBpm())
+                + KEY_WEIGHT * keySimilarity(a.getKey(), a.getScale(), b.getKey(), b.getScale())
+                + CO_DOWNLOAD_WEIGHT * Math.max(0, Math.min(1, coDownloadSignal));
+
+        if (a.getGenre() != null && a.getGenre() == b.getGenre()) {
+            score += GENRE_WEIGHT;
+        }
+        if (a.getInstrumentGroup() != null && a.getInstrumentGroup() == b.getInstrumentGroup()) {
+            score += INSTRUMENT_WEIGHT;
+        }
+        return score;
+    }
+
+    public static double bpmSimilarity(Integer a, Integer b) {
+        if (a == null || b == null || a <= 0 || b <= 0) {
+            return 0;
+        }
+        int distance = Math.min(Math.abs(a - b), Math.min(Math.abs(a - 2 * b), Math.abs(2 * a - b)));
+        return Math.max(0, 1 - (double) distance / BPM_WINDOW);
+    }
+
+    public static double keySimilarity(MusicalKey a, MusicalScale scaleA, MusicalKey b, MusicalScale scaleB) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        int steps = Math.abs(fifthsPosition(a, scaleA) - fifthsPosition(b, scaleB));
+        return 1 - Math.min(steps, 12 - steps) / 6.0;
+    }
+
+    /**
+     * Keys worth fetching as candidates: the key itself, its neighbours on the circle of fifths
+     * and the roots of its relative major/minor (the scale is not stored on every sample).
+     */
+    public static Set<MusicalKey> compatibleKeys(MusicalKey key) {
+        MusicalKey[] keys = MusicalKey.values();
+        int root = key.ordinal();
+        return EnumSet.of(
+                key,
+                keys[(root + 7) % 12],
+                keys[(root + 5) % 12],
+                keys[(root + 3) % 12],
+                keys[(root + 9) % 12]
+        );
+    }
+
+    private static int fifthsPosition(MusicalKey key, MusicalScale scale) {
+        int semitone = key.ordinal();
+        if (scale == MusicalScale.MINOR) {
+            semitone = (semitone + 3) % 12;
+        }
+        return semitone * 7 % 12;
+    }
+}
@@ -213,6 +213,20 @@ public class AudioSampleController {
         return ResponseEntity.ok(samples);
     }
 
+    /**
+     * Infinite-scroll search with filters (keyset paginated, newest first)
+     * POST /api/v1/audio/samples/search/scroll
+     */
+    @PostMapping("/search/scroll")
+    public ResponseEntity<AudioSampleScrollResponse> scrollSamples(
+            @RequestBody AudioSampleSearchRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        AudioSampleScrollResponse samples = audioSampleService.scrollSamples(request, cursor, size);
+        return ResponseEntity.ok(samples);
+    }
+
     /**
      * Search samples by name
      * GET /api/v1/audio/samples/search/name
@@ -235,6 +249,17 @@ public class AudioSampleController {
 
     // ================ Statistics ================
 
+    /**
+     * Record a preview play
+     * POST /api/v1/audio/samples/{sampleId}/play
+     */
+    @PostMapping("/{sampleId}/play")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<Void>> recordPlay(@PathVariable UUID sampleId) {
+        audioSampleService.recordPlay(sampleId);
+        return ResponseEntity.ok(ApiResponse.successMessage("Play recorded"));
+    }
+
     /**
      * Get popular samples by genre
      * GET /api/v1/audio/samples/popular/{genre}
@@ -0,0 +1,40 @@
+package bg.softuni.stylemint.product.audio.web;
+
+import bg.softuni.stylemint.common.dto.ApiResponse;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchRequest;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchResultDTO;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import static bg.softuni.stylemint.config.ApiPaths.BASE;
+
+@RestController
+@RequestMapping(BASE + "/audio/search")
+@RequiredArgsConstructor
+public class CatalogSearchController {
+
+    private final CatalogSearchService catalogSearchService;
+
+    /**
+     * Full-text search over samples and packs with facet counts
+     * GET /api/v1/audio/search?query=dark trap&type=SAMPLE&genre=TRAP&minBpm=130&limit=20
+     */
+    @GetMapping
+    public ResponseEntity<CatalogSearchResultDTO> search(@ModelAttribute CatalogSearchRequest request) {
+        return ResponseEntity.ok(catalogSearchService.search(request));
+    }
+
+    /**
+     * Rebuild the search index from the database
+     * POST /api/v1/audio/search/reindex
+     */
+    @PostMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> reindex() {
+        int indexed = catalogSearchService.rebuildIndex();
+        return ResponseEntity.ok(ApiResponse.success(indexed, "Search index rebuilt"));
+    }
+}
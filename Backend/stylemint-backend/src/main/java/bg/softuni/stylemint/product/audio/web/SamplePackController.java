@@ -10,17 +10,21 @@ import bg.softuni.stylemint.product.audio.service.SamplePackService;
 import bg.softuni.stylemint.product.audio.service.impl.ZipService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -226,6 +230,16 @@ public class SamplePackController {
         return ResponseEntity.ok(packs);
     }
 
+    /**
+     * Get featured packs
+     * GET /api/v1/audio/packs/featured
+     */
+    @GetMapping("/featured")
+    public ResponseEntity<List<SamplePackDTO>> getFeaturedPacks() {
+        List<SamplePackDTO> packs = samplePackService.getFeaturedPacks();
+        return ResponseEntity.ok(packs);
+    }
+
     /**
      * Rate a pack
      * POST /api/v1/audio/packs/{packId}/rate
@@ -243,6 +257,29 @@ public class SamplePackController {
         return ResponseEntity.ok(ApiResponse.successMessage("Rating updated"));
     }
 
+    /**
+     * Remove current user's rating of a pack
+     * DELETE /api/v1/audio/packs/{packId}/rate
+     */
+    @DeleteMapping("/{packId}/rate")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<Void>> removePackRating(
+            @PathVariable UUID packId,
+            @AuthenticationPrincipal JwtUserDetails userDetails) {
+
+        samplePackRatingService.removeUserPackRate(packId, userDetails.getUserId());
+        return ResponseEntity.ok(ApiResponse.successMessage("Rating removed"));
+    }
+
+    /**
+     * Get pack rating average and star distribution
+     * GET /api/v1/audio/packs/{packId}/rating-summary
+     */
+    @GetMapping("/{packId}/rating-summary")
+    public ResponseEntity<PackRatingSummaryDTO> getPackRatingSummary(@PathVariable UUID packId) {
+        return ResponseEntity.ok(samplePackRatingService.getPackRatingSummary(packId));
+    }
+
 
     /**
      * Get user's rating for a pack
@@ -352,11 +389,18 @@ public class SamplePackController {
         return ResponseEntity.ok(ApiResponse.success(response, "Pack download authorized"));
     }
 
+    /**
+     * Download entire pack as a ZIP archive
+     * GET /api/v1/audio/packs/{packId}/download-zip
+     *
+     * Served from the on-disk ZIP cache (with Range support) when the pack is unchanged,
+     * otherwise streamed entry by entry and cached on the way out.
+     */
     @GetMapping("/{packId}/download-zip")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ByteArrayResource> downloadPackAsZip(
+    public ResponseEntity<?> downloadPackAsZip(
             @PathVariable UUID packId,
-            @AuthenticationPrincipal JwtUserDetails userDetails) throws Exception {
+            @AuthenticationPrincipal JwtUserDetails userDetails) {
 
         UUID userId = userDetails.getUserId();
 
@@ -369,12 +413,21 @@ public class SamplePackController {
         SamplePackDetailDTO packDetail = samplePackService.getPackWithSamples(packId);
 
         ZipResult zip = zipService.createPackZip(packDetail);
+        if (zip.isCached()) {
+            // Released once the request completes: after the body is written, or on HEAD, 304 or an error
+            RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                    "packZipLease", zip.getCachedArchive()::close, RequestAttributes.SCOPE_REQUEST);
+        }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zip.getFileName() + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .contentLength(zip.getBytes().length)
-                .body(new ByteArrayResource(zip.getBytes()));
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+
+        // Only the cached file is byte-for-byte stable; a streamed archive of the same
+        // content can differ (entry timestamps, skipped samples), so its tag is weak
+        return zip.isCached()
+                ? response.eTag(zip.getVersion()).body(zip.getCachedArchive().archive())
+                : response.eTag("W/\"" + zip.getVersion() + "\"").body(zip.getBody());
     }
 
     @DeleteMapping("/{packId}")
@@ -405,13 +458,15 @@ public class SamplePackController {
     }
 
     /**
-     * Get filter metadata (available artists, genres, price range)
+     * Get filter metadata (available artists, genres, price range, facet counts)
      * GET /api/v1/audio/packs/filter-metadata
+     *
+     * Served from memory; the ETag changes only when a count does.
      */
     @GetMapping("/filter-metadata")
-    public ResponseEntity<PackFilterMetadata> getFilterMetadata() {
+    public ResponseEntity<PackFilterMetadata> getFilterMetadata(WebRequest request) {
         PackFilterMetadata metadata = samplePackService.getFilterMetadata();
-        return ResponseEntity.ok(metadata);
+        return withFilterMetadataETag(request, metadata, metadata);
     }
 
     /**
@@ -419,9 +474,9 @@ public class SamplePackController {
      * GET /api/v1/audio/packs/artists
      */
     @GetMapping("/artists")
-    public ResponseEntity<List<String>> getAllArtists() {
+    public ResponseEntity<List<String>> getAllArtists(WebRequest request) {
         PackFilterMetadata metadata = samplePackService.getFilterMetadata();
-        return ResponseEntity.ok(metadata.getAvailableArtists());
+        return withFilterMetadataETag(request, metadata, metadata.getAvailableArtists());
     }
 
     /**
@@ -429,8 +484,19 @@ public class SamplePackController {
      * GET /api/v1/audio/packs/genres
      */
     @GetMapping("/genres")
-    public ResponseEntity<List<Genre>> getAllGenres() {
+    public ResponseEntity<List<Genre>> getAllGenres(WebRequest request) {
         PackFilterMetadata metadata = samplePackService.getFilterMetadata();
-        return ResponseEntity.ok(metadata.getAvailableGenres());
+        return withFilterMetadataETag(request, metadata, metadata.getAvailableGenres());
+    }
+
+    private <T> ResponseEntity<T> withFilterMetadataETag(WebRequest request, PackFilterMetadata metadata, T body) {
+        String eTag = "\"" + metadata.getVersion() + "\"";
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
     }
-}
\ No newline at end of file
+}
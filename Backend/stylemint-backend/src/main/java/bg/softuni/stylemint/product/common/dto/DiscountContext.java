@@ -0,0 +1,32 @@
+package bg.softuni.stylemint.product.common.dto;
+
+import bg.softuni.stylemint.game.enums.RewardType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything a user's discounts depend on, resolved once per pricing request
+ * (cart breakdown, checkout, preview) and shared by every line of it.
+ *
+ * @param nftDiscounts          NFT discount types the user holds
+ * @param bonusPoints           fashion bonus points from the user's designs
+ * @param fashionBonusDiscount  discount the bonus points give on cloth designs
+ * @param oneTimeDiscount       best unused one-time discount (0.0 when none)
+ */
+public record DiscountContext(UUID userId,
+                              List<RewardType> nftDiscounts,
+                              int bonusPoints,
+                              double fashionBonusDiscount,
+                              double oneTimeDiscount) {
+
+    private static final DiscountContext ANONYMOUS = new DiscountContext(null, List.of(), 0, 0.0, 0.0);
+
+    public static DiscountContext anonymous() {
+        return ANONYMOUS;
+    }
+
+    public boolean isAnonymous() {
+        return userId == null;
+    }
+}
@@ -0,0 +1,12 @@
+package bg.softuni.stylemint.product.common.enums;
+
+/**
+ * Why a user's bonus points balance changed
+ */
+public enum BonusPointsReason {
+    DESIGN_CREATED,
+    DESIGN_UPDATED,
+    DESIGN_PUBLISHED,
+    DESIGN_DELETED,
+    RECONCILIATION
+}
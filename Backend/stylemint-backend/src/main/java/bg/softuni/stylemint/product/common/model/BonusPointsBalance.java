@@ -0,0 +1,29 @@
+package bg.softuni.stylemint.product.common.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Current bonus points of a user, one row per user.
+ *
+ * Kept equal to the sum of the user's {@link BonusPointsEntry} ledger rows; only changed
+ * through atomic increments so concurrent earn/spend operations never lose an update.
+ */
+@Entity
+@Table(name = "user_bonus_points")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonusPointsBalance {
+
+    @Id
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private int balance;
+}
@@ -0,0 +1,48 @@
+package bg.softuni.stylemint.product.common.model;
+
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One bonus points movement: points earned (positive delta) or taken back (negative delta)
+ */
+@Entity
+@Table(name = "bonus_points_ledger",
+        indexes = {
+                @Index(name = "idx_bonus_points_ledger_user", columnList = "user_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonusPointsEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private BonusPointsReason reason;
+
+    /**
+     * The design the points came from, if any
+     */
+    @Column(name = "reference_id")
+    private UUID referenceId;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+}
@@ -18,6 +18,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "user_discounts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_discount_user_type", columnNames = {"user_id", "reward_type"}),
         indexes = {
                 @Index(name = "idx_user_discount_user", columnList = "user_id"),
                 @Index(name = "idx_user_discount_type", columnList = "reward_type")
@@ -49,6 +50,16 @@ public class UserDiscount {
      * @return 0.20 for DISCOUNT_20, 0.40 for DISCOUNT_40
      */
     public double getDiscountPercentage() {
+        return discountPercentageOf(rewardType);
+    }
+
+    /**
+     * @return the discount of a one-time reward type, 0.0 for none
+     */
+    public static double discountPercentageOf(RewardType rewardType) {
+        if (rewardType == null) {
+            return 0.0;
+        }
         return switch (rewardType) {
             case DISCOUNT_20 -> 0.20;
             case DISCOUNT_40 -> 0.40;
@@ -0,0 +1,60 @@
+package bg.softuni.stylemint.product.common.repository;
+
+import bg.softuni.stylemint.product.common.model.BonusPointsBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BonusPointsBalanceRepository extends JpaRepository<BonusPointsBalance, UUID> {
+
+    @Query("SELECT b.balance FROM BonusPointsBalance b WHERE b.userId = :userId")
+    Optional<Integer> findBalanceByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Atomic increment (negative delta to take points back); 0 when the user has no balance row yet
+     */
+    @Modifying
+    @Query("UPDATE BonusPointsBalance b SET b.balance = b.balance + :delta WHERE b.userId = :userId")
+    int addPoints(@Param("userId") UUID userId, @Param("delta") int delta);
+
+    /**
+     * Opens an empty balance; fails with a duplicate key if another transaction opened it first
+     */
+    @Modifying
+    @Query("INSERT INTO BonusPointsBalance (userId, balance) VALUES (:userId, 0)")
+    int openBalance(@Param("userId") UUID userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BonusPointsBalance b WHERE b.userId = :userId")
+    Optional<BonusPointsBalance> findByUserIdForUpdate(@Param("userId") UUID userId);
+
+    /**
+     * Users whose stored balance differs from the bonus points of their designs (reconciliation input)
+     */
+    @Query("""
+    SELECT b.userId
+    FROM BonusPointsBalance b
+    WHERE b.balance <> COALESCE((SELECT SUM(d.bonusPoints) FROM ClothDesign d WHERE d.userId = b.userId), 0)
+    """)
+    List<UUID> findDriftedUserIds();
+
+    /**
+     * Users with designs but no balance row yet (reconciliation input)
+     */
+    @Query("""
+    SELECT DISTINCT d.userId
+    FROM ClothDesign d
+    WHERE d.userId IS NOT NULL
+      AND NOT EXISTS (SELECT 1 FROM BonusPointsBalance b WHERE b.userId = d.userId)
+    """)
+    List<UUID> findUserIdsWithoutBalance();
+}
@@ -0,0 +1,16 @@
+package bg.softuni.stylemint.product.common.repository;
+
+import bg.softuni.stylemint.product.common.model.BonusPointsEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface BonusPointsEntryRepository extends JpaRepository<BonusPointsEntry, UUID> {
+
+    @Query("SELECT COALESCE(SUM(e.delta), 0) FROM BonusPointsEntry e WHERE e.userId = :userId")
+    long sumDeltaByUserId(@Param("userId") UUID userId);
+}
@@ -4,7 +4,9 @@ package bg.softuni.stylemint.product.common.repository;
 import bg.softuni.stylemint.game.enums.RewardType;
 import bg.softuni.stylemint.product.common.model.UserDiscount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -40,9 +42,20 @@ public interface UserDiscountRepository extends JpaRepository<UserDiscount, UUID
     void deleteByUserId(UUID userId);
 
     /**
-     * Delete specific discount type for user
+     * Delete specific discount type for user.
+     * A single conditional statement: of concurrent calls for the same discount only one sees a row deleted.
+     *
+     * @return 1 if this call redeemed the discount, 0 if the user no longer had it
      */
-    void deleteByUserIdAndRewardType(UUID userId, RewardType rewardType);
+    @Modifying
+    @Query("DELETE FROM UserDiscount d WHERE d.userId = :userId AND d.rewardType = :rewardType")
+    int deleteByUserIdAndRewardType(@Param("userId") UUID userId, @Param("rewardType") RewardType rewardType);
+
+    /**
+     * Discount types the user holds, best first
+     */
+    @Query("SELECT d.rewardType FROM UserDiscount d WHERE d.userId = :userId ORDER BY d.rewardType DESC")
+    List<RewardType> findRewardTypesByUserId(@Param("userId") UUID userId);
 
     /**
      * Get best (highest) discount for user
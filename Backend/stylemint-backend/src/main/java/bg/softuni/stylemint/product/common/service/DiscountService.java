@@ -52,7 +52,8 @@ public interface DiscountService {
     /**
      * Use (consume) best available discount for user
      * Automatically deletes the discount after use
-     * Called from PriceCalculatorService during order creation
+     * Called BEFORE an order is priced: the order must be priced with exactly the returned
+     * discount, so concurrent orders can never share one
      *
      * @param userId User ID
      * @return Used discount type, or null if no discounts available
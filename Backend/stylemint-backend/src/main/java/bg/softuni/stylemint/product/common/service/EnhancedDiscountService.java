@@ -1,6 +1,7 @@
 package bg.softuni.stylemint.product.common.service;
 
 import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.common.dto.DiscountContext;
 import bg.softuni.stylemint.product.common.dto.DiscountInfo;
 import bg.softuni.stylemint.product.common.model.BaseProduct;
 
@@ -30,4 +31,11 @@ public interface EnhancedDiscountService extends DiscountService {
     // Info
     DiscountInfo getDiscountInfo(UUID userId, BaseProduct product);
 
+    // Per-request context: resolve the user's discounts once, then price any number of products with it
+    DiscountContext resolveContext(UUID userId);
+    // Same, with the one-time discount an order already claimed instead of the user's best
+    DiscountContext resolveContext(UUID userId, double oneTimeDiscount);
+    double calculateFinalPrice(BaseProduct product, DiscountContext context);
+    DiscountInfo getDiscountInfo(DiscountContext context, BaseProduct product);
+
 }
\ No newline at end of file
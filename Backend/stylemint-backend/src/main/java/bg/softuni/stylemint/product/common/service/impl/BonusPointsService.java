@@ -1,24 +1,134 @@
 package bg.softuni.stylemint.product.common.service.impl;
 
-import bg.softuni.stylemint.product.fashion.model.ClothDesign;
-
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.model.BonusPointsBalance;
+import bg.softuni.stylemint.product.common.model.BonusPointsEntry;
+import bg.softuni.stylemint.product.common.repository.BonusPointsBalanceRepository;
+import bg.softuni.stylemint.product.common.repository.BonusPointsEntryRepository;
 import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Bonus points ledger and per-user balance.
+ *
+ * Every change is written as a ledger entry plus an atomic increment of the balance row in the
+ * caller's transaction, so reads are a single primary-key lookup. A nightly reconciliation
+ * recomputes balances from the designs that earn the points and books any drift to the ledger.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class BonusPointsService {
+
+    private final BonusPointsBalanceRepository balanceRepository;
+    private final BonusPointsEntryRepository entryRepository;
     private final ClothDesignRepository clothDesignRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public BonusPointsService(BonusPointsBalanceRepository balanceRepository,
+                              BonusPointsEntryRepository entryRepository,
+                              ClothDesignRepository clothDesignRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.balanceRepository = balanceRepository;
+        this.entryRepository = entryRepository;
+        this.clothDesignRepository = clothDesignRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     public int getUserBonusPoints(UUID userId) {
-        return clothDesignRepository.findByUserId(userId)
-                    .stream()
-                    .mapToInt(ClothDesign::getBonusPoints)
-                    .sum();
+        return balanceRepository.findBalanceByUserId(userId).orElse(0);
     }
-}
 
+    /**
+     * Books a change of the user's points: a positive delta earns, a negative one takes points back
+     */
+    @Transactional
+    public void adjust(UUID userId, int delta, BonusPointsReason reason, UUID referenceId) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+
+        entryRepository.save(BonusPointsEntry.builder()
+                .userId(userId)
+                .delta(delta)
+                .reason(reason)
+                .referenceId(referenceId)
+                .build());
+
+        // Checked with a plain read: a missed UPDATE could leave a gap lock the opening insert would wait on
+        if (!balanceRepository.existsById(userId)) {
+            openBalance(userId);
+        }
+        balanceRepository.addPoints(userId, delta);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${fashion.bonus-points.reconcile-cron:0 15 4 * * *}")
+    public void scheduledReconciliation() {
+        reconcileBalances();
+    }
 
+    /**
+     * Recomputes balances from the designs' bonus points and books the difference for every user
+     * whose balance drifted or was never opened
+     *
+     * @return how many balances were corrected
+     */
+    public int reconcileBalances() {
+        Set<UUID> candidates = transactionTemplate.execute(status -> {
+            Set<UUID> userIds = new LinkedHashSet<>(balanceRepository.findDriftedUserIds());
+            userIds.addAll(balanceRepository.findUserIdsWithoutBalance());
+            return userIds;
+        });
+
+        // Drift is rechecked under the balance's row lock, so concurrent adjustments are never double-counted
+        int corrected = 0;
+        for (UUID userId : candidates) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcile(userId)))) {
+                corrected++;
+            }
+        }
+
+        if (corrected > 0) {
+            log.warn("⚠️ Corrected bonus points balances of {} user(s)", corrected);
+        }
+        return corrected;
+    }
+
+    // ================ Helpers ================
+
+    private boolean reconcile(UUID userId) {
+        int balance = balanceRepository.findByUserIdForUpdate(userId)
+                .map(BonusPointsBalance::getBalance)
+                .orElse(0);
+        int drift = Math.toIntExact(clothDesignRepository.sumBonusPointsByUserId(userId) - balance);
+        if (drift == 0) {
+            return false;
+        }
+        adjust(userId, drift, BonusPointsReason.RECONCILIATION, null);
+        return true;
+    }
+
+    private void openBalance(UUID userId) {
+        try {
+            newTransaction.executeWithoutResult(status -> balanceRepository.openBalance(userId));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Bonus points balance of user {} was opened concurrently", userId);
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package bg.softuni.stylemint.product.common.service.impl;
 
 
+import bg.softuni.stylemint.common.util.TransactionCallbacks;
 import bg.softuni.stylemint.game.enums.RewardType;
 
 
 import bg.softuni.stylemint.product.common.model.UserDiscount;
 import bg.softuni.stylemint.product.common.repository.UserDiscountRepository;
 import bg.softuni.stylemint.product.common.service.DiscountService;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,13 +16,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service implementation for managing one-time discount rewards
  *
  * Handles DISCOUNT_20 and DISCOUNT_40 rewards from games
  * NFT discounts are handled separately by NftServiceFacade
+ *
+ * A user's discounts are cached, so pricing does not query them on every request; the entry is
+ * evicted when a discount is saved or used. Using a discount is one conditional DELETE, which
+ * concurrent checkouts cannot both win, and happens before the order is priced with it.
  */
 @Slf4j
 @Service
@@ -29,6 +34,10 @@ import java.util.stream.Collectors;
 public class OneTimeDiscountService implements DiscountService {
 
     private final UserDiscountRepository discountRepository;
+    private final Cache<UUID, List<RewardType>> userOneTimeDiscountsCache;
+
+    // Each retry follows a concurrent checkout taking the discount tried; there are only two types
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
 
     @Override
     @Transactional
@@ -50,43 +59,56 @@ public class OneTimeDiscountService implements DiscountService {
                 .build();
 
         discountRepository.save(discount);
+        evictAfterCommit(userId);
 
         log.info("✅ Saved {} discount for user {}", rewardType, userId);
     }
 
     @Override
     public List<RewardType> getAvailableDiscounts(UUID userId) {
-        return discountRepository.findByUserId(userId)
-                .stream()
-                .map(UserDiscount::getRewardType)
-                .collect(Collectors.toList());
+        return userOneTimeDiscountsCache.get(userId, id -> List.copyOf(discountRepository.findRewardTypesByUserId(id)));
     }
 
     @Override
     public double getBestDiscountPercentage(UUID userId) {
-        return discountRepository.findBestDiscountByUserId(userId)
-                .map(UserDiscount::getDiscountPercentage)
-                .orElse(0.0);
+        List<RewardType> discounts = getAvailableDiscounts(userId);
+        return discounts.isEmpty() ? 0.0 : UserDiscount.discountPercentageOf(discounts.get(0));
     }
 
     @Override
     @Transactional
     public RewardType useBestDiscount(UUID userId) {
-        return discountRepository.findBestDiscountByUserId(userId)
-                .map(discount -> {
-                    RewardType rewardType = discount.getRewardType();
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            List<RewardType> discounts = getAvailableDiscounts(userId);
+            if (discounts.isEmpty()) {
+                return null;
+            }
+
+            RewardType best = discounts.get(0);
+            evictAfterCommit(userId);
+            if (discountRepository.deleteByUserIdAndRewardType(userId, best) == 1) {
+                log.info("✅ Used and deleted {} discount for user {}", best, userId);
+                return best;
+            }
+
+            // Another checkout took it first; look again at what the user still has
+            log.debug("{} discount of user {} was already used", best, userId);
+        }
 
-                    // Delete the discount after use
-                    discountRepository.delete(discount);
+        log.warn("⚠️ Could not claim a one-time discount for user {} after {} attempts", userId, MAX_CLAIM_ATTEMPTS);
+        return null;
+    }
 
-                    log.info("✅ Used and deleted {} discount for user {}", rewardType, userId);
 
-                    return rewardType;
-                })
-                .orElse(null);
+    /**
+     * Evicts the user's cached discounts now and again when the transaction ends, so a concurrent reload
+     * cannot cache the state from before this transaction
+     */
+    private void evictAfterCommit(UUID userId) {
+        userOneTimeDiscountsCache.invalidate(userId);
+        TransactionCallbacks.afterCompletion(() -> userOneTimeDiscountsCache.invalidate(userId));
     }
 
-
     /**
      * Check if reward type is a valid discount (DISCOUNT_20 or DISCOUNT_40)
      */
@@ -0,0 +1,71 @@
+package bg.softuni.stylemint.product.common.service.impl;
+
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed discount tiers.
+ *
+ * The viewer-independent inputs (bonus point tiers from {@link FashionPriceProperties}, NFT
+ * discount rates) are parsed once at startup instead of on every discount lookup.
+ */
+@Slf4j
+@Component
+public class PriceTable {
+
+    private static final Map<RewardType, Double> NFT_DISCOUNTS = Map.of(
+            RewardType.NFT_DISCOUNT_5, 0.05,
+            RewardType.NFT_DISCOUNT_7, 0.07
+    );
+
+    private final int[] bonusThresholds;
+    private final double[] bonusDiscounts;
+    private final Map<RewardType, Double> nftDiscountRates = new EnumMap<>(NFT_DISCOUNTS);
+
+    public PriceTable(FashionPriceProperties fashionPriceProperties) {
+        Map<String, Double> bonus = fashionPriceProperties.getBonus() != null ? fashionPriceProperties.getBonus() : Map.of();
+        List<Map.Entry<Integer, Double>> tiers = bonus.entrySet().stream()
+                .map(e -> Map.entry(Integer.parseInt(e.getKey()), e.getValue()))
+                .sorted(Map.Entry.<Integer, Double>comparingByKey(Comparator.reverseOrder()))
+                .toList();
+        // Highest tier first, so the first threshold reached wins
+        this.bonusThresholds = tiers.stream().mapToInt(Map.Entry::getKey).toArray();
+        this.bonusDiscounts = tiers.stream().mapToDouble(Map.Entry::getValue).toArray();
+
+        log.info("💰 Price table built: {} bonus tiers", bonusThresholds.length);
+    }
+
+    /**
+     * Discount the user's fashion bonus points give, same tiers as {@link FashionPriceProperties#getBonusDiscount}
+     */
+    public double bonusDiscount(int totalPoints) {
+        for (int i = 0; i < bonusThresholds.length; i++) {
+            if (totalPoints >= bonusThresholds[i]) {
+                return bonusDiscounts[i];
+            }
+        }
+        return 0.0;
+    }
+
+    public RewardType highestNftDiscount(List<RewardType> nftDiscounts) {
+        if (nftDiscounts.contains(RewardType.NFT_DISCOUNT_7)) {
+            return RewardType.NFT_DISCOUNT_7;
+        }
+        if (nftDiscounts.contains(RewardType.NFT_DISCOUNT_5)) {
+            return RewardType.NFT_DISCOUNT_5;
+        }
+
+        return null;
+    }
+
+    public double nftDiscount(RewardType highestNft) {
+        return highestNft == null ? 0.0 : nftDiscountRates.getOrDefault(highestNft, 0.0);
+    }
+}
@@ -1,5 +1,6 @@
 package bg.softuni.stylemint.product.common.service.impl;
 
+import bg.softuni.dtos.enums.payment.ProductType;
 import bg.softuni.dtos.order.OrderItemRequestDTO;
 import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
@@ -10,7 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -22,13 +23,28 @@ public class ProductFetchService {
     private final AudioSampleRepository audioSampleRepository;
     private final SamplePackRepository samplePackRepository;
 
-    public BaseProduct fetchProduct(OrderItemRequestDTO item) {
-        return switch (item.getProductType()) {
-            case CLOTHES -> clothDesignRepository.findById(item.getProductId()).orElse(null);
-            case SAMPLE -> audioSampleRepository.findById(item.getProductId()).orElse(null);
-            case PACK -> samplePackRepository.findById(item.getProductId()).orElse(null);
-            default -> null;
-        };
+    /**
+     * Products of all the given cart lines, loaded with one IN query per product type
+     * (at most three queries whatever the cart size). Products that do not exist have no entry.
+     */
+    public Map<ProductKey, BaseProduct> fetchProducts(Collection<OrderItemRequestDTO> items) {
+        Map<ProductType, Set<UUID>> idsByType = new EnumMap<>(ProductType.class);
+        for (OrderItemRequestDTO item : items) {
+            if (item.getProductType() != null && item.getProductId() != null) {
+                idsByType.computeIfAbsent(item.getProductType(), type -> new HashSet<>()).add(item.getProductId());
+            }
+        }
+
+        Map<ProductKey, BaseProduct> products = new HashMap<>();
+        idsByType.forEach((type, ids) -> {
+            List<? extends BaseProduct> loaded = switch (type) {
+                case CLOTHES -> clothDesignRepository.findAllById(ids);
+                case SAMPLE -> audioSampleRepository.findAllById(ids);
+                case PACK -> samplePackRepository.findAllById(ids);
+            };
+            loaded.forEach(product -> products.put(new ProductKey(type, product.getId()), product));
+        });
+        return products;
     }
 
     public BaseProduct fetchProductByTypeAndId(String productType, UUID productId) {
@@ -39,4 +55,14 @@ public class ProductFetchService {
             default -> null;
         };
     }
+
+    /**
+     * A cart line's product: IDs are only unique within a product type
+     */
+    public record ProductKey(ProductType type, UUID id) {
+
+        public static ProductKey of(OrderItemRequestDTO item) {
+            return new ProductKey(item.getProductType(), item.getProductId());
+        }
+    }
 }
@@ -4,11 +4,12 @@ import bg.softuni.dtos.enums.nft.NftType;
 import bg.softuni.dtos.nft.UserNftsResponse;
 import bg.softuni.stylemint.external.facade.nft.NftServiceFacade;
 import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.common.dto.DiscountContext;
 import bg.softuni.stylemint.product.common.dto.DiscountInfo;
 import bg.softuni.stylemint.product.common.model.BaseProduct;
 import bg.softuni.stylemint.product.common.service.EnhancedDiscountService;
-import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
 import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
@@ -25,8 +26,10 @@ public class UniversalDiscountService implements EnhancedDiscountService {
 
     private final OneTimeDiscountService oneTimeDiscountService;
     private final NftServiceFacade nftServiceFacade;
+    // Shared with CachedNftProxyService, which invalidates it on mint and transfer
+    private final Cache<UUID, UserNftsResponse> userNftsCache;
     private final BonusPointsService bonusPointsService;
-    private final FashionPriceProperties fashionPriceProperties;
+    private final PriceTable priceTable;
 
     // NFT mapping
     private static final Map<NftType, RewardType> NFT_TO_REWARD_MAP = Map.of(
@@ -42,18 +45,72 @@ public class UniversalDiscountService implements EnhancedDiscountService {
             return product != null ? product.getPrice() : 0.0;
         }
 
+        return calculateFinalPrice(product, resolveContext(userId));
+    }
+
+
+    @Override
+    public DiscountInfo getDiscountInfo(UUID userId, BaseProduct product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+
+        return getDiscountInfo(resolveContext(userId), product);
+    }
+
+    // ==================== PER-REQUEST DISCOUNT CONTEXT ====================
+
+    /**
+     * One NFT lookup (through the shared NFT cache), one bonus points read and one
+     * one-time discount read for the whole pricing request
+     */
+    @Override
+    public DiscountContext resolveContext(UUID userId) {
+        if (userId == null) {
+            return DiscountContext.anonymous();
+        }
+
+        return resolveContext(userId, oneTimeDiscountService.getBestDiscountPercentage(userId));
+    }
+
+    @Override
+    public DiscountContext resolveContext(UUID userId, double oneTimeDiscount) {
+        if (userId == null) {
+            return DiscountContext.anonymous();
+        }
+
+        int bonusPoints = bonusPointsService.getUserBonusPoints(userId);
+
+        return new DiscountContext(
+                userId,
+                getAvailableNftDiscounts(userId),
+                bonusPoints,
+                priceTable.bonusDiscount(bonusPoints),
+                oneTimeDiscount
+        );
+    }
+
+    @Override
+    public double calculateFinalPrice(BaseProduct product, DiscountContext context) {
+        if (product == null) {
+            return 0.0;
+        }
+        if (context.isAnonymous()) {
+            return product.getPrice();
+        }
+
         double basePrice = product.getPrice();
 
         // 1. Product-specific discount (bonus points for fashion, etc.)
-        double productDiscount = getProductSpecificDiscount(userId, product);
+        double productDiscount = getProductSpecificDiscount(context, product);
         double priceAfterProduct = basePrice * (1 - productDiscount);
 
         // 2. NFT discount
-        double nftDiscount = getNftDiscountPercentage(userId);
+        double nftDiscount = priceTable.nftDiscount(priceTable.highestNftDiscount(context.nftDiscounts()));
         double priceAfterNft = priceAfterProduct * (1 - nftDiscount);
 
         // 3. One-time discount
-        double oneTimeDiscount = getBestDiscountPercentage(userId);
+        double oneTimeDiscount = context.oneTimeDiscount();
         double finalPrice = priceAfterNft * (1 - oneTimeDiscount);
 
         log.debug("Price calculation: Base={}, ProductDisc={}%, NftDisc={}%, OneTimeDisc={}%, Final={}",
@@ -62,17 +119,16 @@ public class UniversalDiscountService implements EnhancedDiscountService {
         return finalPrice;
     }
 
-
     @Override
-    public DiscountInfo getDiscountInfo(UUID userId, BaseProduct product) {
+    public DiscountInfo getDiscountInfo(DiscountContext context, BaseProduct product) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
 
         double basePrice = product.getPrice();
-        double productDiscount = getProductSpecificDiscount(userId, product);
-        double nftDiscount = getNftDiscountPercentage(userId);
-        double oneTimeDiscount = getBestDiscountPercentage(userId);
+        double productDiscount = getProductSpecificDiscount(context, product);
+        double nftDiscount = priceTable.nftDiscount(priceTable.highestNftDiscount(context.nftDiscounts()));
+        double oneTimeDiscount = context.oneTimeDiscount();
 
         return buildDiscountInfo(basePrice, productDiscount, nftDiscount, oneTimeDiscount);
     }
@@ -88,7 +144,7 @@ public class UniversalDiscountService implements EnhancedDiscountService {
         if (product instanceof ClothDesign) {
             // Fashion bonus points discount
             int totalPoints = bonusPointsService.getUserBonusPoints(userId);
-            return fashionPriceProperties.getBonusDiscount(totalPoints);
+            return priceTable.bonusDiscount(totalPoints);
         }
 
         // Other product types have no product-specific discounts
@@ -99,24 +155,14 @@ public class UniversalDiscountService implements EnhancedDiscountService {
 
     @Override
     public double getNftDiscountPercentage(UUID userId) {
-        RewardType highestNft = getHighestNftDiscountType(userId);
-
-        if (highestNft == null) {
-            return 0.0;
-        }
-
-        return switch (highestNft) {
-            case NFT_DISCOUNT_7 -> 0.07;
-            case NFT_DISCOUNT_5 -> 0.05;
-            default -> 0.0;
-        };
+        return priceTable.nftDiscount(getHighestNftDiscountType(userId));
     }
 
 
     @Override
     public List<RewardType> getAvailableNftDiscounts(UUID userId) {
         try {
-            UserNftsResponse nfts = nftServiceFacade.getUserNfts(userId);
+            UserNftsResponse nfts = userNftsCache.get(userId, nftServiceFacade::getUserNfts);
 
             if (nfts == null || nfts.getNfts() == null) {
                 return Collections.emptyList();
@@ -142,16 +188,7 @@ public class UniversalDiscountService implements EnhancedDiscountService {
 
     @Override
     public RewardType getHighestNftDiscountType(UUID userId) {
-        List<RewardType> nftDiscounts = getAvailableNftDiscounts(userId);
-
-        if (nftDiscounts.contains(RewardType.NFT_DISCOUNT_7)) {
-            return RewardType.NFT_DISCOUNT_7;
-        }
-        if (nftDiscounts.contains(RewardType.NFT_DISCOUNT_5)) {
-            return RewardType.NFT_DISCOUNT_5;
-        }
-
-        return null;
+        return priceTable.highestNftDiscount(getAvailableNftDiscounts(userId));
     }
 
     // ==================== ONE-TIME DISCOUNTS (DELEGATED) ====================
@@ -202,6 +239,15 @@ public class UniversalDiscountService implements EnhancedDiscountService {
                 .build();
     }
 
+    private double getProductSpecificDiscount(DiscountContext context, BaseProduct product) {
+        if (context.isAnonymous()) {
+            return 0.0;
+        }
+
+        // Fashion bonus points discount; other product types have no product-specific discounts
+        return product instanceof ClothDesign ? context.fashionBonusDiscount() : 0.0;
+    }
+
     private boolean isNftDiscount(RewardType rewardType) {
         return rewardType == RewardType.NFT_DISCOUNT_5 ||
                 rewardType == RewardType.NFT_DISCOUNT_7;
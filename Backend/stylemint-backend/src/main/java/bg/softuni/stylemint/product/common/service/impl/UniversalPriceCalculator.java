@@ -5,11 +5,13 @@ import bg.softuni.stylemint.auth.security.SecurityUtil;
 import bg.softuni.stylemint.common.exception.NotFoundException;
 import bg.softuni.stylemint.game.enums.RewardType;
 import bg.softuni.stylemint.product.common.dto.CartDiscountBreakdownDTO;
+import bg.softuni.stylemint.product.common.dto.DiscountContext;
 import bg.softuni.stylemint.product.common.dto.DiscountInfo;
 import bg.softuni.stylemint.product.common.dto.ItemDiscountBreakdownDTO;
 import bg.softuni.stylemint.product.common.model.BaseProduct;
 import bg.softuni.stylemint.product.common.service.EnhancedDiscountService;
 import bg.softuni.stylemint.product.common.service.PriceCalculatorService;
+import bg.softuni.stylemint.product.common.service.impl.ProductFetchService.ProductKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -51,12 +54,15 @@ public class UniversalPriceCalculator implements PriceCalculatorService<BaseProd
         log.info("Calculating cart discount breakdown for {} items for user {}",
                 cartItems.size(), userId);
 
+        DiscountContext discountContext = discountService.resolveContext(userId);
         List<ItemDiscountBreakdownDTO> itemBreakdowns = new ArrayList<>();
         double cartBasePrice = 0.0;
         double cartFinalPrice = 0.0;
 
+        Map<ProductKey, BaseProduct> products = productFetchService.fetchProducts(cartItems);
+
         for (OrderItemRequestDTO item : cartItems) {
-            BaseProduct product = productFetchService.fetchProduct(item);
+            BaseProduct product = products.get(ProductKey.of(item));
 
             if (product == null) {
                 throw new NotFoundException(
@@ -64,7 +70,7 @@ public class UniversalPriceCalculator implements PriceCalculatorService<BaseProd
                 );
             }
 
-            DiscountInfo discountInfo = discountService.getDiscountInfo(userId, product);
+            DiscountInfo discountInfo = discountService.getDiscountInfo(discountContext, product);
             ItemDiscountBreakdownDTO itemBreakdown = buildItemBreakdown(item, discountInfo);
             itemBreakdowns.add(itemBreakdown);
 
@@ -192,21 +198,19 @@ public class UniversalPriceCalculator implements PriceCalculatorService<BaseProd
     }
 
     /**
-     * Calculate total price for list of products
+     * Calculate total price for list of products, resolving the user's discounts once
      */
     public double calculateTotalPrice(List<BaseProduct> products) {
         if (products == null || products.isEmpty()) {
             return 0.0;
         }
 
-        UUID userId = getCurrentUserId();
+        DiscountContext discountContext = discountService.resolveContext(getCurrentUserId());
         double total = 0.0;
 
         for (BaseProduct product : products) {
             validateProduct(product);
-            total += userId != null ?
-                    discountService.calculateFinalPrice(product, userId) :
-                    product.getPrice();
+            total += discountService.calculateFinalPrice(product, discountContext);
         }
 
         return total;
@@ -0,0 +1,32 @@
+package bg.softuni.stylemint.product.fashion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool deleting the decal files of cleaned-up designs from storage,
+ * so the cleanup job never waits on Cloudinary between database chunks.
+ */
+@Configuration
+public class DesignCleanupConfig {
+
+    @Value("${fashion.autosave-cleanup.asset-threads:2}")
+    private int assetThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService designAssetCleanupExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "design-asset-cleanup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(assetThreads, threadFactory);
+    }
+}
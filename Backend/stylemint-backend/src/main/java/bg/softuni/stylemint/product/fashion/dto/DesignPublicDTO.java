@@ -3,7 +3,7 @@ package bg.softuni.stylemint.product.fashion.dto;
 
 import bg.softuni.stylemint.product.fashion.enums.ClothType;
 import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,8 +30,10 @@ public class DesignPublicDTO {
     private OffsetDateTime createdAt;
     private Boolean isLikedByUser;
 
-    // Full customization data (JSON object)
-    private JsonNode customizationData;
+    // Full customization data (JSON object), written out verbatim from the stored column;
+    // must be one well-formed document or null
+    @JsonRawValue
+    private String customizationData;
 
     // Custom decal URL if exists
     private String customDecalUrl;
@@ -10,7 +10,13 @@ import lombok.experimental.SuperBuilder;
 import java.util.UUID;
 
 @Entity
-@Table(name = "cloth_designs")
+@Table(
+        name = "cloth_designs",
+        indexes = {
+                // Keyset walk of the nightly auto-saved cleanup
+                @Index(name = "idx_cloth_designs_auto_saved_id", columnList = "auto_saved, id")
+        }
+)
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,7 +50,14 @@ public class ClothDesign extends BaseProduct {
     @Column(name = "custom_decal_path")
     private String customDecalPath;
 
+    @Column(name = "auto_saved")
     private Boolean autoSaved;
 
+    // Kept in step with cloth_design_likes by ClothLikeService, so listings need no COUNT per design.
+    // Written only by the JPQL increments and reconciliation, never by an entity save
+    @Builder.Default
+    @Column(name = "likes_count", nullable = false, updatable = false)
+    private Long likesCount = 0L;
+
 
 }
@@ -13,6 +13,9 @@ import java.util.UUID;
         name = "cloth_design_likes",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"user_id", "cloth_design_id"})
+        },
+        indexes = {
+                @Index(name = "idx_cloth_design_likes_created_at", columnList = "created_at")
         }
 )
 @Getter
@@ -2,15 +2,19 @@ package bg.softuni.stylemint.product.fashion.repository;
 
 import bg.softuni.stylemint.product.fashion.model.ClothDesign;
 import bg.softuni.stylemint.product.fashion.model.ClothDesignLike;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClothDesignLikeRepository extends JpaRepository<ClothDesignLike, UUID> {
@@ -19,7 +23,7 @@ public interface ClothDesignLikeRepository extends JpaRepository<ClothDesignLike
 
     long countByClothDesignId(UUID designId);
 
-    void deleteByUserIdAndClothDesignId(UUID userId, UUID designId);
+    Optional<ClothDesignLike> findByUserIdAndClothDesignId(UUID userId, UUID designId);
 
     @Query("SELECT l.clothDesign.id as designId, COUNT(l) as count " +
             "FROM ClothDesignLike l " +
@@ -27,14 +31,20 @@ public interface ClothDesignLikeRepository extends JpaRepository<ClothDesignLike
             "GROUP BY l.clothDesign.id")
     List<LikeCountProjection> countByClothDesignIdIn(@Param("designIds") List<UUID> designIds);
 
+    @Query("SELECT l.clothDesign.id FROM ClothDesignLike l " +
+            "WHERE l.user.id = :userId AND l.clothDesign.id IN :designIds")
+    Set<UUID> findLikedDesignIds(@Param("userId") UUID userId, @Param("designIds") Collection<UUID> designIds);
+
     void deleteByClothDesignId(UUID designId);
 
+    @Modifying
+    @Query("DELETE FROM ClothDesignLike l WHERE l.clothDesign.id IN :designIds")
+    int deleteByClothDesignIds(@Param("designIds") Collection<UUID> designIds);
 
-    @Query("SELECT l.clothDesign.id as designId, COUNT(l) as count FROM ClothDesignLike l " +
-    "JOIN l.clothDesign cd " +
-    "WHERE cd.isPublic = true " +
-    "GROUP BY l.clothDesign.id " +
-    "ORDER BY COUNT(l) DESC")
-    List<LikeCountProjection> findTopLikedPublicDesigns(Pageable pageable);
+    /**
+     * (designId, createdAt) of every like since the given time, for the trending ranking rebuild
+     */
+    @Query("SELECT l.clothDesign.id, l.createdAt FROM ClothDesignLike l WHERE l.createdAt >= :since")
+    Stream<Object[]> streamLikesSince(@Param("since") OffsetDateTime since);
 
 }
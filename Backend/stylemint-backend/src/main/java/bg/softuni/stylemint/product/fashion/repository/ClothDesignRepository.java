@@ -5,11 +5,13 @@ import bg.softuni.stylemint.product.fashion.enums.ClothType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,7 +29,27 @@ public interface ClothDesignRepository extends JpaRepository<ClothDesign, UUID>
     """)
     List<ClothDesign> findUserNonAutosaveDesigns(@Param("userId") UUID userId);
 
-    List<ClothDesign> findByAutoSavedTrueAndCreatedAtBefore(OffsetDateTime before);
+    @Query("SELECT COALESCE(SUM(d.bonusPoints), 0) FROM ClothDesign d WHERE d.userId = :userId")
+    long sumBonusPointsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * (id, customDecalPath, userId, bonusPoints) of the next auto-saved designs created before the cutoff, keyset-paged by id
+     */
+    @Query("""
+    SELECT d.id, d.customDecalPath, d.userId, d.bonusPoints
+    FROM ClothDesign d
+    WHERE d.autoSaved = TRUE
+      AND d.createdAt < :before
+      AND d.id > :afterId
+    ORDER BY d.id
+    """)
+    List<Object[]> findAutoSavedChunk(@Param("before") OffsetDateTime before,
+                                      @Param("afterId") UUID afterId,
+                                      Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ClothDesign d WHERE d.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<UUID> ids);
 
     long countByUserId(UUID userId);
 
@@ -43,4 +65,35 @@ WHERE d.isPublic = true
     long countByUserIdAndIsPublic(UUID userId, boolean b);
 
     List<ClothDesign> findAllByIdInAndIsPublicTrue(List<UUID> designIds);
-}
\ No newline at end of file
+
+    /**
+     * (id, likesCount, isPublic) of every design with at least one like, for the ranking rebuild
+     */
+    @Query("SELECT d.id, d.likesCount, d.isPublic FROM ClothDesign d WHERE d.likesCount > 0")
+    List<Object[]> findLikedDesignRankingRows();
+
+    @Modifying
+    @Query("UPDATE ClothDesign d SET d.likesCount = d.likesCount + :delta WHERE d.id = :designId")
+    int addLikes(@Param("designId") UUID designId, @Param("delta") long delta);
+
+    /**
+     * Resets likes_count from the like rows wherever the two disagree; returns the number of corrected designs
+     */
+    @Modifying
+    @Query("""
+    UPDATE ClothDesign d
+    SET d.likesCount = (SELECT COUNT(l) FROM ClothDesignLike l WHERE l.clothDesign.id = d.id)
+    WHERE d.likesCount <> (SELECT COUNT(l) FROM ClothDesignLike l WHERE l.clothDesign.id = d.id)
+    """)
+    int reconcileLikesCounts();
+
+    /**
+     * (id, customizationJson) of the designs after {@code after} in id order, from the first one when null
+     */
+    @Query("SELECT d.id, d.customizationJson FROM ClothDesign d WHERE :after IS NULL OR d.id > :after ORDER BY d.id")
+    List<Object[]> findCustomizationJsonAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ClothDesign d SET d.customizationJson = :customizationJson WHERE d.id IN :ids")
+    int overwriteCustomizationJson(@Param("ids") Collection<UUID> ids, @Param("customizationJson") String customizationJson);
+}
@@ -43,4 +43,11 @@ public interface ClothDesignService {
 
     List<DesignPublicDTO> getTopLikedPublicDesigns(int limit);
 
+    List<DesignPublicDTO> getTrendingPublicDesigns(int limit);
+
+    /**
+     * Resets blank or malformed stored customization documents; returns the number of repaired designs
+     */
+    int repairStoredCustomizationJson();
+
 }
\ No newline at end of file
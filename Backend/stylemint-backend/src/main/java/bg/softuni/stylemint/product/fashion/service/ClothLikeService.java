@@ -1,9 +1,10 @@
 package bg.softuni.stylemint.product.fashion.service;
 
-import bg.softuni.stylemint.product.fashion.repository.LikeCountProjection;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public interface ClothLikeService {
@@ -16,7 +17,12 @@ public interface ClothLikeService {
 
     boolean isLikedByUser(UUID id);
 
+    /**
+     * Which of the given designs the current user has liked, in one query
+     */
+    Set<UUID> getLikedDesignIds(Collection<UUID> designIds);
+
     void deleteAllLikesForDesign(UUID id);
 
-    List<LikeCountProjection> getTopLikedDesignIds(int limit);
+    int reconcileLikesCounts();
 }
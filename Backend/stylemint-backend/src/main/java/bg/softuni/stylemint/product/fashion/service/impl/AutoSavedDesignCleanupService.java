@@ -1,57 +1,184 @@
 package bg.softuni.stylemint.product.fashion.service.impl;
 
-import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignLikeRepository;
 import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
 import bg.softuni.stylemint.external.claudinary.CloudinaryService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
+/**
+ * Nightly removal of abandoned auto-saved designs.
+ *
+ * Expired drafts are walked in keyset-paged chunks by id; each chunk is one short transaction
+ * that bulk-deletes the likes and then the designs by id, so no lock is held for the whole run,
+ * and takes the drafts' bonus points back from their owners.
+ * Decal files are deleted from Cloudinary in batches on a background pool after the chunk commits.
+ * A run stops at its time budget and the next run picks up the rest.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AutoSavedDesignCleanupService {
 
+    // Lowest UUID in the database's (unsigned, bytewise) ordering: the keyset start
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
     private final ClothDesignRepository designRepo;
+    private final ClothDesignLikeRepository likeRepo;
     private final CloudinaryService cloudinaryService;
+    private final DesignRankings designRankings;
+    private final BonusPointsService bonusPointsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService assetCleanupExecutor;
+    private final Duration retention;
+    private final int chunkSize;
+    private final Duration timeBudget;
+
+    public AutoSavedDesignCleanupService(ClothDesignRepository designRepo,
+                                         ClothDesignLikeRepository likeRepo,
+                                         CloudinaryService cloudinaryService,
+                                         DesignRankings designRankings,
+                                         BonusPointsService bonusPointsService,
+                                         TransactionTemplate transactionTemplate,
+                                         @Qualifier("designAssetCleanupExecutor") ExecutorService assetCleanupExecutor,
+                                         @Value("${fashion.autosave-cleanup.retention:P30D}") Duration retention,
+                                         @Value("${fashion.autosave-cleanup.chunk-size:1000}") int chunkSize,
+                                         @Value("${fashion.autosave-cleanup.time-budget:PT15M}") Duration timeBudget) {
+        this.designRepo = designRepo;
+        this.likeRepo = likeRepo;
+        this.cloudinaryService = cloudinaryService;
+        this.designRankings = designRankings;
+        this.bonusPointsService = bonusPointsService;
+        this.transactionTemplate = transactionTemplate;
+        this.assetCleanupExecutor = assetCleanupExecutor;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.timeBudget = timeBudget;
+    }
 
     /**
-     * Delete auto-saved designs older than 30 days.
+     * Delete auto-saved designs older than the retention (30 days by default).
      * Runs every night at 03:00.
      */
     @Scheduled(cron = "0 0 3 * * *")
     public void cleanupOldAutoSavedDesigns() {
+        cleanup(OffsetDateTime.now().minus(retention));
+    }
 
-        OffsetDateTime threshold = OffsetDateTime.now().minusDays(30);
+    /**
+     * Deletes auto-saved designs created before the threshold, chunk by chunk, until none are left
+     * or the time budget runs out
+     */
+    public CleanupRun cleanup(OffsetDateTime threshold) {
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
 
-        List<ClothDesign> oldAutoSavedDesigns =
-                designRepo.findByAutoSavedTrueAndCreatedAtBefore(threshold);
+        UUID afterId = FIRST_ID;
+        long designsDeleted = 0;
+        long likesDeleted = 0;
+        long decalsQueued = 0;
+        int chunks = 0;
+        boolean completed = false;
 
-        if (oldAutoSavedDesigns.isEmpty()) {
-            return;
+        while (System.nanoTime() < deadline) {
+            UUID chunkStart = afterId;
+            Chunk chunk;
+            try {
+                chunk = transactionTemplate.execute(status -> deleteChunk(threshold, chunkStart));
+            } catch (RuntimeException e) {
+                log.error("❌ Auto-saved design cleanup stopped after {} designs: {}", designsDeleted, e.getMessage(), e);
+                break;
+            }
+
+            if (chunk.designIds().isEmpty()) {
+                completed = true;
+                break;
+            }
+
+            chunks++;
+            designsDeleted += chunk.designsDeleted();
+            likesDeleted += chunk.likesDeleted();
+            if (!chunk.decalPaths().isEmpty()) {
+                decalsQueued += chunk.decalPaths().size();
+                assetCleanupExecutor.execute(() -> cloudinaryService.deleteFiles(chunk.decalPaths()));
+            }
+            afterId = chunk.designIds().get(chunk.designIds().size() - 1);
+
+            if (chunk.designIds().size() < chunkSize) {
+                completed = true;
+                break;
+            }
         }
 
-        log.info("🧹 Cleaning {} old auto-saved designs older than 30 days",
-                oldAutoSavedDesigns.size());
+        CleanupRun run = new CleanupRun(designsDeleted, likesDeleted, decalsQueued, chunks,
+                Duration.ofNanos(System.nanoTime() - start), completed);
+        if (designsDeleted > 0 || !completed) {
+            log.info("🧹 Auto-saved cleanup: {} designs and {} likes deleted in {} chunks, {} decals queued, {} ms ({} designs/s){}",
+                    run.designsDeleted(), run.likesDeleted(), run.chunks(), run.decalsQueued(),
+                    run.elapsed().toMillis(), Math.round(run.designsPerSecond()),
+                    completed ? "" : " ⏱️ time budget reached, the rest is left for the next run");
+        }
+        return run;
+    }
 
-        oldAutoSavedDesigns.forEach(design -> {
-            try {
-                // Remove custom decal (if exists)
-                if (design.getCustomDecalPath() != null) {
-                    cloudinaryService.deleteFile(design.getCustomDecalPath());
-                }
+    /**
+     * Outcome and throughput of one cleanup run
+     */
+    public record CleanupRun(long designsDeleted, long likesDeleted, long decalsQueued, int chunks,
+                             Duration elapsed, boolean completed) {
+
+        public double designsPerSecond() {
+            long nanos = Math.max(1, elapsed.toNanos());
+            return designsDeleted * 1_000_000_000.0 / nanos;
+        }
+    }
 
-                designRepo.delete(design);
-                log.info("🗑️ Deleted auto-saved design: {}", design.getId());
+    // ================ Helpers ================
 
-            } catch (Exception e) {
-                log.error("❌ Failed to delete auto-saved design {}: {}",
-                        design.getId(), e.getMessage());
+    private Chunk deleteChunk(OffsetDateTime threshold, UUID afterId) {
+        List<Object[]> rows = designRepo.findAutoSavedChunk(threshold, afterId, PageRequest.ofSize(chunkSize));
+        List<UUID> designIds = new ArrayList<>(rows.size());
+        List<String> decalPaths = new ArrayList<>();
+        Map<UUID, Integer> bonusPointsByOwner = new HashMap<>();
+        for (Object[] row : rows) {
+            designIds.add((UUID) row[0]);
+            String decalPath = (String) row[1];
+            if (decalPath != null && !decalPath.isBlank()) {
+                decalPaths.add(decalPath);
             }
-        });
+            if (row[2] != null && row[3] != null) {
+                bonusPointsByOwner.merge((UUID) row[2], (Integer) row[3], Integer::sum);
+            }
+        }
+        if (designIds.isEmpty()) {
+            return new Chunk(designIds, decalPaths, 0, 0);
+        }
+
+        int likesDeleted = likeRepo.deleteByClothDesignIds(designIds);
+        int designsDeleted = designRepo.deleteAllByIds(designIds);
+        if (likesDeleted > 0) {
+            designIds.forEach(designRankings::removed);
+        }
+        bonusPointsByOwner.forEach((userId, points) ->
+                bonusPointsService.adjust(userId, -points, BonusPointsReason.DESIGN_DELETED, null));
+        return new Chunk(designIds, decalPaths, designsDeleted, likesDeleted);
+    }
+
+    private record Chunk(List<UUID> designIds, List<String> decalPaths, int designsDeleted, int likesDeleted) {
     }
 }
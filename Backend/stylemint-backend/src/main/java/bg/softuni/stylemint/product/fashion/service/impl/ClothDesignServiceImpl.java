@@ -10,17 +10,22 @@ import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
 import bg.softuni.stylemint.product.fashion.exceptions.*;
 import bg.softuni.stylemint.product.fashion.model.ClothDesign;
 import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
-import bg.softuni.stylemint.product.fashion.repository.LikeCountProjection;
 import bg.softuni.stylemint.product.fashion.service.ClothDesignService;
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
 import bg.softuni.stylemint.product.common.service.EnhancedDiscountService;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
 import bg.softuni.stylemint.product.fashion.service.ClothLikeService;
 import bg.softuni.stylemint.user.enums.UserRole;
 import bg.softuni.stylemint.user.service.util.UserRolesService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -29,6 +34,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -37,6 +43,9 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ClothDesignServiceImpl implements ClothDesignService {
 
+    private static final int CUSTOMIZATION_REPAIR_PAGE_SIZE = 500;
+    private static final String EMPTY_CUSTOMIZATION_JSON = "{}";
+
     private final ClothDesignRepository clothDesignRepository;
     private final EnhancedDiscountService discountService;  // ← CHANGED from PriceCalculatorService
     private final ClothLikeService clothLikeService;
@@ -44,6 +53,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
     private final ObjectMapper objectMapper;
     private final UserRolesService userRolesService;
     private final FashionPriceProperties priceProperties;
+    private final DesignRankings designRankings;
+    private final BonusPointsService bonusPointsService;
 
     @Autowired
     public ClothDesignServiceImpl(ClothDesignRepository clothDesignRepository,
@@ -52,7 +63,9 @@ public class ClothDesignServiceImpl implements ClothDesignService {
                                   CloudinaryService cloudinaryService,
                                   ObjectMapper objectMapper,
                                   UserRolesService userRolesService,
-                                  FashionPriceProperties priceProperties) {
+                                  FashionPriceProperties priceProperties,
+                                  DesignRankings designRankings,
+                                  BonusPointsService bonusPointsService) {
         this.clothDesignRepository = clothDesignRepository;
         this.discountService = discountService;  // ← CHANGED
         this.clothLikeService = clothLikeService;
@@ -60,6 +73,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
         this.objectMapper = objectMapper;
         this.userRolesService = userRolesService;
         this.priceProperties = priceProperties;
+        this.designRankings = designRankings;
+        this.bonusPointsService = bonusPointsService;
     }
 
     @Override
@@ -74,6 +89,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
         UUID currentUserId = SecurityUtil.getCurrentUserId();
 
         try {
+            validateCustomizationJson(request.getCustomizationJson());
+
             ClothDesign design = ClothDesign.builder()
                     .userId(currentUserId)
                     .label(request.getLabel())
@@ -96,6 +113,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
             design.setPrice(price);
             design.setAutoSaved(autosave);
             ClothDesign savedDesign = clothDesignRepository.save(design);
+            bonusPointsService.adjust(currentUserId, bonusPointsOf(savedDesign),
+                    BonusPointsReason.DESIGN_CREATED, savedDesign.getId());
 
             userRolesService.addRoleToUser(currentUserId, UserRole.DESIGNER);
 
@@ -122,6 +141,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
 
         try {
             boolean needsPriceRecalculation = false;
+            int previousBonusPoints = bonusPointsOf(design);
 
             if (request.getLabel() != null) {
                 design.setLabel(request.getLabel());
@@ -134,6 +154,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
                 design.setCustomizationType(request.getCustomizationType());
             }
             if (request.getCustomizationJson() != null) {
+                validateCustomizationJson(request.getCustomizationJson());
                 design.setCustomizationJson(request.getCustomizationJson());
             }
             if (request.getIsPublic() != null) {
@@ -157,6 +178,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
             }
 
             ClothDesign updatedDesign = clothDesignRepository.save(design);
+            bonusPointsService.adjust(currentUserId, bonusPointsOf(updatedDesign) - previousBonusPoints,
+                    BonusPointsReason.DESIGN_UPDATED, designId);
             return toPublicDTO(updatedDesign);
 
         } catch (Exception e) {
@@ -202,6 +225,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
             }
 
             clothDesignRepository.delete(design);
+            designRankings.removed(design.getId());
+            bonusPointsService.adjust(userId, -bonusPointsOf(design), BonusPointsReason.DESIGN_DELETED, designId);
 
             long remainingDesigns = clothDesignRepository.countByUserId(userId);
 
@@ -235,8 +260,13 @@ public class ClothDesignServiceImpl implements ClothDesignService {
 
     @Override
     public Page<DesignPublicDTO> getPublicDesigns(Pageable pageable) {
-        return clothDesignRepository.findByIsPublicTrue( pageable)
-                .map(this::toPublicDTO);
+        Page<ClothDesign> page = clothDesignRepository.findByIsPublicTrue(pageable);
+
+        // One IN query for the whole page; like counts come from the denormalised column
+        Set<UUID> likedByUser = clothLikeService.getLikedDesignIds(
+                page.getContent().stream().map(ClothDesign::getId).toList());
+
+        return page.map(design -> buildPublicDTO(design, likesOf(design), likedByUser.contains(design.getId())));
     }
 
     @Override
@@ -263,19 +293,14 @@ public class ClothDesignServiceImpl implements ClothDesignService {
     }
 
     public DesignPublicDTO toPublicDTO(ClothDesign design, long likesCount) {
+        return buildPublicDTO(design, likesCount, clothLikeService.isLikedByUser(design.getId()));
+    }
 
-        boolean likedByUser = clothLikeService.isLikedByUser(design.getId());
+    public DesignPublicDTO toPublicDTO(ClothDesign design) {
+        return toPublicDTO(design, likesOf(design));
+    }
 
-        // Parse customizationJson to JsonNode
-        JsonNode customizationData = null;
-        if (design.getCustomizationJson() != null) {
-            try {
-                customizationData = objectMapper.readTree(design.getCustomizationJson());
-            } catch (Exception e) {
-                log.error("Failed to parse customizationJson for design {}: {}", design.getId(), e.getMessage());
-                throw new CustomizationProcessingException("Failed to parse customization data: " + e.getMessage(), e);
-            }
-        }
+    private DesignPublicDTO buildPublicDTO(ClothDesign design, long likesCount, boolean likedByUser) {
         return DesignPublicDTO.builder()
                 .id(design.getId())
                 .label(design.getLabel())
@@ -289,14 +314,39 @@ public class ClothDesignServiceImpl implements ClothDesignService {
                 .likesCount(likesCount)
                 .createdAt(design.getCreatedAt())
                 .isLikedByUser(likedByUser)
-                .customizationData(customizationData)
+                .customizationData(design.getCustomizationJson())
                 .customDecalUrl(design.getCustomDecalPath())
                 .build();
     }
 
-    public DesignPublicDTO toPublicDTO(ClothDesign design) {
-        long likesCount = clothLikeService.getLikesCount(design.getId());
-        return toPublicDTO(design, likesCount);
+    /**
+     * Customization JSON is checked once on write, as exactly one JSON document
+     * with nothing after it; reads pass the stored document through unparsed
+     */
+    private void validateCustomizationJson(String customizationJson) {
+        if (customizationJson == null) {
+            return;
+        }
+        JsonNode document;
+        try {
+            document = objectMapper.reader()
+                    .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                    .readTree(customizationJson);
+        } catch (Exception e) {
+            throw new CustomizationProcessingException("Invalid customization data: " + e.getMessage(), e);
+        }
+        if (document == null || document.isMissingNode()) {
+            throw new CustomizationProcessingException("Invalid customization data: empty document");
+        }
+    }
+
+    private boolean isValidCustomizationJson(String customizationJson) {
+        try {
+            validateCustomizationJson(customizationJson);
+            return true;
+        } catch (CustomizationProcessingException e) {
+            return false;
+        }
     }
 
     private String generatePreviewImageUrl(ClothDesign design) {
@@ -304,18 +354,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
     }
 
     public DesignDetailDTO toDetailDTO(ClothDesign design) {
-        long likesCount = clothLikeService.getLikesCount(design.getId());
-
-        // Parse customizationJson to JsonNode
-        JsonNode customizationData = null;
-        if (design.getCustomizationJson() != null) {
-            try {
-                customizationData = objectMapper.readTree(design.getCustomizationJson());
-            } catch (Exception e) {
-                log.error("Failed to parse customizationJson for design {}: {}", design.getId(), e.getMessage());
-                throw new CustomizationProcessingException("Failed to parse customization data: " + e.getMessage(), e);
-            }
-        }
+        long likesCount = likesOf(design);
 
         return DesignDetailDTO.builder()
                 .id(design.getId())
@@ -329,7 +368,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
                 .salesCount(design.getSalesCount() != null ? design.getSalesCount() : 0L)
                 .likesCount(likesCount)
                 .createdAt(design.getCreatedAt())
-                .customizationData(customizationData)
+                .customizationData(design.getCustomizationJson())
                 .customDecalUrl(design.getCustomDecalPath())
                 .build();
     }
@@ -338,10 +377,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
     public Page<DesignPublicDTO> getAllByClothType(Pageable pageable, ClothType clothType) {
         Page<ClothDesign> clothDesignPage = clothDesignRepository.findByClothType(clothType, pageable);
 
-        return clothDesignPage.map(design -> {
-            long likesCount = clothLikeService.getLikesCount(design.getId());
-            return toPublicDTOSafe(design, likesCount);
-        });
+        return clothDesignPage.map(design -> toPublicDTOSafe(design, likesOf(design)));
     }
 
 
@@ -358,6 +394,8 @@ public class ClothDesignServiceImpl implements ClothDesignService {
 
         log.info("User {} → deleting {} cloth designs", targetUserId, designs.size());
 
+        int bonusPoints = 0;
+
         for (ClothDesign design : designs) {
 
             if (design.getCustomDecalPath() != null && !design.getCustomDecalPath().isBlank()) {
@@ -371,10 +409,14 @@ public class ClothDesignServiceImpl implements ClothDesignService {
             clothLikeService.deleteAllLikesForDesign(design.getId());
 
             clothDesignRepository.delete(design);
+            designRankings.removed(design.getId());
+            bonusPoints += bonusPointsOf(design);
 
             log.info("Deleted cloth design {}", design.getId());
         }
 
+        bonusPointsService.adjust(targetUserId, -bonusPoints, BonusPointsReason.DESIGN_DELETED, null);
+
         if (clothDesignRepository.countByUserId(targetUserId) == 0) {
             userRolesService.removeRoleFromUser(targetUserId, UserRole.DESIGNER);
             log.info("Removed DESIGNER role from user {} (no designs left)", targetUserId);
@@ -395,6 +437,9 @@ public class ClothDesignServiceImpl implements ClothDesignService {
             }
 
             clothDesignRepository.delete(design);
+            designRankings.removed(designId);
+            bonusPointsService.adjust(design.getUserId(), -bonusPointsOf(design),
+                    BonusPointsReason.DESIGN_DELETED, designId);
 
             log.info("❌ ADMIN deleted cloth design {}", designId);
 
@@ -417,12 +462,16 @@ public class ClothDesignServiceImpl implements ClothDesignService {
         if (!design.getUserId().equals(userId)) {
             throw new ForbiddenOperationException("Not authorized to publish this design");
         }
+        int previousBonusPoints = bonusPointsOf(design);
         if(design.getCustomizationType().equals(CustomizationType.SIMPLE)){
             design.setBonusPoints(20);
         }
 
         design.setIsPublic(true);
         clothDesignRepository.save(design);
+        bonusPointsService.adjust(userId, bonusPointsOf(design) - previousBonusPoints,
+                BonusPointsReason.DESIGN_PUBLISHED, designId);
+        designRankings.visibilityChanged(designId, true);
 
         log.info("Design {} published by user {}", designId, userId);
     }
@@ -441,6 +490,7 @@ public class ClothDesignServiceImpl implements ClothDesignService {
 
         design.setIsPublic(false);
         clothDesignRepository.save(design);
+        designRankings.visibilityChanged(designId, false);
 
         log.info("Design {} unpublished by user {}", designId, userId);
     }
@@ -448,61 +498,79 @@ public class ClothDesignServiceImpl implements ClothDesignService {
     @Override
     @Transactional(readOnly = true)
     public List<DesignPublicDTO> getTopLikedPublicDesigns(int limit) {
-        List<LikeCountProjection> topLikedIds = clothLikeService.getTopLikedDesignIds(limit);
+        return toRankedDTOs(designRankings.topLiked(validRankingLimit(limit)));
+    }
 
-        if (topLikedIds.isEmpty()) {
-            return List.of();
+    @Override
+    @Transactional(readOnly = true)
+    public List<DesignPublicDTO> getTrendingPublicDesigns(int limit) {
+        return toRankedDTOs(designRankings.trending(validRankingLimit(limit)));
+    }
+
+    /**
+     * Resets stored customization documents that are blank or malformed (saved before strict
+     * validation) to an empty one, so reads can pass every stored document through unchecked.
+     * Writes are validated, so after the first run this only reads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Override
+    @Transactional
+    public int repairStoredCustomizationJson() {
+        int repaired = 0;
+        UUID after = null;
+        List<Object[]> rows;
+        do {
+            rows = clothDesignRepository.findCustomizationJsonAfter(after, PageRequest.of(0, CUSTOMIZATION_REPAIR_PAGE_SIZE));
+            List<UUID> invalid = rows.stream()
+                    .filter(row -> !isValidCustomizationJson((String) row[1]))
+                    .map(row -> (UUID) row[0])
+                    .toList();
+            if (!invalid.isEmpty()) {
+                repaired += clothDesignRepository.overwriteCustomizationJson(invalid, EMPTY_CUSTOMIZATION_JSON);
+            }
+            if (!rows.isEmpty()) {
+                after = (UUID) rows.get(rows.size() - 1)[0];
+            }
+        } while (rows.size() == CUSTOMIZATION_REPAIR_PAGE_SIZE);
+
+        if (repaired > 0) {
+            log.warn("⚠️ Reset invalid stored customization data of {} design(s)", repaired);
         }
+        return repaired;
+    }
 
-        List<UUID> designIds = topLikedIds.stream()
-                .map(LikeCountProjection::getDesignId)
-                .collect(Collectors.toList());
+    private static int validRankingLimit(int limit) {
+        return limit < 1 || limit > 50 ? 10 : limit;
+    }
 
-        List<ClothDesign> designs = clothDesignRepository.findAllByIdInAndIsPublicTrue(designIds);
+    /**
+     * Designs in ranking order; one IN query for the whole list
+     */
+    private List<DesignPublicDTO> toRankedDTOs(List<DesignRankings.RankedDesign> ranked) {
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
 
-        Map<UUID, Long> likeCounts = topLikedIds.stream()
-                .collect(Collectors.toMap(
-                        LikeCountProjection::getDesignId,
-                        LikeCountProjection::getCount
-                ));
+        Map<UUID, ClothDesign> designs = clothDesignRepository.findAllByIdInAndIsPublicTrue(
+                        ranked.stream().map(DesignRankings.RankedDesign::designId).toList()).stream()
+                .collect(Collectors.toMap(ClothDesign::getId, design -> design));
 
-        return designs.stream()
-                .map(design -> {
-                    long likes = likeCounts.getOrDefault(design.getId(), 0L);
-                    return toPublicDTOSafe(design, likes);
-                })
-                .sorted((d1, d2) -> Long.compare(d2.getLikesCount(), d1.getLikesCount()))
-                .collect(Collectors.toList());
+        return ranked.stream()
+                .filter(entry -> designs.containsKey(entry.designId()))
+                .map(entry -> toPublicDTOSafe(designs.get(entry.designId()), entry.likes()))
+                .toList();
     }
 
     private DesignPublicDTO toPublicDTOSafe(ClothDesign design, long likesCount) {
-        // Parse customizationJson to JsonNode
-        JsonNode customizationData = null;
-        if (design.getCustomizationJson() != null) {
-            try {
-                customizationData = objectMapper.readTree(design.getCustomizationJson());
-            } catch (Exception e) {
-                log.error("Failed to parse customizationJson for design {}: {}", design.getId(), e.getMessage());
-                throw new CustomizationProcessingException("Failed to parse customization data: " + e.getMessage(), e);
-            }
-        }
+        return buildPublicDTO(design, likesCount, false);
+    }
 
-        return DesignPublicDTO.builder()
-                .id(design.getId())
-                .label(design.getLabel())
-                .clothType(design.getClothType())
-                .customizationType(design.getCustomizationType())
-                .previewImageUrl(generatePreviewImageUrl(design))
-                .isPublic(design.getIsPublic())
-                .price(design.getPrice())
-                .bonusPoints(design.getBonusPoints())
-                .salesCount(design.getSalesCount() != null ? design.getSalesCount() : 0L)
-                .likesCount(likesCount)
-                .createdAt(design.getCreatedAt())
-                .isLikedByUser(false)
-                .customizationData(customizationData)
-                .customDecalUrl(design.getCustomDecalPath())
-                .build();
+    private static long likesOf(ClothDesign design) {
+        return design.getLikesCount() != null ? design.getLikesCount() : 0L;
+    }
+
+    private static int bonusPointsOf(ClothDesign design) {
+        return design.getBonusPoints() != null ? design.getBonusPoints() : 0;
     }
 
 }
\ No newline at end of file
@@ -11,28 +11,39 @@ import bg.softuni.stylemint.user.model.User;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ClothLikeServiceImpl implements ClothLikeService {
 
     private final ClothDesignLikeRepository likeRepository;
     private final ClothDesignRepository clothRepository;
+    private final DesignRankings designRankings;
 
     @Override
     @Transactional
     public void toggleLike(UUID designId) {
         UUID userId = SecurityUtil.getCurrentUserId();
-        if (likeRepository.existsByUserIdAndClothDesignId(userId, designId)) {
-            likeRepository.deleteByUserIdAndClothDesignId(userId, designId);
+        Optional<ClothDesignLike> existing = likeRepository.findByUserIdAndClothDesignId(userId, designId);
+        if (existing.isPresent()) {
+            likeRepository.delete(existing.get());
+            clothRepository.addLikes(designId, -1);
+            designRankings.unliked(designId, existing.get().getCreatedAt());
         } else {
             ClothDesign design = clothRepository.findById(designId)
                     .orElseThrow(() -> new EntityNotFoundException("Design not found"));
@@ -42,7 +53,12 @@ public class ClothLikeServiceImpl implements ClothLikeService {
                     .clothDesign(design)
                     .build();
 
-            likeRepository.save(like);
+            // A concurrent duplicate like fails on the unique constraint and rolls the increment back with it
+            ClothDesignLike saved = likeRepository.save(like);
+            clothRepository.addLikes(designId, 1);
+            designRankings.liked(designId,
+                    saved.getCreatedAt() != null ? saved.getCreatedAt() : OffsetDateTime.now(),
+                    Boolean.TRUE.equals(design.getIsPublic()));
         }
     }
 
@@ -67,22 +83,33 @@ public class ClothLikeServiceImpl implements ClothLikeService {
         return likeRepository.existsByUserIdAndClothDesignId(userId, designId);
     }
 
+    @Override
+    public Set<UUID> getLikedDesignIds(Collection<UUID> designIds) {
+        if (designIds.isEmpty()) {
+            return Set.of();
+        }
+        UUID userId = SecurityUtil.getCurrentUserId();
+        return likeRepository.findLikedDesignIds(userId, designIds);
+    }
+
     @Override
     public void deleteAllLikesForDesign(UUID designId) {
         likeRepository.deleteByClothDesignId(designId);
     }
 
+    /**
+     * Backfills likes_count on startup and repairs, nightly, any drift from likes removed outside toggleLike
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${fashion.likes.reconcile-cron:0 30 3 * * *}")
     @Override
-    public List<LikeCountProjection> getTopLikedDesignIds(int limit) {
-        // Validate limit
-        if (limit < 1 || limit > 50) {
-            limit = 10;
+    @Transactional
+    public int reconcileLikesCounts() {
+        int corrected = clothRepository.reconcileLikesCounts();
+        if (corrected > 0) {
+            log.warn("⚠️ Corrected likes_count of {} design(s)", corrected);
         }
-
-        Pageable pageable = PageRequest.of(0, limit);
-
-        // Get top liked design IDs from the repository
-        return likeRepository.findTopLikedPublicDesigns(pageable);
+        return corrected;
     }
 
 }
@@ -0,0 +1,261 @@
+package bg.softuni.stylemint.product.fashion.service.impl;
+
+import bg.softuni.stylemint.common.util.TransactionCallbacks;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignLikeRepository;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory all-time and trending rankings of public designs.
+ *
+ * Both rankings are sorted sets kept up to date from like/unlike/publish/delete events after
+ * commit, so top-N is a walk over the first N entries and never touches the likes table.
+ * Trending uses forward exponential decay: a like weighs {@code 2^((likedAt - landmark) / halfLife)},
+ * which orders designs exactly like decayed scores would without rescoring anything as time passes.
+ *
+ * A periodic background rebuild reloads all-time counts from {@code likes_count} and trending
+ * weights from the likes of the last {@value #TRENDING_HORIZON_HALF_LIVES} half-lives, moving the
+ * landmark forward. Events that land while it runs are replayed on top of the rebuilt state,
+ * so none are lost; one racing the rebuild query may count twice until the next rebuild.
+ */
+@Slf4j
+@Component
+public class DesignRankings {
+
+    static final int TRENDING_HORIZON_HALF_LIVES = 10;
+
+    private final ClothDesignRepository clothDesignRepository;
+    private final ClothDesignLikeRepository likeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration halfLife;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+    private volatile Rankings rankings;
+    // Non-null while a rebuild runs: changes to replay on the rebuilt state
+    private List<Consumer<Rankings>> rebuildJournal;
+
+    public DesignRankings(ClothDesignRepository clothDesignRepository,
+                          ClothDesignLikeRepository likeRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${fashion.rankings.trending-half-life:PT24H}") Duration halfLife) {
+        this.clothDesignRepository = clothDesignRepository;
+        this.likeRepository = likeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.halfLife = halfLife;
+    }
+
+    public List<RankedDesign> topLiked(int limit) {
+        return top(limit, false);
+    }
+
+    public List<RankedDesign> trending(int limit) {
+        return top(limit, true);
+    }
+
+    public void liked(UUID designId, OffsetDateTime likedAt, boolean isPublic) {
+        long likedAtSeconds = likedAt.toEpochSecond();
+        TransactionCallbacks.afterCommit(() -> apply(rankings -> rankings.addLike(designId, likedAtSeconds, isPublic, 1)));
+    }
+
+    public void unliked(UUID designId, OffsetDateTime likedAt) {
+        long likedAtSeconds = likedAt.toEpochSecond();
+        TransactionCallbacks.afterCommit(() -> apply(rankings -> rankings.addLike(designId, likedAtSeconds, null, -1)));
+    }
+
+    public void visibilityChanged(UUID designId, boolean isPublic) {
+        TransactionCallbacks.afterCommit(() -> apply(rankings -> rankings.setVisible(designId, isPublic)));
+    }
+
+    public void removed(UUID designId) {
+        TransactionCallbacks.afterCommit(() -> apply(rankings -> rankings.remove(designId)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${fashion.rankings.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${fashion.rankings.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (lock) {
+                rebuildJournal = new ArrayList<>();
+            }
+
+            Rankings rebuilt;
+            try {
+                rebuilt = transactionTemplate.execute(status -> load());
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    rebuildJournal = null;
+                }
+                log.error("❌ Failed to rebuild design rankings", e);
+                throw e;
+            }
+
+            synchronized (lock) {
+                rebuildJournal.forEach(change -> change.accept(rebuilt));
+                rebuildJournal = null;
+                rankings = rebuilt;
+            }
+            log.debug("🔁 Rebuilt design rankings for {} designs", rebuilt.entries.size());
+        }
+    }
+
+    /**
+     * A ranked design: all-time likes and trending score (likes decayed to now)
+     */
+    public record RankedDesign(UUID designId, long likes, double trendingScore) {
+    }
+
+    // ================ Helpers ================
+
+    private List<RankedDesign> top(int limit, boolean trending) {
+        if (rankings == null) {
+            synchronized (rebuildLock) {
+                if (rankings == null) {
+                    rebuild();
+                }
+            }
+        }
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        synchronized (lock) {
+            NavigableSet<Ranked> ranking = trending ? rankings.trending : rankings.allTime;
+            double decay = rankings.weight(nowSeconds);
+            List<RankedDesign> top = new ArrayList<>(Math.min(limit, ranking.size()));
+            for (Ranked ranked : ranking) {
+                if (top.size() == limit) {
+                    break;
+                }
+                Entry entry = rankings.entries.get(ranked.designId());
+                top.add(new RankedDesign(ranked.designId(), entry.likes(), entry.trendingWeight() / decay));
+            }
+            return top;
+        }
+    }
+
+    private Rankings load() {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        Rankings loaded = new Rankings(nowSeconds, Math.log(2) / halfLife.toSeconds());
+
+        Map<UUID, Double> trendingWeights = new HashMap<>();
+        OffsetDateTime horizon = OffsetDateTime.now().minus(halfLife.multipliedBy(TRENDING_HORIZON_HALF_LIVES));
+        try (Stream<Object[]> likes = likeRepository.streamLikesSince(horizon)) {
+            likes.forEach(row -> trendingWeights.merge((UUID) row[0],
+                    loaded.weight(((OffsetDateTime) row[1]).toEpochSecond()), Double::sum));
+        }
+
+        for (Object[] row : clothDesignRepository.findLikedDesignRankingRows()) {
+            UUID designId = (UUID) row[0];
+            loaded.put(designId, new Entry((Long) row[1],
+                    trendingWeights.getOrDefault(designId, 0.0),
+                    Boolean.TRUE.equals(row[2])));
+        }
+        return loaded;
+    }
+
+    private void apply(Consumer<Rankings> change) {
+        synchronized (lock) {
+            if (rebuildJournal != null) {
+                rebuildJournal.add(change);
+            }
+            if (rankings != null) {
+                change.accept(rankings);
+            }
+        }
+    }
+
+    private record Entry(long likes, double trendingWeight, boolean visible) {
+    }
+
+    private record Ranked(UUID designId, double score) implements Comparable<Ranked> {
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : designId.compareTo(other.designId);
+        }
+    }
+
+    /**
+     * Entries plus the two sorted views; only visible (public) designs with likes are in the views
+     */
+    private static final class Rankings {
+
+        private final long landmarkSeconds;
+        private final double decayRate;
+        private final Map<UUID, Entry> entries = new HashMap<>();
+        private final NavigableSet<Ranked> allTime = new TreeSet<>();
+        private final NavigableSet<Ranked> trending = new TreeSet<>();
+
+        Rankings(long landmarkSeconds, double decayRate) {
+            this.landmarkSeconds = landmarkSeconds;
+            this.decayRate = decayRate;
+        }
+
+        double weight(long epochSeconds) {
+            return Math.exp(decayRate * (epochSeconds - landmarkSeconds));
+        }
+
+        /**
+         * isPublic is null when the caller does not know it (unlike), keeping the current visibility
+         */
+        void addLike(UUID designId, long likedAtSeconds, Boolean isPublic, int delta) {
+            Entry current = entries.get(designId);
+            if (current == null && delta < 0) {
+                return;
+            }
+            long likes = (current == null ? 0 : current.likes()) + delta;
+            // Likes older than the rebuild horizon were never weighted in, so unliking them must not go negative
+            double trendingWeight = Math.max(0.0,
+                    (current == null ? 0.0 : current.trendingWeight()) + delta * weight(likedAtSeconds));
+            boolean visible = isPublic != null ? isPublic : current.visible();
+            put(designId, new Entry(Math.max(0, likes), trendingWeight, visible));
+        }
+
+        void setVisible(UUID designId, boolean visible) {
+            Entry current = entries.get(designId);
+            if (current != null && current.visible() != visible) {
+                put(designId, new Entry(current.likes(), current.trendingWeight(), visible));
+            }
+        }
+
+        void remove(UUID designId) {
+            unindex(designId, entries.remove(designId));
+        }
+
+        void put(UUID designId, Entry entry) {
+            unindex(designId, entries.get(designId));
+            if (entry.likes() == 0) {
+                entries.remove(designId);
+                return;
+            }
+            entries.put(designId, entry);
+            if (entry.visible()) {
+                allTime.add(new Ranked(designId, entry.likes()));
+                trending.add(new Ranked(designId, entry.trendingWeight()));
+            }
+        }
+
+        private void unindex(UUID designId, Entry entry) {
+            if (entry != null && entry.visible()) {
+                allTime.remove(new Ranked(designId, entry.likes()));
+                trending.remove(new Ranked(designId, entry.trendingWeight()));
+            }
+        }
+    }
+}
@@ -161,4 +161,12 @@ public class ClothDesignController {
         return ResponseEntity.ok(ApiResponse.success(designs));
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<DesignPublicDTO>>> getTrendingDesigns(
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<DesignPublicDTO> designs = clothDesignService.getTrendingPublicDesigns(limit);
+        return ResponseEntity.ok(ApiResponse.success(designs));
+    }
+
 }
\ No newline at end of file
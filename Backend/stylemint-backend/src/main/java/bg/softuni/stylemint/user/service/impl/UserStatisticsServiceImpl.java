@@ -1,5 +1,6 @@
 package bg.softuni.stylemint.user.service.impl;
 
+import bg.softuni.dtos.money.Money;
 import bg.softuni.dtos.order.UserOrderSummaryDTO;
 import bg.softuni.stylemint.common.exception.NotFoundException;
 import bg.softuni.stylemint.external.exceptions.order.OrderServiceException;
@@ -96,7 +97,7 @@ public class UserStatisticsServiceImpl implements UserStatisticsService {
             // Return empty order summary instead of failing
             return UserOrderSummaryDTO.builder()
                     .totalOrders(0L)
-                    .totalSpent(0.0)
+                    .totalSpent(Money.ZERO)
                     .recentOrders(Collections.emptyList())
                     .serviceAvailable(false)
                     .build();
@@ -106,7 +107,7 @@ public class UserStatisticsServiceImpl implements UserStatisticsService {
             // Return empty order summary for any other error
             return UserOrderSummaryDTO.builder()
                     .totalOrders(0L)
-                    .totalSpent(0.0)
+                    .totalSpent(Money.ZERO)
                     .recentOrders(Collections.emptyList())
                     .serviceAvailable(false)
                     .build();
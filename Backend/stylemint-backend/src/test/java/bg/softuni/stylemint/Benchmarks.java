@@ -0,0 +1,33 @@
+package bg.softuni.stylemint;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Shared timing and reporting for the property-gated benchmark tests. Results go through the
+ * test logger rather than stdout, so they show up with the rest of the test output.
+ */
+@Slf4j
+@UtilityClass
+public class Benchmarks {
+
+    /**
+     * Average wall-clock milliseconds per run, after {@code warmups} untimed runs; each run gets its index
+     */
+    public static double averageMs(int warmups, int runs, IntConsumer run) {
+        for (int i = 0; i < warmups; i++) {
+            run.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            run.accept(i);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+
+    public static void report(String format, Object... args) {
+        log.info(String.format(format, args));
+    }
+}
@@ -0,0 +1,56 @@
+package bg.softuni.stylemint.common.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCallbacksTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void afterCommit_ShouldRunAtOnce_OutsideATransaction() {
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+        TransactionCallbacks.afterCompletion(() -> ran.add("completion"));
+
+        assertEquals(List.of("commit", "completion"), ran);
+    }
+
+    @Test
+    void afterCommit_ShouldWaitForTheCommit_AndBeSkippedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+        TransactionCallbacks.afterCompletion(() -> ran.add("completion"));
+
+        assertTrue(ran.isEmpty());
+
+        // Rolled back: only the completion callback runs
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(List.of("completion"), ran);
+    }
+
+    @Test
+    void afterCommit_ShouldRun_WhenTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(List.of("commit"), ran);
+    }
+}
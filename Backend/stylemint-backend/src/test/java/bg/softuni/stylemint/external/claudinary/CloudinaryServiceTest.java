@@ -0,0 +1,318 @@
+package bg.softuni.stylemint.external.claudinary;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CloudinaryServiceTest {
+
+    @Mock
+    private Cloudinary cloudinary;
+
+    @Mock
+    private Uploader uploader;
+
+    @Mock
+    private Api api;
+
+    @InjectMocks
+    private CloudinaryService cloudinaryService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cloudinary.uploader()).thenReturn(uploader);
+    }
+
+    @Test
+    void uploadAudio_ShouldUploadFromDisk_WithoutReadingBytesIntoHeap() throws Exception {
+        MultipartFile file = spy(new DiskMultipartFile(createFile("kick.wav", 1024)));
+        AtomicReference<File> uploadedFile = new AtomicReference<>();
+
+        when(uploader.upload(any(), anyMap())).thenAnswer(invocation -> {
+            File source = invocation.getArgument(0);
+            assertTrue(source.isFile());
+            assertEquals(1024, source.length());
+            uploadedFile.set(source);
+            return Map.of("secure_url", "https://cdn/kick.wav", "duration", 1.5, "bytes", 1024);
+        });
+
+        Map<String, Object> result = cloudinaryService.uploadAudio(file, UUID.randomUUID());
+
+        assertEquals("https://cdn/kick.wav", result.get("url"));
+        assertEquals(1.5, result.get("duration"));
+        verify(file, never()).getBytes();
+        assertFalse(uploadedFile.get().exists(), "Temp upload file should be removed");
+    }
+
+    @Test
+    void uploadPackCover_ShouldRemoveTempFile_WhenUploadFails() throws Exception {
+        MultipartFile file = new DiskMultipartFile(createFile("cover.png", 256));
+        AtomicReference<File> uploadedFile = new AtomicReference<>();
+
+        when(uploader.upload(any(), anyMap())).thenAnswer(invocation -> {
+            uploadedFile.set(invocation.getArgument(0));
+            throw new IOException("Cloudinary unavailable");
+        });
+
+        assertThrows(RuntimeException.class, () -> cloudinaryService.uploadPackCover(file, UUID.randomUUID()));
+        assertFalse(uploadedFile.get().exists());
+    }
+
+    @Test
+    void uploadImage_ShouldUploadFromDisk_AndRemoveTempFile() throws Exception {
+        MultipartFile file = spy(new DiskMultipartFile(createFile("decal.png", 512)));
+        AtomicReference<File> uploadedFile = new AtomicReference<>();
+
+        when(uploader.upload(any(), anyMap())).thenAnswer(invocation -> {
+            File source = invocation.getArgument(0);
+            assertEquals(512, source.length());
+            uploadedFile.set(source);
+            return Map.of("secure_url", "https://cdn/decal.png", "width", 64, "height", 32, "format", "png");
+        });
+
+        Map<String, Object> result = cloudinaryService.uploadImage(file, UUID.randomUUID());
+
+        assertEquals("https://cdn/decal.png", result.get("url"));
+        assertEquals(64, result.get("width"));
+        verify(file, never()).getBytes();
+        assertFalse(uploadedFile.get().exists(), "Temp upload file should be removed");
+    }
+
+    @Test
+    void deleteFiles_ShouldDeleteInBatchesPerResourceType_AndSkipInvalidUrls() throws Exception {
+        when(cloudinary.api()).thenReturn(api);
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            urls.add("https://res.cloudinary.com/demo/image/upload/v1/decals/d" + i + ".png");
+        }
+        urls.add("https://res.cloudinary.com/demo/video/upload/v2/audio/a.mp3");
+        urls.add("not-a-cloudinary-url");
+        urls.add(null);
+        when(api.deleteResources(any(), anyMap()))
+                .thenThrow(new IOException("rate limited"))
+                .thenReturn(null);
+
+        cloudinaryService.deleteFiles(urls);
+
+        ArgumentCaptor<List<String>> publicIds = ArgumentCaptor.forClass(List.class);
+        verify(api, times(3)).deleteResources(publicIds.capture(), anyMap());
+        List<Integer> batchSizes = publicIds.getAllValues().stream().map(List::size).sorted().toList();
+        assertEquals(List.of(1, 50, 100), batchSizes);
+        assertTrue(publicIds.getAllValues().stream().anyMatch(ids -> ids.equals(List.of("audio/a"))));
+        verify(api).deleteResources(eq(List.of("audio/a")), eq(Map.of("resource_type", "video")));
+    }
+
+    @Test
+    void uploadAudio_ShouldStreamFileToCloudinary_WithoutBufferingItOnTheHeap() throws Exception {
+        int fileSize = 32 * 1024 * 1024;
+
+        try (StubUploadEndpoint endpoint = StubUploadEndpoint.start()) {
+            CloudinaryService realClient = new CloudinaryService(endpoint.cloudinary());
+            // First request loads and initializes the HTTP client classes
+            realClient.uploadAudio(new DiskMultipartFile(createFile("warmup.wav", 1024)), UUID.randomUUID());
+
+            MultipartFile file = new DiskMultipartFile(createFile("large.wav", fileSize));
+            long before = allocatedBytes();
+            Map<String, Object> result = realClient.uploadAudio(file, UUID.randomUUID());
+            long allocated = allocatedBytes() - before;
+
+            // The multipart body (file plus form fields) really went over the wire
+            assertTrue((Long) result.get("bytes") > fileSize);
+            assertTrue(allocated < fileSize / 4,
+                    "Upload allocated " + allocated + " bytes for a " + fileSize + " byte file");
+        }
+    }
+
+    /**
+     * 50 concurrent 50 MB uploads through the real HTTP client to a local stub endpoint.
+     * Each upload must allocate far less than its file size. Run with a 512 MB heap:
+     * mvn test -Dtest=CloudinaryServiceTest -Dupload.loadTest=true -DargLine=-Xmx512m
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "upload.loadTest", matches = "true")
+    void uploadAudio_ShouldHandleConcurrentLargeUploads_WithSmallHeap() throws Exception {
+        int uploads = 50;
+        int fileSize = 50 * 1024 * 1024;
+
+        ExecutorService pool = Executors.newFixedThreadPool(uploads);
+        try (StubUploadEndpoint endpoint = StubUploadEndpoint.start()) {
+            CloudinaryService realClient = new CloudinaryService(endpoint.cloudinary());
+            realClient.uploadAudio(new DiskMultipartFile(createFile("warmup.wav", 1024)), UUID.randomUUID());
+
+            List<Future<Long>> allocations = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                MultipartFile file = new DiskMultipartFile(createFile("sample-" + i + ".wav", fileSize));
+                allocations.add(pool.submit(() -> {
+                    long before = allocatedBytes();
+                    Map<String, Object> result = realClient.uploadAudio(file, UUID.randomUUID());
+                    assertTrue((Long) result.get("bytes") > fileSize);
+                    return allocatedBytes() - before;
+                }));
+            }
+            for (Future<Long> allocated : allocations) {
+                assertTrue(allocated.get() < fileSize / 4,
+                        "Upload allocated " + allocated.get() + " bytes for a " + fileSize + " byte file");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private Path createFile(String name, int size) throws IOException {
+        Path file = tempDir.resolve(name);
+        byte[] chunk = new byte[64 * 1024];
+        try (var out = Files.newOutputStream(file)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                out.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Disk-backed part, like the container's multipart implementation.
+     */
+    private static class DiskMultipartFile implements MultipartFile {
+
+        private final Path file;
+
+        DiskMultipartFile(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return file.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return "audio/wav";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return file.toFile().length();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.move(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Local HTTP endpoint standing in for the Cloudinary upload API. It drains the
+     * multipart body and reports how many bytes it received.
+     */
+    private static class StubUploadEndpoint implements AutoCloseable {
+
+        private final HttpServer server;
+
+        private StubUploadEndpoint(HttpServer server) {
+            this.server = server;
+        }
+
+        static StubUploadEndpoint start() throws IOException {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/", exchange -> {
+                long received;
+                try (InputStream body = exchange.getRequestBody()) {
+                    received = body.transferTo(OutputStream.nullOutputStream());
+                }
+                byte[] response = ("{\"secure_url\":\"https://cdn/audio.wav\",\"bytes\":" + received + "}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            });
+            server.start();
+            return new StubUploadEndpoint(server);
+        }
+
+        Cloudinary cloudinary() {
+            return new Cloudinary(ObjectUtils.asMap(
+                    "cloud_name", "stub",
+                    "api_key", "key",
+                    "api_secret", "secret",
+                    "upload_prefix", "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()));
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package bg.softuni.stylemint.external.service.order.impl;
+
+import bg.softuni.dtos.enums.nft.NftType;
+import bg.softuni.dtos.enums.payment.ProductType;
+import bg.softuni.dtos.nft.UserNftsResponse;
+import bg.softuni.dtos.money.Money;
+import bg.softuni.dtos.order.OrderItemRequestDTO;
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.common.exception.NotFoundException;
+import bg.softuni.stylemint.external.facade.nft.NftServiceFacade;
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.common.service.impl.OneTimeDiscountService;
+import bg.softuni.stylemint.product.common.service.impl.PriceTable;
+import bg.softuni.stylemint.product.common.service.impl.ProductFetchService;
+import bg.softuni.stylemint.product.common.service.impl.UniversalDiscountService;
+import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OrderPriceServiceImplTest {
+
+    @Mock
+    private ClothDesignRepository clothDesignRepository;
+
+    @Mock
+    private AudioSampleRepository audioSampleRepository;
+
+    @Mock
+    private SamplePackRepository samplePackRepository;
+
+    @Mock
+    private NftServiceFacade nftServiceFacade;
+
+    @Mock
+    private BonusPointsService bonusPointsService;
+
+    @Mock
+    private OneTimeDiscountService oneTimeDiscountService;
+
+    private Cache<UUID, UserNftsResponse> userNftsCache;
+    private UniversalDiscountService discountService;
+    private OrderPriceServiceImpl orderPriceService;
+    // The one-time discount each checkout claimed before pricing, matching the stubbed best one
+    private RewardType claimedDiscount = RewardType.DISCOUNT_20;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID designId = UUID.randomUUID();
+    private final UUID sampleId = UUID.randomUUID();
+    private final UUID packId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        userNftsCache = spy(Caffeine.newBuilder().<UUID, UserNftsResponse>build());
+        FashionPriceProperties priceProperties = new FashionPriceProperties();
+        priceProperties.setBonus(Map.of("100", 0.10, "40", 0.05, "20", 0.02, "0", 0.00));
+        discountService = new UniversalDiscountService(oneTimeDiscountService, nftServiceFacade, userNftsCache,
+                bonusPointsService, new PriceTable(priceProperties));
+        orderPriceService = new OrderPriceServiceImpl(
+                new ProductFetchService(clothDesignRepository, audioSampleRepository, samplePackRepository),
+                discountService);
+
+        when(nftServiceFacade.getUserNfts(userId)).thenReturn(nfts(NftType.NFT_DISCOUNT_5));
+        when(bonusPointsService.getUserBonusPoints(userId)).thenReturn(45);
+        when(oneTimeDiscountService.getBestDiscountPercentage(userId)).thenReturn(0.20);
+        when(clothDesignRepository.findAllById(Set.of(designId))).thenReturn(List.of(design(100.0)));
+        when(audioSampleRepository.findAllById(Set.of(sampleId))).thenReturn(List.of(sample(10.0)));
+        when(samplePackRepository.findAllById(Set.of(packId))).thenReturn(List.of(pack(50.0)));
+    }
+
+    @Test
+    void calculateAndSetPrices_ShouldResolveDiscountsOncePerCheckout_WithTheClaimedOneTimeDiscount() {
+        List<OrderItemRequestDTO> items = cart(30);
+
+        orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+
+        verify(userNftsCache, times(1)).get(eq(userId), any());
+        verify(nftServiceFacade, times(1)).getUserNfts(userId);
+        verify(bonusPointsService, times(1)).getUserBonusPoints(userId);
+        verify(oneTimeDiscountService, never()).getBestDiscountPercentage(userId);
+        items.forEach(item -> assertNotNull(item.getPricePerUnit()));
+    }
+
+    @Test
+    void calculateAndSetPrices_ShouldIgnoreTheBestOneTimeDiscount_WhenNoneWasClaimed() {
+        List<OrderItemRequestDTO> items = cart(3);
+
+        orderPriceService.calculateAndSetPrices(userId, items, null);
+
+        // the user still holds a 20% discount, but this order did not get to claim it
+        assertEquals(new BigDecimal("90.25"), items.get(0).getPricePerUnit());
+        assertEquals(new BigDecimal("9.50"), items.get(1).getPricePerUnit());
+        assertEquals(new BigDecimal("47.50"), items.get(2).getPricePerUnit());
+    }
+
+    @Test
+    void claimOneTimeDiscount_ShouldConsumeTheBestDiscount_AndReleaseShouldGiveItBack() {
+        when(oneTimeDiscountService.useBestDiscount(userId)).thenReturn(RewardType.DISCOUNT_40);
+
+        assertEquals(RewardType.DISCOUNT_40, orderPriceService.claimOneTimeDiscount(userId));
+        orderPriceService.releaseOneTimeDiscount(userId, RewardType.DISCOUNT_40);
+        orderPriceService.releaseOneTimeDiscount(userId, null);
+
+        verify(oneTimeDiscountService, times(1)).saveDiscount(userId, RewardType.DISCOUNT_40);
+    }
+
+    @Test
+    void calculateAndSetPrices_ShouldLoadProductsWithOneQueryPerType() {
+        orderPriceService.calculateAndSetPrices(userId, cart(30), claimedDiscount);
+
+        verify(clothDesignRepository, times(1)).findAllById(any());
+        verify(audioSampleRepository, times(1)).findAllById(any());
+        verify(samplePackRepository, times(1)).findAllById(any());
+        verify(clothDesignRepository, never()).findById(any());
+        verify(audioSampleRepository, never()).findById(any());
+        verify(samplePackRepository, never()).findById(any());
+    }
+
+    @Test
+    void calculateAndSetPrices_ShouldFail_WhenAProductDoesNotExist() {
+        List<OrderItemRequestDTO> items = cart(3);
+        items.get(1).setProductId(UUID.randomUUID());
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount));
+        assertTrue(exception.getMessage().contains("Audio sample not found"));
+    }
+
+    @Test
+    void calculateAndSetPrices_ShouldPriceEveryLineAsTheSingleProductPathDoes() {
+        List<OrderItemRequestDTO> items = cart(3);
+
+        orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+
+        // design: 5% bonus (45 points), 5% NFT, 20% one-time; audio: NFT and one-time only
+        assertEquals(new BigDecimal("72.20"), items.get(0).getPricePerUnit());
+        assertEquals(new BigDecimal("7.60"), items.get(1).getPricePerUnit());
+        assertEquals(new BigDecimal("38.00"), items.get(2).getPricePerUnit());
+        for (OrderItemRequestDTO item : items) {
+            assertEquals(orderPriceService.calculateItemPricePublic(userId, item), item.getPricePerUnit());
+        }
+        assertEquals(new BigDecimal("117.80"), orderPriceService.previewOrderTotal(userId, items));
+        assertEquals(new BigDecimal("117.80"), orderPriceService.calculateTotalAmount(items));
+    }
+
+    @Test
+    void totals_ShouldMatchTheGoldenCarts() {
+        // 10 x 0.10 sums to 0.9999999999999999 in doubles, which Stripe was charged as 99 cents
+        assertGoldenTotal(this::noDiscounts, 0.10, 0.00, 0.00, 10, "1.00");
+        assertGoldenTotal(this::noDiscounts, 19.99, 4.35, 0.29, 3, "73.89");
+        // 52.50 * 0.95 * 0.95 * 0.80 = 37.905 exactly, 37.904999999999994 as a double
+        assertGoldenTotal(this::defaultDiscounts, 52.50, 10.00, 50.00, 1, "83.51");
+        assertGoldenTotal(this::defaultDiscounts, 29.99, 0.99, 14.99, 7, "236.53");
+    }
+
+    @Test
+    void totals_ShouldEqualExactDecimalPricing_ForRandomCarts() {
+        Random random = new Random(49);
+
+        for (int run = 0; run < 500; run++) {
+            BigDecimal designPrice = BigDecimal.valueOf(random.nextInt(50_000), 2);
+            BigDecimal samplePrice = BigDecimal.valueOf(random.nextInt(5_000), 2);
+            BigDecimal packPrice = BigDecimal.valueOf(random.nextInt(20_000), 2);
+            int quantity = 1 + random.nextInt(5);
+            stubPrices(designPrice.doubleValue(), samplePrice.doubleValue(), packPrice.doubleValue());
+            List<OrderItemRequestDTO> items = cart(3);
+            items.forEach(item -> item.setQuantity(quantity));
+
+            BigDecimal expected = exactLine(designPrice, "0.95", "0.95", "0.80")
+                    .add(exactLine(samplePrice, "0.95", "0.80"))
+                    .add(exactLine(packPrice, "0.95", "0.80"))
+                    .multiply(BigDecimal.valueOf(quantity));
+
+            orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+            assertEquals(expected, orderPriceService.calculateTotalAmount(items),
+                    () -> "cart " + designPrice + " / " + samplePrice + " / " + packPrice + " x " + quantity);
+            assertEquals(expected, orderPriceService.previewOrderTotal(userId, items));
+        }
+    }
+
+    @Test
+    void previewOrderTotal_ShouldStillPriceLines_WhenNftServiceIsDown() {
+        when(nftServiceFacade.getUserNfts(userId)).thenThrow(new IllegalStateException("NFT service unreachable"));
+
+        BigDecimal total = orderPriceService.previewOrderTotal(userId, cart(3));
+
+        // 76.00 + 8.00 + 40.00
+        assertEquals(new BigDecimal("124.00"), total);
+        verify(nftServiceFacade, times(1)).getUserNfts(userId);
+    }
+
+    /**
+     * Checkout pricing latency at 1, 10 and 100 lines with a cold NFT cache, against resolving
+     * the user's discounts for every line. Remote NFT calls cost ~2 ms and discount reads ~0.3 ms.
+     * Run with {@code -Dpricing.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "pricing.benchmark", matches = "true")
+    void checkoutPricingLatency() {
+        when(nftServiceFacade.getUserNfts(userId)).thenAnswer(invocation -> {
+            LockSupport.parkNanos(2_000_000);
+            return nfts(NftType.NFT_DISCOUNT_7);
+        });
+        when(bonusPointsService.getUserBonusPoints(userId)).thenAnswer(invocation -> {
+            LockSupport.parkNanos(300_000);
+            return 45;
+        });
+        when(oneTimeDiscountService.getBestDiscountPercentage(userId)).thenAnswer(invocation -> {
+            LockSupport.parkNanos(300_000);
+            return 0.20;
+        });
+
+        for (int lines : new int[]{1, 10, 100}) {
+            List<OrderItemRequestDTO> items = cart(lines);
+            int runs = Math.max(5, 200 / lines);
+
+            double perLineMs = Benchmarks.averageMs(0, runs, i -> {
+                for (OrderItemRequestDTO item : items) {
+                    // A fresh lookup per line, as when every line went straight to the NFT service
+                    userNftsCache.invalidateAll();
+                    item.setPricePerUnit(orderPriceService.calculateItemPricePublic(userId, item));
+                }
+            });
+            double contextMs = Benchmarks.averageMs(0, runs, i -> {
+                userNftsCache.invalidateAll();
+                orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+            });
+
+            Benchmarks.report("Checkout pricing, %3d lines: per-line discounts %.2f ms, discount context %.2f ms",
+                    lines, perLineMs, contextMs);
+            assertTrue(lines == 1 || contextMs < perLineMs);
+        }
+    }
+
+    /**
+     * Bytes allocated per priced line by checkout pricing and totalling, at 1, 10 and 100 lines.
+     * Run with {@code -Dpricing.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "pricing.benchmark", matches = "true")
+    void checkoutPricingAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        ((Logger) LoggerFactory.getLogger(OrderPriceServiceImpl.class)).setLevel(Level.INFO);
+        ((Logger) LoggerFactory.getLogger(UniversalDiscountService.class)).setLevel(Level.INFO);
+
+        for (int lines : new int[]{1, 10, 100}) {
+            List<OrderItemRequestDTO> items = cart(lines);
+            int runs = 20_000 / lines;
+            long cents = 0;
+
+            for (int round = 0; round < 2; round++) {
+                long before = threads.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < runs; i++) {
+                    orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+                    cents += Money.toCents(orderPriceService.calculateTotalAmount(items));
+                }
+                double bytesPerLine = (threads.getThreadAllocatedBytes(threadId) - before) / (double) runs / lines;
+
+                if (round == 1) {
+                    Benchmarks.report("Checkout pricing, %3d lines: %.0f bytes allocated per line", lines, bytesPerLine);
+                }
+            }
+            assertTrue(cents > 0);
+        }
+    }
+
+    // ================ Helpers ================
+
+    private void assertGoldenTotal(Runnable discounts, double designPrice, double samplePrice, double packPrice,
+                                   int quantity, String expectedTotal) {
+        discounts.run();
+        stubPrices(designPrice, samplePrice, packPrice);
+        List<OrderItemRequestDTO> items = cart(3);
+        items.forEach(item -> item.setQuantity(quantity));
+
+        orderPriceService.calculateAndSetPrices(userId, items, claimedDiscount);
+
+        assertEquals(new BigDecimal(expectedTotal), orderPriceService.calculateTotalAmount(items));
+        assertEquals(new BigDecimal(expectedTotal), orderPriceService.previewOrderTotal(userId, items));
+    }
+
+    private void defaultDiscounts() {
+        claimedDiscount = RewardType.DISCOUNT_20;
+        userNftsCache.invalidateAll();
+        when(nftServiceFacade.getUserNfts(userId)).thenReturn(nfts(NftType.NFT_DISCOUNT_5));
+        when(bonusPointsService.getUserBonusPoints(userId)).thenReturn(45);
+        when(oneTimeDiscountService.getBestDiscountPercentage(userId)).thenReturn(0.20);
+    }
+
+    private void noDiscounts() {
+        claimedDiscount = null;
+        userNftsCache.invalidateAll();
+        when(nftServiceFacade.getUserNfts(userId)).thenReturn(nfts());
+        when(bonusPointsService.getUserBonusPoints(userId)).thenReturn(0);
+        when(oneTimeDiscountService.getBestDiscountPercentage(userId)).thenReturn(0.0);
+    }
+
+    private void stubPrices(double designPrice, double samplePrice, double packPrice) {
+        when(clothDesignRepository.findAllById(Set.of(designId))).thenReturn(List.of(design(designPrice)));
+        when(audioSampleRepository.findAllById(Set.of(sampleId))).thenReturn(List.of(sample(samplePrice)));
+        when(samplePackRepository.findAllById(Set.of(packId))).thenReturn(List.of(pack(packPrice)));
+    }
+
+    /**
+     * A line priced with decimal arithmetic throughout, rounded half-up to the cent
+     */
+    private BigDecimal exactLine(BigDecimal price, String... factors) {
+        BigDecimal exact = price;
+        for (String factor : factors) {
+            exact = exact.multiply(new BigDecimal(factor));
+        }
+        return exact.setScale(Money.SCALE, Money.ROUNDING);
+    }
+
+    private List<OrderItemRequestDTO> cart(int lines) {
+        List<OrderItemRequestDTO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            ProductType type = switch (i % 3) {
+                case 0 -> ProductType.CLOTHES;
+                case 1 -> ProductType.SAMPLE;
+                default -> ProductType.PACK;
+            };
+            UUID productId = switch (type) {
+                case CLOTHES -> designId;
+                case SAMPLE -> sampleId;
+                default -> packId;
+            };
+            items.add(OrderItemRequestDTO.builder().productType(type).productId(productId).quantity(1).build());
+        }
+        return items;
+    }
+
+    private UserNftsResponse nfts(NftType... types) {
+        UserNftsResponse response = new UserNftsResponse();
+        response.setUserId(userId);
+        List<UserNftsResponse.NftInfo> nfts = new ArrayList<>();
+        for (NftType type : types) {
+            UserNftsResponse.NftInfo nft = new UserNftsResponse.NftInfo();
+            nft.setTokenId(UUID.randomUUID());
+            nft.setNftType(type);
+            nfts.add(nft);
+        }
+        response.setNfts(nfts);
+        return response;
+    }
+
+    private ClothDesign design(double price) {
+        return ClothDesign.builder().id(designId).price(price).salesCount(0L).build();
+    }
+
+    private AudioSample sample(double price) {
+        return AudioSample.builder().id(sampleId).price(price).salesCount(0L).build();
+    }
+
+    private SamplePack pack(double price) {
+        return SamplePack.builder().id(packId).price(price).salesCount(0L).build();
+    }
+}
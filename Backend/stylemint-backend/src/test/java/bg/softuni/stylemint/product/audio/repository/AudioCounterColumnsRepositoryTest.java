@@ -0,0 +1,137 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.product.audio.enums.AudioCounter;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.enums.InstrumentGroup;
+import bg.softuni.stylemint.product.audio.enums.MusicalKey;
+import bg.softuni.stylemint.product.audio.enums.MusicalScale;
+import bg.softuni.stylemint.product.audio.enums.SampleType;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.service.impl.AudioCounterBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The buffered counters are only ever written by SET x = x + delta. A pack or sample loaded
+ * before a flush and saved after it must not write its stale counter back over the flush.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:audio-counters;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = AudioCounterColumnsRepositoryTest.JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AudioCounterColumnsRepositoryTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = SamplePackRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private SamplePackRepository samplePackRepository;
+
+    @Autowired
+    private AudioSampleRepository audioSampleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    @AfterEach
+    void tearDown() {
+        audioSampleRepository.deleteAllInBatch();
+        samplePackRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void entitySave_ShouldNotUndoFlushedCounters_WhenLoadedBeforeTheFlush() throws Exception {
+        SamplePack pack = samplePackRepository.save(pack());
+        AudioSample sample = audioSampleRepository.save(sample(pack));
+
+        // Loaded (and detached) before the counters are flushed
+        SamplePack stalePack = samplePackRepository.findById(pack.getId()).orElseThrow();
+        AudioSample staleSample = audioSampleRepository.findById(sample.getId()).orElseThrow();
+
+        AudioCounterBuffer buffer = new AudioCounterBuffer(samplePackRepository, audioSampleRepository,
+                new TransactionTemplate(transactionManager), journalDir);
+        buffer.open();
+        for (int i = 0; i < 3; i++) {
+            buffer.increment(AudioCounter.PACK_DOWNLOADS, pack.getId());
+            buffer.increment(AudioCounter.SAMPLE_PLAYS, sample.getId());
+        }
+        buffer.flush();
+        buffer.close();
+
+        // An edit saved after the flush, carrying the counters it read
+        stalePack.setTitle("Edited");
+        samplePackRepository.save(stalePack);
+        staleSample.setName("Edited");
+        audioSampleRepository.save(staleSample);
+
+        SamplePack storedPack = samplePackRepository.findById(pack.getId()).orElseThrow();
+        assertEquals("Edited", storedPack.getTitle());
+        assertEquals(3, storedPack.getDownloads());
+        assertEquals(3L, audioSampleRepository.findById(sample.getId()).orElseThrow().getPlayCount());
+    }
+
+    // ================ Helpers ================
+
+    private SamplePack pack() {
+        return SamplePack.builder()
+                .title("Pack")
+                .authorId(UUID.randomUUID())
+                .artist("Producer")
+                .coverImage("cover.png")
+                .price(10.0)
+                .sampleCount(1)
+                .totalSize("1 MB")
+                .description("Description")
+                .salesCount(0L)
+                .downloads(0)
+                .build();
+    }
+
+    private AudioSample sample(SamplePack pack) {
+        return AudioSample.builder()
+                .name("Kick")
+                .authorId(pack.getAuthorId())
+                .artist("Producer")
+                .audioUrl("https://res.cloudinary.com/demo/video/upload/kick.wav")
+                .bpm(120)
+                .key(MusicalKey.C)
+                .scale(MusicalScale.MAJOR)
+                .genre(Genre.TRAP)
+                .instrumentGroup(InstrumentGroup.DRUMS)
+                .sampleType(SampleType.LOOP)
+                .price(1.0)
+                .salesCount(0L)
+                .pack(pack)
+                .build();
+    }
+}
@@ -0,0 +1,209 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.product.audio.dto.AudioSampleSearchRequest;
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the sample search queries against embedded H2 and checks their plans with EXPLAIN.
+ * Criteria literals are inlined so the captured SQL can be explained as-is.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=INLINE",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "bg.softuni.stylemint.product.audio.repository.AudioSampleSearchQueryPlanTest$CapturingInspector"
+})
+@ContextConfiguration(classes = AudioSampleSearchQueryPlanTest.JpaConfig.class)
+class AudioSampleSearchQueryPlanTest {
+
+    private static final int ACTIVE_HIP_HOP = 30;
+    private static final int ARCHIVED_HIP_HOP = 30;
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = AudioSampleRepository.class)
+    static class JpaConfig {
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private AudioSampleRepository audioSampleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<AudioSample> samples = new ArrayList<>();
+        Genre[] genres = Genre.values();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(sample("Sample " + i, genres[i % genres.length], 80 + i % 100, i % 2 == 0));
+        }
+        for (int i = 0; i < ACTIVE_HIP_HOP; i++) {
+            samples.add(sample("Boom bap " + i, Genre.HIP_HOP, 90, false));
+        }
+        for (int i = 0; i < ARCHIVED_HIP_HOP; i++) {
+            samples.add(sample("Boom bap old " + i, Genre.HIP_HOP, 90, true));
+        }
+        audioSampleRepository.saveAllAndFlush(samples);
+        jdbcTemplate.execute("ANALYZE");
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void search_ShouldExcludeArchivedInSql_SoPagesAreFullAndTotalsExact() {
+        AudioSampleSearchRequest request = new AudioSampleSearchRequest();
+        request.setGenre(Genre.HIP_HOP);
+        request.setMinBpm(90);
+        request.setMaxBpm(90);
+
+        Page<AudioSample> page = audioSampleRepository.findAll(
+                AudioSampleSpecifications.matching(request),
+                PageRequest.of(0, 20, AudioSampleSpecifications.NEWEST_FIRST));
+
+        long expectedTotal = ACTIVE_HIP_HOP + countSeeded(Genre.HIP_HOP, 90);
+        assertEquals(20, page.getContent().size());
+        assertEquals(expectedTotal, page.getTotalElements());
+        assertTrue(page.getContent().stream().noneMatch(AudioSample::isArchived));
+    }
+
+    @Test
+    void keysetScroll_ShouldVisitEveryActiveRowOnce() {
+        AudioSampleSearchRequest request = new AudioSampleSearchRequest();
+        request.setGenre(Genre.HIP_HOP);
+
+        Set<UUID> seen = new HashSet<>();
+        Specification<AudioSample> spec = AudioSampleSpecifications.matching(request);
+        List<AudioSample> slice;
+        AudioSample last = null;
+        do {
+            Specification<AudioSample> sliceSpec = last == null
+                    ? spec
+                    : spec.and(AudioSampleSpecifications.after(last.getCreatedAt(), last.getId()));
+            slice = audioSampleRepository.findBy(sliceSpec, query -> query
+                    .sortBy(AudioSampleSpecifications.NEWEST_FIRST)
+                    .limit(25)
+                    .all());
+            slice.forEach(sample -> assertTrue(seen.add(sample.getId()), "row returned twice"));
+            if (!slice.isEmpty()) {
+                last = slice.get(slice.size() - 1);
+            }
+        } while (slice.size() == 25);
+
+        long expected = audioSampleRepository.count(spec);
+        assertEquals(expected, seen.size());
+    }
+
+    @Test
+    void genreAndBpmFilter_ShouldUseCompositeIndex() {
+        AudioSampleSearchRequest request = new AudioSampleSearchRequest();
+        request.setGenre(Genre.HIP_HOP);
+        request.setMinBpm(85);
+        request.setMaxBpm(95);
+
+        String plan = explain(() -> audioSampleRepository.findAll(AudioSampleSpecifications.matching(request),
+                PageRequest.of(0, 20, AudioSampleSpecifications.NEWEST_FIRST)));
+
+        assertUsesIndex(plan, "IDX_AUDIO_SAMPLES_ARCHIVED_GENRE");
+    }
+
+    @Test
+    void keyFilter_ShouldUseCompositeIndex() {
+        AudioSampleSearchRequest request = new AudioSampleSearchRequest();
+        request.setKey(MusicalKey.C);
+        request.setMinBpm(100);
+
+        String plan = explain(() -> audioSampleRepository.findAll(AudioSampleSpecifications.matching(request),
+                PageRequest.of(0, 20, AudioSampleSpecifications.NEWEST_FIRST)));
+
+        assertUsesIndex(plan, "IDX_AUDIO_SAMPLES_ARCHIVED_KEY_BPM");
+    }
+
+    @Test
+    void namePrefix_ShouldUseNameIndex() {
+        String plan = explain(() -> audioSampleRepository.findAll(
+                AudioSampleSpecifications.notArchived().and(AudioSampleSpecifications.nameStartsWith("Boom")),
+                PageRequest.of(0, 50, AudioSampleSpecifications.NEWEST_FIRST)));
+
+        assertUsesIndex(plan, "IDX_AUDIO_SAMPLES_ARCHIVED_NAME");
+    }
+
+    // ================ Helpers ================
+
+    private String explain(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        String select = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().startsWith("select") && !sql.toLowerCase().contains("count("))
+                .findFirst()
+                .orElseThrow();
+        // Only paging values are still bound as parameters
+        String executable = select.replace("?", "20");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + executable, String.class));
+    }
+
+    private void assertUsesIndex(String plan, String indexPrefix) {
+        String upper = plan.toUpperCase();
+        assertTrue(upper.contains(indexPrefix), "expected " + indexPrefix + " in plan:\n" + plan);
+        assertFalse(upper.contains("TABLESCAN"), "unexpected table scan in plan:\n" + plan);
+    }
+
+    private long countSeeded(Genre genre, int bpm) {
+        Genre[] genres = Genre.values();
+        long count = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (genres[i % genres.length] == genre && 80 + i % 100 == bpm && i % 2 != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private AudioSample sample(String name, Genre genre, int bpm, boolean archived) {
+        return AudioSample.builder()
+                .name(name)
+                .authorId(UUID.randomUUID())
+                .artist("Artist")
+                .audioUrl("https://res.cloudinary.com/demo/video/upload/" + name + ".wav")
+                .bpm(bpm)
+                .key(MusicalKey.values()[bpm % MusicalKey.values().length])
+                .genre(genre)
+                .sampleType(SampleType.LOOP)
+                .price(1.0)
+                .salesCount(0L)
+                .archived(archived)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.dtos.enums.payment.ProductType;
+import bg.softuni.dtos.order.OrderItemDTO;
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SampleLicense;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.service.impl.DigitalLicenseServiceImpl;
+import bg.softuni.stylemint.user.model.User;
+import bg.softuni.stylemint.user.repository.UserRepository;
+import bg.softuni.stylemint.user.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the old per-sample pack license grant (exists + user lookup + save per sample)
+ * with the set-based grant, counting JDBC statements and wall time for packs of 10, 100 and 1,000 samples.
+ * Run with {@code -Dlicense.benchmark=true}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:license-benchmark;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = PackLicenseGrantBenchmarkTest.JpaConfig.class)
+@EnabledIfSystemProperty(named = "license.benchmark", matches = "true")
+class PackLicenseGrantBenchmarkTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = {SampleLicenseRepository.class, UserRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private AudioSampleRepository audioSampleRepository;
+
+    @Autowired
+    private SamplePackRepository samplePackRepository;
+
+    @Autowired
+    private SampleLicenseRepository sampleLicenseRepository;
+
+    @Autowired
+    private PackLicenseRepository packLicenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void setBasedGrant_ShouldUseConstantRoundTrips() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        UserService userService = mock(UserService.class);
+        when(userService.getUserById(any()))
+                .thenAnswer(invocation -> userRepository.getUserByIdAndDeletedFalse(invocation.getArgument(0)));
+        DigitalLicenseServiceImpl licenseService = new DigitalLicenseServiceImpl(packLicenseRepository,
+                sampleLicenseRepository, audioSampleRepository, samplePackRepository, null, userService, null);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int size : new int[]{10, 100, 1_000}) {
+            SamplePack pack = packWithSamples(size);
+            UUID orderItemId = UUID.randomUUID();
+
+            UUID legacyUser = user().getId();
+            statistics.clear();
+            long start = System.nanoTime();
+            grantLegacy(userService, legacyUser, pack.getId(), orderItemId);
+            double legacyMs = (System.nanoTime() - start) / 1_000_000.0;
+            long legacyStatements = statistics.getPrepareStatementCount();
+
+            UUID buyer = user().getId();
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductType(ProductType.PACK);
+            item.setProductId(pack.getId());
+            item.setItemId(orderItemId);
+            statistics.clear();
+            start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> licenseService.createLicenseForPaidItem(buyer, item));
+            double setBasedMs = (System.nanoTime() - start) / 1_000_000.0;
+            long setBasedStatements = statistics.getPrepareStatementCount();
+
+            Benchmarks.report("Pack of %,d samples: per-sample %d statements / %.1f ms, set-based %d statements / %.1f ms",
+                    size, legacyStatements, legacyMs, setBasedStatements, setBasedMs);
+
+            Integer granted = transactionTemplate.execute(status ->
+                    sampleLicenseRepository.findLicensedSampleIdsInPack(buyer, pack.getId()).size());
+            assertEquals(size, granted);
+            assertTrue(legacyStatements >= 3L * size);
+            assertTrue(setBasedStatements < 10 + size / 50 + 1,
+                    "set-based grant used " + setBasedStatements + " statements");
+        }
+    }
+
+    // ================ Helpers ================
+
+    /**
+     * The grant loop as it was before the set-based rewrite
+     */
+    private void grantLegacy(UserService userService, UUID userId, UUID packId, UUID orderItemId) {
+        for (UUID sampleId : audioSampleRepository.findIdsByPackId(packId)) {
+            if (!sampleLicenseRepository.existsByUserIdAndAudioSampleId(userId, sampleId)) {
+                sampleLicenseRepository.save(SampleLicense.builder()
+                        .user(userService.getUserById(userId))
+                        .audioSample(audioSampleRepository.getReferenceById(sampleId))
+                        .orderItemId(orderItemId)
+                        .purchasedAt(OffsetDateTime.now())
+                        .archived(false)
+                        .build());
+            }
+        }
+    }
+
+    private SamplePack packWithSamples(int size) {
+        SamplePack pack = samplePackRepository.save(SamplePack.builder()
+                .title("Pack " + size)
+                .authorId(UUID.randomUUID())
+                .artist("Producer")
+                .coverImage("cover.png")
+                .price(10.0)
+                .sampleCount(size)
+                .totalSize("0 MB")
+                .description("Description")
+                .salesCount(0L)
+                .build());
+
+        List<AudioSample> samples = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            samples.add(AudioSample.builder()
+                    .name("Sample " + i)
+                    .authorId(pack.getAuthorId())
+                    .artist("Producer")
+                    .audioUrl("https://res.cloudinary.com/demo/video/upload/" + UUID.randomUUID() + ".wav")
+                    .bpm(120)
+                    .key(MusicalKey.C)
+                    .scale(MusicalScale.MAJOR)
+                    .genre(Genre.TRAP)
+                    .instrumentGroup(InstrumentGroup.DRUMS)
+                    .sampleType(SampleType.LOOP)
+                    .price(1.0)
+                    .salesCount(0L)
+                    .pack(pack)
+                    .build());
+        }
+        audioSampleRepository.saveAll(samples);
+        return pack;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,142 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.product.audio.model.PackRating;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the rating aggregate JPQL (delta update, recomputation, drift candidates) against a real database
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ContextConfiguration(classes = PackRatingAggregatesRepositoryTest.JpaConfig.class)
+class PackRatingAggregatesRepositoryTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = SamplePackRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private SamplePackRepository samplePackRepository;
+
+    @Autowired
+    private PackRatingRepository packRatingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void applyRatingDelta_ShouldMaintainAverageCountAndHistogram() {
+        SamplePack pack = samplePackRepository.saveAndFlush(pack());
+
+        samplePackRepository.applyRatingDelta(pack.getId(), 4.5, 1, 0, 0, 0, 0, 1);
+        samplePackRepository.applyRatingDelta(pack.getId(), 3.0, 1, 0, 0, 1, 0, 0);
+        samplePackRepository.applyRatingDelta(pack.getId(), 1.0, 0, 0, 0, -1, 1, 0);
+        entityManager.clear();
+
+        SamplePack updated = samplePackRepository.findById(pack.getId()).orElseThrow();
+        assertEquals(8.5, updated.getRatingSum(), 1e-9);
+        assertEquals(2, updated.getRatingCount());
+        assertEquals(4.3, updated.getRating(), 1e-9);
+        assertEquals(1, updated.getRatingStars4());
+        assertEquals(1, updated.getRatingStars5());
+        assertEquals(0, updated.getRatingStars3());
+
+        samplePackRepository.applyRatingDelta(pack.getId(), -8.5, -2, 0, 0, 0, -1, -1);
+        entityManager.clear();
+        assertEquals(0.0, samplePackRepository.findById(pack.getId()).orElseThrow().getRating());
+    }
+
+    @Test
+    void entitySave_ShouldNotWriteBackAggregatesLoadedBeforeARatingChange() {
+        SamplePack pack = samplePackRepository.saveAndFlush(pack());
+        entityManager.clear();
+        SamplePack stale = samplePackRepository.findById(pack.getId()).orElseThrow();
+
+        // A rating lands between the load and the save of an unrelated edit
+        samplePackRepository.applyRatingDelta(pack.getId(), 4.0, 1, 0, 0, 0, 1, 0);
+        stale.setTitle("Edited");
+        samplePackRepository.saveAndFlush(stale);
+        entityManager.clear();
+
+        SamplePack stored = samplePackRepository.findById(pack.getId()).orElseThrow();
+        assertEquals("Edited", stored.getTitle());
+        assertEquals(1, stored.getRatingCount());
+        assertEquals(4.0, stored.getRatingSum(), 1e-9);
+        assertEquals(4.0, stored.getRating(), 1e-9);
+        assertEquals(1, stored.getRatingStars4());
+    }
+
+    @Test
+    void overwriteRatingAggregate_ShouldReplaceStoredAggregates() {
+        SamplePack pack = samplePackRepository.saveAndFlush(pack());
+        samplePackRepository.applyRatingDelta(pack.getId(), 1.0, 1, 1, 0, 0, 0, 0);
+
+        samplePackRepository.overwriteRatingAggregate(pack.getId(), 3.5, 7.0, 2, 0, 0, 1, 1, 0);
+        entityManager.clear();
+
+        SamplePack stored = samplePackRepository.findById(pack.getId()).orElseThrow();
+        assertEquals(3.5, stored.getRating(), 1e-9);
+        assertEquals(7.0, stored.getRatingSum(), 1e-9);
+        assertEquals(2, stored.getRatingCount());
+        assertEquals(List.of(0, 0, 1, 1, 0), List.of(stored.getRatingStars1(), stored.getRatingStars2(),
+                stored.getRatingStars3(), stored.getRatingStars4(), stored.getRatingStars5()));
+    }
+
+    @Test
+    void aggregates_ShouldMatchRatingRows_AndListDriftCandidates() {
+        SamplePack rated = samplePackRepository.save(pack());
+        SamplePack unrated = samplePackRepository.save(pack());
+        for (double value : new double[]{1.0, 1.5, 2.5, 4.4, 4.5}) {
+            packRatingRepository.save(PackRating.builder()
+                    .samplePack(rated)
+                    .userId(UUID.randomUUID())
+                    .rating(value)
+                    .build());
+        }
+        entityManager.flush();
+
+        PackRatingAggregateProjection actual = packRatingRepository.aggregateByPackId(rated.getId()).orElseThrow();
+        assertEquals(13.9, actual.getRatingSum(), 1e-9);
+        assertEquals(5, actual.getRatingCount());
+        assertEquals(List.of(1L, 1L, 1L, 1L, 1L), List.of(actual.getStars1(), actual.getStars2(),
+                actual.getStars3(), actual.getStars4(), actual.getStars5()));
+        assertEquals(1, packRatingRepository.aggregateAll().size());
+
+        List<PackRatingAggregateProjection> stored = samplePackRepository.findStoredRatingAggregates();
+        assertEquals(1, stored.size());
+        assertEquals(rated.getId(), stored.get(0).getPackId());
+        assertEquals(0, stored.get(0).getRatingCount());
+        assertTrue(samplePackRepository.findRatingAggregate(unrated.getId()).isPresent());
+        assertTrue(samplePackRepository.findByIdForUpdate(rated.getId()).isPresent());
+    }
+
+    // ================ Helpers ================
+
+    private SamplePack pack() {
+        return SamplePack.builder()
+                .title("Pack")
+                .authorId(UUID.randomUUID())
+                .artist("Producer")
+                .coverImage("cover.png")
+                .price(10.0)
+                .sampleCount(0)
+                .totalSize("0 MB")
+                .description("Description")
+                .salesCount(0L)
+                .build();
+    }
+}
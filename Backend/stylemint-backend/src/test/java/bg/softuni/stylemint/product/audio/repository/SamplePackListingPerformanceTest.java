@@ -0,0 +1,141 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackSearchRequest;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.service.impl.SamplePackServiceImpl;
+import bg.softuni.stylemint.product.audio.service.utils.SamplePackMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pack listing must cost the same number of statements whatever the page size.
+ * The throughput comparison runs with {@code -Dlisting.benchmark=true}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ContextConfiguration(classes = SamplePackListingPerformanceTest.JpaConfig.class)
+class SamplePackListingPerformanceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = SamplePackRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private SamplePackRepository samplePackRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SamplePackServiceImpl samplePackService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        samplePackService = new SamplePackServiceImpl(samplePackRepository, null, null, new SamplePackMapper(),
+                null, null, null, null);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listingPages_ShouldUseConstantStatementCount() {
+        savePacks(60);
+
+        long smallPage = statementsFor(() -> samplePackService.getAllPacks(PageRequest.of(0, 5)));
+        long largePage = statementsFor(() -> samplePackService.getAllPacks(PageRequest.of(0, 50)));
+        assertEquals(smallPage, largePage, "getAllPacks statements grew with the page size");
+        assertTrue(largePage <= 4, "getAllPacks used " + largePage + " statements");
+
+        SamplePackSearchRequest request = new SamplePackSearchRequest();
+        long smallSearch = statementsFor(() -> samplePackService.searchPacks(request, PageRequest.of(0, 5)));
+        long largeSearch = statementsFor(() -> samplePackService.searchPacks(request, PageRequest.of(0, 50)));
+        assertEquals(smallSearch, largeSearch, "searchPacks statements grew with the page size");
+
+        Page<SamplePackDTO> page = samplePackService.getAllPacks(PageRequest.of(0, 50));
+        assertEquals(50, page.getContent().size());
+        assertEquals(60, page.getTotalElements());
+        page.getContent().forEach(dto -> {
+            assertEquals(2, dto.getGenres().size());
+            assertEquals(3, dto.getTags().size());
+        });
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "listing.benchmark", matches = "true")
+    void listingThroughput() {
+        savePacks(2_000);
+
+        double msPerPage = Benchmarks.averageMs(20, 400, i -> {
+            samplePackService.getAllPacks(PageRequest.of(i % 40, 50));
+            entityManager.clear();
+        });
+        long statements = statementsFor(() -> samplePackService.getAllPacks(PageRequest.of(0, 50)));
+        Benchmarks.report("Pack listing: %.0f pages/s (50 packs per page), %d statements per page",
+                1_000 / msPerPage, statements);
+        assertTrue(statements <= 4, "getAllPacks used " + statements + " statements");
+    }
+
+    // ================ Helpers ================
+
+    private long statementsFor(Supplier<?> listing) {
+        entityManager.clear();
+        statistics.clear();
+        listing.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void savePacks(int count) {
+        List<SamplePack> packs = new ArrayList<>();
+        Genre[] genres = Genre.values();
+        for (int i = 0; i < count; i++) {
+            packs.add(SamplePack.builder()
+                    .title("Pack " + i)
+                    .authorId(UUID.randomUUID())
+                    .artist("Producer " + i % 10)
+                    .coverImage("cover.png")
+                    .price(10.0 + i % 20)
+                    .sampleCount(10)
+                    .totalSize("100 MB")
+                    .description("Description")
+                    .salesCount(0L)
+                    .rating(4.0)
+                    .downloads(i)
+                    .genres(new ArrayList<>(List.of(genres[i % genres.length], genres[(i + 1) % genres.length])))
+                    .tags(new ArrayList<>(List.of("drums", "dark", "tag" + i % 7)))
+                    .build());
+        }
+        samplePackRepository.saveAll(packs);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
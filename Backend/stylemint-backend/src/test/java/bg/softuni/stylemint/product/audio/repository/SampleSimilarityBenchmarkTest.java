@@ -0,0 +1,136 @@
+package bg.softuni.stylemint.product.audio.repository;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.service.impl.SampleSimilarityServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the old unbounded "similar samples" query with the precomputed lookup.
+ * Runs outside a test transaction so queued refreshes are applied like after a real commit.
+ * Run with {@code -Dsimilarity.benchmark=true}.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ContextConfiguration(classes = SampleSimilarityBenchmarkTest.JpaConfig.class)
+@EnabledIfSystemProperty(named = "similarity.benchmark", matches = "true")
+class SampleSimilarityBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int PROBES = 20;
+    private static final int TOP_K = 20;
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = AudioSampleRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private AudioSampleRepository audioSampleRepository;
+
+    @Autowired
+    private SampleSimilarityRepository sampleSimilarityRepository;
+
+    @Autowired
+    private SampleLicenseRepository sampleLicenseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void precomputedLookup_ShouldBeBoundedAndFasterThanUnboundedQuery() {
+        List<AudioSample> samples = new ArrayList<>();
+        Genre[] genres = {Genre.TRAP, Genre.HIP_HOP, Genre.HOUSE};
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            samples.add(sample("Sample " + i, genres[i % genres.length], 120 + i % 40,
+                    MusicalKey.values()[i % MusicalKey.values().length]));
+        }
+        audioSampleRepository.saveAllAndFlush(samples);
+
+        SampleSimilarityServiceImpl similarityService = new SampleSimilarityServiceImpl(audioSampleRepository,
+                sampleSimilarityRepository, sampleLicenseRepository, new TransactionTemplate(transactionManager), TOP_K);
+        List<AudioSample> probes = samples.subList(0, PROBES);
+        probes.forEach(probe -> similarityService.sampleChanged(probe.getId()));
+        similarityService.refreshPending();
+
+        Result unbounded = measure(() -> probes.stream()
+                .mapToInt(probe -> entityManager.createQuery(
+                                "SELECT s FROM AudioSample s WHERE s.genre = :genre " +
+                                        "AND s.bpm BETWEEN :bpm - 10 AND :bpm + 10 AND s.id != :excludeId", AudioSample.class)
+                        .setParameter("genre", probe.getGenre())
+                        .setParameter("bpm", probe.getBpm())
+                        .setParameter("excludeId", probe.getId())
+                        .getResultList()
+                        .size())
+                .max().orElse(0));
+        Result precomputed = measure(() -> probes.stream()
+                .mapToInt(probe -> similarityService.findSimilar(probe).size())
+                .max().orElse(0));
+
+        Benchmarks.report("Unbounded query: %.2f ms per request, up to %d rows", unbounded.avgMs(), unbounded.maxRows());
+        Benchmarks.report("Precomputed lookup: %.2f ms per request, up to %d rows", precomputed.avgMs(), precomputed.maxRows());
+
+        assertEquals(TOP_K, precomputed.maxRows());
+        assertTrue(unbounded.maxRows() > precomputed.maxRows());
+        assertTrue(precomputed.avgMs() < unbounded.avgMs());
+    }
+
+    private Result measure(Supplier<Integer> run) {
+        for (int i = 0; i < 3; i++) {
+            run.get();
+            entityManager.clear();
+        }
+        int rounds = 10;
+        int maxRows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            maxRows = Math.max(maxRows, run.get());
+            entityManager.clear();
+        }
+        return new Result((System.nanoTime() - start) / 1_000_000.0 / rounds / PROBES, maxRows);
+    }
+
+    private AudioSample sample(String name, Genre genre, int bpm, MusicalKey key) {
+        return AudioSample.builder()
+                .name(name)
+                .authorId(UUID.randomUUID())
+                .artist("Artist")
+                .audioUrl("https://res.cloudinary.com/demo/video/upload/" + UUID.randomUUID() + ".wav")
+                .bpm(bpm)
+                .key(key)
+                .scale(MusicalScale.MAJOR)
+                .genre(genre)
+                .instrumentGroup(InstrumentGroup.DRUMS)
+                .sampleType(SampleType.LOOP)
+                .price(1.0)
+                .salesCount(0L)
+                .build();
+    }
+
+    private record Result(double avgMs, int maxRows) {
+    }
+}
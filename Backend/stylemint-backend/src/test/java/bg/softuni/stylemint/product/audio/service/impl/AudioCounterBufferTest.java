@@ -0,0 +1,209 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.enums.AudioCounter;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AudioCounterBufferTest {
+
+    @Mock
+    private SamplePackRepository samplePackRepository;
+
+    @Mock
+    private AudioSampleRepository audioSampleRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path journalDir;
+
+    private final UUID packId = UUID.randomUUID();
+    private final UUID sampleId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void flush_ShouldCoalesceIncrementsIntoOneUpdatePerRow() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+        for (int i = 0; i < 250; i++) {
+            buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        }
+        buffer.increment(AudioCounter.SAMPLE_PLAYS, sampleId);
+        buffer.increment(AudioCounter.SAMPLE_PLAYS, sampleId);
+
+        buffer.flush();
+
+        verify(samplePackRepository).addDownloads(packId, 250);
+        verify(audioSampleRepository).addPlays(sampleId, 2L);
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        assertEquals(1, journalFiles().size(), "only the fresh generation's journal should remain");
+    }
+
+    @Test
+    void flush_ShouldSkipDatabase_WhenNothingBuffered() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+
+        buffer.flush();
+
+        verifyNoInteractions(transactionTemplate, samplePackRepository, audioSampleRepository);
+    }
+
+    @Test
+    void flush_ShouldKeepAndRetryBatch_WhenUpdateFails() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+        when(samplePackRepository.addDownloads(any(), anyInt()))
+                .thenThrow(new QueryTimeoutException("db down"))
+                .thenReturn(1);
+
+        buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        buffer.flush();
+
+        buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        buffer.flush();
+
+        verify(samplePackRepository, times(2)).addDownloads(any(), anyInt());
+        verify(samplePackRepository).addDownloads(packId, 3);
+        assertEquals(1, journalFiles().size());
+    }
+
+    @Test
+    void open_ShouldReplayUnflushedJournals_AfterRestart() throws Exception {
+        AudioCounterBuffer crashed = openBuffer();
+        for (int i = 0; i < 5; i++) {
+            crashed.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        }
+        crashed.increment(AudioCounter.SAMPLE_PLAYS, sampleId);
+        // Simulate a crash mid-write: a torn last line
+        Files.writeString(journalFiles().get(0), "PACK_DOWNLOADS 1234", StandardOpenOption.APPEND);
+
+        AudioCounterBuffer restarted = openBuffer();
+        restarted.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        restarted.flush();
+
+        verify(samplePackRepository).addDownloads(packId, 6);
+        verify(audioSampleRepository).addPlays(sampleId, 1L);
+        assertEquals(1, journalFiles().size());
+    }
+
+    @Test
+    void increment_ShouldNotLoseUpdates_UnderConcurrentFlushes() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+        AtomicLong persisted = new AtomicLong();
+        when(samplePackRepository.addDownloads(eq(packId), anyInt())).thenAnswer(invocation -> {
+            persisted.addAndGet(invocation.<Integer>getArgument(1));
+            return 1;
+        });
+
+        int threads = 1000;
+        int perThread = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                buffer.flush();
+            }
+        });
+        flusher.start();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < perThread; j++) {
+                    buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        flusher.join();
+        buffer.close();
+
+        assertEquals((long) threads * perThread, persisted.get());
+        assertTrue(journalFiles().size() <= 1);
+    }
+
+    @Test
+    void apply_ShouldSplitDownloadDeltaPastIntRange_InsteadOfFailing() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+
+        buffer.apply(AudioCounter.PACK_DOWNLOADS, packId, Integer.MAX_VALUE + 5L);
+
+        verify(samplePackRepository).addDownloads(packId, Integer.MAX_VALUE);
+        verify(samplePackRepository).addDownloads(packId, 5);
+    }
+
+    @Test
+    void syncJournal_ShouldKeepJournaledIncrementsReplayable() throws Exception {
+        AudioCounterBuffer buffer = openBuffer();
+        buffer.increment(AudioCounter.PACK_DOWNLOADS, packId);
+        buffer.syncJournal();
+
+        AudioCounterBuffer restarted = openBuffer();
+        restarted.flush();
+
+        verify(samplePackRepository).addDownloads(packId, 1);
+    }
+
+    // ================ Helpers ================
+
+    private AudioCounterBuffer openBuffer() throws Exception {
+        AudioCounterBuffer buffer = new AudioCounterBuffer(samplePackRepository, audioSampleRepository,
+                transactionTemplate, journalDir);
+        buffer.open();
+        return buffer;
+    }
+
+    private List<Path> journalFiles() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -8,8 +8,12 @@ import bg.softuni.stylemint.product.audio.exceptions.AudioFileValidationExceptio
 import bg.softuni.stylemint.product.audio.exceptions.AudioProcessingException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioSampleNotFoundException;
 import bg.softuni.stylemint.product.audio.exceptions.AudioUploadException;
+import bg.softuni.stylemint.product.audio.exceptions.InvalidSearchCursorException;
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleSpecifications;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
+import bg.softuni.stylemint.product.audio.service.SampleSimilarityService;
 import bg.softuni.stylemint.external.claudinary.CloudinaryService;
 import bg.softuni.stylemint.product.audio.service.utils.AudioSampleMapper;
 import bg.softuni.stylemint.user.enums.UserRole;
@@ -24,6 +28,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
@@ -49,6 +54,15 @@ class AudioSampleServiceImplTest {
     @Mock
     private UserRolesService userRolesService;
 
+    @Mock
+    private CatalogSearchService catalogSearchService;
+
+    @Mock
+    private SampleSimilarityService sampleSimilarityService;
+
+    @Mock
+    private AudioCounterBuffer audioCounterBuffer;
+
     @InjectMocks
     private AudioSampleServiceImpl audioSampleService;
 
@@ -309,6 +323,7 @@ class AudioSampleServiceImplTest {
         assertNotNull(audioSample.getArchivedAt());
         verify(audioSampleRepository).save(audioSample);
         verify(userRolesService, never()).removeRoleFromUser(any(), any());
+        verify(sampleSimilarityService).sampleRemoved(sampleId);
     }
 
     @Test
@@ -325,6 +340,22 @@ class AudioSampleServiceImplTest {
         verify(userRolesService).removeRoleFromUser(authorId, UserRole.AUTHOR);
     }
 
+    @Test
+    void findSimilarSamples_ShouldReturnPrecomputedNeighbours() {
+        // Arrange
+        AudioSample neighbour = AudioSample.builder().id(UUID.randomUUID()).name("Neighbour").build();
+        AudioSampleDTO neighbourDTO = AudioSampleDTO.builder().id(neighbour.getId()).name("Neighbour").build();
+        when(audioSampleRepository.findById(sampleId)).thenReturn(Optional.of(audioSample));
+        when(sampleSimilarityService.findSimilar(audioSample)).thenReturn(List.of(neighbour));
+        when(audioSampleMapper.toDTO(neighbour)).thenReturn(neighbourDTO);
+
+        // Act
+        List<AudioSampleDTO> result = audioSampleService.findSimilarSamples(sampleId);
+
+        // Assert
+        assertEquals(List.of(neighbourDTO), result);
+    }
+
     @Test
     void adminArchiveSample_ShouldArchiveAsAdmin() {
         // Arrange
@@ -380,11 +411,9 @@ class AudioSampleServiceImplTest {
         searchRequest.setMaxBpm(160);
 
         Pageable pageable = PageRequest.of(0, 10);
-        Page<AudioSample> samplePage = new PageImpl<>(Arrays.asList(audioSample));
+        Page<AudioSample> samplePage = new PageImpl<>(Arrays.asList(audioSample), pageable, 1);
 
-        when(audioSampleRepository.searchSamples(
-                eq(Genre.HIP_HOP), eq(SampleType.LOOP), eq(100), eq(160),
-                isNull(), isNull(), eq(pageable))).thenReturn(samplePage);
+        when(audioSampleRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(samplePage);
         when(audioSampleMapper.toDTO(audioSample)).thenReturn(audioSampleDTO);
 
         // Act
@@ -393,5 +422,89 @@ class AudioSampleServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
+        assertEquals(1, result.getContent().size());
+    }
+
+    @Test
+    void searchSamples_ShouldDefaultToNewestFirst_WhenUnsorted() {
+        // Arrange
+        when(audioSampleRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(Page.empty());
+
+        // Act
+        audioSampleService.searchSamples(new AudioSampleSearchRequest(), PageRequest.of(2, 10));
+
+        // Assert
+        verify(audioSampleRepository).findAll(any(Specification.class),
+                eq(PageRequest.of(2, 10, AudioSampleSpecifications.NEWEST_FIRST)));
+    }
+
+    @Test
+    void scrollSamples_ShouldReturnCursor_WhenMoreRowsExist() {
+        // Arrange
+        AudioSample newest = sampleCreatedAt(OffsetDateTime.parse("2025-01-03T10:00:00Z"));
+        AudioSample middle = sampleCreatedAt(OffsetDateTime.parse("2025-01-02T10:00:00Z"));
+        AudioSample oldest = sampleCreatedAt(OffsetDateTime.parse("2025-01-01T10:00:00Z"));
+
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(newest, middle, oldest));
+        when(audioSampleMapper.toDTO(any(AudioSample.class))).thenReturn(audioSampleDTO);
+
+        // Act
+        AudioSampleScrollResponse result = audioSampleService.scrollSamples(new AudioSampleSearchRequest(), null, 2);
+
+        // Assert
+        assertTrue(result.isHasNext());
+        assertEquals(2, result.getContent().size());
+        String decoded = new String(Base64.getUrlDecoder().decode(result.getNextCursor()));
+        assertEquals("2025-01-02T10:00:00Z|" + middle.getId(), decoded);
+    }
+
+    @Test
+    void scrollSamples_ShouldReturnNoCursor_OnLastSlice() {
+        // Arrange
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(audioSample));
+        when(audioSampleMapper.toDTO(audioSample)).thenReturn(audioSampleDTO);
+        String cursor = Base64.getUrlEncoder().encodeToString(
+                ("2025-01-02T10:00:00Z|" + UUID.randomUUID()).getBytes());
+
+        // Act
+        AudioSampleScrollResponse result = audioSampleService.scrollSamples(new AudioSampleSearchRequest(), cursor, 20);
+
+        // Assert
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(1, result.getContent().size());
+    }
+
+    @Test
+    void scrollSamples_ShouldRejectMalformedCursor() {
+        assertThrows(InvalidSearchCursorException.class,
+                () -> audioSampleService.scrollSamples(new AudioSampleSearchRequest(), "not-a-cursor", 20));
+
+        verifyNoInteractions(audioSampleRepository);
+    }
+
+    @Test
+    void searchSamplesByName_ShouldReturnEmpty_ForBlankName() {
+        assertTrue(audioSampleService.searchSamplesByName(" ").isEmpty());
+
+        verifyNoInteractions(audioSampleRepository);
+    }
+
+    @Test
+    void recordPlay_ShouldBufferIncrement() {
+        audioSampleService.recordPlay(sampleId);
+
+        verify(audioCounterBuffer).increment(AudioCounter.SAMPLE_PLAYS, sampleId);
+        verifyNoInteractions(audioSampleRepository);
+    }
+
+    private AudioSample sampleCreatedAt(OffsetDateTime createdAt) {
+        return AudioSample.builder()
+                .id(UUID.randomUUID())
+                .name("Sample")
+                .createdAt(createdAt)
+                .build();
     }
 }
\ No newline at end of file
@@ -9,7 +9,6 @@ import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
 import bg.softuni.stylemint.product.audio.model.AudioSample;
 import bg.softuni.stylemint.product.audio.model.PackLicense;
 import bg.softuni.stylemint.product.audio.model.SampleLicense;
-import bg.softuni.stylemint.product.audio.model.SamplePack;
 import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
 import bg.softuni.stylemint.product.audio.repository.PackLicenseRepository;
 import bg.softuni.stylemint.product.audio.repository.SampleLicenseRepository;
@@ -29,11 +28,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -69,13 +70,15 @@ class DigitalLicenseServiceImplTest {
     @Captor
     private ArgumentCaptor<PackLicense> packLicenseCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<SampleLicense>> sampleLicensesCaptor;
+
     private UUID userId;
     private UUID sampleId;
     private UUID packId;
     private UUID orderItemId;
     private User user;
     private AudioSample audioSample;
-    private SamplePack samplePack;
     private OrderItemDTO sampleOrderItem;
     private OrderItemDTO packOrderItem;
 
@@ -93,10 +96,6 @@ class DigitalLicenseServiceImplTest {
         audioSample.setId(sampleId);
         audioSample.setAuthorId(userId);
 
-        samplePack = new SamplePack();
-        samplePack.setId(packId);
-        samplePack.setSamples(List.of(audioSample));
-
         sampleOrderItem = new OrderItemDTO();
         sampleOrderItem.setProductType(ProductType.SAMPLE);
         sampleOrderItem.setProductId(sampleId);
@@ -149,17 +148,18 @@ class DigitalLicenseServiceImplTest {
     @Test
     void createLicenseForPaidItem_WithPack_CreatesPackAndSampleLicenses() {
         // Arrange
+        when(audioSampleRepository.findIdsByPackId(packId)).thenReturn(List.of(sampleId));
         when(packLicenseRepository.existsByUserIdAndPackId(userId, packId)).thenReturn(false);
         when(userService.getUserById(userId)).thenReturn(user);
-        when(samplePackRepository.fetchPackWithSamples(packId)).thenReturn(samplePack);
-        when(sampleLicenseRepository.existsByUserIdAndAudioSampleId(userId, sampleId)).thenReturn(false);
+        when(sampleLicenseRepository.findLicensedSampleIdsInPack(userId, packId)).thenReturn(Set.of());
+        when(audioSampleRepository.getReferenceById(sampleId)).thenReturn(audioSample);
 
         // Act
         digitalLicenseService.createLicenseForPaidItem(userId, packOrderItem);
 
         // Assert
         verify(packLicenseRepository).save(packLicenseCaptor.capture());
-        verify(sampleLicenseRepository).save(sampleLicenseCaptor.capture());
+        verify(sampleLicenseRepository).saveAll(sampleLicensesCaptor.capture());
 
         PackLicense savedPackLicense = packLicenseCaptor.getValue();
         assertThat(savedPackLicense.getUser()).isEqualTo(user);
@@ -167,21 +167,51 @@ class DigitalLicenseServiceImplTest {
         assertThat(savedPackLicense.getOrderItemId()).isEqualTo(orderItemId);
         assertThat(savedPackLicense.isArchived()).isFalse();
 
-        SampleLicense savedSampleLicense = sampleLicenseCaptor.getValue();
-        assertThat(savedSampleLicense.getAudioSample()).isEqualTo(audioSample);
+        List<SampleLicense> savedSampleLicenses = sampleLicensesCaptor.getValue();
+        assertThat(savedSampleLicenses).hasSize(1);
+        assertThat(savedSampleLicenses.get(0).getAudioSample()).isEqualTo(audioSample);
+        assertThat(savedSampleLicenses.get(0).getUser()).isEqualTo(user);
     }
 
     @Test
-    void createLicenseForPaidItem_WithPack_WhenPackNotFound_ThrowsNotFoundException() {
+    void createLicenseForPaidItem_WithPack_LooksUpUserOnceAndSkipsLicensedSamples() {
         // Arrange
-        when(packLicenseRepository.existsByUserIdAndPackId(userId, packId)).thenReturn(false);
+        List<UUID> sampleIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(audioSampleRepository.findIdsByPackId(packId)).thenReturn(sampleIds);
+        when(packLicenseRepository.existsByUserIdAndPackId(userId, packId)).thenReturn(true);
         when(userService.getUserById(userId)).thenReturn(user);
-        when(samplePackRepository.fetchPackWithSamples(packId)).thenReturn(null);
+        when(sampleLicenseRepository.findLicensedSampleIdsInPack(userId, packId)).thenReturn(Set.of(sampleIds.get(1)));
+        when(audioSampleRepository.getReferenceById(any())).thenAnswer(invocation -> {
+            AudioSample reference = new AudioSample();
+            reference.setId(invocation.getArgument(0));
+            return reference;
+        });
+
+        // Act
+        digitalLicenseService.createLicenseForPaidItem(userId, packOrderItem);
+
+        // Assert
+        verify(userService, times(1)).getUserById(userId);
+        verify(sampleLicenseRepository).saveAll(sampleLicensesCaptor.capture());
+        verify(sampleLicenseRepository, never()).save(any(SampleLicense.class));
+        verify(sampleLicenseRepository, never()).existsByUserIdAndAudioSampleId(any(), any());
+        assertThat(sampleLicensesCaptor.getValue())
+                .extracting(license -> license.getAudioSample().getId())
+                .containsExactly(sampleIds.get(0), sampleIds.get(2));
+    }
+
+    @Test
+    void createLicenseForPaidItem_WithPack_WhenPackNotFound_ThrowsNotFoundException() {
+        // Arrange
+        when(audioSampleRepository.findIdsByPackId(packId)).thenReturn(List.of());
+        when(samplePackRepository.existsById(packId)).thenReturn(false);
 
         // Act & Assert
         assertThatThrownBy(() -> digitalLicenseService.createLicenseForPaidItem(userId, packOrderItem))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage("Sample pack not found: " + packId);
+
+        verify(packLicenseRepository, never()).save(any(PackLicense.class));
     }
 
     /* ==========================================================
@@ -374,31 +404,33 @@ class DigitalLicenseServiceImplTest {
     @Test
     void createLicenseForPaidItem_WithPack_WhenSampleLicenseAlreadyExists_DoesNotCreateDuplicate() {
         // Arrange
+        when(audioSampleRepository.findIdsByPackId(packId)).thenReturn(List.of(sampleId));
         when(packLicenseRepository.existsByUserIdAndPackId(userId, packId)).thenReturn(false);
         when(userService.getUserById(userId)).thenReturn(user);
-        when(samplePackRepository.fetchPackWithSamples(packId)).thenReturn(samplePack);
-        when(sampleLicenseRepository.existsByUserIdAndAudioSampleId(userId, sampleId)).thenReturn(true);
+        when(sampleLicenseRepository.findLicensedSampleIdsInPack(userId, packId)).thenReturn(Set.of(sampleId));
 
         // Act
         digitalLicenseService.createLicenseForPaidItem(userId, packOrderItem);
 
         // Assert
         verify(packLicenseRepository).save(any(PackLicense.class)); // Pack license should be created
-        verify(sampleLicenseRepository, never()).save(any(SampleLicense.class)); // But not sample license (already exists)
+        verify(sampleLicenseRepository, never()).saveAll(any()); // But not sample license (already exists)
     }
 
     @Test
     void createLicenseForPaidItem_WithPack_WhenPackLicenseAlreadyExists_DoesNotCreateDuplicate() {
         // Arrange
+        when(audioSampleRepository.findIdsByPackId(packId)).thenReturn(List.of(sampleId));
         when(packLicenseRepository.existsByUserIdAndPackId(userId, packId)).thenReturn(true);
-        when(samplePackRepository.fetchPackWithSamples(packId)).thenReturn(samplePack);
-        when(sampleLicenseRepository.existsByUserIdAndAudioSampleId(userId, sampleId)).thenReturn(false);
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(sampleLicenseRepository.findLicensedSampleIdsInPack(userId, packId)).thenReturn(Set.of());
+        when(audioSampleRepository.getReferenceById(sampleId)).thenReturn(audioSample);
 
         // Act
         digitalLicenseService.createLicenseForPaidItem(userId, packOrderItem);
 
         // Assert
         verify(packLicenseRepository, never()).save(any(PackLicense.class)); // Pack license already exists
-        verify(sampleLicenseRepository).save(any(SampleLicense.class)); // But sample licenses should be created
+        verify(sampleLicenseRepository).saveAll(anyList()); // But sample licenses should be created
     }
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchHit;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchRequest;
+import bg.softuni.stylemint.product.audio.dto.CatalogSearchResultDTO;
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LuceneCatalogSearchServiceTest {
+
+    @Mock
+    private AudioSampleRepository audioSampleRepository;
+
+    @Mock
+    private SamplePackRepository samplePackRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path indexDir;
+
+    private LuceneCatalogSearchService searchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        searchService = new LuceneCatalogSearchService(audioSampleRepository, samplePackRepository,
+                transactionTemplate, indexDir, 1000);
+        searchService.open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        searchService.close();
+    }
+
+    @Test
+    void search_ShouldMatchPrefixes() {
+        AudioSample kick = sample("Punchy Kick Loop", Genre.HIP_HOP, 90, "drums");
+        searchService.indexSample(kick);
+        searchService.indexSample(sample("Airy Pad", Genre.CINEMATIC, 70, "ambient"));
+
+        CatalogSearchResultDTO result = search(request("punc"));
+
+        assertEquals(1, result.getTotalHits());
+        assertEquals(kick.getId(), result.getHits().get(0).getId());
+        assertEquals(CatalogItemType.SAMPLE, result.getHits().get(0).getType());
+        assertEquals(90, result.getHits().get(0).getBpm());
+    }
+
+    @Test
+    void search_ShouldTolerateTypos() {
+        AudioSample snare = sample("Crispy Snare", Genre.TRAP, 140, "percussion");
+        searchService.indexSample(snare);
+
+        CatalogSearchResultDTO result = search(request("crsipy"));
+
+        assertEquals(1, result.getTotalHits());
+        assertEquals(snare.getId(), result.getHits().get(0).getId());
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAboveTagMatches() {
+        AudioSample taggedOnly = sample("Deep Bass", Genre.TRAP, 140, "vocal");
+        AudioSample namedMatch = sample("Vocal Chop", Genre.POP, 120, "chop");
+        searchService.indexSample(taggedOnly);
+        searchService.indexSample(namedMatch);
+
+        List<CatalogSearchHit> hits = search(request("vocal")).getHits();
+
+        assertEquals(2, hits.size());
+        assertEquals(namedMatch.getId(), hits.get(0).getId());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void search_ShouldApplyFiltersAndCountFacets() {
+        searchService.indexSample(sample("Dark Loop A", Genre.TRAP, 140, "dark"));
+        searchService.indexSample(sample("Dark Loop B", Genre.TRAP, 150, "dark"));
+        searchService.indexSample(sample("Dark Loop C", Genre.HOUSE, 124, "dark"));
+        searchService.indexPack(pack("Dark Trap Essentials", List.of(Genre.TRAP, Genre.HIP_HOP)));
+
+        CatalogSearchResultDTO all = search(request("dark"));
+        assertEquals(4, all.getTotalHits());
+        assertEquals(3L, all.getFacets().get("genre").get("TRAP"));
+        assertEquals(1L, all.getFacets().get("genre").get("HOUSE"));
+        assertEquals(3L, all.getFacets().get("type").get("SAMPLE"));
+        assertEquals(1L, all.getFacets().get("type").get("PACK"));
+
+        CatalogSearchRequest filtered = request("dark");
+        filtered.setType(CatalogItemType.SAMPLE);
+        filtered.setGenre(Genre.TRAP);
+        filtered.setMinBpm(145);
+        CatalogSearchResultDTO result = search(filtered);
+
+        assertEquals(1, result.getTotalHits());
+        assertEquals("Dark Loop B", result.getHits().get(0).getName());
+    }
+
+    @Test
+    void indexSample_ShouldReplaceExistingDocument_AndRemoveArchived() {
+        AudioSample sample = sample("Old Name", Genre.TRAP, 140, "tag");
+        searchService.indexSample(sample);
+
+        sample.setName("Fresh Name");
+        searchService.indexSample(sample);
+        assertEquals(0, search(request("old")).getTotalHits());
+        assertEquals(1, search(request("fresh")).getTotalHits());
+
+        sample.setArchived(true);
+        searchService.indexSample(sample);
+        assertEquals(0, search(request("fresh")).getTotalHits());
+    }
+
+    @Test
+    void indexSample_ShouldWaitForTransactionCommit() {
+        AudioSample sample = sample("Pending Sample", Genre.TRAP, 140, "tag");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchService.indexSample(sample);
+            assertEquals(0, search(request("pending")).getTotalHits());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, search(request("pending")).getTotalHits());
+    }
+
+    @Test
+    void rebuildIndex_ShouldReindexFromDatabase() {
+        searchService.indexSample(sample("Stale Sample", Genre.TRAP, 140, "tag"));
+
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(sample("Db Sample One", Genre.TRAP, 140, "tag"),
+                        sample("Db Sample Two", Genre.HOUSE, 124, "tag")))
+                .thenReturn(List.of());
+        when(samplePackRepository.findByArchivedFalse(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(pack("Db Pack", List.of(Genre.TRAP)))))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        int indexed = searchService.rebuildIndex();
+
+        assertEquals(3, indexed);
+        assertEquals(0, search(request("stale")).getTotalHits());
+        assertEquals(3, search(request("db")).getTotalHits());
+    }
+
+    @Test
+    void rebuildIndex_ShouldReplaceDocumentsInPlace_AndKeepLiveChangesMadeDuringIt() {
+        AudioSample renamed = sample("Old Name", Genre.TRAP, 140, "tag");
+        AudioSample removed = sample("Removed Sample", Genre.TRAP, 140, "tag");
+        AudioSample unchanged = sample("Db Sample", Genre.TRAP, 140, "tag");
+        searchService.indexSample(renamed);
+        searchService.indexSample(removed);
+        searchService.indexSample(unchanged);
+
+        AudioSample readByRebuild = sample("Db Renamed", Genre.TRAP, 140, "tag");
+        readByRebuild.setId(renamed.getId());
+        AudioSample created = sample("Created Live", Genre.TRAP, 140, "tag");
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenAnswer(invocation -> {
+                    // the index stays whole while the rebuild reads, and these land mid-rebuild
+                    assertEquals(3, search(request("")).getTotalHits());
+                    searchService.indexSample(created);
+                    searchService.removeSample(removed.getId());
+                    return List.of(readByRebuild, unchanged, removed);
+                })
+                .thenReturn(List.of());
+        when(samplePackRepository.findByArchivedFalse(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        searchService.rebuildIndex();
+
+        assertEquals(0, search(request("old")).getTotalHits());
+        assertEquals(1, search(request("renamed")).getTotalHits());
+        assertEquals(1, search(request("db sample")).getTotalHits());
+        assertEquals(1, search(request("created")).getTotalHits());
+        assertEquals(0, search(request("removed")).getTotalHits());
+        assertEquals(3, search(request("")).getTotalHits());
+    }
+
+    @Test
+    void search_ShouldReturnEmptyResult_ForEmptyIndex() {
+        CatalogSearchResultDTO result = search(request("anything"));
+
+        assertEquals(0, result.getTotalHits());
+        assertTrue(result.getHits().isEmpty());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "search.loadTest", matches = "true")
+    void search_ShouldStayFast_OnMillionItemCatalog() {
+        Genre[] genres = Genre.values();
+        String[] words = {"kick", "snare", "vocal", "bass", "pad", "lead", "pluck", "chord", "hat", "clap"};
+        for (int i = 0; i < 1_000_000; i++) {
+            searchService.indexSample(sample(
+                    words[i % words.length] + " " + words[(i / 10) % words.length] + " " + i,
+                    genres[i % genres.length], 60 + i % 120, words[(i / 100) % words.length]));
+        }
+        searchService.commitPendingChanges();
+
+        CatalogSearchRequest request = request("vocal bas");
+        request.setGenre(Genre.TRAP);
+        double avgMs = Benchmarks.averageMs(20, 100, i -> search(request));
+        Benchmarks.report("Average search over 1M items: %.2f ms", avgMs);
+        assertTrue(avgMs < 10, "average search took " + avgMs + " ms");
+    }
+
+    // ================ Helpers ================
+
+    /**
+     * Searches once every change made so far is searchable
+     */
+    private CatalogSearchResultDTO search(CatalogSearchRequest request) {
+        assertDoesNotThrow(searchService::awaitSearchable);
+        return searchService.search(request);
+    }
+
+    private CatalogSearchRequest request(String query) {
+        CatalogSearchRequest request = new CatalogSearchRequest();
+        request.setQuery(query);
+        return request;
+    }
+
+    private AudioSample sample(String name, Genre genre, int bpm, String tag) {
+        return AudioSample.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .artist("Producer")
+                .genre(genre)
+                .key(MusicalKey.C)
+                .bpm(bpm)
+                .sampleType(SampleType.LOOP)
+                .tags(List.of(tag))
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private SamplePack pack(String title, List<Genre> genres) {
+        return SamplePack.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .artist("Producer")
+                .genres(genres)
+                .tags(List.of("pack"))
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.PackFilterMetadata;
+import bg.softuni.stylemint.product.audio.enums.Genre;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PackFacetAggregateTest {
+
+    @Mock
+    private SamplePackRepository samplePackRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PackFacetAggregate aggregate;
+
+    private final UUID trapPackId = UUID.randomUUID();
+    private final UUID housePackId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(samplePackRepository.findFacetRows()).thenReturn(rows(
+                new Object[]{trapPackId, "Metro", 19.99},
+                new Object[]{housePackId, "Disclosure", 4.99}));
+        when(samplePackRepository.findFacetGenres()).thenReturn(rows(
+                new Object[]{trapPackId, Genre.TRAP},
+                new Object[]{trapPackId, Genre.HIP_HOP},
+                new Object[]{housePackId, Genre.HOUSE}));
+        when(samplePackRepository.findFacetTags()).thenReturn(rows(
+                new Object[]{trapPackId, "808"},
+                new Object[]{housePackId, "808"},
+                new Object[]{housePackId, "chords"}));
+
+        aggregate = new PackFacetAggregate(samplePackRepository, transactionTemplate);
+        aggregate.loadOnStartup();
+    }
+
+    @Test
+    void getMetadata_ShouldServeCountsFromMemory() {
+        PackFilterMetadata metadata = aggregate.getMetadata();
+        aggregate.getMetadata();
+
+        assertEquals(2L, metadata.getTotalPacks());
+        assertEquals(List.of("Disclosure", "Metro"), metadata.getAvailableArtists());
+        assertEquals(List.of(Genre.TRAP, Genre.HOUSE, Genre.HIP_HOP), metadata.getAvailableGenres());
+        assertEquals(2L, metadata.getTagCounts().get("808"));
+        assertEquals(1L, metadata.getPriceBucketCounts().get("0-5"));
+        assertEquals(1L, metadata.getPriceBucketCounts().get("10-20"));
+        assertEquals(0L, metadata.getPriceBucketCounts().get("50+"));
+        assertEquals(4.99, metadata.getMinPrice());
+        assertEquals(19.99, metadata.getMaxPrice());
+        verify(samplePackRepository, times(1)).findFacetRows();
+    }
+
+    @Test
+    void packSaved_ShouldApplyDeltaAndBumpVersion() {
+        String initialVersion = aggregate.getMetadata().getVersion();
+
+        aggregate.packSaved(pack(housePackId, "Disclosure", 59.0, List.of(Genre.TECHNO), List.of("chords")));
+
+        PackFilterMetadata metadata = aggregate.getMetadata();
+        assertNotEquals(initialVersion, metadata.getVersion());
+        assertEquals(2L, metadata.getTotalPacks());
+        assertNull(metadata.getGenreCounts().get(Genre.HOUSE));
+        assertEquals(1L, metadata.getGenreCounts().get(Genre.TECHNO));
+        assertEquals(1L, metadata.getTagCounts().get("808"));
+        assertEquals(0L, metadata.getPriceBucketCounts().get("0-5"));
+        assertEquals(1L, metadata.getPriceBucketCounts().get("50+"));
+        assertEquals(59.0, metadata.getMaxPrice());
+    }
+
+    @Test
+    void packSaved_ShouldKeepVersion_WhenFacetsDidNotChange() {
+        String initialVersion = aggregate.getMetadata().getVersion();
+
+        aggregate.packSaved(pack(trapPackId, "Metro", 19.99, List.of(Genre.HIP_HOP, Genre.TRAP), List.of("808")));
+
+        assertEquals(initialVersion, aggregate.getMetadata().getVersion());
+    }
+
+    @Test
+    void packRemoved_ShouldWaitForTransactionCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aggregate.packRemoved(trapPackId);
+            assertEquals(2L, aggregate.getMetadata().getTotalPacks());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        PackFilterMetadata metadata = aggregate.getMetadata();
+        assertEquals(1L, metadata.getTotalPacks());
+        assertEquals(List.of("Disclosure"), metadata.getAvailableArtists());
+        assertEquals(4.99, metadata.getMaxPrice());
+    }
+
+    @Test
+    void rebuild_ShouldCorrectDrift_AndReplayChangesMadeWhileLoading() {
+        UUID newPackId = UUID.randomUUID();
+        when(samplePackRepository.findFacetRows()).thenAnswer(invocation -> {
+            // A pack is archived while the rebuild is reading the (already stale) rows
+            aggregate.packRemoved(housePackId);
+            return rows(
+                    new Object[]{trapPackId, "Metro", 19.99},
+                    new Object[]{housePackId, "Disclosure", 4.99},
+                    new Object[]{newPackId, "Skrillex", 9.99});
+        });
+        String initialVersion = aggregate.getMetadata().getVersion();
+
+        aggregate.rebuild();
+
+        PackFilterMetadata metadata = aggregate.getMetadata();
+        assertNotEquals(initialVersion, metadata.getVersion());
+        assertEquals(2L, metadata.getTotalPacks());
+        assertEquals(List.of("Metro", "Skrillex"), metadata.getAvailableArtists());
+    }
+
+    // ================ Helpers ================
+
+    private List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private SamplePack pack(UUID id, String artist, double price, List<Genre> genres, List<String> tags) {
+        return SamplePack.builder()
+                .id(id)
+                .artist(artist)
+                .price(price)
+                .genres(genres)
+                .tags(tags)
+                .build();
+    }
+}
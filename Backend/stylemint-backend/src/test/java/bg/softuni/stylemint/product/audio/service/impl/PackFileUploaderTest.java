@@ -0,0 +1,179 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.common.exception.FileProcessingException;
+import bg.softuni.stylemint.external.claudinary.CloudinaryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PackFileUploaderTest {
+
+    private static final UUID AUTHOR_ID = UUID.randomUUID();
+    private static final String COVER_URL = "https://res.cloudinary.com/demo/image/upload/stylemint/pack-covers/cover.jpg";
+
+    @Mock
+    private CloudinaryService cloudinaryService;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private PackFileUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        uploader = new PackFileUploader(cloudinaryService, executor, 3, 1);
+
+        AtomicInteger spoolCounter = new AtomicInteger();
+        when(cloudinaryService.spoolToTempFile(any())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            Path spooled = tempDir.resolve("spool-" + spoolCounter.incrementAndGet());
+            Files.write(spooled, file.getBytes());
+            return spooled;
+        });
+        doAnswer(invocation -> {
+            Files.deleteIfExists(invocation.getArgument(0));
+            return null;
+        }).when(cloudinaryService).deleteTempFile(any());
+        when(cloudinaryService.uploadPackCover(any(File.class), any(UUID.class))).thenReturn(COVER_URL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void upload_ShouldUploadAllFilesInParallel_AndKeepRequestOrder() throws Exception {
+        int sampleCount = 8;
+        CountDownLatch allStarted = new CountDownLatch(sampleCount);
+        when(cloudinaryService.uploadAudio(any(File.class), eq(AUTHOR_ID))).thenAnswer(invocation -> {
+            File file = invocation.getArgument(0);
+            String name = Files.readString(file.toPath());
+            allStarted.countDown();
+            // Only completes if every sample upload is in flight at the same time
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS), "uploads did not run in parallel");
+            return audioResult(name);
+        });
+
+        List<MultipartFile> samples = IntStream.range(0, sampleCount)
+                .mapToObj(i -> (MultipartFile) sample("sample-" + i))
+                .toList();
+
+        PackFileUploader.UploadedPackFiles result = uploader.upload(AUTHOR_ID, cover(), samples);
+
+        assertEquals(COVER_URL, result.coverUrl());
+        assertEquals(sampleCount, result.sampleResults().size());
+        for (int i = 0; i < sampleCount; i++) {
+            assertEquals(urlOf("sample-" + i), result.sampleResults().get(i).get("url"));
+        }
+        assertEquals(samples.stream().mapToLong(MultipartFile::getSize).sum(), result.totalSampleBytes());
+        assertTempFilesDeleted();
+    }
+
+    @Test
+    void upload_ShouldRetryTransientFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(cloudinaryService.uploadAudio(any(File.class), eq(AUTHOR_ID))).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new FileProcessingException("Connection reset");
+            }
+            return audioResult("kick");
+        });
+
+        PackFileUploader.UploadedPackFiles result = uploader.upload(AUTHOR_ID, cover(), List.of(sample("kick")));
+
+        assertEquals(3, attempts.get());
+        assertEquals(urlOf("kick"), result.sampleResults().get(0).get("url"));
+        verify(cloudinaryService, never()).deleteFile(any());
+    }
+
+    @Test
+    void upload_ShouldDeleteUploadedFiles_WhenAnyFileFailsPermanently() throws Exception {
+        CountDownLatch kickUploaded = new CountDownLatch(1);
+        when(cloudinaryService.uploadAudio(any(File.class), eq(AUTHOR_ID))).thenAnswer(invocation -> {
+            File file = invocation.getArgument(0);
+            String name = Files.readString(file.toPath());
+            if (name.equals("broken")) {
+                assertTrue(kickUploaded.await(5, TimeUnit.SECONDS));
+                throw new FileProcessingException("Unsupported format");
+            }
+            kickUploaded.countDown();
+            return audioResult(name);
+        });
+
+        FileProcessingException exception = assertThrows(FileProcessingException.class,
+                () -> uploader.upload(AUTHOR_ID, cover(), List.of(sample("kick"), sample("broken"))));
+
+        assertEquals("Unsupported format", exception.getMessage());
+        verify(cloudinaryService, times(4)).uploadAudio(any(File.class), eq(AUTHOR_ID));
+        verify(cloudinaryService).deleteFile(COVER_URL);
+        verify(cloudinaryService).deleteFile(urlOf("kick"));
+        assertTempFilesDeleted();
+    }
+
+    @Test
+    void discard_ShouldDeleteCoverAndAllSamples() {
+        PackFileUploader.UploadedPackFiles files = new PackFileUploader.UploadedPackFiles(
+                COVER_URL, List.of(audioResult("a"), audioResult("b")), 2);
+
+        uploader.discard(files);
+
+        verify(cloudinaryService).deleteFile(COVER_URL);
+        verify(cloudinaryService).deleteFile(urlOf("a"));
+        verify(cloudinaryService).deleteFile(urlOf("b"));
+    }
+
+    // ================ Helpers ================
+
+    private MockMultipartFile cover() {
+        return new MockMultipartFile("coverImage", "cover.jpg", "image/jpeg", "cover".getBytes());
+    }
+
+    private MockMultipartFile sample(String name) {
+        return new MockMultipartFile("file", name + ".wav", "audio/wav", name.getBytes());
+    }
+
+    private Map<String, Object> audioResult(String name) {
+        return Map.of("url", urlOf(name), "duration", 1.5);
+    }
+
+    private String urlOf(String name) {
+        return "https://res.cloudinary.com/demo/video/upload/stylemint/audio/" + name + ".wav";
+    }
+
+    private void assertTempFilesDeleted() throws Exception {
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count(), "spooled temp files were not deleted");
+        }
+    }
+}
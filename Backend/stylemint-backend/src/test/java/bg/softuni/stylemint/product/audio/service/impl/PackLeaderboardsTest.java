@@ -0,0 +1,90 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.audio.service.utils.SamplePackMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PackLeaderboardsTest {
+
+    private static final int SIZE = 5;
+
+    @Mock
+    private SamplePackRepository samplePackRepository;
+
+    @Mock
+    private SamplePackMapper samplePackMapper;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SamplePack topPack;
+    private SamplePackDTO topPackDTO;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        topPack = SamplePack.builder().id(UUID.randomUUID()).title("Top").build();
+        topPackDTO = SamplePackDTO.builder().id(topPack.getId()).title("Top").build();
+        when(samplePackMapper.toDTO(topPack)).thenReturn(topPackDTO);
+        when(samplePackRepository.findTopRatedPacks(PageRequest.of(0, SIZE))).thenReturn(List.of(topPack));
+        when(samplePackRepository.findMostDownloadedPacks(PageRequest.of(0, SIZE))).thenReturn(List.of());
+        when(samplePackRepository.findLatestPacks(PageRequest.of(0, SIZE))).thenReturn(List.of(topPack));
+        when(samplePackRepository.findFeaturedPacks(PageRequest.of(0, SIZE))).thenReturn(List.of());
+    }
+
+    @Test
+    void boards_ShouldLoadOnceWithLimitAndServeSnapshot() {
+        PackLeaderboards leaderboards = new PackLeaderboards(samplePackRepository, samplePackMapper, transactionTemplate, SIZE, 60_000);
+
+        assertEquals(List.of(topPackDTO), leaderboards.topRated());
+        assertEquals(List.of(topPackDTO), leaderboards.latest());
+        assertTrue(leaderboards.mostDownloaded().isEmpty());
+        assertTrue(leaderboards.featured().isEmpty());
+        leaderboards.topRated();
+
+        verify(samplePackRepository, times(1)).findTopRatedPacks(PageRequest.of(0, SIZE));
+        verify(samplePackRepository, times(1)).findFeaturedPacks(PageRequest.of(0, SIZE));
+    }
+
+    @Test
+    void refresh_ShouldReplaceSnapshot() {
+        PackLeaderboards leaderboards = new PackLeaderboards(samplePackRepository, samplePackMapper, transactionTemplate, SIZE, 60_000);
+        leaderboards.refresh();
+        assertEquals(List.of(topPackDTO), leaderboards.topRated());
+
+        when(samplePackRepository.findTopRatedPacks(PageRequest.of(0, SIZE))).thenReturn(List.of());
+        leaderboards.refresh();
+
+        assertTrue(leaderboards.topRated().isEmpty());
+    }
+
+    @Test
+    void boards_ShouldReloadInline_WhenTimerFellBehind() throws InterruptedException {
+        PackLeaderboards leaderboards = new PackLeaderboards(samplePackRepository, samplePackMapper, transactionTemplate, SIZE, 1);
+        leaderboards.topRated();
+
+        Thread.sleep(5);
+        leaderboards.topRated();
+
+        verify(samplePackRepository, times(2)).findTopRatedPacks(PageRequest.of(0, SIZE));
+    }
+}
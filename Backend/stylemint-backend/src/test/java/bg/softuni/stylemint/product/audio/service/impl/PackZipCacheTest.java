@@ -0,0 +1,168 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDetailDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackZipCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private PackZipCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new PackZipCache(cacheDir.toString(), 250);
+        cache.loadExistingArchives();
+    }
+
+    @Test
+    void find_ShouldReturnCommittedArchiveOnly() throws IOException {
+        UUID packId = UUID.randomUUID();
+
+        PackZipCache.CacheWriter writer = cache.openWriter(packId, "v1");
+        writer.write(new byte[100]);
+
+        assertFalse(isCached(cache, packId, "v1"));
+
+        writer.commit();
+
+        try (PackZipCache.Lease lease = cache.find(packId, "v1").orElseThrow()) {
+            assertEquals(100, lease.archive().contentLength());
+        }
+        assertFalse(isCached(cache, packId, "v2"));
+    }
+
+    @Test
+    void abort_ShouldLeaveNoFiles() throws IOException {
+        PackZipCache.CacheWriter writer = cache.openWriter(UUID.randomUUID(), "v1");
+        writer.write(new byte[10]);
+        writer.abort();
+
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void commit_ShouldEvictLeastRecentlyUsedArchive_WhenOverBudget() throws IOException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        store(first, 100);
+        store(second, 100);
+        isCached(cache, first, "v1"); // first is now more recent than second
+        store(third, 100);
+
+        assertTrue(isCached(cache, first, "v1"));
+        assertFalse(isCached(cache, second, "v1"));
+        assertTrue(isCached(cache, third, "v1"));
+    }
+
+    @Test
+    void invalidate_ShouldRemoveAllVersionsOfPack() throws IOException {
+        UUID packId = UUID.randomUUID();
+        UUID otherPackId = UUID.randomUUID();
+        store(packId, 50);
+        store(otherPackId, 50);
+
+        cache.invalidate(packId);
+
+        assertFalse(isCached(cache, packId, "v1"));
+        assertTrue(isCached(cache, otherPackId, "v1"));
+    }
+
+    @Test
+    void lease_ShouldKeepArchiveReadable_UntilClosed_WhenItIsEvictedMidServe() throws IOException {
+        UUID packId = UUID.randomUUID();
+        store(packId, 100);
+
+        PackZipCache.Lease lease = cache.find(packId, "v1").orElseThrow();
+        cache.invalidate(packId);
+        store(UUID.randomUUID(), 200);
+
+        // Re-openable, e.g. once per region of a multi-range request
+        Resource archive = lease.archive();
+        assertEquals(100, archive.contentLength());
+        assertEquals(100, archive.getContentAsByteArray().length);
+        assertEquals(100, archive.getContentAsByteArray().length);
+        assertFalse(isCached(cache, packId, "v1"));
+
+        lease.close();
+
+        assertFalse(archive.exists());
+    }
+
+    @Test
+    void commit_ShouldNotBeDeletedByADeferredEviction_OfTheSameKey() throws IOException {
+        UUID packId = UUID.randomUUID();
+        store(packId, 100);
+        PackZipCache.Lease lease = cache.find(packId, "v1").orElseThrow();
+        cache.invalidate(packId);
+
+        store(packId, 100);
+        lease.close();
+
+        assertTrue(isCached(cache, packId, "v1"));
+    }
+
+    @Test
+    void loadExistingArchives_ShouldRestoreIndexAfterRestart() throws IOException {
+        UUID packId = UUID.randomUUID();
+        store(packId, 100);
+
+        PackZipCache restarted = new PackZipCache(cacheDir.toString(), 250);
+        restarted.loadExistingArchives();
+
+        assertTrue(isCached(restarted, packId, "v1"));
+    }
+
+    @Test
+    void contentVersion_ShouldChange_WhenSampleChanges() {
+        AudioSampleDTO sample = AudioSampleDTO.builder()
+                .id(UUID.randomUUID())
+                .name("Kick")
+                .audioUrl("https://cdn/kick.mp3")
+                .updatedAt(OffsetDateTime.now())
+                .build();
+        SamplePackDetailDTO pack = SamplePackDetailDTO.builder()
+                .pack(SamplePackDTO.builder().id(UUID.randomUUID()).build())
+                .samples(List.of(sample))
+                .build();
+
+        String before = cache.contentVersion(pack);
+        assertEquals(before, cache.contentVersion(pack));
+
+        sample.setUpdatedAt(sample.getUpdatedAt().plusSeconds(1));
+
+        assertNotEquals(before, cache.contentVersion(pack));
+    }
+
+    private boolean isCached(PackZipCache cache, UUID packId, String version) {
+        Optional<PackZipCache.Lease> lease = cache.find(packId, version);
+        lease.ifPresent(PackZipCache.Lease::close);
+        return lease.isPresent();
+    }
+
+    private void store(UUID packId, int size) throws IOException {
+        PackZipCache.CacheWriter writer = cache.openWriter(packId, "v1");
+        writer.write(new byte[size]);
+        writer.commit();
+    }
+}
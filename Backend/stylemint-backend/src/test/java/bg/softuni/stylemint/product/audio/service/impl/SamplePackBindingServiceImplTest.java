@@ -35,6 +35,9 @@ class SamplePackBindingServiceImplTest {
     @Mock
     private SamplePackStatisticsService statisticsService;
 
+    @Mock
+    private PackZipCache packZipCache;
+
     @InjectMocks
     private SamplePackBindingServiceImpl bindingService;
 
@@ -88,6 +91,7 @@ class SamplePackBindingServiceImplTest {
 
         // Assert
         verify(samplePackRepository, times(1)).save(samplePack);
+        verify(packZipCache).invalidate(packId);
         assertTrue(samplePack.getSamples().contains(audioSample));
     }
 
@@ -152,16 +156,13 @@ class SamplePackBindingServiceImplTest {
     }
 
     @Test
-    void bindSamplesToPack_MultipleSamples_ShouldBindAll() {
+    void bindSamplesToPack_MultipleSamples_ShouldBindAll_WithOneSaveAndOneInvalidation() {
         // Arrange
-        List<UUID> sampleIds = Arrays.asList(
-                UUID.randomUUID(),
-                UUID.randomUUID(),
-                UUID.randomUUID()
-        );
+        List<AudioSample> samples = Arrays.asList(sampleOf(userId), sampleOf(userId), sampleOf(userId));
+        List<UUID> sampleIds = samples.stream().map(AudioSample::getId).toList();
 
-        when(audioSampleRepository.findById(any(UUID.class)))
-                .thenReturn(Optional.of(audioSample));
+        when(audioSampleRepository.findAllById(sampleIds))
+                .thenReturn(samples);
         when(samplePackRepository.findById(packId))
                 .thenReturn(Optional.of(samplePack));
 
@@ -169,8 +170,30 @@ class SamplePackBindingServiceImplTest {
         bindingService.bindSamplesToPack(packId, userId, sampleIds);
 
         // Assert
-        verify(samplePackRepository, times(3)).save(samplePack);
-        verify(audioSampleRepository, times(3)).findById(any(UUID.class));
+        verify(samplePackRepository, times(1)).save(samplePack);
+        verify(packZipCache, times(1)).invalidate(packId);
+        verify(audioSampleRepository, never()).findById(any(UUID.class));
+        assertTrue(samplePack.getSamples().containsAll(samples));
+    }
+
+    @Test
+    void bindSamplesToPack_SampleOfAnotherAuthor_ShouldThrowForbidden_WithoutSaving() {
+        // Arrange
+        List<AudioSample> samples = Arrays.asList(sampleOf(userId), sampleOf(anotherUserId));
+        List<UUID> sampleIds = samples.stream().map(AudioSample::getId).toList();
+
+        when(audioSampleRepository.findAllById(sampleIds))
+                .thenReturn(samples);
+        when(samplePackRepository.findById(packId))
+                .thenReturn(Optional.of(samplePack));
+
+        // Act & Assert
+        assertThrows(ForbiddenOperationException.class, () ->
+                bindingService.bindSamplesToPack(packId, userId, sampleIds)
+        );
+
+        verify(samplePackRepository, never()).save(any());
+        verifyNoInteractions(packZipCache);
     }
 
     @Test
@@ -202,4 +225,12 @@ class SamplePackBindingServiceImplTest {
 
         verify(audioSampleRepository, never()).findById(any());
     }
+
+    private AudioSample sampleOf(UUID authorId) {
+        return AudioSample.builder()
+                .id(UUID.randomUUID())
+                .authorId(authorId)
+                .name("Sample")
+                .build();
+    }
 }
\ No newline at end of file
@@ -3,25 +3,31 @@ package bg.softuni.stylemint.product.audio.service.impl;
 import bg.softuni.stylemint.auth.security.SecurityUtil;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.NotFoundException;
+import bg.softuni.stylemint.product.audio.dto.PackRatingSummaryDTO;
 import bg.softuni.stylemint.product.audio.model.PackRating;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.PackRatingAggregateProjection;
 import bg.softuni.stylemint.product.audio.repository.PackRatingRepository;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +39,9 @@ class SamplePackRatingServiceImplTest {
     @Mock
     private SamplePackRepository samplePackRepository;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private SamplePackRatingServiceImpl ratingService;
 
@@ -66,7 +75,7 @@ class SamplePackRatingServiceImplTest {
     @Test
     void updateUserPackRate_RateOwnPack_ShouldThrowForbidden() {
         // Arrange
-        when(samplePackRepository.findById(packId))
+        when(samplePackRepository.findByIdForUpdate(packId))
                 .thenReturn(Optional.of(samplePack));
 
         // Act & Assert - user tries to rate their own pack
@@ -80,7 +89,7 @@ class SamplePackRatingServiceImplTest {
     @Test
     void updateUserPackRate_PackNotFound_ShouldThrowNotFoundException() {
         // Arrange
-        when(samplePackRepository.findById(packId))
+        when(samplePackRepository.findByIdForUpdate(packId))
                 .thenReturn(Optional.empty());
 
         // Act & Assert
@@ -160,48 +169,120 @@ class SamplePackRatingServiceImplTest {
     }
 
     @Test
-    void updatePackAverageRating_MultipleRatings_ShouldCalculateCorrectAverage() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void updateUserPackRate_NewRating_ShouldApplyDelta() {
         // Arrange
-        PackRating rating1 = new PackRating();
-        rating1.setRating(3.0);
+        when(samplePackRepository.findByIdForUpdate(packId)).thenReturn(Optional.of(samplePack));
+        when(packRatingRepository.findBySamplePackAndUserId(samplePack, userId)).thenReturn(Optional.empty());
 
-        PackRating rating2 = new PackRating();
-        rating2.setRating(4.0);
+        // Act
+        ratingService.updateUserPackRate(packId, userId, 4.5);
 
-        PackRating rating3 = new PackRating();
-        rating3.setRating(5.0);
+        // Assert
+        InOrder inOrder = inOrder(samplePackRepository, packRatingRepository);
+        inOrder.verify(samplePackRepository).findByIdForUpdate(packId);
+        inOrder.verify(packRatingRepository).findBySamplePackAndUserId(samplePack, userId);
+        verify(samplePackRepository).applyRatingDelta(packId, 4.5, 1, 0, 0, 0, 0, 1);
+        verify(packRatingRepository).save(any(PackRating.class));
+        verify(samplePackRepository, never()).findById(any());
+        verify(samplePackRepository, never()).save(any());
+    }
 
-        when(packRatingRepository.findBySamplePack(samplePack))
-                .thenReturn(List.of(rating1, rating2, rating3));
+    @Test
+    void updateUserPackRate_ChangedRating_ShouldMoveBetweenBuckets() {
+        // Arrange
+        packRating.setRating(2.0);
+        when(samplePackRepository.findByIdForUpdate(packId)).thenReturn(Optional.of(samplePack));
+        when(packRatingRepository.findBySamplePackAndUserId(samplePack, userId)).thenReturn(Optional.of(packRating));
 
-        // Act - using reflection to test private method
-        java.lang.reflect.Method method = SamplePackRatingServiceImpl.class
-                .getDeclaredMethod("updatePackAverageRating", SamplePack.class);
-        method.setAccessible(true);
-        method.invoke(ratingService, samplePack);
+        // Act
+        ratingService.updateUserPackRate(packId, userId, 4.0);
 
         // Assert
-        assertEquals(4.0, samplePack.getRating(), 0.1); // (3+4+5)/3 = 4.0
+        verify(samplePackRepository).applyRatingDelta(packId, 2.0, 0, 0, -1, 0, 1, 0);
+        assertEquals(4.0, packRating.getRating());
     }
 
     @Test
-    void updatePackAverageRating_NoRatings_ShouldSetToZero() {
+    void updateUserPackRate_SameRating_ShouldNotTouchAggregates() {
         // Arrange
-        when(packRatingRepository.findBySamplePack(samplePack))
-                .thenReturn(List.of());
-
-        // Act - using reflection
-        try {
-            java.lang.reflect.Method method = SamplePackRatingServiceImpl.class
-                    .getDeclaredMethod("updatePackAverageRating", SamplePack.class);
-            method.setAccessible(true);
-            method.invoke(ratingService, samplePack);
-        } catch (Exception e) {
-            fail("Failed to invoke private method");
-        }
+        when(samplePackRepository.findByIdForUpdate(packId)).thenReturn(Optional.of(samplePack));
+        when(packRatingRepository.findBySamplePackAndUserId(samplePack, userId)).thenReturn(Optional.of(packRating));
+
+        // Act
+        ratingService.updateUserPackRate(packId, userId, 4.5);
+
+        // Assert
+        verify(samplePackRepository, never()).applyRatingDelta(any(), anyDouble(), anyInt(),
+                anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(packRatingRepository, never()).save(any());
+    }
+
+    @Test
+    void removeUserPackRate_ShouldSubtractRatingAndDelete() {
+        // Arrange
+        when(samplePackRepository.findByIdForUpdate(packId)).thenReturn(Optional.of(samplePack));
+        when(packRatingRepository.findBySamplePackAndUserId(samplePack, userId)).thenReturn(Optional.of(packRating));
+
+        // Act
+        ratingService.removeUserPackRate(packId, userId);
+
+        // Assert
+        verify(samplePackRepository).applyRatingDelta(packId, -4.5, -1, 0, 0, 0, 0, -1);
+        verify(packRatingRepository).delete(packRating);
+    }
+
+    @Test
+    void getPackRatingSummary_ShouldReadStoredAggregates() {
+        // Arrange
+        when(samplePackRepository.findRatingAggregate(packId))
+                .thenReturn(Optional.of(aggregate(packId, 12.0, 3, 0, 0, 1, 1, 1)));
+
+        // Act
+        PackRatingSummaryDTO summary = ratingService.getPackRatingSummary(packId);
 
         // Assert
-        assertEquals(0.0, samplePack.getRating(), 0.1);
+        assertEquals(4.0, summary.getAverageRating());
+        assertEquals(3L, summary.getRatingCount());
+        assertEquals(List.of(0L, 0L, 1L, 1L, 1L), List.copyOf(summary.getDistribution().values()));
+        verifyNoInteractions(packRatingRepository);
+    }
+
+    @Test
+    void reconcileRatingAggregates_ShouldFixOnlyDriftedPacks() {
+        // Arrange
+        UUID healthyId = UUID.randomUUID();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        PackRatingAggregateProjection actualDrifted = aggregate(packId, 7.0, 2, 0, 0, 1, 1, 0);
+        when(packRatingRepository.aggregateAll()).thenReturn(List.of(
+                aggregate(healthyId, 5.0, 1, 0, 0, 0, 0, 1), actualDrifted));
+        when(samplePackRepository.findStoredRatingAggregates()).thenReturn(List.of(
+                aggregate(healthyId, 5.0, 1, 0, 0, 0, 0, 1),
+                aggregate(packId, 0.0, 0, 0, 0, 0, 0, 0)));
+        when(samplePackRepository.findByIdForUpdate(packId)).thenReturn(Optional.of(samplePack));
+        when(packRatingRepository.aggregateByPackId(packId)).thenReturn(Optional.of(actualDrifted));
+
+        // Act
+        int corrected = ratingService.reconcileRatingAggregates();
+
+        // Assert
+        assertEquals(1, corrected);
+        verify(samplePackRepository).overwriteRatingAggregate(packId, 3.5, 7.0, 2, 0, 0, 1, 1, 0);
+        verify(samplePackRepository, never()).findByIdForUpdate(healthyId);
+    }
+
+    @Test
+    void starsOf_ShouldRoundHalfUp() {
+        assertEquals(1, SamplePackRatingServiceImpl.starsOf(1.0));
+        assertEquals(2, SamplePackRatingServiceImpl.starsOf(1.5));
+        assertEquals(4, SamplePackRatingServiceImpl.starsOf(4.4));
+        assertEquals(5, SamplePackRatingServiceImpl.starsOf(4.5));
+        assertEquals(5, SamplePackRatingServiceImpl.starsOf(5.0));
     }
 
     @Test
@@ -211,4 +292,20 @@ class SamplePackRatingServiceImplTest {
         assertDoesNotThrow(() -> ratingService.validateRate(3.0));
         assertDoesNotThrow(() -> ratingService.validateRate(5.0));
     }
-}
\ No newline at end of file
+
+    // ================ Helpers ================
+
+    private PackRatingAggregateProjection aggregate(UUID id, double sum, long count,
+                                                    long s1, long s2, long s3, long s4, long s5) {
+        return new PackRatingAggregateProjection() {
+            public UUID getPackId() { return id; }
+            public Double getRatingSum() { return sum; }
+            public long getRatingCount() { return count; }
+            public long getStars1() { return s1; }
+            public long getStars2() { return s2; }
+            public long getStars3() { return s3; }
+            public long getStars4() { return s4; }
+            public long getStars5() { return s5; }
+        };
+    }
+}
@@ -3,10 +3,13 @@ package bg.softuni.stylemint.product.audio.service.impl;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.common.exception.NotFoundException;
 import bg.softuni.stylemint.product.audio.dto.*;
+import bg.softuni.stylemint.product.audio.enums.AudioCounter;
 import bg.softuni.stylemint.product.audio.enums.Genre;
 import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.SamplePackListItem;
 import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
 import bg.softuni.stylemint.product.audio.service.AudioSampleService;
+import bg.softuni.stylemint.product.audio.service.CatalogSearchService;
 import bg.softuni.stylemint.product.audio.service.SamplePackManagementService;
 import bg.softuni.stylemint.product.audio.service.utils.SamplePackMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,6 +45,18 @@ class SamplePackServiceImplTest {
     @Mock
     private SamplePackMapper samplePackMapper;
 
+    @Mock
+    private CatalogSearchService catalogSearchService;
+
+    @Mock
+    private PackFacetAggregate packFacetAggregate;
+
+    @Mock
+    private PackLeaderboards packLeaderboards;
+
+    @Mock
+    private AudioCounterBuffer audioCounterBuffer;
+
     @InjectMocks
     private SamplePackServiceImpl samplePackService;
 
@@ -169,9 +184,9 @@ class SamplePackServiceImplTest {
     @Test
     void getPacksByAuthor_ShouldReturnAuthorPacks() {
         // Arrange
-        List<SamplePack> packs = Arrays.asList(samplePack);
-        when(samplePackRepository.findByAuthorIdAndArchivedFalse(authorId)).thenReturn(packs);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        SamplePackListItem item = listItem();
+        when(samplePackRepository.findByAuthorIdAndArchivedFalse(authorId, SamplePackListItem.class)).thenReturn(List.of(item));
+        when(samplePackMapper.toDTO(eq(item), anyList(), anyList())).thenReturn(samplePackDTO);
 
         // Act
         List<SamplePackDTO> result = samplePackService.getPacksByAuthor(authorId);
@@ -179,16 +194,17 @@ class SamplePackServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(samplePackRepository).findByAuthorIdAndArchivedFalse(authorId);
+        verify(samplePackRepository).findByAuthorIdAndArchivedFalse(authorId, SamplePackListItem.class);
     }
 
     @Test
     void getPacksByArtist_ShouldReturnArtistPacks() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<SamplePack> packPage = new PageImpl<>(Arrays.asList(samplePack));
-        when(samplePackRepository.findByArtistAndArchivedFalse("Test Artist", pageable)).thenReturn(packPage);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        SamplePackListItem item = listItem();
+        when(samplePackRepository.findByArtistAndArchivedFalse("Test Artist", pageable, SamplePackListItem.class))
+                .thenReturn(new PageImpl<>(List.of(item)));
+        when(samplePackMapper.toDTO(eq(item), anyList(), anyList())).thenReturn(samplePackDTO);
 
         // Act
         Page<SamplePackDTO> result = samplePackService.getPacksByArtist("Test Artist", pageable);
@@ -196,7 +212,7 @@ class SamplePackServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(samplePackRepository).findByArtistAndArchivedFalse("Test Artist", pageable);
+        verify(samplePackRepository).findByArtistAndArchivedFalse("Test Artist", pageable, SamplePackListItem.class);
     }
 
     @Test
@@ -219,17 +235,23 @@ class SamplePackServiceImplTest {
     void getAllPacks_ShouldReturnAllPacks() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<SamplePack> packPage = new PageImpl<>(Arrays.asList(samplePack));
-        when(samplePackRepository.findByArchivedFalse(pageable)).thenReturn(packPage);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        SamplePackListItem item = listItem();
+        when(samplePackRepository.findByArchivedFalse(pageable, SamplePackListItem.class))
+                .thenReturn(new PageImpl<>(List.of(item), pageable, 25));
+        when(samplePackRepository.findGenresByPackIds(List.of(packId)))
+                .thenReturn(List.<Object[]>of(new Object[]{packId, Genre.TRAP}, new Object[]{packId, Genre.HIP_HOP}));
+        when(samplePackRepository.findTagsByPackIds(List.of(packId)))
+                .thenReturn(List.<Object[]>of(new Object[]{packId, "drums"}));
+        when(samplePackMapper.toDTO(item, List.of(Genre.TRAP, Genre.HIP_HOP), List.of("drums"))).thenReturn(samplePackDTO);
 
         // Act
         Page<SamplePackDTO> result = samplePackService.getAllPacks(pageable);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.getTotalElements());
-        verify(samplePackRepository).findByArchivedFalse(pageable);
+        assertEquals(25, result.getTotalElements());
+        assertEquals(List.of(samplePackDTO), result.getContent());
+        verify(samplePackRepository, never()).findById(any());
     }
 
     @Test
@@ -261,9 +283,10 @@ class SamplePackServiceImplTest {
     @Test
     void searchPacksByTitle_ShouldReturnTitleMatches() {
         // Arrange
-        List<SamplePack> packs = Arrays.asList(samplePack);
-        when(samplePackRepository.findByTitleContainingIgnoreCaseAndArchivedFalse("Test")).thenReturn(packs);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        SamplePackListItem item = listItem();
+        when(samplePackRepository.findByTitleContainingIgnoreCaseAndArchivedFalse("Test", SamplePackListItem.class))
+                .thenReturn(List.of(item));
+        when(samplePackMapper.toDTO(eq(item), anyList(), anyList())).thenReturn(samplePackDTO);
 
         // Act
         List<SamplePackDTO> result = samplePackService.searchPacksByTitle("Test");
@@ -271,7 +294,7 @@ class SamplePackServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(samplePackRepository).findByTitleContainingIgnoreCaseAndArchivedFalse("Test");
+        verify(samplePackRepository).findByTitleContainingIgnoreCaseAndArchivedFalse("Test", SamplePackListItem.class);
     }
 
     @Test
@@ -279,7 +302,7 @@ class SamplePackServiceImplTest {
         // Arrange
         List<SamplePack> similarPacks = Arrays.asList(samplePack);
         when(samplePackRepository.findById(packId)).thenReturn(Optional.of(samplePack));
-        when(samplePackRepository.findSimilarPacks(samplePack.getGenres(), packId)).thenReturn(similarPacks);
+        when(samplePackRepository.findSimilarPacks(samplePack.getGenres(), packId, PageRequest.of(0, 10))).thenReturn(similarPacks);
         when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
 
         // Act
@@ -288,55 +311,46 @@ class SamplePackServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(samplePackRepository).findSimilarPacks(samplePack.getGenres(), packId);
+        verify(samplePackRepository).findSimilarPacks(samplePack.getGenres(), packId, PageRequest.of(0, 10));
     }
 
     @Test
-    void getTopRatedPacks_ShouldReturnTopRated() {
+    void getTopRatedPacks_ShouldServeLeaderboardSnapshot() {
         // Arrange
-        List<SamplePack> topPacks = Arrays.asList(samplePack);
-        when(samplePackRepository.findTop10ByOrderByRatingDescAndArchivedFalse()).thenReturn(topPacks);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        when(packLeaderboards.topRated()).thenReturn(List.of(samplePackDTO));
 
         // Act
         List<SamplePackDTO> result = samplePackService.getTopRatedPacks();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(samplePackRepository).findTop10ByOrderByRatingDescAndArchivedFalse();
+        assertEquals(List.of(samplePackDTO), result);
+        verifyNoInteractions(samplePackRepository);
     }
 
     @Test
-    void getMostDownloadedPacks_ShouldReturnMostDownloaded() {
+    void getMostDownloadedPacks_ShouldServeLeaderboardSnapshot() {
         // Arrange
-        List<SamplePack> downloadedPacks = Arrays.asList(samplePack);
-        when(samplePackRepository.findTop10ByOrderByDownloadsDescAndArchivedFalse()).thenReturn(downloadedPacks);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        when(packLeaderboards.mostDownloaded()).thenReturn(List.of(samplePackDTO));
 
         // Act
         List<SamplePackDTO> result = samplePackService.getMostDownloadedPacks();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(samplePackRepository).findTop10ByOrderByDownloadsDescAndArchivedFalse();
+        assertEquals(List.of(samplePackDTO), result);
+        verifyNoInteractions(samplePackRepository);
     }
 
     @Test
-    void getLatestPacks_ShouldReturnLatest() {
+    void getLatestPacks_ShouldServeLeaderboardSnapshot() {
         // Arrange
-        List<SamplePack> latestPacks = Arrays.asList(samplePack);
-        when(samplePackRepository.findTop10ByOrderByReleaseDateDescAndArchivedFalse()).thenReturn(latestPacks);
-        when(samplePackMapper.toDTO(samplePack)).thenReturn(samplePackDTO);
+        when(packLeaderboards.latest()).thenReturn(List.of(samplePackDTO));
 
         // Act
         List<SamplePackDTO> result = samplePackService.getLatestPacks();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(samplePackRepository).findTop10ByOrderByReleaseDateDescAndArchivedFalse();
+        assertEquals(List.of(samplePackDTO), result);
+        verifyNoInteractions(samplePackRepository);
     }
 
     @Test
@@ -354,18 +368,14 @@ class SamplePackServiceImplTest {
     }
 
     @Test
-    void incrementDownloadCount_ShouldIncrementDownloads() {
-        // Arrange
-        samplePack.setDownloads(100);
-        when(samplePackRepository.findById(packId)).thenReturn(Optional.of(samplePack));
-        when(samplePackRepository.save(samplePack)).thenReturn(samplePack);
-
+    void incrementDownloadCount_ShouldBufferIncrement() {
         // Act
         samplePackService.incrementDownloadCount(packId);
 
         // Assert
-        assertEquals(101, samplePack.getDownloads());
-        verify(samplePackRepository).save(samplePack);
+        verify(audioCounterBuffer).increment(AudioCounter.PACK_DOWNLOADS, packId);
+        verify(samplePackRepository, never()).findById(any());
+        verify(samplePackRepository, never()).save(any());
     }
 
 
@@ -435,6 +445,7 @@ class SamplePackServiceImplTest {
         assertTrue(samplePack.isArchived());
         assertNotNull(samplePack.getArchivedAt());
         verify(samplePackRepository).save(samplePack);
+        verify(packFacetAggregate).packRemoved(packId);
     }
 
     @Test
@@ -478,4 +489,11 @@ class SamplePackServiceImplTest {
         assertNotNull(samplePack.getArchivedAt());
         verify(samplePackRepository).save(samplePack);
     }
-}
\ No newline at end of file
+
+    // ================ Helpers ================
+
+    private SamplePackListItem listItem() {
+        return new SamplePackListItem(packId, "Test Pack", authorId, "Test Artist", "cover.jpg", 29.99, 10,
+                "100 MB", "Description", 4.5, 2, 100, null, null, null, false);
+    }
+}
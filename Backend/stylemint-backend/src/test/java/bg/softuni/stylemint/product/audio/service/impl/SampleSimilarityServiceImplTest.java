@@ -0,0 +1,281 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SampleSimilarity;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SampleCoDownloadProjection;
+import bg.softuni.stylemint.product.audio.repository.SampleLicenseRepository;
+import bg.softuni.stylemint.product.audio.repository.SampleSimilarityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SampleSimilarityServiceImplTest {
+
+    private static final int TOP_K = 2;
+
+    @Mock
+    private AudioSampleRepository audioSampleRepository;
+
+    @Mock
+    private SampleSimilarityRepository sampleSimilarityRepository;
+
+    @Mock
+    private SampleLicenseRepository sampleLicenseRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SampleSimilarityServiceImpl similarityService;
+
+    private AudioSample sample;
+    private AudioSample close;
+    private AudioSample closer;
+    private AudioSample far;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        similarityService = new SampleSimilarityServiceImpl(audioSampleRepository, sampleSimilarityRepository,
+                sampleLicenseRepository, transactionTemplate, TOP_K);
+
+        sample = sample(140, MusicalKey.C, Genre.TRAP);
+        closer = sample(140, MusicalKey.C, Genre.TRAP);
+        close = sample(145, MusicalKey.G, Genre.TRAP);
+        far = sample(125, MusicalKey.F_SHARP, Genre.TRAP);
+
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(sample, far, close, closer));
+        when(sampleLicenseRepository.findCoDownloadCounts(any(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @Test
+    void findSimilar_ShouldUsePrecomputedNeighbours() {
+        AudioSample archived = sample(140, MusicalKey.C, Genre.TRAP);
+        archived.setArchived(true);
+        when(sampleSimilarityRepository.findSimilarSampleIds(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of(closer.getId(), archived.getId(), close.getId()));
+        when(audioSampleRepository.findAllById(List.of(closer.getId(), archived.getId(), close.getId())))
+                .thenReturn(List.of(close, archived, closer));
+
+        assertEquals(List.of(closer, close), similarityService.findSimilar(sample));
+        verify(audioSampleRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void findSimilar_ShouldRankBoundedCandidates_WhenNotPrecomputedYet() {
+        when(sampleSimilarityRepository.findSimilarSampleIds(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        List<AudioSample> result = similarityService.findSimilar(sample);
+
+        assertEquals(List.of(closer, close), result);
+    }
+
+    @Test
+    void findSimilar_ShouldIncludeCoDownloadedSamples() {
+        AudioSample coDownloaded = sample(100, MusicalKey.F_SHARP, Genre.HOUSE);
+        when(sampleSimilarityRepository.findSimilarSampleIds(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(audioSampleRepository.findBy(any(Specification.class), any())).thenReturn(List.of(far));
+        when(sampleLicenseRepository.findCoDownloadCounts(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of(coDownload(coDownloaded.getId(), 12)));
+        when(sampleLicenseRepository.countLicensesBySampleIds(Set.of(sample.getId(), coDownloaded.getId())))
+                .thenReturn(List.of(coDownload(sample.getId(), 12), coDownload(coDownloaded.getId(), 12)));
+        when(audioSampleRepository.findAllById(List.of(coDownloaded.getId()))).thenReturn(List.of(coDownloaded));
+
+        List<AudioSample> result = similarityService.findSimilar(sample);
+
+        assertEquals(List.of(far, coDownloaded), result);
+    }
+
+    @Test
+    void findSimilar_ShouldNotRankAgain_OnceComputedWithoutNeighbours() {
+        when(sampleSimilarityRepository.findSimilarSampleIds(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(audioSampleRepository.findBy(any(Specification.class), any())).thenReturn(List.of(sample));
+        when(audioSampleRepository.findByIdAndArchivedFalse(sample.getId())).thenReturn(Optional.of(sample));
+
+        assertTrue(similarityService.findSimilar(sample).isEmpty());
+        similarityService.refreshPending();
+        clearInvocations(audioSampleRepository, sampleLicenseRepository);
+
+        assertTrue(similarityService.findSimilar(sample).isEmpty());
+        assertTrue(similarityService.findSimilar(sample).isEmpty());
+        similarityService.refreshPending();
+
+        verifyNoInteractions(audioSampleRepository, sampleLicenseRepository);
+    }
+
+    @Test
+    void refreshPending_ShouldScoreCoDownloadsTheSameFromBothSides() {
+        AudioSample other = sample(140, MusicalKey.C, Genre.TRAP);
+        AudioSample popular = sample(90, MusicalKey.F_SHARP, Genre.HOUSE);
+        when(audioSampleRepository.findBy(any(Specification.class), any())).thenReturn(List.of(sample, other));
+        when(audioSampleRepository.findByIdAndArchivedFalse(sample.getId())).thenReturn(Optional.of(sample));
+        when(audioSampleRepository.findByIdAndArchivedFalse(other.getId())).thenReturn(Optional.of(other));
+        when(audioSampleRepository.findAllById(List.of(popular.getId()))).thenReturn(List.of(popular));
+        // sample shares 3 downloaders with other and 9 with popular; other shares its 3 with sample only
+        when(sampleLicenseRepository.findCoDownloadCounts(eq(sample.getId()), any(Pageable.class)))
+                .thenReturn(List.of(coDownload(popular.getId(), 9), coDownload(other.getId(), 3)));
+        when(sampleLicenseRepository.findCoDownloadCounts(eq(other.getId()), any(Pageable.class)))
+                .thenReturn(List.of(coDownload(sample.getId(), 3)));
+        Map<UUID, Long> licenses = Map.of(sample.getId(), 10L, other.getId(), 4L, popular.getId(), 9L);
+        when(sampleLicenseRepository.countLicensesBySampleIds(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<UUID>>getArgument(0).stream()
+                        .map(id -> coDownload(id, licenses.get(id)))
+                        .toList());
+
+        similarityService.sampleChanged(sample.getId());
+        similarityService.refreshPending();
+        similarityService.sampleChanged(other.getId());
+        similarityService.refreshPending();
+
+        ArgumentCaptor<List<SampleSimilarity>> rows = ArgumentCaptor.captor();
+        verify(sampleSimilarityRepository, times(2)).saveAll(rows.capture());
+        double sampleToOther = scoreOf(rows.getAllValues().get(0), other.getId());
+        double otherToSample = scoreOf(rows.getAllValues().get(1), sample.getId());
+        assertEquals(sampleToOther, otherToSample, 1e-12);
+    }
+
+    @Test
+    void refreshPending_ShouldStoreTopKAndOfferSampleToNeighbours() {
+        when(audioSampleRepository.findByIdAndArchivedFalse(sample.getId())).thenReturn(Optional.of(sample));
+        when(sampleSimilarityRepository.findBySampleIdOrderByScoreDesc(closer.getId())).thenReturn(new ArrayList<>());
+        SampleSimilarity weakest = SampleSimilarity.builder().sampleId(close.getId()).similarSampleId(UUID.randomUUID()).score(0.1).build();
+        when(sampleSimilarityRepository.findBySampleIdOrderByScoreDesc(close.getId()))
+                .thenReturn(new ArrayList<>(List.of(
+                        SampleSimilarity.builder().sampleId(close.getId()).similarSampleId(UUID.randomUUID()).score(0.9).build(),
+                        weakest)));
+
+        similarityService.sampleChanged(sample.getId());
+        similarityService.refreshPending();
+
+        verify(sampleSimilarityRepository).deleteBySampleId(sample.getId());
+        ArgumentCaptor<List<SampleSimilarity>> rows = ArgumentCaptor.captor();
+        verify(sampleSimilarityRepository).saveAll(rows.capture());
+        assertEquals(List.of(closer.getId(), close.getId()),
+                rows.getValue().stream().map(SampleSimilarity::getSimilarSampleId).toList());
+
+        // closer had room, close had to drop its weakest neighbour
+        verify(sampleSimilarityRepository).delete(weakest);
+        ArgumentCaptor<SampleSimilarity> offered = ArgumentCaptor.forClass(SampleSimilarity.class);
+        verify(sampleSimilarityRepository, times(2)).save(offered.capture());
+        assertTrue(offered.getAllValues().stream().allMatch(row -> row.getSimilarSampleId().equals(sample.getId())));
+    }
+
+    @Test
+    void refreshPending_ShouldDropRemovedSampleAndRefillAffectedLists() {
+        when(audioSampleRepository.findByIdAndArchivedFalse(sample.getId())).thenReturn(Optional.empty());
+        when(sampleSimilarityRepository.findSampleIdsBySimilarSampleId(sample.getId())).thenReturn(List.of(close.getId()));
+        when(audioSampleRepository.findAllById(List.of(close.getId()))).thenReturn(List.of(close));
+
+        similarityService.sampleRemoved(sample.getId());
+        similarityService.refreshPending();
+
+        verify(sampleSimilarityRepository).deleteAllReferencing(sample.getId());
+        verify(sampleSimilarityRepository).deleteBySampleId(close.getId());
+        verify(sampleSimilarityRepository, never()).save(any());
+    }
+
+    @Test
+    void sampleChanged_ShouldWaitForTransactionCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            similarityService.sampleChanged(sample.getId());
+            similarityService.refreshPending();
+            verifyNoInteractions(sampleSimilarityRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        similarityService.refreshPending();
+        verify(audioSampleRepository).findByIdAndArchivedFalse(sample.getId());
+    }
+
+    @Test
+    void rebuildAll_ShouldRecomputeEveryActiveSample() {
+        when(audioSampleRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(sample, close))
+                .thenReturn(List.of(sample, far, close, closer));
+
+        int processed = similarityService.rebuildAll();
+
+        assertEquals(2, processed);
+        verify(sampleSimilarityRepository).deleteInactive();
+        verify(sampleSimilarityRepository).deleteBySampleId(sample.getId());
+        verify(sampleSimilarityRepository).deleteBySampleId(close.getId());
+    }
+
+    // ================ Helpers ================
+
+    private AudioSample sample(int bpm, MusicalKey key, Genre genre) {
+        return AudioSample.builder()
+                .id(UUID.randomUUID())
+                .name("Sample")
+                .bpm(bpm)
+                .key(key)
+                .scale(MusicalScale.MAJOR)
+                .genre(genre)
+                .instrumentGroup(InstrumentGroup.DRUMS)
+                .build();
+    }
+
+    private double scoreOf(List<SampleSimilarity> rows, UUID similarSampleId) {
+        return rows.stream()
+                .filter(row -> row.getSimilarSampleId().equals(similarSampleId))
+                .findFirst()
+                .orElseThrow()
+                .getScore();
+    }
+
+    private SampleCoDownloadProjection coDownload(UUID sampleId, long count) {
+        return new SampleCoDownloadProjection() {
+            @Override
+            public UUID getSampleId() {
+                return sampleId;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
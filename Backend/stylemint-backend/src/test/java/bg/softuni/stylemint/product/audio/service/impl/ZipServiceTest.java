@@ -0,0 +1,270 @@
+package bg.softuni.stylemint.product.audio.service.impl;
+
+import bg.softuni.stylemint.product.audio.dto.AudioSampleDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDTO;
+import bg.softuni.stylemint.product.audio.dto.SamplePackDetailDTO;
+import bg.softuni.stylemint.product.audio.dto.ZipResult;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipServiceTest {
+
+    private static final int PREFETCH_WINDOW = 8;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private HttpServer server;
+    private String baseUrl;
+    private ExecutorService fetchExecutor;
+    private ZipService zipService;
+
+    @TempDir
+    Path cacheDir;
+
+    private PackZipCache packZipCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fetchExecutor = Executors.newFixedThreadPool(PREFETCH_WINDOW);
+        packZipCache = new PackZipCache(cacheDir.toString(), 1024L * 1024 * 1024);
+        packZipCache.loadExistingArchives();
+        zipService = new ZipService(fetchExecutor, PREFETCH_WINDOW, packZipCache);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/sample/", exchange -> {
+            requestCount.incrementAndGet();
+            String name = exchange.getRequestURI().getPath().substring("/sample/".length());
+            byte[] body = ("audio-" + name).repeat(1000).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // Stand-in for slow storage: /slow/{latencyMs}/{name}
+        server.createContext("/slow/", exchange -> {
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            try {
+                Thread.sleep(Long.parseLong(parts[2]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("audio-" + parts[3]).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/missing/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/large/", exchange -> {
+            long size = Long.parseLong(exchange.getRequestURI().getPath().substring("/large/".length()));
+            exchange.sendResponseHeaders(200, size);
+            byte[] chunk = new byte[64 * 1024];
+            new Random(42).nextBytes(chunk);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (long written = 0; written < size; written += chunk.length) {
+                    out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+                }
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        fetchExecutor.shutdownNow();
+    }
+
+    @Test
+    void createPackZip_ShouldStreamStoredEntries() throws Exception {
+        SamplePackDetailDTO pack = pack("My Pack!",
+                sample("Kick", baseUrl + "/sample/kick"),
+                sample("Snare", baseUrl + "/sample/snare"));
+
+        ZipResult result = zipService.createPackZip(pack);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals("My_Pack.zip", result.getFileName());
+
+        Map<String, String> entries = readEntries(out.toByteArray());
+        assertEquals(List.of("Kick.mp3", "Snare.mp3"), new ArrayList<>(entries.keySet()));
+        assertEquals("audio-kick".repeat(1000), entries.get("Kick.mp3"));
+        assertEquals("audio-snare".repeat(1000), entries.get("Snare.mp3"));
+    }
+
+    @Test
+    void createPackZip_ShouldSkipFailedSamples_AndKeepArchiveValid() throws Exception {
+        SamplePackDetailDTO pack = pack("Pack",
+                sample("Kick", baseUrl + "/sample/kick"),
+                sample("Broken", baseUrl + "/missing/broken"),
+                sample("Kick", baseUrl + "/sample/kick2"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        zipService.createPackZip(pack).getBody().writeTo(out);
+
+        Map<String, String> entries = readEntries(out.toByteArray());
+        assertEquals(List.of("Kick.mp3", "Kick_2.mp3"), new ArrayList<>(entries.keySet()));
+    }
+
+    @Test
+    void createPackZip_ShouldFetchSamplesInParallel_AndKeepPackOrder() throws Exception {
+        long latencyMs = 300;
+        AudioSampleDTO[] samples = new AudioSampleDTO[PREFETCH_WINDOW];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = sample("Sample " + i, baseUrl + "/slow/" + latencyMs + "/s" + i);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        zipService.createPackZip(pack("Slow", samples)).getBody().writeTo(out);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Map<String, String> entries = readEntries(out.toByteArray());
+        List<String> expectedNames = new ArrayList<>();
+        for (int i = 0; i < samples.length; i++) {
+            expectedNames.add("Sample_" + i + ".mp3");
+            assertEquals("audio-s" + i, entries.get("Sample_" + i + ".mp3"));
+        }
+        assertEquals(expectedNames, new ArrayList<>(entries.keySet()));
+
+        // Sequential fetching would take PREFETCH_WINDOW * latencyMs
+        assertTrue(elapsedMs < 3 * latencyMs, "ZIP took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void createPackZip_ShouldServeRepeatDownloadFromCache() throws Exception {
+        SamplePackDetailDTO pack = pack("Cached",
+                sample("Kick", baseUrl + "/sample/kick"),
+                sample("Snare", baseUrl + "/sample/snare"));
+
+        ZipResult first = zipService.createPackZip(pack);
+        assertFalse(first.isCached());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.getBody().writeTo(out);
+
+        ZipResult second = zipService.createPackZip(pack);
+
+        assertTrue(second.isCached());
+        assertEquals(first.getVersion(), second.getVersion());
+        try (PackZipCache.Lease lease = second.getCachedArchive()) {
+            assertArrayEquals(out.toByteArray(), lease.archive().getContentAsByteArray());
+        }
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    void createPackZip_ShouldNotCacheArchive_WhenSampleFails() throws Exception {
+        SamplePackDetailDTO pack = pack("Partial",
+                sample("Kick", baseUrl + "/sample/kick"),
+                sample("Broken", baseUrl + "/missing/broken"));
+
+        zipService.createPackZip(pack).getBody().writeTo(new ByteArrayOutputStream());
+
+        assertFalse(zipService.createPackZip(pack).isCached());
+    }
+
+    @Test
+    void createPackZip_ShouldRebuild_WhenPackContentChanges() throws Exception {
+        AudioSampleDTO kick = sample("Kick", baseUrl + "/sample/kick");
+        SamplePackDetailDTO pack = pack("Changing", kick);
+        zipService.createPackZip(pack).getBody().writeTo(new ByteArrayOutputStream());
+
+        kick.setAudioUrl(baseUrl + "/sample/kick-v2");
+
+        assertFalse(zipService.createPackZip(pack).isCached());
+    }
+
+    @Test
+    void createPackZip_ShouldThrow_WhenPackIsEmpty() {
+        SamplePackDetailDTO pack = pack("Empty");
+
+        assertThrows(IllegalStateException.class, () -> zipService.createPackZip(pack));
+    }
+
+    /**
+     * Streams a multi-GB pack. Run with a small heap to check memory stays flat:
+     * mvn test -Dtest=ZipServiceTest -Dzip.largePackTest=true -DargLine=-Xmx64m
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "zip.largePackTest", matches = "true")
+    void createPackZip_ShouldStreamMultiGigabytePack_WithConstantMemory() throws Exception {
+        long sampleSize = 768L * 1024 * 1024;
+        SamplePackDetailDTO pack = pack("Large",
+                sample("One", baseUrl + "/large/" + sampleSize),
+                sample("Two", baseUrl + "/large/" + sampleSize),
+                sample("Three", baseUrl + "/large/" + sampleSize),
+                sample("Four", baseUrl + "/large/" + sampleSize));
+
+        CountingOutputStream out = new CountingOutputStream();
+        zipService.createPackZip(pack).getBody().writeTo(out);
+
+        assertTrue(out.count > 4 * sampleSize);
+    }
+
+    private Map<String, String> readEntries(byte[] zipBytes) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                entries.put(entry.getName(), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private SamplePackDetailDTO pack(String title, AudioSampleDTO... samples) {
+        return SamplePackDetailDTO.builder()
+                .pack(SamplePackDTO.builder().id(UUID.randomUUID()).title(title).build())
+                .samples(List.of(samples))
+                .build();
+    }
+
+    private AudioSampleDTO sample(String name, String url) {
+        return AudioSampleDTO.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .audioUrl(url)
+                .build();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
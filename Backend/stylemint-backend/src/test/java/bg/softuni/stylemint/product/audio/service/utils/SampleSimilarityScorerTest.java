@@ -0,0 +1,58 @@
+package bg.softuni.stylemint.product.audio.service.utils;
+
+import bg.softuni.stylemint.product.audio.enums.*;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampleSimilarityScorerTest {
+
+    @Test
+    void bpmSimilarity_ShouldTreatHalfAndDoubleTimeAsClose() {
+        assertEquals(1.0, SampleSimilarityScorer.bpmSimilarity(140, 140));
+        assertEquals(1.0, SampleSimilarityScorer.bpmSimilarity(140, 70));
+        assertEquals(0.5, SampleSimilarityScorer.bpmSimilarity(140, 130), 1e-9);
+        assertEquals(0.0, SampleSimilarityScorer.bpmSimilarity(140, 100));
+        assertEquals(0.0, SampleSimilarityScorer.bpmSimilarity(null, 100));
+    }
+
+    @Test
+    void keySimilarity_ShouldFollowCircleOfFifths() {
+        assertEquals(1.0, SampleSimilarityScorer.keySimilarity(MusicalKey.C, MusicalScale.MAJOR, MusicalKey.C, MusicalScale.MAJOR));
+        assertEquals(5 / 6.0, SampleSimilarityScorer.keySimilarity(MusicalKey.C, MusicalScale.MAJOR, MusicalKey.G, MusicalScale.MAJOR), 1e-9);
+        assertEquals(0.0, SampleSimilarityScorer.keySimilarity(MusicalKey.C, MusicalScale.MAJOR, MusicalKey.F_SHARP, MusicalScale.MAJOR), 1e-9);
+        // A minor is the relative minor of C major
+        assertEquals(1.0, SampleSimilarityScorer.keySimilarity(MusicalKey.A, MusicalScale.MINOR, MusicalKey.C, MusicalScale.MAJOR));
+    }
+
+    @Test
+    void compatibleKeys_ShouldIncludeFifthsNeighboursAndRelativeRoots() {
+        assertEquals(Set.of(MusicalKey.C, MusicalKey.G, MusicalKey.F, MusicalKey.D_SHARP, MusicalKey.A),
+                SampleSimilarityScorer.compatibleKeys(MusicalKey.C));
+    }
+
+    @Test
+    void score_ShouldBeSymmetricAndPreferCloserSamples() {
+        AudioSample base = sample(140, MusicalKey.C, Genre.TRAP, InstrumentGroup.DRUMS);
+        AudioSample close = sample(142, MusicalKey.G, Genre.TRAP, InstrumentGroup.DRUMS);
+        AudioSample far = sample(100, MusicalKey.F_SHARP, Genre.HOUSE, InstrumentGroup.KEYS);
+
+        double closeScore = SampleSimilarityScorer.score(base, close, 0);
+        assertEquals(closeScore, SampleSimilarityScorer.score(close, base, 0), 1e-9);
+        assertTrue(closeScore > SampleSimilarityScorer.score(base, far, 0));
+        assertTrue(SampleSimilarityScorer.score(base, far, 1) > SampleSimilarityScorer.score(base, far, 0));
+    }
+
+    private AudioSample sample(int bpm, MusicalKey key, Genre genre, InstrumentGroup instrumentGroup) {
+        return AudioSample.builder()
+                .bpm(bpm)
+                .key(key)
+                .scale(MusicalScale.MAJOR)
+                .genre(genre)
+                .instrumentGroup(instrumentGroup)
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package bg.softuni.stylemint.product.common.repository;
+
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The bonus points balance must stay equal to its ledger under concurrent earn/spend operations,
+ * be read with a single statement, and be recomputed from the designs by the reconciliation.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bonus-points;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = BonusPointsLedgerIntegrationTest.JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BonusPointsLedgerIntegrationTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = {BonusPointsBalanceRepository.class, ClothDesignRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private BonusPointsBalanceRepository balanceRepository;
+
+    @Autowired
+    private BonusPointsEntryRepository entryRepository;
+
+    @Autowired
+    private ClothDesignRepository clothDesignRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private BonusPointsService bonusPointsService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bonusPointsService = new BonusPointsService(balanceRepository, entryRepository, clothDesignRepository,
+                transactionManager);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clothDesignRepository.deleteAllInBatch();
+        entryRepository.deleteAllInBatch();
+        balanceRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void adjust_ShouldKeepBalanceEqualToLedger_UnderConcurrentEarnAndSpend() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 8;
+        int operationsPerThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        // earn 50, then take 30 back, each in its own transaction; the first ones race to open the balance
+                        int delta = i % 2 == 0 ? 50 : -30;
+                        transactionTemplate.executeWithoutResult(status ->
+                                bonusPointsService.adjust(userId, delta, BonusPointsReason.DESIGN_UPDATED, null));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int expected = threads * (operationsPerThread / 2) * (50 - 30);
+        assertEquals(expected, bonusPointsService.getUserBonusPoints(userId));
+        assertEquals(expected, entryRepository.sumDeltaByUserId(userId));
+        assertEquals(threads * operationsPerThread, entryRepository.count());
+        assertEquals(1, balanceRepository.count());
+    }
+
+    @Test
+    void getUserBonusPoints_ShouldBeASingleStatement_WhateverTheNumberOfDesigns() {
+        UUID userId = UUID.randomUUID();
+        saveDesigns(userId, 200, 20);
+        bonusPointsService.reconcileBalances();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        int points = bonusPointsService.getUserBonusPoints(userId);
+
+        assertEquals(200 * 20, points);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reconcileBalances_ShouldRecomputeBalancesFromDesigns_AndBookTheDriftToTheLedger() {
+        UUID drifted = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        UUID consistent = UUID.randomUUID();
+        saveDesigns(drifted, 3, 20);
+        saveDesigns(missing, 2, 40);
+        saveDesigns(consistent, 1, 100);
+        transactionTemplate.executeWithoutResult(status -> {
+            bonusPointsService.adjust(drifted, 100, BonusPointsReason.DESIGN_CREATED, null);
+            bonusPointsService.adjust(consistent, 100, BonusPointsReason.DESIGN_CREATED, null);
+        });
+
+        assertEquals(2, bonusPointsService.reconcileBalances());
+
+        assertEquals(60, bonusPointsService.getUserBonusPoints(drifted));
+        assertEquals(80, bonusPointsService.getUserBonusPoints(missing));
+        assertEquals(100, bonusPointsService.getUserBonusPoints(consistent));
+        assertEquals(60, entryRepository.sumDeltaByUserId(drifted));
+        assertEquals(80, entryRepository.sumDeltaByUserId(missing));
+        assertEquals(0, bonusPointsService.reconcileBalances());
+    }
+
+    // ================ Helpers ================
+
+    private void saveDesigns(UUID userId, int count, int bonusPoints) {
+        List<ClothDesign> designs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            designs.add(ClothDesign.builder()
+                    .userId(userId)
+                    .label("Design " + i)
+                    .clothType(ClothType.HOODIE)
+                    .customizationType(CustomizationType.SIMPLE)
+                    .customizationJson("{\"color\":\"red\"}")
+                    .isPublic(true)
+                    .autoSaved(false)
+                    .bonusPoints(bonusPoints)
+                    .price(30.0)
+                    .salesCount(0L)
+                    .build());
+        }
+        clothDesignRepository.saveAll(designs);
+    }
+}
@@ -0,0 +1,285 @@
+package bg.softuni.stylemint.product.common.repository;
+
+import bg.softuni.dtos.enums.payment.PaymentMethod;
+import bg.softuni.dtos.enums.payment.ProductType;
+import bg.softuni.dtos.nft.UserNftsResponse;
+import bg.softuni.dtos.order.CreateOrderRequestDTO;
+import bg.softuni.dtos.order.CreateOrderResponseDTO;
+import bg.softuni.dtos.order.OrderItemRequestDTO;
+import bg.softuni.stylemint.external.exceptions.order.OrderServiceException;
+import bg.softuni.stylemint.external.facade.nft.NftServiceFacade;
+import bg.softuni.stylemint.external.facade.order.OrderServiceFacade;
+import bg.softuni.stylemint.external.service.order.impl.OrderPriceServiceImpl;
+import bg.softuni.stylemint.external.service.order.impl.OrderProxyServiceImpl;
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.audio.service.DigitalLicenseService;
+import bg.softuni.stylemint.product.common.model.UserDiscount;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.common.service.impl.OneTimeDiscountService;
+import bg.softuni.stylemint.product.common.service.impl.PriceTable;
+import bg.softuni.stylemint.product.common.service.impl.ProductFetchService;
+import bg.softuni.stylemint.product.common.service.impl.UniversalDiscountService;
+import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import feign.Request;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Concurrent checkouts of one user must price at most one order with each one-time discount,
+ * a discount comes back only when its order was certainly not created, and redeeming a discount
+ * the pricing already looked up must not query it again.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:one-time-discounts;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = OneTimeDiscountRedemptionIntegrationTest.JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OneTimeDiscountRedemptionIntegrationTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = UserDiscountRepository.class)
+    static class JpaConfig {
+
+        // A bean, so its @Transactional methods commit on their own as in the application
+        @Bean
+        OneTimeDiscountService oneTimeDiscountService(UserDiscountRepository discountRepository) {
+            return new OneTimeDiscountService(discountRepository, Caffeine.newBuilder().build());
+        }
+    }
+
+    private static final double SAMPLE_PRICE = 100.0;
+
+    @Autowired
+    private UserDiscountRepository discountRepository;
+
+    @Autowired
+    private OneTimeDiscountService oneTimeDiscountService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private OrderServiceFacade orderServiceFacade;
+    private OrderProxyServiceImpl orderProxyService;
+    private List<BigDecimal> orderedPrices;
+
+    private final UUID sampleId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        NftServiceFacade nftServiceFacade = mock(NftServiceFacade.class);
+        when(nftServiceFacade.getUserNfts(any())).thenAnswer(invocation -> noNfts(invocation.getArgument(0)));
+        AudioSampleRepository audioSampleRepository = mock(AudioSampleRepository.class);
+        when(audioSampleRepository.findAllById(any())).thenReturn(List.of(
+                AudioSample.builder().id(sampleId).price(SAMPLE_PRICE).salesCount(0L).build()));
+
+        UniversalDiscountService discountService = new UniversalDiscountService(oneTimeDiscountService, nftServiceFacade,
+                Caffeine.newBuilder().build(), mock(BonusPointsService.class), new PriceTable(new FashionPriceProperties()));
+        OrderPriceServiceImpl orderPriceService = new OrderPriceServiceImpl(
+                new ProductFetchService(mock(ClothDesignRepository.class), audioSampleRepository, mock(SamplePackRepository.class)),
+                discountService);
+
+        orderedPrices = Collections.synchronizedList(new ArrayList<>());
+        orderServiceFacade = mock(OrderServiceFacade.class);
+        when(orderServiceFacade.createOrder(any())).thenAnswer(invocation -> {
+            CreateOrderRequestDTO request = invocation.getArgument(0);
+            orderedPrices.add(request.getItems().get(0).getPricePerUnit());
+            return CreateOrderResponseDTO.builder().orderId(UUID.randomUUID()).build();
+        });
+        orderProxyService = new OrderProxyServiceImpl(orderServiceFacade, orderPriceService, mock(DigitalLicenseService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        discountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void createOrder_ShouldPriceAtMostOneOrderWithEachDiscount_UnderConcurrentCheckouts() throws Exception {
+        UUID userId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_40, RewardType.DISCOUNT_20);
+        // Every checkout sees the 40% discount in the cache before any of them claims it
+        assertEquals(0.40, oneTimeDiscountService.getBestDiscountPercentage(userId));
+
+        checkoutConcurrently(userId, 16);
+
+        Map<BigDecimal, Long> ordersByPrice = orderedPrices.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        long at40 = ordersByPrice.getOrDefault(new BigDecimal("60.00"), 0L);
+        long at20 = ordersByPrice.getOrDefault(new BigDecimal("80.00"), 0L);
+        assertEquals(16, orderedPrices.size());
+        assertEquals(1, at40);
+        assertTrue(at20 <= 1);
+        // every discount was either priced into exactly one order or is still the user's
+        assertEquals(2, at40 + at20 + discountRepository.count());
+        assertEquals(16 - at40 - at20, ordersByPrice.get(new BigDecimal("100.00")));
+    }
+
+    @Test
+    void createOrder_ShouldLetOnlyOneCheckoutHaveASingleDiscount() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_40);
+        saveDiscounts(otherUserId, RewardType.DISCOUNT_40);
+        oneTimeDiscountService.getBestDiscountPercentage(userId);
+
+        checkoutConcurrently(userId, 16);
+
+        assertEquals(1, orderedPrices.stream().filter(price -> price.compareTo(new BigDecimal("60.00")) == 0).count());
+        assertEquals(List.of(RewardType.DISCOUNT_40), oneTimeDiscountService.getAvailableDiscounts(otherUserId));
+    }
+
+    @Test
+    void createOrder_ShouldGiveTheDiscountBack_WhenTheOrderIsNotCreated() {
+        UUID userId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_20);
+        doThrow(new OrderServiceException("Failed to create order", null)).when(orderServiceFacade).createOrder(any());
+
+        assertThrows(OrderServiceException.class, () -> orderProxyService.createOrder(orderRequest(userId), userId));
+
+        assertEquals(List.of(RewardType.DISCOUNT_20), oneTimeDiscountService.getAvailableDiscounts(userId));
+    }
+
+    @Test
+    void createOrder_ShouldGiveTheDiscountBack_WhenTheOrderServiceRejectsTheOrder() {
+        UUID userId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_20);
+        FeignException rejected = new FeignException.BadRequest("Bad Request", createOrderCall(), null, null);
+        doThrow(new OrderServiceException("Failed to create order", rejected)).when(orderServiceFacade).createOrder(any());
+
+        assertThrows(OrderServiceException.class, () -> orderProxyService.createOrder(orderRequest(userId), userId));
+
+        assertEquals(List.of(RewardType.DISCOUNT_20), oneTimeDiscountService.getAvailableDiscounts(userId));
+        verify(orderServiceFacade, times(1)).countOrdersByUser(userId);
+    }
+
+    @Test
+    void createOrder_ShouldKeepTheDiscountClaimed_WhenTheOrderWasCreatedDespiteTheError() {
+        UUID userId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_20);
+        when(orderServiceFacade.countOrdersByUser(userId)).thenReturn(2L, 3L);
+        FeignException timedOut = new FeignException.GatewayTimeout("Gateway Timeout", createOrderCall(), null, null);
+        doThrow(new OrderServiceException("Failed to create order", timedOut)).when(orderServiceFacade).createOrder(any());
+
+        assertThrows(OrderServiceException.class, () -> orderProxyService.createOrder(orderRequest(userId), userId));
+
+        assertEquals(List.of(), oneTimeDiscountService.getAvailableDiscounts(userId));
+    }
+
+    @Test
+    void pricingAndRedemption_ShouldNotSelectTheDiscount_OnceItIsCached() {
+        UUID userId = UUID.randomUUID();
+        saveDiscounts(userId, RewardType.DISCOUNT_20);
+        oneTimeDiscountService.getBestDiscountPercentage(userId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0.20, oneTimeDiscountService.getBestDiscountPercentage(userId));
+        }
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        RewardType used = oneTimeDiscountService.useBestDiscount(userId);
+
+        assertEquals(RewardType.DISCOUNT_20, used);
+        // the conditional DELETE only
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0.0, oneTimeDiscountService.getBestDiscountPercentage(userId));
+    }
+
+    // ================ Helpers ================
+
+    private void checkoutConcurrently(UUID userId, int checkouts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(checkouts);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < checkouts; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    orderProxyService.createOrder(orderRequest(userId), userId);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CreateOrderRequestDTO orderRequest(UUID userId) {
+        OrderItemRequestDTO item = OrderItemRequestDTO.builder()
+                .productType(ProductType.SAMPLE)
+                .productId(sampleId)
+                .quantity(1)
+                .build();
+        return new CreateOrderRequestDTO(userId, new ArrayList<>(List.of(item)), PaymentMethod.STRIPE,
+                "Some Address", "User Name", "+35988123456");
+    }
+
+    private Request createOrderCall() {
+        return Request.create(Request.HttpMethod.POST, "/api/orders/create", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    private UserNftsResponse noNfts(UUID userId) {
+        UserNftsResponse response = new UserNftsResponse();
+        response.setUserId(userId);
+        response.setNfts(List.of());
+        return response;
+    }
+
+    private void saveDiscounts(UUID userId, RewardType... rewardTypes) {
+        for (RewardType rewardType : rewardTypes) {
+            discountRepository.save(UserDiscount.builder().userId(userId).rewardType(rewardType).build());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package bg.softuni.stylemint.product.common.service.impl;
+
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.model.BonusPointsBalance;
+import bg.softuni.stylemint.product.common.model.BonusPointsEntry;
+import bg.softuni.stylemint.product.common.repository.BonusPointsBalanceRepository;
+import bg.softuni.stylemint.product.common.repository.BonusPointsEntryRepository;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BonusPointsServiceTest {
+
+    @Mock
+    private BonusPointsBalanceRepository balanceRepository;
+
+    @Mock
+    private BonusPointsEntryRepository entryRepository;
+
+    @Mock
+    private ClothDesignRepository clothDesignRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BonusPointsService bonusPointsService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID designId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        bonusPointsService = new BonusPointsService(balanceRepository, entryRepository, clothDesignRepository,
+                transactionManager);
+    }
+
+    @Test
+    void getUserBonusPoints_ShouldReadTheStoredBalance_WithoutLoadingDesigns() {
+        when(balanceRepository.findBalanceByUserId(userId)).thenReturn(Optional.of(120));
+
+        assertEquals(120, bonusPointsService.getUserBonusPoints(userId));
+        verifyNoInteractions(clothDesignRepository);
+    }
+
+    @Test
+    void getUserBonusPoints_ShouldBeZero_WhenTheUserNeverEarnedPoints() {
+        when(balanceRepository.findBalanceByUserId(userId)).thenReturn(Optional.empty());
+
+        assertEquals(0, bonusPointsService.getUserBonusPoints(userId));
+    }
+
+    @Test
+    void adjust_ShouldWriteALedgerEntry_AndIncrementTheBalance() {
+        when(balanceRepository.existsById(userId)).thenReturn(true);
+
+        bonusPointsService.adjust(userId, -20, BonusPointsReason.DESIGN_DELETED, designId);
+
+        ArgumentCaptor<BonusPointsEntry> entry = ArgumentCaptor.forClass(BonusPointsEntry.class);
+        verify(entryRepository).save(entry.capture());
+        assertEquals(userId, entry.getValue().getUserId());
+        assertEquals(-20, entry.getValue().getDelta());
+        assertEquals(BonusPointsReason.DESIGN_DELETED, entry.getValue().getReason());
+        assertEquals(designId, entry.getValue().getReferenceId());
+        verify(balanceRepository).addPoints(userId, -20);
+        verify(balanceRepository, never()).openBalance(any());
+    }
+
+    @Test
+    void adjust_ShouldOpenTheBalance_BeforeTheFirstIncrement() {
+        when(balanceRepository.existsById(userId)).thenReturn(false);
+
+        bonusPointsService.adjust(userId, 30, BonusPointsReason.DESIGN_CREATED, designId);
+
+        InOrder inOrder = inOrder(balanceRepository);
+        inOrder.verify(balanceRepository).openBalance(userId);
+        inOrder.verify(balanceRepository).addPoints(userId, 30);
+    }
+
+    @Test
+    void adjust_ShouldStillIncrement_WhenAConcurrentAdjustmentOpenedTheBalanceFirst() {
+        when(balanceRepository.existsById(userId)).thenReturn(false);
+        when(balanceRepository.openBalance(userId)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        bonusPointsService.adjust(userId, 30, BonusPointsReason.DESIGN_CREATED, designId);
+
+        verify(balanceRepository).addPoints(userId, 30);
+    }
+
+    @Test
+    void adjust_ShouldDoNothing_ForAZeroDelta() {
+        bonusPointsService.adjust(userId, 0, BonusPointsReason.DESIGN_UPDATED, designId);
+
+        verifyNoInteractions(entryRepository, balanceRepository);
+    }
+
+    @Test
+    void reconcileBalances_ShouldBookTheDrift_OfDriftedAndMissingBalances() {
+        UUID withoutBalance = UUID.randomUUID();
+        when(balanceRepository.findDriftedUserIds()).thenReturn(List.of(userId));
+        when(balanceRepository.findUserIdsWithoutBalance()).thenReturn(List.of(withoutBalance));
+        when(balanceRepository.findByUserIdForUpdate(userId))
+                .thenReturn(Optional.of(BonusPointsBalance.builder().userId(userId).balance(70).build()));
+        when(balanceRepository.findByUserIdForUpdate(withoutBalance)).thenReturn(Optional.empty());
+        when(clothDesignRepository.sumBonusPointsByUserId(userId)).thenReturn(50L);
+        when(clothDesignRepository.sumBonusPointsByUserId(withoutBalance)).thenReturn(40L);
+        when(balanceRepository.existsById(userId)).thenReturn(true);
+
+        int corrected = bonusPointsService.reconcileBalances();
+
+        assertEquals(2, corrected);
+        verify(balanceRepository).addPoints(userId, -20);
+        verify(balanceRepository).openBalance(withoutBalance);
+        verify(balanceRepository).addPoints(withoutBalance, 40);
+        verify(entryRepository, times(2)).save(argThat(entry -> entry.getReason() == BonusPointsReason.RECONCILIATION));
+    }
+
+    @Test
+    void reconcileBalances_ShouldLeaveTheBalance_WhenTheDriftWasFixedConcurrently() {
+        when(balanceRepository.findDriftedUserIds()).thenReturn(List.of(userId));
+        when(balanceRepository.findUserIdsWithoutBalance()).thenReturn(List.of());
+        when(balanceRepository.findByUserIdForUpdate(userId))
+                .thenReturn(Optional.of(BonusPointsBalance.builder().userId(userId).balance(50).build()));
+        when(clothDesignRepository.sumBonusPointsByUserId(userId)).thenReturn(50L);
+
+        assertEquals(0, bonusPointsService.reconcileBalances());
+        verify(balanceRepository, never()).addPoints(any(), anyInt());
+        verifyNoInteractions(entryRepository);
+    }
+}
@@ -0,0 +1,174 @@
+package bg.softuni.stylemint.product.common.service.impl;
+
+import bg.softuni.dtos.enums.payment.ProductType;
+import bg.softuni.dtos.order.OrderItemRequestDTO;
+import bg.softuni.stylemint.product.audio.enums.SampleType;
+import bg.softuni.stylemint.product.audio.model.AudioSample;
+import bg.softuni.stylemint.product.audio.model.SamplePack;
+import bg.softuni.stylemint.product.audio.repository.AudioSampleRepository;
+import bg.softuni.stylemint.product.audio.repository.SamplePackRepository;
+import bg.softuni.stylemint.product.common.dto.CartDiscountBreakdownDTO;
+import bg.softuni.stylemint.product.common.dto.DiscountContext;
+import bg.softuni.stylemint.product.common.dto.DiscountInfo;
+import bg.softuni.stylemint.product.common.model.BaseProduct;
+import bg.softuni.stylemint.product.common.service.EnhancedDiscountService;
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cart pricing must load the products of a mixed cart with one query per product type.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ContextConfiguration(classes = CartPricingPerformanceTest.JpaConfig.class)
+class CartPricingPerformanceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = {ClothDesignRepository.class, AudioSampleRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClothDesignRepository clothDesignRepository;
+
+    @Autowired
+    private AudioSampleRepository audioSampleRepository;
+
+    @Autowired
+    private SamplePackRepository samplePackRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UniversalPriceCalculator priceCalculator;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        EnhancedDiscountService discountService = mock(EnhancedDiscountService.class);
+        when(discountService.resolveContext(any())).thenReturn(DiscountContext.anonymous());
+        when(discountService.getDiscountInfo(any(DiscountContext.class), any())).thenAnswer(invocation -> {
+            double price = invocation.<BaseProduct>getArgument(1).getPrice();
+            return DiscountInfo.builder().basePrice(price).finalPrice(price).build();
+        });
+        ProductFetchService productFetchService =
+                new ProductFetchService(clothDesignRepository, audioSampleRepository, samplePackRepository);
+        priceCalculator = new UniversalPriceCalculator(discountService, productFetchService);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void cartBreakdown_ShouldLoadAHundredItemMixedCart_WithAtMostThreeQueries() {
+        List<OrderItemRequestDTO> cart = mixedCart(100);
+
+        entityManager.clear();
+        statistics.clear();
+        CartDiscountBreakdownDTO breakdown = priceCalculator.getCartDiscountBreakdown(UUID.randomUUID(), cart);
+        long queries = statistics.getPrepareStatementCount();
+
+        assertTrue(queries <= 3, "cart pricing used " + queries + " queries");
+        assertEquals(100, breakdown.getItems().size());
+        double expectedTotal = cart.stream()
+                .mapToDouble(item -> switch (item.getProductType()) {
+                    case CLOTHES -> 30.0;
+                    case SAMPLE -> 5.0;
+                    case PACK -> 20.0;
+                } * item.getQuantity())
+                .sum();
+        assertEquals(expectedTotal, breakdown.getCartFinalPrice(), 1e-9);
+    }
+
+    // ================ Helpers ================
+
+    /**
+     * 34 designs, 33 samples and 33 packs, each line a different product
+     */
+    private List<OrderItemRequestDTO> mixedCart(int lines) {
+        List<OrderItemRequestDTO> cart = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            ProductType type = ProductType.values()[i % 3];
+            BaseProduct product = switch (type) {
+                case CLOTHES -> clothDesignRepository.save(design(i));
+                case SAMPLE -> audioSampleRepository.save(sample(i));
+                case PACK -> samplePackRepository.save(pack(i));
+            };
+            cart.add(OrderItemRequestDTO.builder()
+                    .productType(type)
+                    .productId(product.getId())
+                    .quantity(1 + i % 2)
+                    .build());
+        }
+        entityManager.flush();
+        return cart;
+    }
+
+    private ClothDesign design(int index) {
+        return ClothDesign.builder()
+                .userId(UUID.randomUUID())
+                .label("Design " + index)
+                .clothType(ClothType.HOODIE)
+                .customizationType(CustomizationType.SIMPLE)
+                .customizationJson("{\"color\":\"red\"}")
+                .isPublic(true)
+                .bonusPoints(20)
+                .price(30.0)
+                .salesCount(0L)
+                .build();
+    }
+
+    private AudioSample sample(int index) {
+        return AudioSample.builder()
+                .name("Sample " + index)
+                .authorId(UUID.randomUUID())
+                .artist("Producer")
+                .audioUrl("https://cdn/sample" + index + ".wav")
+                .sampleType(SampleType.ONESHOT)
+                .price(5.0)
+                .salesCount(0L)
+                .build();
+    }
+
+    private SamplePack pack(int index) {
+        return SamplePack.builder()
+                .title("Pack " + index)
+                .authorId(UUID.randomUUID())
+                .artist("Producer")
+                .coverImage("cover.png")
+                .price(20.0)
+                .sampleCount(10)
+                .totalSize("100 MB")
+                .description("Description")
+                .salesCount(0L)
+                .build();
+    }
+}
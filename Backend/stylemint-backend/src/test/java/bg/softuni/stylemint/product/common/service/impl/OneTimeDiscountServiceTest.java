@@ -0,0 +1,115 @@
+package bg.softuni.stylemint.product.common.service.impl;
+
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.common.model.UserDiscount;
+import bg.softuni.stylemint.product.common.repository.UserDiscountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OneTimeDiscountServiceTest {
+
+    @Mock
+    private UserDiscountRepository discountRepository;
+
+    private Cache<UUID, List<RewardType>> discountsCache;
+    private OneTimeDiscountService oneTimeDiscountService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        discountsCache = Caffeine.newBuilder().build();
+        oneTimeDiscountService = new OneTimeDiscountService(discountRepository, discountsCache);
+    }
+
+    @Test
+    void getBestDiscountPercentage_ShouldQueryTheDiscountsOnce_ForRepeatedPricing() {
+        when(discountRepository.findRewardTypesByUserId(userId))
+                .thenReturn(List.of(RewardType.DISCOUNT_40, RewardType.DISCOUNT_20));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0.40, oneTimeDiscountService.getBestDiscountPercentage(userId));
+        }
+        assertTrue(oneTimeDiscountService.hasAvailableDiscounts(userId));
+
+        verify(discountRepository, times(1)).findRewardTypesByUserId(userId);
+    }
+
+    @Test
+    void getBestDiscountPercentage_ShouldBeZero_WhenTheUserHasNoDiscount() {
+        when(discountRepository.findRewardTypesByUserId(userId)).thenReturn(List.of());
+
+        assertEquals(0.0, oneTimeDiscountService.getBestDiscountPercentage(userId));
+        assertEquals(0.0, oneTimeDiscountService.getBestDiscountPercentage(userId));
+
+        verify(discountRepository, times(1)).findRewardTypesByUserId(userId);
+    }
+
+    @Test
+    void useBestDiscount_ShouldDeleteTheBestDiscount_WithoutSelectingIt_OnACacheHit() {
+        discountsCache.put(userId, List.of(RewardType.DISCOUNT_40, RewardType.DISCOUNT_20));
+        when(discountRepository.deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_40)).thenReturn(1);
+
+        assertEquals(RewardType.DISCOUNT_40, oneTimeDiscountService.useBestDiscount(userId));
+
+        verify(discountRepository).deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_40);
+        verifyNoMoreInteractions(discountRepository);
+        assertNull(discountsCache.getIfPresent(userId));
+    }
+
+    @Test
+    void useBestDiscount_ShouldLookAgain_WhenTheCachedBestWasClaimedConcurrently() {
+        discountsCache.put(userId, List.of(RewardType.DISCOUNT_40, RewardType.DISCOUNT_20));
+        when(discountRepository.deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_40)).thenReturn(0);
+        when(discountRepository.findRewardTypesByUserId(userId)).thenReturn(List.of(RewardType.DISCOUNT_20));
+        when(discountRepository.deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_20)).thenReturn(1);
+
+        // claimed before pricing, so the order is priced with the 20% it actually got
+        assertEquals(RewardType.DISCOUNT_20, oneTimeDiscountService.useBestDiscount(userId));
+    }
+
+    @Test
+    void useBestDiscount_ShouldGiveUp_WhenEveryAttemptLosesTheRace() {
+        when(discountRepository.findRewardTypesByUserId(userId)).thenReturn(List.of(RewardType.DISCOUNT_40));
+        when(discountRepository.deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_40)).thenReturn(0);
+
+        assertNull(oneTimeDiscountService.useBestDiscount(userId));
+        verify(discountRepository, times(3)).deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_40);
+    }
+
+    @Test
+    void useBestDiscount_ShouldReturnNull_WhenEveryDiscountWasAlreadyUsed() {
+        discountsCache.put(userId, List.of(RewardType.DISCOUNT_20));
+        when(discountRepository.deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_20)).thenReturn(0);
+
+        assertNull(oneTimeDiscountService.useBestDiscount(userId));
+        // looked up again after losing the race, and found nothing left
+        assertEquals(List.of(), discountsCache.getIfPresent(userId));
+        verify(discountRepository, times(1)).deleteByUserIdAndRewardType(userId, RewardType.DISCOUNT_20);
+    }
+
+    @Test
+    void saveDiscount_ShouldEvictTheCachedDiscounts() {
+        discountsCache.put(userId, List.of());
+        when(discountRepository.findByUserIdAndRewardType(userId, RewardType.DISCOUNT_20)).thenReturn(Optional.empty());
+
+        oneTimeDiscountService.saveDiscount(userId, RewardType.DISCOUNT_20);
+
+        verify(discountRepository).save(any(UserDiscount.class));
+        assertNull(discountsCache.getIfPresent(userId));
+    }
+}
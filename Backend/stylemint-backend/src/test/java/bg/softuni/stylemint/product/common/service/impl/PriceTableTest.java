@@ -0,0 +1,42 @@
+package bg.softuni.stylemint.product.common.service.impl;
+
+import bg.softuni.stylemint.game.enums.RewardType;
+import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTableTest {
+
+    private FashionPriceProperties priceProperties;
+    private PriceTable priceTable;
+
+    @BeforeEach
+    void setUp() {
+        priceProperties = new FashionPriceProperties();
+        priceProperties.setBonus(new HashMap<>(Map.of("100", 0.10, "40", 0.05, "20", 0.02, "0", 0.00)));
+        priceTable = new PriceTable(priceProperties);
+    }
+
+    @Test
+    void bonusDiscount_ShouldMatchTheConfiguredTiers_ForEveryPointTotal() {
+        for (int points = -5; points <= 500; points++) {
+            assertEquals(priceProperties.getBonusDiscount(points), priceTable.bonusDiscount(points), "points " + points);
+        }
+    }
+
+    @Test
+    void nftDiscount_ShouldUseTheHighestOwnedNft() {
+        RewardType highest = priceTable.highestNftDiscount(List.of(RewardType.NFT_DISCOUNT_5, RewardType.NFT_DISCOUNT_7));
+
+        assertEquals(RewardType.NFT_DISCOUNT_7, highest);
+        assertEquals(0.07, priceTable.nftDiscount(highest));
+        assertEquals(0.05, priceTable.nftDiscount(priceTable.highestNftDiscount(List.of(RewardType.NFT_DISCOUNT_5))));
+        assertEquals(0.0, priceTable.nftDiscount(priceTable.highestNftDiscount(List.of())));
+    }
+}
@@ -0,0 +1,239 @@
+package bg.softuni.stylemint.product.fashion.repository;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.external.claudinary.CloudinaryService;
+import bg.softuni.stylemint.product.common.repository.BonusPointsBalanceRepository;
+import bg.softuni.stylemint.product.common.repository.BonusPointsEntryRepository;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.model.ClothDesignLike;
+import bg.softuni.stylemint.product.fashion.service.impl.AutoSavedDesignCleanupService;
+import bg.softuni.stylemint.product.fashion.service.impl.DesignRankings;
+import bg.softuni.stylemint.user.model.User;
+import bg.softuni.stylemint.user.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The auto-saved cleanup must delete expired drafts and their likes, and take back their bonus points,
+ * with a fixed number of statements per chunk, committing chunk by chunk. The throughput run uses
+ * {@code -Dcleanup.benchmark=true}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:autosave-cleanup;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = AutoSavedDesignCleanupPerformanceTest.JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AutoSavedDesignCleanupPerformanceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = {ClothDesignRepository.class, UserRepository.class,
+            BonusPointsBalanceRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClothDesignRepository clothDesignRepository;
+
+    @Autowired
+    private ClothDesignLikeRepository likeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BonusPointsBalanceRepository balanceRepository;
+
+    @Autowired
+    private BonusPointsEntryRepository entryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CloudinaryService cloudinaryService;
+    private BonusPointsService bonusPointsService;
+    private ExecutorService assetCleanupExecutor;
+    private Statistics statistics;
+    private User designer;
+
+    @BeforeEach
+    void setUp() {
+        cloudinaryService = mock(CloudinaryService.class);
+        bonusPointsService = new BonusPointsService(balanceRepository, entryRepository, clothDesignRepository,
+                transactionManager);
+        assetCleanupExecutor = Executors.newSingleThreadExecutor();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        designer = user();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assetCleanupExecutor.shutdownNow();
+        likeRepository.deleteAllInBatch();
+        clothDesignRepository.deleteAllInBatch();
+        entryRepository.deleteAllInBatch();
+        balanceRepository.deleteAllInBatch();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void cleanup_ShouldDeleteExpiredDrafts_InChunksOfConstantStatementCount() {
+        List<ClothDesign> expired = saveDesigns(120, true);
+        List<ClothDesign> recentDrafts = saveDesigns(5, true);
+        List<ClothDesign> savedDesigns = saveDesigns(5, false);
+        backdate(expired, 40);
+        backdate(savedDesigns, 40);
+        User fan = user();
+        for (int i = 0; i < expired.size(); i += 10) {
+            like(fan, expired.get(i));
+        }
+        like(fan, savedDesigns.get(0));
+        bonusPointsService.reconcileBalances();
+
+        statistics.clear();
+        AutoSavedDesignCleanupService.CleanupRun run = service(50).cleanup(OffsetDateTime.now().minusDays(30));
+
+        assertTrue(run.completed());
+        assertEquals(120, run.designsDeleted());
+        assertEquals(12, run.likesDeleted());
+        assertEquals(3, run.chunks());
+        assertEquals(60, run.decalsQueued());
+        // select + delete likes + delete designs, then ledger entry, balance check and increment per owner
+        assertEquals(6 * run.chunks(), statistics.getPrepareStatementCount());
+
+        assertEquals(10, clothDesignRepository.count());
+        assertEquals(recentDrafts.size(), clothDesignRepository.findAllById(ids(recentDrafts)).size());
+        assertEquals(savedDesigns.size(), clothDesignRepository.findAllById(ids(savedDesigns)).size());
+        assertEquals(1, likeRepository.count());
+        assertEquals(10 * 20, bonusPointsService.getUserBonusPoints(designer.getId()));
+    }
+
+    /**
+     * Deletes 200k expired drafts, 10% liked and half with a decal, on H2.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "cleanup.benchmark", matches = "true")
+    void cleanupThroughput() {
+        int drafts = 200_000;
+        jdbcTemplate.update("""
+                INSERT INTO cloth_designs (id, created_at, updated_at, price, sales_count, user_id, cloth_type,
+                                           customization_type, customization_json, label, bonus_points, is_public,
+                                           custom_decal_path, auto_saved, likes_count)
+                SELECT RANDOM_UUID(), ?, ?, 29.99, 0, ?, 'T_SHIRT_SPORT', 0, '{}', 'Draft ' || X, 20, FALSE,
+                       CASEWHEN(MOD(X, 2) = 0, 'https://res.cloudinary.com/demo/image/upload/v1/decal' || X || '.png', NULL),
+                       TRUE, 0
+                FROM SYSTEM_RANGE(1, ?)
+                """, Timestamp.from(OffsetDateTime.now().minusDays(40).toInstant()),
+                Timestamp.from(OffsetDateTime.now().minusDays(40).toInstant()), designer.getId(), drafts);
+        User fan = user();
+        jdbcTemplate.update("""
+                INSERT INTO cloth_design_likes (id, user_id, cloth_design_id, created_at)
+                SELECT RANDOM_UUID(), ?, id, CURRENT_TIMESTAMP
+                FROM cloth_designs WHERE MOD(CAST(SUBSTRING(label, 7) AS INT), 10) = 0
+                """, fan.getId());
+
+        AutoSavedDesignCleanupService.CleanupRun run = service(1_000).cleanup(OffsetDateTime.now().minusDays(30));
+
+        Benchmarks.report("Auto-saved cleanup: %,d designs and %,d likes in %d chunks, %,d ms (%,.0f designs/s)",
+                run.designsDeleted(), run.likesDeleted(), run.chunks(), run.elapsed().toMillis(), run.designsPerSecond());
+        assertTrue(run.completed());
+        assertEquals(drafts, run.designsDeleted());
+        assertEquals(0, clothDesignRepository.count());
+    }
+
+    // ================ Helpers ================
+
+    private AutoSavedDesignCleanupService service(int chunkSize) {
+        return new AutoSavedDesignCleanupService(clothDesignRepository, likeRepository, cloudinaryService,
+                mock(DesignRankings.class), bonusPointsService, new TransactionTemplate(transactionManager), assetCleanupExecutor,
+                Duration.ofDays(30), chunkSize, Duration.ofMinutes(15));
+    }
+
+    private List<ClothDesign> saveDesigns(int count, boolean autoSaved) {
+        List<ClothDesign> designs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            designs.add(ClothDesign.builder()
+                    .userId(designer.getId())
+                    .label("Draft " + i)
+                    .clothType(ClothType.T_SHIRT_SPORT)
+                    .customizationType(CustomizationType.SIMPLE)
+                    .customizationJson("{\"color\":\"red\"}")
+                    .customDecalPath(i % 2 == 0 ? "https://res.cloudinary.com/demo/image/upload/v1/decal" + i + ".png" : null)
+                    .isPublic(false)
+                    .autoSaved(autoSaved)
+                    .bonusPoints(20)
+                    .price(29.99)
+                    .salesCount(0L)
+                    .build());
+        }
+        return clothDesignRepository.saveAll(designs);
+    }
+
+    private void backdate(List<ClothDesign> designs, int days) {
+        Timestamp createdAt = Timestamp.from(OffsetDateTime.now().minusDays(days).toInstant());
+        for (ClothDesign design : designs) {
+            jdbcTemplate.update("UPDATE cloth_designs SET created_at = ? WHERE id = ?", createdAt, design.getId());
+        }
+    }
+
+    private void like(User user, ClothDesign design) {
+        likeRepository.save(ClothDesignLike.builder().user(user).clothDesign(design).build());
+    }
+
+    private Collection<UUID> ids(List<ClothDesign> designs) {
+        return designs.stream().map(ClothDesign::getId).toList();
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,71 @@
+package bg.softuni.stylemint.product.fashion.repository;
+
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * likes_count is moved only by addLikes and reconciliation; a design saved with a count it
+ * loaded before a like must not write that count back
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ContextConfiguration(classes = ClothDesignLikesCountRepositoryTest.JpaConfig.class)
+class ClothDesignLikesCountRepositoryTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = ClothDesignRepository.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClothDesignRepository clothDesignRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void entitySave_ShouldNotWriteBackLikesCountLoadedBeforeALike() {
+        ClothDesign design = clothDesignRepository.saveAndFlush(design());
+        entityManager.clear();
+        ClothDesign stale = clothDesignRepository.findById(design.getId()).orElseThrow();
+
+        // Likes land between the load and the save of an edit
+        clothDesignRepository.addLikes(design.getId(), 2);
+        stale.setLabel("Edited");
+        clothDesignRepository.saveAndFlush(stale);
+        entityManager.clear();
+
+        ClothDesign stored = clothDesignRepository.findById(design.getId()).orElseThrow();
+        assertEquals("Edited", stored.getLabel());
+        assertEquals(2L, stored.getLikesCount());
+    }
+
+    // ================ Helpers ================
+
+    private ClothDesign design() {
+        return ClothDesign.builder()
+                .userId(UUID.randomUUID())
+                .label("Design")
+                .clothType(ClothType.T_SHIRT_SPORT)
+                .customizationType(CustomizationType.SIMPLE)
+                .customizationJson("{\"color\":\"red\"}")
+                .isPublic(true)
+                .bonusPoints(20)
+                .price(29.99)
+                .salesCount(0L)
+                .build();
+    }
+}
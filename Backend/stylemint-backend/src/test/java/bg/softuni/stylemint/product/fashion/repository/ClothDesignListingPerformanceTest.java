@@ -0,0 +1,210 @@
+package bg.softuni.stylemint.product.fashion.repository;
+
+import bg.softuni.stylemint.auth.security.SecurityUtil;
+import bg.softuni.stylemint.product.fashion.dto.DesignPublicDTO;
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.service.impl.ClothDesignServiceImpl;
+import bg.softuni.stylemint.product.fashion.service.impl.ClothLikeServiceImpl;
+import bg.softuni.stylemint.product.fashion.service.impl.DesignRankings;
+import bg.softuni.stylemint.user.model.User;
+import bg.softuni.stylemint.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+/**
+ * Public design listing must cost the same number of statements whatever the page size,
+ * with like counts read from likes_count and liked-by-me flags resolved in one IN query.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:design-listing;NON_KEYWORDS=SYSTEM_USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ClothDesignListingPerformanceTest.JpaConfig.class)
+class ClothDesignListingPerformanceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "bg.softuni.stylemint")
+    @EnableJpaRepositories(basePackageClasses = {ClothDesignRepository.class, UserRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ClothDesignRepository clothDesignRepository;
+
+    @Autowired
+    private ClothDesignLikeRepository likeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ClothLikeServiceImpl clothLikeService;
+    private ClothDesignServiceImpl clothDesignService;
+    private Statistics statistics;
+    private MockedStatic<SecurityUtil> securityUtil;
+    private UUID viewerId;
+
+    @BeforeEach
+    void setUp() {
+        clothLikeService = new ClothLikeServiceImpl(likeRepository, clothDesignRepository, mock(DesignRankings.class));
+        clothDesignService = new ClothDesignServiceImpl(clothDesignRepository, null, clothLikeService, null,
+                new ObjectMapper(), null, null, null, null);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        viewerId = user().getId();
+        securityUtil = mockStatic(SecurityUtil.class);
+        securityUtil.when(SecurityUtil::getCurrentUserId).thenAnswer(invocation -> viewerId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtil.close();
+    }
+
+    @Test
+    void publicDesigns_ShouldUseConstantStatementCount() {
+        List<ClothDesign> designs = saveDesigns(60);
+        UUID viewer = viewerId;
+        UUID otherUser = user().getId();
+        for (int i = 0; i < designs.size(); i += 3) {
+            like(viewer, designs.get(i).getId());
+            like(otherUser, designs.get(i).getId());
+        }
+        entityManager.flush();
+
+        long smallPage = statementsFor(() -> clothDesignService.getPublicDesigns(page(5)));
+        long largePage = statementsFor(() -> clothDesignService.getPublicDesigns(page(50)));
+        assertEquals(smallPage, largePage, "getPublicDesigns statements grew with the page size");
+        assertTrue(largePage <= 3, "getPublicDesigns used " + largePage + " statements");
+
+        Page<DesignPublicDTO> page = clothDesignService.getPublicDesigns(page(50));
+        assertEquals(60, page.getTotalElements());
+        for (DesignPublicDTO dto : page.getContent()) {
+            int index = designs.stream().map(ClothDesign::getId).toList().indexOf(dto.getId());
+            boolean liked = index % 3 == 0;
+            assertEquals(liked ? 2L : 0L, dto.getLikesCount());
+            assertEquals(liked, dto.getIsLikedByUser());
+        }
+    }
+
+    @Test
+    void toggleLike_ShouldKeepLikesCountInStep_AndRankingsRebuildFromIt() {
+        UUID designId = saveDesigns(1).get(0).getId();
+
+        like(viewerId, designId);
+        like(viewerId, designId);
+        like(viewerId, designId);
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(1L, clothDesignRepository.findById(designId).orElseThrow().getLikesCount());
+
+        clothDesignRepository.addLikes(designId, 7);
+        assertEquals(1, clothLikeService.reconcileLikesCounts());
+        entityManager.clear();
+        assertEquals(1L, clothDesignRepository.findById(designId).orElseThrow().getLikesCount());
+        assertEquals(0, clothLikeService.reconcileLikesCounts());
+
+        DesignRankings rankings = new DesignRankings(clothDesignRepository, likeRepository,
+                new TransactionTemplate(transactionManager), Duration.ofHours(24));
+        rankings.rebuild();
+        DesignRankings.RankedDesign top = rankings.trending(10).get(0);
+        assertEquals(designId, top.designId());
+        assertEquals(1L, top.likes());
+        assertEquals(1.0, top.trendingScore(), 0.01);
+    }
+
+    // ================ Helpers ================
+
+    private PageRequest page(int size) {
+        return PageRequest.of(0, size, Sort.by("label"));
+    }
+
+    private long statementsFor(Supplier<?> listing) {
+        entityManager.clear();
+        statistics.clear();
+        listing.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void like(UUID userId, UUID designId) {
+        UUID viewer = viewerId;
+        viewerId = userId;
+        try {
+            clothLikeService.toggleLike(designId);
+        } finally {
+            viewerId = viewer;
+        }
+    }
+
+    private List<ClothDesign> saveDesigns(int count) {
+        UUID designerId = user().getId();
+        List<ClothDesign> designs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            designs.add(ClothDesign.builder()
+                    .userId(designerId)
+                    .label(String.format("Design %03d", i))
+                    .clothType(ClothType.T_SHIRT_SPORT)
+                    .customizationType(CustomizationType.SIMPLE)
+                    .customizationJson("{\"color\":\"red\"}")
+                    .isPublic(true)
+                    .bonusPoints(20)
+                    .price(29.99)
+                    .salesCount(0L)
+                    .build());
+        }
+        List<ClothDesign> saved = clothDesignRepository.saveAll(designs);
+        entityManager.flush();
+        return saved;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
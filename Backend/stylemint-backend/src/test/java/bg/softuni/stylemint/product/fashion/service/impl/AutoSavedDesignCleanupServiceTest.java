@@ -1,18 +1,27 @@
 package bg.softuni.stylemint.product.fashion.service.impl;
 
-import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignLikeRepository;
 import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
 import bg.softuni.stylemint.external.claudinary.CloudinaryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class AutoSavedDesignCleanupServiceTest {
@@ -20,10 +29,24 @@ class AutoSavedDesignCleanupServiceTest {
     @Mock
     private ClothDesignRepository designRepo;
 
+    @Mock
+    private ClothDesignLikeRepository likeRepo;
+
     @Mock
     private CloudinaryService cloudinaryService;
 
-    @InjectMocks
+    @Mock
+    private DesignRankings designRankings;
+
+    @Mock
+    private BonusPointsService bonusPointsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ExecutorService assetCleanupExecutor;
+
     private AutoSavedDesignCleanupService cleanupService;
 
     private OffsetDateTime now;
@@ -32,48 +55,118 @@ class AutoSavedDesignCleanupServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         now = OffsetDateTime.now();
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(assetCleanupExecutor).execute(any());
+        cleanupService = service(2, Duration.ofMinutes(15));
     }
 
     @Test
     void cleanupOldAutoSavedDesigns_shouldDeleteOldDesigns() {
         // Arrange
-        OffsetDateTime threshold = OffsetDateTime.now().minusDays(30);
         UUID designId = UUID.randomUUID();
-
-        // Мокваме стария дизайн
-        ClothDesign oldDesign = ClothDesign.builder()
-                .id(designId)
-                .autoSaved(true)
-                .createdAt(threshold.minusDays(1))  // По-стари от 30 дни
-                .customDecalPath("http://cloudinary.com/image.jpg")  // Правилен URL
-                .build();
-
-        List<ClothDesign> oldAutoSavedDesigns = Arrays.asList(oldDesign);
-
-        // Мокваме поведение на репозиториото, за да върне старите дизайни
-        when(designRepo.findByAutoSavedTrueAndCreatedAtBefore(threshold)).thenReturn(oldAutoSavedDesigns);
+        when(designRepo.findAutoSavedChunk(any(), any(), any()))
+                .thenReturn(rows(new Object[]{designId, "http://cloudinary.com/image.jpg", UUID.randomUUID(), 10}));
+        when(designRepo.deleteAllByIds(List.of(designId))).thenReturn(1);
 
         // Act
-        cleanupService.cleanupOldAutoSavedDesigns();  // Извикваме метода
+        cleanupService.cleanupOldAutoSavedDesigns();
 
         // Assert
-        verify(cloudinaryService).deleteFile("http://cloudinary.com/image.jpg");  // Проверяваме дали deleteFile е извикан с правилния URL
-        verify(designRepo).delete(oldDesign);  // Проверяваме дали дизайнът е изтрит от репозиториото
+        ArgumentCaptor<OffsetDateTime> threshold = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(designRepo).findAutoSavedChunk(threshold.capture(), eq(new UUID(0L, 0L)), eq(Pageable.ofSize(2)));
+        assertTrue(threshold.getValue().isBefore(now.minusDays(30).plusMinutes(1)));
+        assertTrue(threshold.getValue().isAfter(now.minusDays(30).minusMinutes(1)));
+        verify(likeRepo).deleteByClothDesignIds(List.of(designId));
+        verify(designRepo).deleteAllByIds(List.of(designId));
+        verify(cloudinaryService).deleteFiles(List.of("http://cloudinary.com/image.jpg"));
+        verifyNoInteractions(designRankings);
     }
 
-
-
     @Test
     void cleanupOldAutoSavedDesigns_shouldDoNothingIfNoOldDesigns() {
         // Arrange
-        OffsetDateTime threshold = now.minusDays(30);
-        when(designRepo.findByAutoSavedTrueAndCreatedAtBefore(threshold)).thenReturn(Arrays.asList());
+        when(designRepo.findAutoSavedChunk(any(), any(), any())).thenReturn(List.of());
 
         // Act
         cleanupService.cleanupOldAutoSavedDesigns();
 
         // Assert
-        verify(cloudinaryService, never()).deleteFile(anyString());
-        verify(designRepo, never()).delete(any(ClothDesign.class));
+        verify(cloudinaryService, never()).deleteFiles(any());
+        verify(likeRepo, never()).deleteByClothDesignIds(any());
+        verify(designRepo, never()).deleteAllByIds(any());
+    }
+
+    @Test
+    void cleanup_ShouldWalkChunksByKeyset_AndBatchDecalsPerChunk() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        UUID owner = UUID.randomUUID();
+        UUID otherOwner = UUID.randomUUID();
+        OffsetDateTime threshold = now.minusDays(30);
+        when(designRepo.findAutoSavedChunk(threshold, new UUID(0L, 0L), Pageable.ofSize(2)))
+                .thenReturn(rows(new Object[]{first, "https://cdn/upload/a.png", owner, 20},
+                        new Object[]{second, null, owner, 50}));
+        when(designRepo.findAutoSavedChunk(threshold, second, Pageable.ofSize(2)))
+                .thenReturn(rows(new Object[]{third, "https://cdn/upload/c.png", otherOwner, 20}));
+        when(designRepo.deleteAllByIds(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+        when(likeRepo.deleteByClothDesignIds(List.of(first, second))).thenReturn(4);
+
+        AutoSavedDesignCleanupService.CleanupRun run = cleanupService.cleanup(threshold);
+
+        assertEquals(3, run.designsDeleted());
+        assertEquals(4, run.likesDeleted());
+        assertEquals(2, run.decalsQueued());
+        assertEquals(2, run.chunks());
+        assertTrue(run.completed());
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(cloudinaryService).deleteFiles(List.of("https://cdn/upload/a.png"));
+        verify(cloudinaryService).deleteFiles(List.of("https://cdn/upload/c.png"));
+        verify(designRankings).removed(first);
+        verify(designRankings).removed(second);
+        verify(designRankings, never()).removed(third);
+        verify(bonusPointsService).adjust(owner, -70, BonusPointsReason.DESIGN_DELETED, null);
+        verify(bonusPointsService).adjust(otherOwner, -20, BonusPointsReason.DESIGN_DELETED, null);
+    }
+
+    @Test
+    void cleanup_ShouldStopAtTimeBudget_AndLeaveTheRestForTheNextRun() {
+        cleanupService = service(2, Duration.ZERO);
+
+        AutoSavedDesignCleanupService.CleanupRun run = cleanupService.cleanup(now.minusDays(30));
+
+        assertFalse(run.completed());
+        assertEquals(0, run.chunks());
+        verify(designRepo, never()).findAutoSavedChunk(any(), any(), any());
+    }
+
+    @Test
+    void cleanup_ShouldStopTheRun_WhenAChunkFails() {
+        when(designRepo.findAutoSavedChunk(any(), any(), any()))
+                .thenReturn(rows(new Object[]{UUID.randomUUID(), null, UUID.randomUUID(), 10},
+                        new Object[]{UUID.randomUUID(), null, UUID.randomUUID(), 10}));
+        when(designRepo.deleteAllByIds(anyList())).thenThrow(new IllegalStateException("lock wait timeout"));
+
+        AutoSavedDesignCleanupService.CleanupRun run = cleanupService.cleanup(now.minusDays(30));
+
+        assertFalse(run.completed());
+        assertEquals(0, run.designsDeleted());
+        verify(transactionTemplate, times(1)).execute(any());
+        verifyNoInteractions(assetCleanupExecutor);
+    }
+
+    // ================ Helpers ================
+
+    private AutoSavedDesignCleanupService service(int chunkSize, Duration timeBudget) {
+        return new AutoSavedDesignCleanupService(designRepo, likeRepo, cloudinaryService, designRankings,
+                bonusPointsService, transactionTemplate, assetCleanupExecutor, Duration.ofDays(30), chunkSize, timeBudget);
+    }
+
+    private List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
     }
 }
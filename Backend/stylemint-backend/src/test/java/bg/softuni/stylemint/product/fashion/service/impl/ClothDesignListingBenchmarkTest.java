@@ -0,0 +1,171 @@
+package bg.softuni.stylemint.product.fashion.service.impl;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.fashion.enums.ClothType;
+import bg.softuni.stylemint.product.fashion.enums.CustomizationType;
+import bg.softuni.stylemint.product.fashion.model.ClothDesign;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import bg.softuni.stylemint.product.fashion.service.ClothLikeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * CPU time and allocation per public listing request (50 designs, ~4 KB customization each, serialized to JSON),
+ * parsing every customization document into a tree versus passing the stored JSON through.
+ * Run with {@code -Ddesign.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "design.benchmark", matches = "true")
+class ClothDesignListingBenchmarkTest {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int REQUESTS = 2_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void listingCpuAndAllocation_ParsedVersusPassThrough() throws Exception {
+        List<ClothDesign> designs = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            designs.add(design(i));
+        }
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE);
+        Page<ClothDesign> page = new PageImpl<>(designs, pageable, 1_000);
+
+        ClothDesignRepository repository = mock(ClothDesignRepository.class);
+        ClothLikeService likeService = mock(ClothLikeService.class);
+        when(repository.findByIsPublicTrue(pageable)).thenReturn(page);
+        when(likeService.getLikedDesignIds(any())).thenReturn(Set.of());
+        ClothDesignServiceImpl service = new ClothDesignServiceImpl(repository, null, likeService, null,
+                objectMapper, null, null, null, null);
+
+        Supplier<byte[]> parsed = () -> serialize(page.map(this::parsedItem));
+        Supplier<byte[]> passThrough = () -> serialize(service.getPublicDesigns(pageable));
+
+        JsonNode parsedBody = objectMapper.readTree(parsed.get()).get("content");
+        JsonNode passThroughBody = objectMapper.readTree(passThrough.get()).get("content");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            assertEquals(parsedBody.get(i).get("customizationData"), passThroughBody.get(i).get("customizationData"),
+                    "both paths must send the same customization document");
+        }
+
+        double[] parsedCost = measure(parsed);
+        double[] passThroughCost = measure(passThrough);
+        Benchmarks.report("Public listing (%d designs, %,d B customization each): parsed %.0f µs CPU / %.0f KB per request, "
+                        + "pass-through %.0f µs CPU / %.0f KB per request",
+                PAGE_SIZE, designs.get(0).getCustomizationJson().length(),
+                parsedCost[0], parsedCost[1], passThroughCost[0], passThroughCost[1]);
+
+        assertTrue(passThroughCost[1] < parsedCost[1]);
+    }
+
+    // ================ Helpers ================
+
+    /**
+     * CPU microseconds and allocated kilobytes per call, on the current thread, after warm-up
+     */
+    private double[] measure(Supplier<byte[]> request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.get();
+        }
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long allocatedStart = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REQUESTS; i++) {
+            request.get();
+        }
+        double cpuMicros = (threads.getCurrentThreadCpuTime() - cpuStart) / 1_000.0 / REQUESTS;
+        double allocatedKb = (threads.getThreadAllocatedBytes(threadId) - allocatedStart) / 1_024.0 / REQUESTS;
+        return new double[]{cpuMicros, allocatedKb};
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The listing item as it was built before pass-through: the customization parsed into a tree per design
+     */
+    private ParsedItem parsedItem(ClothDesign design) {
+        try {
+            return new ParsedItem(design.getId(), design.getLabel(), design.getClothType(),
+                    design.getCustomizationType(), "/api/v1/designs/" + design.getId() + "/preview",
+                    design.getIsPublic(), design.getPrice(), design.getBonusPoints(), design.getSalesCount(),
+                    design.getLikesCount(), design.getCreatedAt(), false,
+                    objectMapper.readTree(design.getCustomizationJson()), design.getCustomDecalPath());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ParsedItem(UUID id, String label, ClothType clothType, CustomizationType customizationType,
+                              String previewImageUrl, boolean isPublic, Double price, Integer bonusPoints,
+                              Long salesCount, Long likesCount, java.time.OffsetDateTime createdAt,
+                              Boolean isLikedByUser, JsonNode customizationData, String customDecalUrl) {
+    }
+
+    private ClothDesign design(int index) {
+        return ClothDesign.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .label("Design " + index)
+                .clothType(ClothType.T_SHIRT_SPORT)
+                .customizationType(CustomizationType.ADVANCED)
+                .customizationJson(customization(index))
+                .isPublic(true)
+                .bonusPoints(20)
+                .price(29.99)
+                .salesCount(0L)
+                .likesCount(3L)
+                .build();
+    }
+
+    /**
+     * Advanced-editor document: colour, decal, camera and a layer list, about 4 KB
+     */
+    private String customization(int seed) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("page", "advanced");
+        root.put("selectedColor", "#1f2a44");
+        root.put("selectedDecal", "decal-" + seed);
+        root.put("rotationY", 0.35);
+        root.put("hasCustomDecal", true);
+        root.putArray("decalPosition").add(0.02).add(0.11).add(0.15);
+        ArrayNode layers = root.putArray("layers");
+        for (int i = 0; i < 24; i++) {
+            ObjectNode layer = layers.addObject();
+            layer.put("id", "layer-" + seed + "-" + i);
+            layer.put("type", i % 2 == 0 ? "text" : "image");
+            layer.put("content", "Layer content number " + i);
+            layer.put("fontFamily", "Inter");
+            layer.put("opacity", 0.9);
+            layer.putArray("position").add(i * 0.01).add(0.2).add(0.15);
+            layer.putArray("scale").add(1.0).add(1.0).add(1.0);
+        }
+        return root.toString();
+    }
+}
@@ -4,6 +4,8 @@ import bg.softuni.stylemint.auth.security.SecurityUtil;
 import bg.softuni.stylemint.common.exception.ForbiddenOperationException;
 import bg.softuni.stylemint.external.claudinary.CloudinaryService;
 import bg.softuni.stylemint.product.common.service.PriceCalculatorService;
+import bg.softuni.stylemint.product.common.enums.BonusPointsReason;
+import bg.softuni.stylemint.product.common.service.impl.BonusPointsService;
 import bg.softuni.stylemint.product.fashion.config.FashionPriceProperties;
 import bg.softuni.stylemint.product.fashion.dto.*;
 import bg.softuni.stylemint.product.fashion.enums.ClothType;
@@ -23,6 +25,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
@@ -53,8 +56,8 @@ class ClothDesignServiceImplTest {
     @Mock
     private CloudinaryService cloudinaryService;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @Mock
     private UserRolesService userRolesService;
@@ -62,6 +65,12 @@ class ClothDesignServiceImplTest {
     @Mock
     private FashionPriceProperties priceProperties;
 
+    @Mock
+    private DesignRankings designRankings;
+
+    @Mock
+    private BonusPointsService bonusPointsService;
+
     @InjectMocks
     private ClothDesignServiceImpl clothDesignService;
 
@@ -120,6 +129,7 @@ class ClothDesignServiceImplTest {
             assertEquals(designId, result.getId());
             verify(clothDesignRepository).save(clothDesignCaptor.capture());
             verify(userRolesService).addRoleToUser(userId, UserRole.DESIGNER);
+            verify(bonusPointsService).adjust(userId, 20, BonusPointsReason.DESIGN_CREATED, designId);
 
             ClothDesign savedDesign = clothDesignCaptor.getValue();
             assertEquals(userId, savedDesign.getUserId());
@@ -206,6 +216,8 @@ class ClothDesignServiceImplTest {
             // Assert
             verify(clothDesignRepository).delete(design);
             verify(clothLikeService).deleteAllLikesForDesign(designId);
+            verify(designRankings).removed(designId);
+            verify(bonusPointsService).adjust(userId, -20, BonusPointsReason.DESIGN_DELETED, designId);
         }
     }
 
@@ -245,8 +257,8 @@ class ClothDesignServiceImplTest {
     @Test
     void getDesignById_ShouldReturnDesignDetailDTO() {
         // Arrange
+        design.setLikesCount(10L);
         when(clothDesignRepository.findById(designId)).thenReturn(Optional.of(design));
-        when(clothLikeService.getLikesCount(designId)).thenReturn(10L);
 
         // Act
         DesignDetailDTO result = clothDesignService.getDesignById(designId);
@@ -254,6 +266,8 @@ class ClothDesignServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(designId, result.getId());
+        assertEquals(10L, result.getLikesCount());
+        verify(clothLikeService, never()).getLikesCount(any());
     }
 
     @Test
@@ -271,7 +285,6 @@ class ClothDesignServiceImplTest {
         // Arrange
         List<ClothDesign> designs = Arrays.asList(design);
         when(clothDesignRepository.findUserNonAutosaveDesigns(userId)).thenReturn(designs);
-        when(clothLikeService.getLikesCount(designId)).thenReturn(5L);
 
         // Act
         List<DesignDetailDTO> result = clothDesignService.getUserDesigns(userId);
@@ -285,17 +298,96 @@ class ClothDesignServiceImplTest {
     void getPublicDesigns_ShouldReturnPageOfDesigns() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<ClothDesign> designPage = new PageImpl<>(Arrays.asList(design));
-        when(clothDesignRepository.findByIsPublicTrue( pageable)).thenReturn(designPage);
-        when(clothLikeService.getLikesCount(designId)).thenReturn(5L);
-        when(clothLikeService.isLikedByUser(designId)).thenReturn(false);
+        ClothDesign other = ClothDesign.builder().id(UUID.randomUUID()).isPublic(true).likesCount(2L).build();
+        design.setLikesCount(5L);
+        Page<ClothDesign> designPage = new PageImpl<>(Arrays.asList(design, other));
+        when(clothDesignRepository.findByIsPublicTrue(pageable)).thenReturn(designPage);
+        when(clothLikeService.getLikedDesignIds(List.of(designId, other.getId()))).thenReturn(Set.of(designId));
 
         // Act
         Page<DesignPublicDTO> result = clothDesignService.getPublicDesigns(pageable);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.getTotalElements());
+        assertEquals(2, result.getTotalElements());
+        assertEquals(5L, result.getContent().get(0).getLikesCount());
+        assertTrue(result.getContent().get(0).getIsLikedByUser());
+        assertEquals(2L, result.getContent().get(1).getLikesCount());
+        assertFalse(result.getContent().get(1).getIsLikedByUser());
+        verify(clothLikeService, never()).getLikesCount(any());
+        verify(clothLikeService, never()).isLikedByUser(any());
+    }
+
+    @Test
+    void getPublicDesigns_ShouldPassCustomizationJsonThroughUnparsed() throws Exception {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        design.setIsPublic(true);
+        when(clothDesignRepository.findByIsPublicTrue(pageable)).thenReturn(new PageImpl<>(List.of(design)));
+        when(clothLikeService.getLikedDesignIds(List.of(designId))).thenReturn(Set.of());
+
+        // Act
+        Page<DesignPublicDTO> result = clothDesignService.getPublicDesigns(pageable);
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(result.getContent().get(0));
+
+        // Assert
+        assertTrue(json.contains("\"customizationData\":{\"color\":\"red\"}"), json);
+        verifyNoInteractions(objectMapper);
+    }
+
+    @Test
+    void createDesign_WithInvalidCustomizationJson_ShouldRejectBeforeSaving() throws Exception {
+        try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
+            // Arrange
+            securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
+            uploadRequest.setCustomizationJson("{\"color\":");
+
+            // Act & Assert
+            assertThrows(ClothDesignUploadException.class,
+                    () -> clothDesignService.createDesign(uploadRequest, false));
+            verify(clothDesignRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    void createDesign_WithBlankOrTrailingCustomizationJson_ShouldRejectBeforeSaving() {
+        try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
+            // Arrange
+            securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
+
+            for (String invalid : List.of("", "   ", "{\"a\":1} trailing", "{\"a\":1}]", "{\"a\":1}{\"b\":2}")) {
+                uploadRequest.setCustomizationJson(invalid);
+
+                // Act & Assert
+                assertThrows(ClothDesignUploadException.class,
+                        () -> clothDesignService.createDesign(uploadRequest, false), invalid);
+            }
+            verify(clothDesignRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    void repairStoredCustomizationJson_ShouldResetOnlyTheInvalidDocuments() {
+        // Arrange
+        UUID valid = UUID.randomUUID();
+        List<UUID> invalid = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{valid, "{\"color\":\"red\"}"});
+        for (String stored : List.of("", "{\"a\":1} trailing", "{\"a\":1}]", "{\"color\":")) {
+            UUID id = UUID.randomUUID();
+            invalid.add(id);
+            rows.add(new Object[]{id, stored});
+        }
+        when(clothDesignRepository.findCustomizationJsonAfter(isNull(), any())).thenReturn(rows);
+        when(clothDesignRepository.overwriteCustomizationJson(invalid, "{}")).thenReturn(invalid.size());
+
+        // Act
+        int repaired = clothDesignService.repairStoredCustomizationJson();
+
+        // Assert
+        assertEquals(4, repaired);
+        verify(clothDesignRepository).overwriteCustomizationJson(invalid, "{}");
+        verify(clothDesignRepository, times(1)).findCustomizationJsonAfter(any(), any());
     }
 
     @Test
@@ -327,6 +419,24 @@ class ClothDesignServiceImplTest {
             // Assert
             assertTrue(design.getIsPublic());
             verify(clothDesignRepository).save(design);
+            verify(designRankings).visibilityChanged(designId, true);
+        }
+    }
+
+    @Test
+    void publishDesign_ShouldBookTheBonusPointsEarnedByPublishing() {
+        try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
+            // Arrange
+            design.setBonusPoints(0);
+            securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
+            when(clothDesignRepository.findById(designId)).thenReturn(Optional.of(design));
+
+            // Act
+            clothDesignService.publishDesign(designId);
+
+            // Assert
+            assertEquals(20, design.getBonusPoints());
+            verify(bonusPointsService).adjust(userId, 20, BonusPointsReason.DESIGN_PUBLISHED, designId);
         }
     }
 
@@ -344,9 +454,46 @@ class ClothDesignServiceImplTest {
             // Assert
             assertFalse(design.getIsPublic());
             verify(clothDesignRepository).save(design);
+            verify(designRankings).visibilityChanged(designId, false);
         }
     }
 
+    @Test
+    void getTopLikedPublicDesigns_ShouldKeepRankingOrder_AndSkipDesignsNoLongerPublic() {
+        // Arrange
+        design.setIsPublic(true);
+        ClothDesign runnerUp = ClothDesign.builder().id(UUID.randomUUID()).isPublic(true).build();
+        UUID unpublishedId = UUID.randomUUID();
+        when(designRankings.topLiked(10)).thenReturn(List.of(
+                new DesignRankings.RankedDesign(designId, 12, 1.5),
+                new DesignRankings.RankedDesign(unpublishedId, 8, 0.0),
+                new DesignRankings.RankedDesign(runnerUp.getId(), 4, 3.0)));
+        when(clothDesignRepository.findAllByIdInAndIsPublicTrue(List.of(designId, unpublishedId, runnerUp.getId())))
+                .thenReturn(List.of(runnerUp, design));
+
+        // Act
+        List<DesignPublicDTO> result = clothDesignService.getTopLikedPublicDesigns(100);
+
+        // Assert
+        assertEquals(List.of(designId, runnerUp.getId()), result.stream().map(DesignPublicDTO::getId).toList());
+        assertEquals(12L, result.get(0).getLikesCount());
+    }
+
+    @Test
+    void getTrendingPublicDesigns_ShouldReadTrendingRanking() {
+        // Arrange
+        design.setIsPublic(true);
+        when(designRankings.trending(5)).thenReturn(List.of(new DesignRankings.RankedDesign(designId, 3, 2.9)));
+        when(clothDesignRepository.findAllByIdInAndIsPublicTrue(List.of(designId))).thenReturn(List.of(design));
+
+        // Act
+        List<DesignPublicDTO> result = clothDesignService.getTrendingPublicDesigns(5);
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(designRankings, never()).topLiked(anyInt());
+    }
+
     @Test
     void adminDeleteDesign_ShouldDeleteDesign() {
         // Arrange
@@ -357,6 +504,7 @@ class ClothDesignServiceImplTest {
 
         // Assert
         verify(clothDesignRepository).delete(design);
+        verify(bonusPointsService).adjust(userId, -20, BonusPointsReason.DESIGN_DELETED, designId);
     }
 
     @Test
@@ -15,10 +15,12 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +36,9 @@ class ClothLikeServiceImplTest {
     @Mock
     private ClothDesignRepository clothRepository;
 
+    @Mock
+    private DesignRankings designRankings;
+
     @InjectMocks
     private ClothLikeServiceImpl clothLikeService;
 
@@ -53,13 +58,17 @@ class ClothLikeServiceImplTest {
         try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
             // Arrange
             securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
-            when(likeRepository.existsByUserIdAndClothDesignId(userId, designId)).thenReturn(true);
+            OffsetDateTime likedAt = OffsetDateTime.now().minusDays(2);
+            ClothDesignLike like = ClothDesignLike.builder().clothDesign(design).createdAt(likedAt).build();
+            when(likeRepository.findByUserIdAndClothDesignId(userId, designId)).thenReturn(Optional.of(like));
 
             // Act
             clothLikeService.toggleLike(designId);
 
             // Assert
-            verify(likeRepository).deleteByUserIdAndClothDesignId(userId, designId);
+            verify(likeRepository).delete(like);
+            verify(clothRepository).addLikes(designId, -1);
+            verify(designRankings).unliked(designId, likedAt);
             verify(likeRepository, never()).save(any());
         }
     }
@@ -69,15 +78,19 @@ class ClothLikeServiceImplTest {
         try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
             // Arrange
             securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
-            when(likeRepository.existsByUserIdAndClothDesignId(userId, designId)).thenReturn(false);
+            design.setIsPublic(true);
+            when(likeRepository.findByUserIdAndClothDesignId(userId, designId)).thenReturn(Optional.empty());
             when(clothRepository.findById(designId)).thenReturn(Optional.of(design));
+            when(likeRepository.save(any(ClothDesignLike.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
             // Act
             clothLikeService.toggleLike(designId);
 
             // Assert
             verify(likeRepository).save(any(ClothDesignLike.class));
-            verify(likeRepository, never()).deleteByUserIdAndClothDesignId(any(), any());
+            verify(clothRepository).addLikes(designId, 1);
+            verify(clothRepository, never()).addLikes(designId, -1);
+            verify(designRankings).liked(eq(designId), any(OffsetDateTime.class), eq(true));
         }
     }
 
@@ -86,7 +99,6 @@ class ClothLikeServiceImplTest {
         try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
             // Arrange
             securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
-            when(likeRepository.existsByUserIdAndClothDesignId(userId, designId)).thenReturn(false);
             when(clothRepository.findById(designId)).thenReturn(Optional.empty());
 
             // Act & Assert
@@ -94,6 +106,8 @@ class ClothLikeServiceImplTest {
                     () -> clothLikeService.toggleLike(designId));
 
             assertTrue(exception.getMessage().contains("Design not found"));
+            verify(clothRepository, never()).addLikes(any(), anyLong());
+            verifyNoInteractions(designRankings);
         }
     }
 
@@ -160,6 +174,42 @@ class ClothLikeServiceImplTest {
         }
     }
 
+    @Test
+    void getLikedDesignIds_ShouldResolveWholePageInOneQuery() {
+        try (MockedStatic<SecurityUtil> securityUtilMock = mockStatic(SecurityUtil.class)) {
+            // Arrange
+            securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(userId);
+            List<UUID> designIds = Arrays.asList(designId, UUID.randomUUID());
+            when(likeRepository.findLikedDesignIds(userId, designIds)).thenReturn(Set.of(designId));
+
+            // Act
+            Set<UUID> result = clothLikeService.getLikedDesignIds(designIds);
+
+            // Assert
+            assertEquals(Set.of(designId), result);
+            verify(likeRepository, never()).existsByUserIdAndClothDesignId(any(), any());
+        }
+    }
+
+    @Test
+    void getLikedDesignIds_WithEmptyPage_ShouldSkipQuery() {
+        // Act
+        Set<UUID> result = clothLikeService.getLikedDesignIds(List.of());
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(likeRepository);
+    }
+
+    @Test
+    void reconcileLikesCounts_ShouldReturnCorrectedDesigns() {
+        // Arrange
+        when(clothRepository.reconcileLikesCounts()).thenReturn(3);
+
+        // Act & Assert
+        assertEquals(3, clothLikeService.reconcileLikesCounts());
+    }
+
     @Test
     void deleteAllLikesForDesign_ShouldDeleteLikes() {
         // Act
@@ -0,0 +1,191 @@
+package bg.softuni.stylemint.product.fashion.service.impl;
+
+import bg.softuni.stylemint.Benchmarks;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignLikeRepository;
+import bg.softuni.stylemint.product.fashion.repository.ClothDesignRepository;
+import bg.softuni.stylemint.product.fashion.service.impl.DesignRankings.RankedDesign;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DesignRankingsTest {
+
+    @Mock
+    private ClothDesignRepository clothDesignRepository;
+
+    @Mock
+    private ClothDesignLikeRepository likeRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private DesignRankings designRankings;
+
+    private final UUID designA = UUID.randomUUID();
+    private final UUID designB = UUID.randomUUID();
+    private final UUID designC = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(likeRepository.streamLikesSince(any())).thenAnswer(invocation -> Stream.empty());
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenReturn(List.of());
+        designRankings = new DesignRankings(clothDesignRepository, likeRepository, transactionTemplate, Duration.ofHours(24));
+    }
+
+    @Test
+    void topLiked_ShouldOrderByLikes_AndOnlyShowPublicDesigns() {
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenReturn(List.of(
+                new Object[]{designA, 5L, true},
+                new Object[]{designB, 9L, false},
+                new Object[]{designC, 3L, true}));
+        designRankings.rebuild();
+
+        assertEquals(List.of(designA, designC), ids(designRankings.topLiked(10)));
+
+        designRankings.visibilityChanged(designB, true);
+        assertEquals(List.of(designB, designA, designC), ids(designRankings.topLiked(10)));
+        assertEquals(List.of(designB, designA), ids(designRankings.topLiked(2)));
+        assertEquals(9L, designRankings.topLiked(1).get(0).likes());
+    }
+
+    @Test
+    void trending_ShouldFavourRecentLikes_OverOlderButMoreNumerousOnes() {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime fiveDaysAgo = now.minusDays(5);
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenReturn(List.of(
+                new Object[]{designA, 3L, true},
+                new Object[]{designB, 2L, true}));
+        when(likeRepository.streamLikesSince(any())).thenAnswer(invocation -> Stream.of(
+                new Object[]{designA, fiveDaysAgo},
+                new Object[]{designA, fiveDaysAgo},
+                new Object[]{designA, fiveDaysAgo},
+                new Object[]{designB, now},
+                new Object[]{designB, now}));
+        designRankings.rebuild();
+
+        assertEquals(List.of(designA, designB), ids(designRankings.topLiked(10)));
+        List<RankedDesign> trending = designRankings.trending(10);
+        assertEquals(List.of(designB, designA), ids(trending));
+        assertEquals(2.0, trending.get(0).trendingScore(), 0.01);
+        assertEquals(3.0 / 32, trending.get(1).trendingScore(), 0.01);
+    }
+
+    @Test
+    void likeEvents_ShouldUpdateRankingsIncrementally() {
+        designRankings.rebuild();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        designRankings.liked(designA, now, true);
+        designRankings.liked(designA, now, true);
+        designRankings.liked(designB, now, false);
+        designRankings.liked(designC, now, true);
+        assertEquals(List.of(designA, designC), ids(designRankings.topLiked(10)));
+        assertEquals(2L, designRankings.topLiked(1).get(0).likes());
+        assertEquals(2.0, designRankings.trending(1).get(0).trendingScore(), 0.01);
+
+        designRankings.unliked(designA, now);
+        designRankings.unliked(designC, now);
+        assertEquals(List.of(designA), ids(designRankings.topLiked(10)));
+        assertEquals(1L, designRankings.topLiked(1).get(0).likes());
+
+        designRankings.removed(designA);
+        designRankings.unliked(designA, now);
+        assertTrue(designRankings.topLiked(10).isEmpty());
+        assertTrue(designRankings.trending(10).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldReplayEventsThatLandWhileItRuns() {
+        designRankings.rebuild();
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenAnswer(invocation -> {
+            designRankings.liked(designB, OffsetDateTime.now(), true);
+            return List.<Object[]>of(new Object[]{designA, 4L, true});
+        });
+
+        designRankings.rebuild();
+
+        assertEquals(List.of(designA, designB), ids(designRankings.topLiked(10)));
+        assertEquals(List.of(designB, designA), ids(designRankings.trending(10)));
+    }
+
+    @Test
+    void rankings_ShouldLoadLazily_WhenReadBeforeStartupRebuild() {
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenReturn(List.<Object[]>of(new Object[]{designA, 1L, true}));
+
+        assertEquals(List.of(designA), ids(designRankings.topLiked(10)));
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    /**
+     * Top-N latency against a catalog carrying 10M likes: 500k liked designs averaging 20 likes,
+     * with one day of likes (1M) feeding the trending weights. Run with {@code -Drankings.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "rankings.benchmark", matches = "true")
+    void topN_ShouldStaySubMillisecond_At10MLikes() {
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        List<Object[]> designRows = new ArrayList<>();
+        long totalLikes = 0;
+        for (int i = 0; i < 500_000; i++) {
+            UUID id = UUID.randomUUID();
+            long likes = 1 + random.nextInt(39);
+            totalLikes += likes;
+            ids.add(id);
+            designRows.add(new Object[]{id, likes, random.nextInt(10) != 0});
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Object[]> recentLikes = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            recentLikes.add(new Object[]{ids.get(random.nextInt(ids.size())), now.minusSeconds(random.nextInt(86_400))});
+        }
+        when(clothDesignRepository.findLikedDesignRankingRows()).thenReturn(designRows);
+        when(likeRepository.streamLikesSince(any())).thenAnswer(invocation -> recentLikes.stream());
+
+        long start = System.nanoTime();
+        designRankings.rebuild();
+        double rebuildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        // Two queries per run, with a like every tenth run
+        double perQueryMicros = Benchmarks.averageMs(20_000, 20_000, i -> {
+            designRankings.topLiked(50);
+            designRankings.trending(50);
+            if (i % 10 == 0) {
+                designRankings.liked(ids.get(random.nextInt(ids.size())), OffsetDateTime.now(), true);
+            }
+        }) * 1_000 / 2;
+
+        Benchmarks.report("Design rankings: %,d likes over %,d designs, rebuild %.0f ms, top-50 %.1f µs per query",
+                totalLikes, designRows.size(), rebuildMs, perQueryMicros);
+        assertTrue(perQueryMicros < 1_000, "top-50 took " + perQueryMicros + " µs");
+    }
+
+    // ================ Helpers ================
+
+    private List<UUID> ids(List<RankedDesign> ranked) {
+        return ranked.stream().map(RankedDesign::designId).toList();
+    }
+}